@@ -0,0 +1,16 @@
+-- Creates the table IdAllocator reserves Appointment and Customer IDs from, and seeds it past the IDs already in use.
+-- Run once against the scheduler schema, by a user allowed to create tables, before starting this version of the app.
+-- Running it again is safe: the table is only created if it is missing, and the seeds never move a sequence backwards.
+
+CREATE TABLE IF NOT EXISTS ID_SEQUENCES (
+    Sequence_Name VARCHAR(50) NOT NULL PRIMARY KEY,
+    Next_Value INT NOT NULL
+);
+
+INSERT INTO ID_SEQUENCES (Sequence_Name, Next_Value)
+SELECT 'APPOINTMENTS', COALESCE(MAX(Appointment_ID), 0) + 1 FROM APPOINTMENTS
+ON DUPLICATE KEY UPDATE Next_Value = GREATEST(Next_Value, VALUES(Next_Value));
+
+INSERT INTO ID_SEQUENCES (Sequence_Name, Next_Value)
+SELECT 'CUSTOMERS', COALESCE(MAX(Customer_ID), 0) + 1 FROM CUSTOMERS
+ON DUPLICATE KEY UPDATE Next_Value = GREATEST(Next_Value, VALUES(Next_Value));
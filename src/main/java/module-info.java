@@ -2,6 +2,7 @@ module alvin.roe.scheduler {
     requires javafx.controls;
     requires javafx.fxml;
     requires java.sql;
+    requires jdk.management;
 
 
     opens scheduler to javafx.fxml;
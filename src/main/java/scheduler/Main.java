@@ -5,6 +5,9 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 import scheduler.dao.JDBC;
+import scheduler.helper.AuditLog;
+import scheduler.helper.LoginThrottle;
+import scheduler.helper.ReferenceDataCache;
 
 import java.io.IOException;
 
@@ -37,6 +40,9 @@ public class Main extends Application {
 
         launch();
 
+        ReferenceDataCache.stopRefreshing();
+        AuditLog.record("throttle", null, LoginThrottle.metricsSummary());
+        AuditLog.close();
         JDBC.closeConnection();
     }
 }
\ No newline at end of file
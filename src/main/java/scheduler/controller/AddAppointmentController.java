@@ -6,11 +6,10 @@ import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.Node;
 import javafx.scene.control.*;
-import scheduler.dao.CustomerDAO;
+import scheduler.dao.AsyncDAO;
 import scheduler.helper.*;
 import scheduler.model.*;
 import javafx.scene.text.Text;
-import scheduler.dao.AppointmentDAO;
 
 
 
@@ -20,6 +19,7 @@ import java.sql.SQLException;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoField;
 import java.util.Date;
+import java.util.List;
 import java.util.ResourceBundle;
 import java.time.*;
 
@@ -91,6 +91,8 @@ public class AddAppointmentController implements Initializable {
     private boolean validatingData = false;
     /**The Appointment that will eventually be added to the database. It is added by pressing the "save" button, which triggers onSavePressed()*/
     private Appointment newAppointment = new Appointment();
+    /**True while the Appointment is being saved in the background, so pressing save again does not add it twice*/
+    private boolean saving = false;
     //endregion
     //region On Button Pressed Methods
     /**
@@ -109,17 +111,19 @@ public class AddAppointmentController implements Initializable {
      */
     @FXML
     private void onSavePressed() throws SQLException, IOException {
-        if(!validatingData){
-            validatingData = true;
-            newAppointment.setAppointmentID(AppointmentDAO.generateNewID());
-        }
-
-
+        if(saving) return;
+        validatingData = true;
         if(!validateData()) return;
 
-        AppointmentDAO.insert(newAppointment);
-
-        SceneHelper.changeScene(SceneHelper.View.SCHEDULE, titleField, this);
+        //Appointment ID is only taken once the appointment is actually being saved. Both run in the background.
+        saving = true;
+        AsyncDAO.insertNewAppointment(newAppointment).thenAccept(rowsAdded -> {
+            try {
+                SceneHelper.changeScene(SceneHelper.View.SCHEDULE, titleField, this);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }).whenComplete((done, error) -> saving = false).exceptionally(AsyncDAO::printError);
     }
     //endregion
     //region Data Validation
@@ -202,22 +206,17 @@ public class AddAppointmentController implements Initializable {
 
        }
 
-       ObservableList<Appointment> appointmentsWithCustomer = AppointmentDAO.selectAppointmentsByCustomerID(newAppointment.getCustomerID());
-       for(int i = 0; i < appointmentsWithCustomer.size(); i++){
-           if(startDateNumber == 0 || endDateNumber == 0) break;
-
-           long loopAppointmentStart = appointmentsWithCustomer.get(i).getStartDate().getLong(ChronoField.INSTANT_SECONDS);
-           long loopAppointmentEnd = appointmentsWithCustomer.get(i).getEndDate().getLong(ChronoField.INSTANT_SECONDS);
-
-           if((startDateNumber >= loopAppointmentStart && startDateNumber < loopAppointmentEnd) || (endDateNumber >= loopAppointmentStart && endDateNumber <= loopAppointmentEnd)
-           || (startDateNumber <= loopAppointmentStart && endDateNumber >= loopAppointmentEnd)){
+       if(startDateNumber != 0 && endDateNumber != 0){
+           List<AppointmentInterval> overlaps = CustomerScheduleIndex.findOverlaps(newAppointment.getCustomerID(), startDateNumber, endDateNumber, 0);
+           if(!overlaps.isEmpty()){
+               AppointmentInterval overlap = overlaps.get(0);
                Alert overlapAlert = new Alert(Alert.AlertType.WARNING);
                overlapAlert.setTitle("Overlapping Appointment");
-               String startDateString = appointmentsWithCustomer.get(i).getStartDate().format(DateTimeFormatter.ofPattern("MM/dd/yy"));
-               String startTime = appointmentsWithCustomer.get(i).getStartDate().format(DateTimeFormatter.ofPattern("hh:mm a"));
-               String endDateString = appointmentsWithCustomer.get(i).getEndDate().format(DateTimeFormatter.ofPattern("MM/dd/yy"));
-               String endTime = appointmentsWithCustomer.get(i).getEndDate().format(DateTimeFormatter.ofPattern("hh:mm a"));
-               overlapAlert.setContentText("Overlaps with Appointment ID# " + appointmentsWithCustomer.get(i).getAppointmentID() + " which is scheduled " +
+               String startDateString = overlap.getStartDate().format(DateTimeFormatter.ofPattern("MM/dd/yy"));
+               String startTime = overlap.getStartDate().format(DateTimeFormatter.ofPattern("hh:mm a"));
+               String endDateString = overlap.getEndDate().format(DateTimeFormatter.ofPattern("MM/dd/yy"));
+               String endTime = overlap.getEndDate().format(DateTimeFormatter.ofPattern("hh:mm a"));
+               overlapAlert.setContentText("Overlaps with Appointment ID# " + overlap.getAppointmentID() + " which is scheduled " +
                        startDateString + " " + startTime + " to " + endDateString + " " + endTime);
                overlapAlert.showAndWait();
 
@@ -227,9 +226,7 @@ public class AddAppointmentController implements Initializable {
                allErrorControls.add(endDatePicker);
                allErrorControls.add(endHourField);
                allErrorControls.add(endMinuteField);
-               break;
            }
-
        }
 
         //Contact ID
@@ -252,7 +249,6 @@ public class AddAppointmentController implements Initializable {
         newAppointment.setLastUpdate(ZonedDateTime.now());
         newAppointment.setCreatedBy(SessionData.getUserName());
         newAppointment.setLastUpdateBy(SessionData.getUserName());
-        newAppointment.setAppointmentID(AppointmentDAO.generateNewID()); //Appointment ID
 
         return true;
     }
@@ -395,9 +391,10 @@ public class AddAppointmentController implements Initializable {
     public void initialize(URL url, ResourceBundle resourceBundle) {
         contactIDBox.setItems(SessionData.getContacts());
         contactIDBox.getSelectionModel().selectFirst();
-        try {customerIDBox.setItems(CustomerDAO.selectAllCustomers());}
-        catch (SQLException e) {throw new RuntimeException(e);}
-        customerIDBox.getSelectionModel().selectFirst();
+        AsyncDAO.selectAllCustomers().thenAccept(customers -> {
+            customerIDBox.setItems(customers);
+            customerIDBox.getSelectionModel().selectFirst();
+        }).exceptionally(AsyncDAO::printError);
 
         ObservableList<MorningAfternoon> startTOD = FXCollections.observableArrayList();
         startTOD.add(new MorningAfternoon(MorningAfternoon.TimeOfDay.AM));
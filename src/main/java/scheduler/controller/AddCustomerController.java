@@ -7,8 +7,9 @@ import javafx.fxml.Initializable;
 import javafx.scene.Node;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.TextField;
-import scheduler.dao.CustomerDAO;
+import scheduler.dao.AsyncDAO;
 import scheduler.dao.UserDAO;
+import scheduler.helper.GeographyIndex;
 import scheduler.helper.SceneHelper;
 import scheduler.helper.SessionData;
 import scheduler.model.Country;
@@ -48,12 +49,14 @@ public class AddCustomerController implements Initializable {
     private TextField phone;
     //endregion
     //region Other Variables
-    /**A list that holds different lists of First Level Divisions, separated by their respective countries*/
-    private ObservableList<ObservableList<FirstLevelDivision>> allDivisions = FXCollections.observableArrayList();
+    /**Every Country and First Level Division, used to fill the Combo Boxes*/
+    private GeographyIndex geography;
     /**The method validateData will not run if this is false. This is set true after save is pressed the first time.*/
     private boolean validationEnabled = false;
     /**This is the Customer that will eventually be added into the database. It is updated in validateData, which is called by the controls and the save button*/
     Customer newCustomer = new Customer();
+    /**True while the Customer is being saved in the background, so pressing save again does not add it twice*/
+    private boolean saving = false;
     //endregion
 
     /**
@@ -73,12 +76,19 @@ public class AddCustomerController implements Initializable {
      */
     @FXML
     private void onSavePressed() throws IOException, SQLException {
+        if(saving) return;
         validationEnabled = true;
         if(!validateData()) return;
 
-        CustomerDAO.insert(newCustomer);
-
-        SceneHelper.changeScene(SceneHelper.View.CUSTOMER, name, this);
+        //Customer ID is only taken once the customer is actually being saved. Both run in the background.
+        saving = true;
+        AsyncDAO.insertNewCustomer(newCustomer).thenAccept(rowsSaved -> {
+            try {
+                SceneHelper.changeScene(SceneHelper.View.CUSTOMER, name, this);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }).whenComplete((done, error) -> saving = false).exceptionally(AsyncDAO::printError);
     }
 
     /**
@@ -94,9 +104,6 @@ public class AddCustomerController implements Initializable {
         ObservableList<Node> errorNodes = FXCollections.observableArrayList();
         ObservableList<Node> errorFreeNodes = FXCollections.observableArrayList();
 
-        //Customer ID
-        newCustomer.setID(CustomerDAO.generateNewID());
-
         //Customer Name
         if(name.getText().length() == 0)
             errorNodes.add(name);
@@ -171,12 +178,11 @@ public class AddCustomerController implements Initializable {
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
         //Set Country Combo Box
-        ObservableList<Country> countries = SessionData.getAllCountries();
-        country.setItems(countries);
+        geography = SessionData.getGeography();
+        country.setItems(geography.getCountries());
         country.getSelectionModel().selectFirst();
 
         //Set First Level Division Combo Box
-        allDivisions = SessionData.getSeparatedFirstLevelDivisions();
         division.setItems(getSelectedCountryDivisions());
     }
 
@@ -185,12 +191,9 @@ public class AddCustomerController implements Initializable {
      * @return a list of all of the First Level Divisions for the Country currently selected in the combo box.
      */
     private ObservableList<FirstLevelDivision> getSelectedCountryDivisions(){
-        //IDs start at 1, whereas index starts at 0, so 1 needs to be subtracted to get the index
-        int selectedCountryID = ((Country)country.getSelectionModel().getSelectedItem()).getCountryID();
-        for(int i = 0; i < allDivisions.size(); i++){
-            if(allDivisions.get(i).get(0).getCountryID() == selectedCountryID)  return allDivisions.get(i);
-        }
-        return FXCollections.observableArrayList();
+        Country selectedCountry = (Country)country.getSelectionModel().getSelectedItem();
+        if(selectedCountry == null) return FXCollections.observableArrayList();
+        return geography.getDivisions(selectedCountry.getCountryID());
     }
 
     /**
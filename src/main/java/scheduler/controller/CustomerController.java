@@ -1,31 +1,29 @@
 package scheduler.controller;
 
-import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Alert;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
-import scheduler.dao.AppointmentDAO;
-import scheduler.dao.CustomerDAO;
+import scheduler.dao.AsyncDAO;
 import scheduler.helper.AlertHelper;
+import scheduler.helper.RefreshableController;
 import scheduler.helper.SceneHelper;
 import scheduler.helper.SessionData;
-import scheduler.model.Appointment;
 import scheduler.model.Customer;
 
 import java.io.IOException;
 import java.net.URL;
-import java.sql.SQLException;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller for the Customer Form view. A general table showing all customers. Also, can take user to Add Customer view or Update Customer view.
  * It can also allow for users to delete customers.
  * @author Alvin Roe
  */
-public class CustomerController implements Initializable {
+public class CustomerController implements Initializable, RefreshableController {
     /**Table where the customers information is listed*/
     @FXML
     private TableView customerTable;
@@ -81,27 +79,29 @@ public class CustomerController implements Initializable {
     }
     /**
      * Deletes the selected customer if there are no appointments assigned to them. Gives an error if there are appointments assigned to them.
-     * @throws SQLException
+     * The check and the delete run in the background.
      */
     @FXML
-    private void onDeletePressed() throws SQLException {
+    private void onDeletePressed() {
         Customer customer = (Customer) customerTable.getSelectionModel().getSelectedItem();
 
         if(customer == null){
             AlertHelper.showAlert(Alert.AlertType.ERROR, "Error: Nothing Selected", "Nothing Selected", "Please select a customer to delete");
             return;
         }
-        ObservableList<Appointment> customersAppointments = AppointmentDAO.selectAppointmentsByCustomerID(customer.getId());
-
-        if(customersAppointments.size() > 0){
-            AlertHelper.showAlert(Alert.AlertType.ERROR, "Error: Has Appointments", "Customer has Appointments", "Please delete customer's appointments first");
-            return;
-        }
         int customerID = customer.getId();
 
-        CustomerDAO.delete(customerID);
-        customerTable.getItems().remove(customer);
-        AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Delete Successful", "Customer# " + customerID + " Deleted", "Deleted Successfully");
+        AsyncDAO.selectAppointmentsByCustomerID(customerID).thenCompose(customersAppointments -> {
+            if(customersAppointments.size() > 0){
+                AlertHelper.showAlert(Alert.AlertType.ERROR, "Error: Has Appointments", "Customer has Appointments", "Please delete customer's appointments first");
+                return CompletableFuture.completedFuture(0);
+            }
+            return AsyncDAO.deleteCustomer(customerID);
+        }).thenAccept(rowsDeleted -> {
+            if(rowsDeleted == 0) return;
+            customerTable.getItems().remove(customer);
+            AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Delete Successful", "Customer# " + customerID + " Deleted", "Deleted Successfully");
+        }).exceptionally(AsyncDAO::printError);
     }
     /**
      * Runs before everything else when the view is loaded. Sets up the tableview.
@@ -110,17 +110,22 @@ public class CustomerController implements Initializable {
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        try {
-            customerTable.setItems(CustomerDAO.selectAllCustomers());
-            id.setCellValueFactory(new PropertyValueFactory<>("id"));
-            name.setCellValueFactory(new PropertyValueFactory<>("name"));
-            address.setCellValueFactory(new PropertyValueFactory<>("address"));
-            postal.setCellValueFactory(new PropertyValueFactory<>("postal"));
-            phone.setCellValueFactory(new PropertyValueFactory<>("phone"));
-            division.setCellValueFactory(new PropertyValueFactory<>("divisionID"));
+        id.setCellValueFactory(new PropertyValueFactory<>("id"));
+        name.setCellValueFactory(new PropertyValueFactory<>("name"));
+        address.setCellValueFactory(new PropertyValueFactory<>("address"));
+        postal.setCellValueFactory(new PropertyValueFactory<>("postal"));
+        phone.setCellValueFactory(new PropertyValueFactory<>("phone"));
+        division.setCellValueFactory(new PropertyValueFactory<>("divisionID"));
 
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        refresh();
+    }
+
+    /**
+     * Loads the Customers into the table. Called when the view is built and each time the kept view is shown again.
+     */
+    @Override
+    public void refresh() {
+        //The table fills in once the Customers arrive, so the view shows right away
+        AsyncDAO.selectAllCustomers().thenAccept(customerTable::setItems).exceptionally(AsyncDAO::printError);
     }
 }
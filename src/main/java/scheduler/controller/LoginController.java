@@ -8,18 +8,17 @@ import javafx.scene.control.PasswordField;
 import javafx.scene.control.TextField;
 import javafx.scene.text.Text;
 import javafx.stage.Popup;
-import scheduler.dao.UserDAO;
+import scheduler.dao.AsyncDAO;
+import scheduler.helper.AuditLog;
+import scheduler.helper.LoginThrottle;
+import scheduler.helper.ReportAggregates;
 import scheduler.helper.SceneHelper;
+import scheduler.helper.SessionBootstrap;
 import scheduler.helper.SessionData;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.net.URL;
-import java.sql.SQLException;
 import java.time.ZoneId;
-import java.time.ZoneOffset;
-import java.time.ZonedDateTime;
 import java.util.Locale;
 import java.util.ResourceBundle;
 import java.util.logging.Logger;
@@ -56,28 +55,45 @@ public class LoginController implements Initializable {
     private ResourceBundle translator;
     /**
      * Method triggered when the "Login" button is pressed. Will go to next scene if Username and Password match.
-     * @throws SQLException
-     * @throws IOException
+     * Attempts made too quickly are turned away by LoginThrottle before the database is checked. The password is checked
+     * in the background, since hashing it takes a noticeable moment, and the Login button is disabled until it is done.
      */
     @FXML
-    private void onLoginPressed() throws SQLException, IOException {
-        String path = "login_activity.txt";
-        BufferedWriter logger = new BufferedWriter(new FileWriter(path, true));
-        logger.append("Username: " + userName.getText() + " attempted login at: " + ZonedDateTime.now(ZoneOffset.UTC) + " UTC. Result: ");
-
-        if (UserDAO.authenticate(userName.getText(), password.getText())) {
-            logger.append("Login Successful");
-            SceneHelper.changeScene(SceneHelper.View.SCHEDULE, userName, this);
-        }
-        else{
-            logger.append("Login Failed");
-            Alert loginInvalidAlert = new Alert(Alert.AlertType.ERROR);
-            loginInvalidAlert.setTitle(translator.getString("Login_Error"));
-            loginInvalidAlert.setContentText(translator.getString("User_Not_Found"));
-            loginInvalidAlert.showAndWait();
+    private void onLoginPressed() {
+        String enteredName = userName.getText();
+        long waitMillis = LoginThrottle.tryAcquire(enteredName);
+        if (waitMillis > 0) {
+            AuditLog.loginAttempt(enteredName, "throttled");
+            Alert throttledAlert = new Alert(Alert.AlertType.ERROR);
+            throttledAlert.setTitle(translator.getString("Login_Error"));
+            throttledAlert.setContentText(String.format(translator.getString("Too_Many_Attempts"), (waitMillis + 999) / 1000));
+            throttledAlert.showAndWait();
+            return;
         }
-        logger.flush();
-        logger.close();
+
+        loginButton.setDisable(true);
+        AsyncDAO.authenticate(enteredName, password.getText()).thenAccept(authenticated -> {
+            if (authenticated) {
+                LoginThrottle.recordSuccess(enteredName);
+                AuditLog.loginAttempt(enteredName, "success");
+                SessionBootstrap.start(); //Loads the reference data while the Schedule view is being built
+                ReportAggregates.start(); //Builds the report counts once, after that they follow every Appointment write
+                try {
+                    SceneHelper.changeScene(SceneHelper.View.SCHEDULE, userName, this);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+                SceneHelper.preloadViews();
+            }
+            else{
+                LoginThrottle.recordFailure(enteredName);
+                AuditLog.loginAttempt(enteredName, "failure");
+                Alert loginInvalidAlert = new Alert(Alert.AlertType.ERROR);
+                loginInvalidAlert.setTitle(translator.getString("Login_Error"));
+                loginInvalidAlert.setContentText(translator.getString("User_Not_Found"));
+                loginInvalidAlert.showAndWait();
+            }
+        }).whenComplete((done, error) -> loginButton.setDisable(false)).exceptionally(AsyncDAO::printError);
     }
     /**
      * Changes text based on language setting and shows Zone ID.
@@ -1,6 +1,5 @@
 package scheduler.controller;
 
-import javafx.beans.binding.Bindings;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -13,28 +12,49 @@ import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.util.Callback;
 import scheduler.dao.AppointmentDAO;
+import scheduler.dao.AsyncDAO;
 import scheduler.dao.CustomerDAO;
-import scheduler.helper.MonthCount;
+import scheduler.helper.AppointmentColumns;
+import scheduler.helper.AppointmentColumnsCache;
+import scheduler.helper.AppointmentCube;
+import scheduler.helper.AppointmentRow;
+import scheduler.helper.FixedValue;
+import scheduler.helper.LoginActivityCount;
+import scheduler.helper.LoginActivityIndex;
+import scheduler.helper.OverlapAudit;
+import scheduler.helper.PivotRow;
+import scheduler.helper.RankedRow;
+import scheduler.helper.RefreshableController;
+import scheduler.helper.ReportAggregates;
+import scheduler.helper.ReportAggregator;
 import scheduler.helper.SceneHelper;
 import scheduler.helper.SessionData;
-import scheduler.helper.TypeCount;
-import scheduler.model.Appointment;
+import scheduler.helper.TopK;
 import scheduler.model.Contact;
 import scheduler.model.Customer;
 
 import java.io.IOException;
 import java.net.URL;
 import java.sql.SQLException;
-import java.time.Month;
-import java.time.format.DateTimeFormatter;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
 
 /**
  * Controller for the Report View
  * @author Alvin Roe
  */
 
-public class ReportController implements Initializable{
+public class ReportController implements Initializable, RefreshableController {
     //region Variables
     /**Reference to Combo Box. Used dynamically based on reportType (which is changed by switching radiobuttons)*/
     @FXML
@@ -48,6 +68,24 @@ public class ReportController implements Initializable{
     /**Reference for the Radio Button that changes the reportType to CONTACT_SCHEDULE*/
     @FXML
     private RadioButton contactScheduleRadioButton;
+    /**Reference for the Radio Button that changes the reportType to LOGIN_ACTIVITY*/
+    @FXML
+    private RadioButton loginActivityRadio;
+    /**Reference for the Radio Button that changes the reportType to PIVOT*/
+    @FXML
+    private RadioButton pivotRadio;
+    /**Reference for the Radio Button that changes the reportType to STATISTICS*/
+    @FXML
+    private RadioButton statisticsRadio;
+    /**Reference for the Radio Button that changes the reportType to TOP_K*/
+    @FXML
+    private RadioButton topKRadio;
+    /**Reference for the Radio Button that changes the reportType to OVERLAP_AUDIT*/
+    @FXML
+    private RadioButton overlapAuditRadio;
+    /**Reference to the second Combo Box. Used by the Pivot and Statistics reports to choose the year, and by the Top 20 report to choose the period*/
+    @FXML
+    private ComboBox<Object> comboBoxTwo;
     /**Reference for the Table View to display the report data*/
     @FXML
     private TableView reportTableView;
@@ -72,13 +110,55 @@ public class ReportController implements Initializable{
     /**Reference for table column to display report data*/
     @FXML
     private TableColumn columnSeven;
-    /**List of all appointments in database, initialized in the Initialize method*/
-    private ObservableList<Appointment> appointments = FXCollections.observableArrayList();
+    /**The columns of the table as laid out in the view. The Pivot report replaces them, and they are put back for the other reports.*/
+    private List<TableColumn<?, ?>> originalColumns;
     /**Each enum state represents a different Radio Button/Report*/
-    private enum ReportType {NONE, COUNT_APPOINTMENTS, CONTACT_SCHEDULE, CUSTOMER_APPOINTMENTS}
+    private enum ReportType {NONE, COUNT_APPOINTMENTS, CONTACT_SCHEDULE, CUSTOMER_APPOINTMENTS, LOGIN_ACTIVITY, PIVOT, STATISTICS, TOP_K, OVERLAP_AUDIT}
     private ReportType reportType = ReportType.NONE;
-    /**Common date time formatter used*/
-    private DateTimeFormatter dateTimeFormat = DateTimeFormatter.ofPattern("MM/dd/yy hh:mm a");
+    /**Radio Button for each reportType*/
+    private final Map<ReportType, RadioButton> radioButtons = new EnumMap<>(ReportType.class);
+    /**Combo box choice for the Login Activity report that counts every username*/
+    private static final String ALL_USERS = "All Users";
+    /**How far back the Login Activity report looks*/
+    private static final int LOGIN_HISTORY_DAYS = 365;
+    /**Combo box choice for the Pivot report that counts every year*/
+    private static final String ALL_YEARS = "All Years";
+    /**Combo box choice for the Statistics report that shows duration percentiles*/
+    private static final String DURATIONS = "Appointment Durations";
+    /**Combo box choice for the Statistics report that shows distinct Customers of each Contact*/
+    private static final String DISTINCT_CUSTOMERS = "Distinct Customers";
+    /**How many Contacts or Customers the Top 20 report shows*/
+    private static final int TOP_K = 20;
+    /**Combo box choice for the Top 20 report that ranks Contacts by booked hours*/
+    private static final String TOP_CONTACTS_BY_HOURS = "Contacts by Booked Hours";
+    /**Combo box choice for the Top 20 report that ranks Customers by booked hours*/
+    private static final String TOP_CUSTOMERS_BY_HOURS = "Customers by Booked Hours";
+    /**Combo box choice for the Top 20 report that ranks Contacts by Appointments*/
+    private static final String TOP_CONTACTS_BY_COUNT = "Contacts by Appointments";
+    /**Combo box choice for the Top 20 report that ranks Customers by Appointments*/
+    private static final String TOP_CUSTOMERS_BY_COUNT = "Customers by Appointments";
+    /**Combo box choice for the Top 20 report's period that covers the current quarter*/
+    private static final String THIS_QUARTER = "This Quarter";
+    /**Combo box choice for the Top 20 report's period that covers the current year*/
+    private static final String THIS_YEAR = "This Year";
+    /**Combo box choice for the Top 20 report's period that covers every Appointment*/
+    private static final String ALL_TIME = "All Time";
+    /**Combo box choice for the Overlap Audit report that checks each Customer's Appointments*/
+    private static final String BY_CUSTOMER = "By Customer";
+    /**Combo box choice for the Overlap Audit report that checks each Contact's Appointments*/
+    private static final String BY_CONTACT = "By Contact";
+    /**Combo box choices for the Pivot report, with the row and column dimension of each*/
+    private static final Map<String, AppointmentCube.Dimension[]> PIVOTS = new LinkedHashMap<>();
+    static {
+        PIVOTS.put("Type by Month", new AppointmentCube.Dimension[]{AppointmentCube.Dimension.TYPE, AppointmentCube.Dimension.MONTH});
+        PIVOTS.put("Contact by Month", new AppointmentCube.Dimension[]{AppointmentCube.Dimension.CONTACT, AppointmentCube.Dimension.MONTH});
+        PIVOTS.put("Customer by Month", new AppointmentCube.Dimension[]{AppointmentCube.Dimension.CUSTOMER, AppointmentCube.Dimension.MONTH});
+        PIVOTS.put("User by Month", new AppointmentCube.Dimension[]{AppointmentCube.Dimension.USER, AppointmentCube.Dimension.MONTH});
+        PIVOTS.put("Contact by Type", new AppointmentCube.Dimension[]{AppointmentCube.Dimension.CONTACT, AppointmentCube.Dimension.TYPE});
+        PIVOTS.put("Customer by Type", new AppointmentCube.Dimension[]{AppointmentCube.Dimension.CUSTOMER, AppointmentCube.Dimension.TYPE});
+        PIVOTS.put("User by Type", new AppointmentCube.Dimension[]{AppointmentCube.Dimension.USER, AppointmentCube.Dimension.TYPE});
+        PIVOTS.put("Customer by Contact", new AppointmentCube.Dimension[]{AppointmentCube.Dimension.CUSTOMER, AppointmentCube.Dimension.CONTACT});
+    }
     //endregion
 
     /**
@@ -90,6 +170,8 @@ public class ReportController implements Initializable{
         ObservableList<String> comboBoxItems = FXCollections.observableArrayList();
         comboBoxItems.add("Type");
         comboBoxItems.add("Month");
+        comboBoxItems.add("Contact");
+        comboBoxItems.add("Customer");
         setComboBox(comboBoxOne, comboBoxItems, "Count by...");
     }
     /**
@@ -106,9 +188,11 @@ public class ReportController implements Initializable{
      * Triggered when the radio button is changed to Customer Schedule. Sets up combo box with correct data.
      */
     @FXML
-    private void onCustomerSchedule() throws SQLException {
+    private void onCustomerSchedule() {
         toggleRadioButton(ReportType.CUSTOMER_APPOINTMENTS);
-        setComboBox(comboBoxOne, CustomerDAO.selectAllCustomers(), "Choose a Customer");
+        AsyncDAO.selectAllCustomers().thenAccept(customers -> {
+            if(reportType == ReportType.CUSTOMER_APPOINTMENTS) setComboBox(comboBoxOne, customers, "Choose a Customer");
+        }).exceptionally(AsyncDAO::printError);
 
         columnOne.setText("Appointment ID");
         columnTwo.setText("Start");
@@ -116,6 +200,98 @@ public class ReportController implements Initializable{
         columnFour.setText("Contact ID");
     }
 
+    /**
+     * Triggered when the radio button is changed to Login Activity. Brings the login history index up to date in the
+     * background, then fills the combo box with every username found in the history.
+     */
+    @FXML
+    private void onLoginActivity(){
+        toggleRadioButton(ReportType.LOGIN_ACTIVITY);
+        comboBoxOne.setDisable(true);
+
+        AsyncDAO.read(() -> {
+            LoginActivityIndex.refresh();
+            ObservableList<String> comboBoxItems = FXCollections.observableArrayList();
+            comboBoxItems.add(ALL_USERS);
+            comboBoxItems.addAll(LoginActivityIndex.getUserNames());
+            return comboBoxItems;
+        }).thenAccept(comboBoxItems -> {
+            if(reportType == ReportType.LOGIN_ACTIVITY) setComboBox(comboBoxOne, comboBoxItems, "Choose a User");
+        }).exceptionally(AsyncDAO::printError);
+    }
+
+    /**
+     * Triggered when the radio button is changed to Pivot. Fills the first combo box with the pivots, and the second with
+     * the years once the cube is built.
+     */
+    @FXML
+    private void onPivot(){
+        toggleRadioButton(ReportType.PIVOT);
+        setComboBox(comboBoxOne, FXCollections.observableArrayList(PIVOTS.keySet()), "Choose a Pivot");
+        comboBoxTwo.setVisible(true);
+
+        loadCube().thenAccept(loaded -> {
+            if(reportType != ReportType.PIVOT) return;
+            ObservableList<Object> comboBoxItems = FXCollections.observableArrayList();
+            comboBoxItems.add(ALL_YEARS);
+            for(int year : loaded.getYears()) comboBoxItems.add(year);
+            setComboBox(comboBoxTwo, comboBoxItems, "Choose a Year");
+        }).exceptionally(AsyncDAO::printError);
+    }
+
+    /**
+     * Triggered when the radio button is changed to Statistics. Fills the first combo box with the statistics, and the
+     * second with the years once the report counts are built.
+     */
+    @FXML
+    private void onStatistics(){
+        toggleRadioButton(ReportType.STATISTICS);
+        setComboBox(comboBoxOne, FXCollections.observableArrayList(DURATIONS, DISTINCT_CUSTOMERS), "Choose a Statistic");
+        comboBoxTwo.setVisible(true);
+
+        AsyncDAO.read(() -> {
+            ReportAggregates.await();
+            ObservableList<Object> comboBoxItems = FXCollections.observableArrayList();
+            comboBoxItems.add(ALL_YEARS);
+            for(int year : ReportAggregates.getYears()) comboBoxItems.add(year);
+            return comboBoxItems;
+        }).thenAccept(comboBoxItems -> {
+            if(reportType == ReportType.STATISTICS) setComboBox(comboBoxTwo, comboBoxItems, "Choose a Year");
+        }).exceptionally(AsyncDAO::printError);
+    }
+
+    /**
+     * Triggered when the radio button is changed to Top 20. Fills the first combo box with what can be ranked, and the
+     * second with the periods, starting on this quarter.
+     */
+    @FXML
+    private void onTopK(){
+        toggleRadioButton(ReportType.TOP_K);
+        setComboBox(comboBoxOne, FXCollections.observableArrayList(TOP_CONTACTS_BY_HOURS, TOP_CUSTOMERS_BY_HOURS, TOP_CONTACTS_BY_COUNT, TOP_CUSTOMERS_BY_COUNT), "Rank...");
+        setComboBox(comboBoxTwo, FXCollections.observableArrayList(THIS_QUARTER, THIS_YEAR, ALL_TIME), "Choose a Period");
+        comboBoxTwo.getSelectionModel().select(THIS_QUARTER);
+    }
+
+    /**
+     * Triggered when the radio button is changed to Overlap Audit. Sets up combo box with correct data.
+     */
+    @FXML
+    private void onOverlapAudit(){
+        toggleRadioButton(ReportType.OVERLAP_AUDIT);
+        setComboBox(comboBoxOne, FXCollections.observableArrayList(BY_CUSTOMER, BY_CONTACT), "Check...");
+    }
+
+    /**
+     * Triggered whenever the second combo box is updated in the view. Runs the Pivot or Statistics report again for the
+     * chosen year, or the Top 20 report for the chosen period.
+     */
+    @FXML
+    private void onComboBoxTwo(){
+        if(reportType == ReportType.PIVOT) pivotReport();
+        else if(reportType == ReportType.STATISTICS) statisticsReport();
+        else if(reportType == ReportType.TOP_K) topKReport();
+    }
+
     /**
      * Triggered whenever the combo box is updated in the view. Will fill in different data into the TableView
      * based on the reportType
@@ -127,7 +303,7 @@ public class ReportController implements Initializable{
 
         switch(reportType){
             case COUNT_APPOINTMENTS:
-                countCustomers(appointments);
+                countCustomers();
                 break;
             case CONTACT_SCHEDULE:
                 contactScheduleReport();
@@ -135,6 +311,21 @@ public class ReportController implements Initializable{
             case CUSTOMER_APPOINTMENTS:
                 processCustomerAppointmentReport();
                 break;
+            case LOGIN_ACTIVITY:
+                loginActivityReport();
+                break;
+            case PIVOT:
+                pivotReport();
+                break;
+            case STATISTICS:
+                statisticsReport();
+                break;
+            case TOP_K:
+                topKReport();
+                break;
+            case OVERLAP_AUDIT:
+                overlapAuditReport();
+                break;
             default:
                 break;
         }
@@ -156,32 +347,17 @@ public class ReportController implements Initializable{
      */
     private void toggleRadioButton(ReportType reportType){
         reportTableView.getItems().clear();
+        if(!reportTableView.getColumns().equals(originalColumns)) reportTableView.getColumns().setAll(originalColumns);
         for(int i = 0; i < reportTableView.getColumns().size(); i++){
             TableColumn column = (TableColumn) reportTableView.getColumns().get(i);
             column.setText("");
             column.setCellValueFactory(null);
         }
+        comboBoxTwo.setVisible(false);
+        comboBoxTwo.setDisable(true);
 
-        switch(reportType){
-            case COUNT_APPOINTMENTS:
-                this.reportType = ReportType.COUNT_APPOINTMENTS;
-                countAppointmentsRadio.setSelected(true);
-                contactScheduleRadioButton.setSelected(false);
-                customerSchedule.setSelected(false);
-                break;
-            case CONTACT_SCHEDULE:
-                this.reportType = ReportType.CONTACT_SCHEDULE;
-                contactScheduleRadioButton.setSelected(true);
-                countAppointmentsRadio.setSelected(false);
-                customerSchedule.setSelected(false);
-                break;
-            case CUSTOMER_APPOINTMENTS:
-                this.reportType = ReportType.CUSTOMER_APPOINTMENTS;
-                customerSchedule.setSelected(true);
-                countAppointmentsRadio.setSelected(false);
-                contactScheduleRadioButton.setSelected(false);
-                break;
-        }
+        this.reportType = reportType;
+        radioButtons.forEach((type, radioButton) -> radioButton.setSelected(type == reportType));
     }
 
     /**
@@ -202,141 +378,372 @@ public class ReportController implements Initializable{
     }
 
     /**
-     * Displays information into the TableView based on whether the comboBox says "Month" or "Type"
-     * Will display counts of customers by types or months
+     * Displays information into the TableView based on whether the comboBox says "Type", "Month", "Contact" or "Customer"
+     * Will display counts of customers by types, by the month and year they start in, by Contact or by Customer. The counts
+     * are made in the background by ReportAggregator, from the kept report counts once they are built.
      * Lambda justification: Each one is used the same thing; to shorten the code to customize Cell Value that goes into the table. In order to do the same thing,
      * with Instances, it requires 11 lines of code that are somewhat difficult to read. Lambdas shorten that to one line, and it is much easier to follow.
-     *
-     * @param appointments
      */
-    private void countCustomers(ObservableList<Appointment> appointments){
-        ObservableList<TypeCount> typeCounts = FXCollections.observableArrayList();
-
-            if(comboBoxOne.getSelectionModel().getSelectedItem().equals("Type")) {
-                //Set comboBoxTwo up with the different types
-                for(int i = 0; i < appointments.size(); i++){
-                    String type = appointments.get(i).getType();
-                    
-                    if(typeCounts.size() == 0){
-                        typeCounts.add(new TypeCount(type, 1));
-                    }
-                    
-                    for(int j = 0; j < typeCounts.size(); j++){
-                        if(typeCounts.get(j).getType().equals(type)) {
-                            typeCounts.get(j).addToCount(1);
-                            break;
-                        }
-                        else if(j == typeCounts.size() - 1) {
-                            typeCounts.add(new TypeCount(type, 1));
-                        }
-                    }
-                }
-
-                reportTableView.setItems(typeCounts);
-                columnOne.setText("Type");
-                columnTwo.setText("Count");
-                columnOne.setCellValueFactory(new PropertyValueFactory("type"));
-                columnTwo.setCellValueFactory(new PropertyValueFactory("count"));
+    private void countCustomers(){
+            Object countBy = comboBoxOne.getSelectionModel().getSelectedItem();
 
+            if(countBy.equals("Type")) {
+                AsyncDAO.read(() -> FXCollections.observableArrayList(ReportAggregator.countByType())).thenAccept(typeCounts -> {
+                    if(reportType != ReportType.COUNT_APPOINTMENTS || comboBoxOne.getSelectionModel().getSelectedItem() != countBy) return;
+                    reportTableView.setItems(typeCounts);
+                    columnOne.setText("Type");
+                    columnTwo.setText("Count");
+                    columnOne.setCellValueFactory(new PropertyValueFactory("type"));
+                    columnTwo.setCellValueFactory(new PropertyValueFactory("count"));
+                }).exceptionally(AsyncDAO::printError);
             }
-            else if(comboBoxOne.getSelectionModel().getSelectedItem() == "Month") {
-                ObservableList<MonthCount> monthCounts = FXCollections.observableArrayList();
-                monthCounts.add(new MonthCount(Month.JANUARY, 0, "January"));
-                monthCounts.add(new MonthCount(Month.FEBRUARY, 0, "February"));
-                monthCounts.add(new MonthCount(Month.MARCH, 0, "March"));
-                monthCounts.add(new MonthCount(Month.APRIL, 0, "April"));
-                monthCounts.add(new MonthCount(Month.MAY, 0, "May"));
-                monthCounts.add(new MonthCount(Month.JUNE, 0, "June"));
-                monthCounts.add(new MonthCount(Month.JULY, 0, "July"));
-                monthCounts.add(new MonthCount(Month.AUGUST, 0, "August"));
-                monthCounts.add(new MonthCount(Month.SEPTEMBER, 0, "September"));
-                monthCounts.add(new MonthCount(Month.OCTOBER, 0, "October"));
-                monthCounts.add(new MonthCount(Month.NOVEMBER, 0, "November"));
-                monthCounts.add(new MonthCount(Month.DECEMBER, 0, "December"));
-
-                for(int i = 0; i < appointments.size(); i++){
-                    Appointment appointment = appointments.get(i);
-                    Month month = appointment.getStartDate().getMonth();
-
-                    monthCounts.get(month.getValue() - 1).addToCount(1);
-                }
-
-                reportTableView.setItems(monthCounts);
-                columnOne.setText("Month");
-                columnTwo.setText("Count");
-                columnOne.setCellValueFactory(new PropertyValueFactory("name"));
-                columnTwo.setCellValueFactory(new PropertyValueFactory("count"));
-
+            else if(countBy.equals("Month")) {
+                AsyncDAO.read(() -> FXCollections.observableArrayList(ReportAggregator.countByYearMonth(ZoneId.systemDefault()))).thenAccept(monthCounts -> {
+                    if(reportType != ReportType.COUNT_APPOINTMENTS || comboBoxOne.getSelectionModel().getSelectedItem() != countBy) return;
+                    reportTableView.setItems(monthCounts);
+                    columnOne.setText("Month");
+                    columnTwo.setText("Count");
+                    columnOne.setCellValueFactory(new PropertyValueFactory("name"));
+                    columnTwo.setCellValueFactory(new PropertyValueFactory("count"));
+                }).exceptionally(AsyncDAO::printError);
+            }
+            else if(countBy.equals("Contact")) {
+                AsyncDAO.read(() -> FXCollections.observableArrayList(ReportAggregator.countByContact())).thenAccept(contactCounts -> {
+                    if(reportType != ReportType.COUNT_APPOINTMENTS || comboBoxOne.getSelectionModel().getSelectedItem() != countBy) return;
+                    reportTableView.setItems(contactCounts);
+                    columnOne.setText("Contact");
+                    columnTwo.setText("Count");
+                    columnOne.setCellValueFactory(new PropertyValueFactory("name"));
+                    columnTwo.setCellValueFactory(new PropertyValueFactory("count"));
+                }).exceptionally(AsyncDAO::printError);
+            }
+            else if(countBy.equals("Customer")) {
+                AsyncDAO.read(() -> FXCollections.observableArrayList(ReportAggregator.countByCustomer())).thenAccept(customerCounts -> {
+                    if(reportType != ReportType.COUNT_APPOINTMENTS || comboBoxOne.getSelectionModel().getSelectedItem() != countBy) return;
+                    reportTableView.setItems(customerCounts);
+                    columnOne.setText("Customer ID");
+                    columnTwo.setText("Count");
+                    columnOne.setCellValueFactory(new PropertyValueFactory("id"));
+                    columnTwo.setCellValueFactory(new PropertyValueFactory("count"));
+                }).exceptionally(AsyncDAO::printError);
             }
     }
     /**
-     *Processes and displays contact schedules based on the selected contact in the combo box.
+     *Processes and displays contact schedules based on the selected contact in the combo box. The rows are found by
+     * the database, using its Contact_ID index, and formatted in the background.
      *
      * Lambda justification: Each one is used the same thing; to shorten the code to customize Cell Value that goes into the table. In order to do the same thing,
      * with Instances, it requires 11 lines of code that are somewhat difficult to read. Lambdas shorten that to one line, and it is much easier to follow.
      *
      */
     private void contactScheduleReport(){
-        int contactID = ((Contact)comboBoxOne.getSelectionModel().getSelectedItem()).getContactID();
-        ObservableList<Appointment> contactAppointments = FXCollections.observableArrayList();
+        Contact contact = (Contact) comboBoxOne.getSelectionModel().getSelectedItem();
+        int contactID = contact.getContactID();
 
-        for(int i = 0; i < appointments.size(); i++){
-            if(appointments.get(i).getContactID() == contactID) contactAppointments.add(appointments.get(i));
-        }
+        AsyncDAO.read(() -> FXCollections.observableArrayList(AppointmentRow.ofAll(AppointmentDAO.selectAppointmentsByContactID(contactID)))).thenAccept(rows -> {
+            if(reportType != ReportType.CONTACT_SCHEDULE || comboBoxOne.getSelectionModel().getSelectedItem() != contact) return;
+            reportTableView.setItems(rows);
+            columnOne.setText("Appointment ID");
+            columnOne.setCellValueFactory((Callback<TableColumn.CellDataFeatures<AppointmentRow, Integer>, ObservableValue<Integer>>) data -> data.getValue().appointmentIDProperty());
+            columnTwo.setText("Title");
+            columnTwo.setCellValueFactory((Callback<TableColumn.CellDataFeatures<AppointmentRow, String>, ObservableValue<String>>) data -> data.getValue().titleProperty());
+            columnThree.setText("Type");
+            columnThree.setCellValueFactory((Callback<TableColumn.CellDataFeatures<AppointmentRow, String>, ObservableValue<String>>) data -> data.getValue().typeProperty());
+            columnFour.setText("Description");
+            columnFour.setCellValueFactory((Callback<TableColumn.CellDataFeatures<AppointmentRow, String>, ObservableValue<String>>) data -> data.getValue().descriptionProperty());
+            columnFive.setText("Start");
+            columnFive.setCellValueFactory((Callback<TableColumn.CellDataFeatures<AppointmentRow, String>, ObservableValue<String>>) data -> data.getValue().startProperty());
+            columnSix.setText("End");
+            columnSix.setCellValueFactory((Callback<TableColumn.CellDataFeatures<AppointmentRow, String>, ObservableValue<String>>) data -> data.getValue().endProperty());
+            columnSeven.setText("Customer ID");
+            columnSeven.setCellValueFactory((Callback<TableColumn.CellDataFeatures<AppointmentRow, Integer>, ObservableValue<Integer>>) data -> data.getValue().customerIDProperty());
+        }).exceptionally(AsyncDAO::printError);
+    }
 
-        reportTableView.setItems(contactAppointments);
-        columnOne.setText("Appointment ID");
-        columnOne.setCellValueFactory(new PropertyValueFactory("appointmentID"));
-        columnTwo.setText("Title");
-        columnTwo.setCellValueFactory(new PropertyValueFactory("title"));
-        columnThree.setText("Type");
-        columnThree.setCellValueFactory(new PropertyValueFactory("type"));
-        columnFour.setText("Description");
-        columnFour.setCellValueFactory(new PropertyValueFactory("description"));
-        columnFive.setText("Start");
-        columnFive.setCellValueFactory((Callback<TableColumn.CellDataFeatures<Appointment, String>, ObservableValue<String>>) cellDataFeatures -> {
-            Appointment appointment = cellDataFeatures.getValue();
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yy hh:mm a");
-            return Bindings.createStringBinding(() -> appointment.getStartDate().format(formatter));
-        });
-        columnSix.setText("End");
-        columnSix.setCellValueFactory((Callback<TableColumn.CellDataFeatures<Appointment, String>, ObservableValue<String>>) data -> Bindings.createStringBinding(
-                () -> data.getValue().getEndDate().format(dateTimeFormat)));
-        columnSeven.setText("Customer ID");
-        columnSeven.setCellValueFactory(new PropertyValueFactory("customerID"));
+    /**
+     * Processes and displays information for customer appointments based on the customer displayed in the combobox. The
+     * rows are found by the database, using its Customer_ID index, and formatted in the background.
+     *
+     * Lambda justification: Each one is used the same thing; to shorten the code to customize Cell Value that goes into the table. In order to do the same thing,
+     * with Instances, it requires 11 lines of code that are somewhat difficult to read. Lambdas shorten that to one line, and it is much easier to follow.
+     */
+    private void processCustomerAppointmentReport() {
+        Customer customer = (Customer) comboBoxOne.getSelectionModel().getSelectedItem();
+        int selectedCustomerID = customer.getId();
+
+        AsyncDAO.read(() -> FXCollections.observableArrayList(AppointmentRow.ofAll(AppointmentDAO.selectAppointmentsByCustomerID(selectedCustomerID)))).thenAccept(rows -> {
+                    if(reportType != ReportType.CUSTOMER_APPOINTMENTS || comboBoxOne.getSelectionModel().getSelectedItem() != customer) return;
+                    reportTableView.setItems(rows);
+                    columnOne.setCellValueFactory((Callback<TableColumn.CellDataFeatures<AppointmentRow, Integer>, ObservableValue<Integer>>) data -> data.getValue().appointmentIDProperty());
+                    columnTwo.setCellValueFactory((Callback<TableColumn.CellDataFeatures<AppointmentRow, String>, ObservableValue<String>>) data -> data.getValue().startProperty());
+                    columnThree.setCellValueFactory((Callback<TableColumn.CellDataFeatures<AppointmentRow, String>, ObservableValue<String>>) data -> data.getValue().endProperty());
+                    columnFour.setCellValueFactory((Callback<TableColumn.CellDataFeatures<AppointmentRow, Integer>, ObservableValue<Integer>>) data -> data.getValue().contactIDProperty());
+                }).exceptionally(AsyncDAO::printError);
     }
 
     /**
-     * Processes and displays information for customer appointments based on the customer displayed in the combobox
+     * Counts login attempts and failures per user per hour over the last year for the user chosen in the combo box. The
+     * history is read from the login activity index in the background, and the rows are only shown if that user is still chosen.
      *
      * Lambda justification: Each one is used the same thing; to shorten the code to customize Cell Value that goes into the table. In order to do the same thing,
      * with Instances, it requires 11 lines of code that are somewhat difficult to read. Lambdas shorten that to one line, and it is much easier to follow.
+     */
+    @SuppressWarnings("unchecked") //The view's columns are untyped, since each report shows a different row type
+    private void loginActivityReport(){
+        String selected = (String) comboBoxOne.getSelectionModel().getSelectedItem();
+        String userName = ALL_USERS.equals(selected) ? null : selected;
+        Instant to = Instant.now();
+        Instant from = to.minus(LOGIN_HISTORY_DAYS, ChronoUnit.DAYS);
+
+        AsyncDAO.read(() -> FXCollections.observableArrayList(LoginActivityIndex.countByUserAndHour(from, to, userName))).thenAccept(counts -> {
+            if(reportType != ReportType.LOGIN_ACTIVITY || !selected.equals(comboBoxOne.getSelectionModel().getSelectedItem())) return;
+            reportTableView.setItems(counts);
+            columnOne.setText("Username");
+            columnOne.setCellValueFactory(new PropertyValueFactory("userName"));
+            columnTwo.setText("Hour");
+            columnTwo.setCellValueFactory((Callback<TableColumn.CellDataFeatures<LoginActivityCount, String>, ObservableValue<String>>) data -> data.getValue().hourTextProperty());
+            columnThree.setText("Attempts");
+            columnThree.setCellValueFactory(new PropertyValueFactory("attempts"));
+            columnFour.setText("Failed");
+            columnFour.setCellValueFactory(new PropertyValueFactory("failures"));
+        }).exceptionally(AsyncDAO::printError);
+    }
+
+    /**
+     * Counts Appointments by the two dimensions of the pivot chosen in the first combo box, for the year chosen in the second.
+     * Each value of the column dimension that has Appointments gets its own table column, followed by a total.
      *
-     * @throws SQLException
+     * Lambda justification: Each one is used the same thing; to shorten the code to customize Cell Value that goes into the table. In order to do the same thing,
+     * with Instances, it requires 11 lines of code that are somewhat difficult to read. Lambdas shorten that to one line, and it is much easier to follow.
+     */
+    @SuppressWarnings("unchecked") //The view's columns are untyped, since each report shows a different row type
+    private void pivotReport(){
+        Object pivot = comboBoxOne.getSelectionModel().getSelectedItem();
+        Object year = comboBoxTwo.getSelectionModel().getSelectedItem();
+        if(pivot == null) return;
+        AppointmentCube.Dimension rowDimension = PIVOTS.get(pivot)[0];
+        AppointmentCube.Dimension columnDimension = PIVOTS.get(pivot)[1];
+
+        loadCube().thenAccept(loaded -> {
+            if(reportType != ReportType.PIVOT || comboBoxOne.getSelectionModel().getSelectedItem() != pivot) return;
+            AppointmentCube.Slice slice = year instanceof Integer ? loaded.year(loaded.everything(), (Integer) year) : loaded.everything();
+            int[][] counts = loaded.pivot(rowDimension, columnDimension, slice);
+            int[] columnTotals = loaded.rollUp(columnDimension, slice);
+
+            int[] shownColumns = IntStream.range(0, columnTotals.length).filter(code -> columnTotals[code] > 0).toArray();
+            ObservableList<PivotRow> rows = FXCollections.observableArrayList();
+            for(int rowCode = 0; rowCode < counts.length; rowCode++){
+                int[] rowCounts = new int[shownColumns.length];
+                for(int i = 0; i < shownColumns.length; i++) rowCounts[i] = counts[rowCode][shownColumns[i]];
+                PivotRow row = new PivotRow(loaded.getLabel(rowDimension, rowCode), rowCounts);
+                if(row.getTotal() > 0) rows.add(row);
+            }
+
+            List<TableColumn<PivotRow, ?>> pivotColumns = new ArrayList<>();
+            TableColumn<PivotRow, String> labelColumn = new TableColumn<>(dimensionName(rowDimension));
+            labelColumn.setCellValueFactory(data -> new FixedValue<>(data.getValue().getLabel()));
+            pivotColumns.add(labelColumn);
+            for(int i = 0; i < shownColumns.length; i++){
+                int column = i;
+                TableColumn<PivotRow, Integer> countColumn = new TableColumn<>(loaded.getLabel(columnDimension, shownColumns[i]));
+                countColumn.setCellValueFactory(data -> new FixedValue<>(data.getValue().getCount(column)));
+                pivotColumns.add(countColumn);
+            }
+            TableColumn<PivotRow, Integer> totalColumn = new TableColumn<>("Total");
+            totalColumn.setCellValueFactory(data -> new FixedValue<>(data.getValue().getTotal()));
+            pivotColumns.add(totalColumn);
+
+            reportTableView.getColumns().setAll(pivotColumns);
+            reportTableView.setItems(rows);
+        }).exceptionally(AsyncDAO::printError);
+    }
+
+    /**
+     * Shows the statistic chosen in the first combo box for the year chosen in the second: duration percentiles for each
+     * month, or the estimated distinct Customers of each Contact in each month. Both are read from the sketches kept by
+     * ReportAggregates, with a last row for the whole period made by merging the months.
+     */
+    @SuppressWarnings("unchecked") //The view's columns are untyped, since each report shows a different row type
+    private void statisticsReport(){
+        Object statistic = comboBoxOne.getSelectionModel().getSelectedItem();
+        Object year = comboBoxTwo.getSelectionModel().getSelectedItem();
+        if(statistic == null) return;
+        int selectedYear = year instanceof Integer ? (Integer) year : 0;
+
+        if(statistic.equals(DURATIONS)) {
+            AsyncDAO.read(() -> {
+                ReportAggregates.await();
+                return FXCollections.observableArrayList(ReportAggregates.durationsByMonth(selectedYear));
+            }).thenAccept(rows -> {
+                if(reportType != ReportType.STATISTICS || comboBoxOne.getSelectionModel().getSelectedItem() != statistic) return;
+                reportTableView.setItems(rows);
+                columnOne.setText("Month");
+                columnOne.setCellValueFactory(new PropertyValueFactory("period"));
+                columnTwo.setText("Appointments");
+                columnTwo.setCellValueFactory(new PropertyValueFactory("count"));
+                columnThree.setText("Median (min)");
+                columnThree.setCellValueFactory(new PropertyValueFactory("median"));
+                columnFour.setText("90th (min)");
+                columnFour.setCellValueFactory(new PropertyValueFactory("percentile90"));
+                columnFive.setText("99th (min)");
+                columnFive.setCellValueFactory(new PropertyValueFactory("percentile99"));
+                columnSix.setText("Longest (min)");
+                columnSix.setCellValueFactory(new PropertyValueFactory("max"));
+                columnSeven.setText("");
+                columnSeven.setCellValueFactory(null);
+            }).exceptionally(AsyncDAO::printError);
+        }
+        else if(statistic.equals(DISTINCT_CUSTOMERS)) {
+            AsyncDAO.read(() -> {
+                ReportAggregates.await();
+                return FXCollections.observableArrayList(ReportAggregates.distinctCustomersByContact(selectedYear));
+            }).thenAccept(rows -> {
+                if(reportType != ReportType.STATISTICS || comboBoxOne.getSelectionModel().getSelectedItem() != statistic) return;
+                reportTableView.setItems(rows);
+                columnOne.setText("Contact");
+                columnOne.setCellValueFactory(new PropertyValueFactory("contactName"));
+                columnTwo.setText("Month");
+                columnTwo.setCellValueFactory(new PropertyValueFactory("period"));
+                columnThree.setText("Distinct Customers");
+                columnThree.setCellValueFactory(new PropertyValueFactory("distinctCustomers"));
+                for(TableColumn<?, ?> column : List.<TableColumn<?, ?>>of(columnFour, columnFive, columnSix, columnSeven)) {
+                    column.setText("");
+                    column.setCellValueFactory(null);
+                }
+            }).exceptionally(AsyncDAO::printError);
+        }
+    }
+
+    /**
+     * Ranks the 20 Contacts or Customers with the most booked hours or Appointments in the chosen period. The totals are
+     * streamed through a bounded heap, from the column store if another report has loaded it and from a grouped database
+     * cursor otherwise.
      */
-    private void processCustomerAppointmentReport() throws SQLException {
-        int selectedCustomerID = ((Customer)comboBoxOne.getSelectionModel().getSelectedItem()).getId();
-        ObservableList<Appointment> customerAppointments = AppointmentDAO.selectAppointmentsByCustomerID(selectedCustomerID);
-
-        reportTableView.setItems(customerAppointments);
-        columnOne.setCellValueFactory(new PropertyValueFactory("appointmentID"));
-        columnTwo.setCellValueFactory((Callback<TableColumn.CellDataFeatures<Appointment, String>, ObservableValue<String>>) data -> Bindings.createStringBinding(
-                () -> data.getValue().getStartDate().format(dateTimeFormat)));
-        columnThree.setCellValueFactory((Callback<TableColumn.CellDataFeatures<Appointment, String>, ObservableValue<String>>) data -> Bindings.createStringBinding(
-                () -> data.getValue().getEndDate().format(dateTimeFormat)));
-        columnFour.setCellValueFactory(new PropertyValueFactory("contactID"));
+    @SuppressWarnings("unchecked") //The view's columns are untyped, since each report shows a different row type
+    private void topKReport(){
+        Object ranking = comboBoxOne.getSelectionModel().getSelectedItem();
+        Object period = comboBoxTwo.getSelectionModel().getSelectedItem();
+        if(ranking == null) return;
+        boolean byContact = ranking.equals(TOP_CONTACTS_BY_HOURS) || ranking.equals(TOP_CONTACTS_BY_COUNT);
+        ReportAggregator.RankBy rankBy = ranking.equals(TOP_CONTACTS_BY_HOURS) || ranking.equals(TOP_CUSTOMERS_BY_HOURS)
+                ? ReportAggregator.RankBy.BOOKED_TIME : ReportAggregator.RankBy.APPOINTMENTS;
 
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate today = LocalDate.now(zone);
+        Instant from = null;
+        Instant to = null;
+        if(THIS_QUARTER.equals(period)) {
+            LocalDate quarterStart = today.withMonth(today.getMonth().firstMonthOfQuarter().getValue()).withDayOfMonth(1);
+            from = quarterStart.atStartOfDay(zone).toInstant();
+            to = quarterStart.plusMonths(3).atStartOfDay(zone).toInstant();
+        }
+        else if(THIS_YEAR.equals(period)) {
+            from = today.withDayOfYear(1).atStartOfDay(zone).toInstant();
+            to = today.withDayOfYear(1).plusYears(1).atStartOfDay(zone).toInstant();
+        }
+        Instant windowStart = from;
+        Instant windowEnd = to;
+
+        AsyncDAO.read(() -> {
+            AppointmentColumns store = AppointmentColumnsCache.getIfLoaded();
+            TopK top = byContact ? ReportAggregator.topContacts(store, rankBy, windowStart, windowEnd, TOP_K)
+                    : ReportAggregator.topCustomers(store, rankBy, windowStart, windowEnd, TOP_K);
+            int[] ids = new int[top.size()];
+            for(int rank = 0; rank < top.size(); rank++) ids[rank] = top.getID(rank);
+            Map<Integer, String> customerNames = byContact ? Map.of() : CustomerDAO.selectCustomerNames(ids);
+
+            ObservableList<RankedRow> rows = FXCollections.observableArrayList();
+            for(int rank = 0; rank < top.size(); rank++) {
+                String name = byContact ? SessionData.getContactName(ids[rank]) : customerNames.getOrDefault(ids[rank], "Customer " + ids[rank]);
+                String value = rankBy == ReportAggregator.RankBy.BOOKED_TIME ? String.format("%.1f", top.getValue(rank) / 3600.0) : String.valueOf(top.getValue(rank));
+                rows.add(new RankedRow(rank + 1, name, value));
+            }
+            return rows;
+        }).thenAccept(rows -> {
+            if(reportType != ReportType.TOP_K || comboBoxOne.getSelectionModel().getSelectedItem() != ranking) return;
+            reportTableView.setItems(rows);
+            columnOne.setText("Rank");
+            columnOne.setCellValueFactory(new PropertyValueFactory("rank"));
+            columnTwo.setText(byContact ? "Contact" : "Customer");
+            columnTwo.setCellValueFactory(new PropertyValueFactory("name"));
+            columnThree.setText(rankBy == ReportAggregator.RankBy.BOOKED_TIME ? "Booked Hours" : "Appointments");
+            columnThree.setCellValueFactory(new PropertyValueFactory("value"));
+        }).exceptionally(AsyncDAO::printError);
     }
 
     /**
-     * Pulls the appointments from the database and populates it to a list.
+     * Lists every pair of Appointments of the same Customer or Contact whose times overlap, across the whole table. The
+     * audit sweeps the column store in parallel in the background, reading the store first if no report has read it yet.
+     */
+    @SuppressWarnings("unchecked") //The view's columns are untyped, since each report shows a different row type
+    private void overlapAuditReport(){
+        Object check = comboBoxOne.getSelectionModel().getSelectedItem();
+        OverlapAudit.Owner owner = BY_CONTACT.equals(check) ? OverlapAudit.Owner.CONTACT : OverlapAudit.Owner.CUSTOMER;
+
+        AsyncDAO.read(() -> FXCollections.observableArrayList(OverlapAudit.findOverlaps(AppointmentColumnsCache.get(), owner))).thenAccept(pairs -> {
+            if(reportType != ReportType.OVERLAP_AUDIT || comboBoxOne.getSelectionModel().getSelectedItem() != check) return;
+            reportTableView.setItems(pairs);
+            columnOne.setText(owner == OverlapAudit.Owner.CONTACT ? "Contact ID" : "Customer ID");
+            columnOne.setCellValueFactory(new PropertyValueFactory("ownerID"));
+            columnTwo.setText("Appointment ID");
+            columnTwo.setCellValueFactory(new PropertyValueFactory("firstAppointmentID"));
+            columnThree.setText("Start");
+            columnThree.setCellValueFactory(new PropertyValueFactory("firstStart"));
+            columnFour.setText("End");
+            columnFour.setCellValueFactory(new PropertyValueFactory("firstEnd"));
+            columnFive.setText("Overlaps ID");
+            columnFive.setCellValueFactory(new PropertyValueFactory("secondAppointmentID"));
+            columnSix.setText("Start");
+            columnSix.setCellValueFactory(new PropertyValueFactory("secondStart"));
+            columnSeven.setText("End");
+            columnSeven.setCellValueFactory(new PropertyValueFactory("secondEnd"));
+        }).exceptionally(AsyncDAO::printError);
+    }
+
+    /**
+     * Returns the cube for the Pivot report, building it in the background if the Appointments changed since it was last built
+     * @return the cube, completed on the FX thread
+     */
+    private CompletableFuture<AppointmentCube> loadCube(){
+        return AsyncDAO.read(AppointmentColumnsCache::getCube);
+    }
+
+    /**
+     * @param dimension a dimension of the cube
+     * @return the dimension's name for a column header, such as "Contact"
+     */
+    private static String dimensionName(AppointmentCube.Dimension dimension){
+        String name = dimension.name();
+        return name.charAt(0) + name.substring(1).toLowerCase();
+    }
+
+    /**
+     * Sets up the radio buttons. No Appointments are read here: the Count reports are answered by the kept report counts,
+     * and the column store is only read the first time a report that needs every row asks for it.
      * @param url
      * @param resourceBundle
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
+        radioButtons.put(ReportType.COUNT_APPOINTMENTS, countAppointmentsRadio);
+        radioButtons.put(ReportType.CONTACT_SCHEDULE, contactScheduleRadioButton);
+        radioButtons.put(ReportType.CUSTOMER_APPOINTMENTS, customerSchedule);
+        radioButtons.put(ReportType.LOGIN_ACTIVITY, loginActivityRadio);
+        radioButtons.put(ReportType.PIVOT, pivotRadio);
+        radioButtons.put(ReportType.STATISTICS, statisticsRadio);
+        radioButtons.put(ReportType.TOP_K, topKRadio);
+        radioButtons.put(ReportType.OVERLAP_AUDIT, overlapAuditRadio);
+        originalColumns = new ArrayList<>(reportTableView.getColumns());
+    }
+
+    /**
+     * Called when the kept Report view is shown again. Runs the report that was showing again, which picks up every write
+     * made since from the kept report counts and column store.
+     */
+    @Override
+    public void refresh() {
         try {
-            appointments = AppointmentDAO.selectAllAppointments();
+            onComboBoxOne();
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
@@ -1,25 +1,34 @@
 package scheduler.controller;
 
-import javafx.beans.binding.Bindings;
+import javafx.application.Platform;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.stage.FileChooser;
 import javafx.util.Callback;
 import scheduler.dao.AppointmentDAO;
+import scheduler.dao.AsyncDAO;
 import scheduler.helper.AlertHelper;
+import scheduler.helper.AppointmentCsvImporter;
+import scheduler.helper.AppointmentRow;
+import scheduler.helper.PagedList;
+import scheduler.helper.RefreshableController;
+import scheduler.helper.ScheduleExporter;
 import scheduler.helper.SceneHelper;
 import scheduler.helper.SessionData;
 import scheduler.model.Appointment;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Optional;
 import java.util.ResourceBundle;
@@ -29,7 +38,7 @@ import java.util.concurrent.Callable;
  * Controller for the Schedule View.
  * @author Alvin Roe
  */
-public class ScheduleController implements Initializable {
+public class ScheduleController implements Initializable, RefreshableController {
     //region FXML Variables
     /**Table where all the customers from the database are loaded*/
     @FXML
@@ -84,14 +93,16 @@ public class ScheduleController implements Initializable {
     /**Each enum state is a different radio button*/
     private enum TimeSpanSelection {all, week, month}
     private TimeSpanSelection radioButtonSelected;
-    /**A list for all of the appointments*/
-    private ObservableList<Appointment> allAppointments = FXCollections.observableArrayList();
-    /**A list for the current Month's appointments*/
-    private ObservableList<Appointment> currentMonthAppointments = FXCollections.observableArrayList();
-    /**A list for the appointments for the next 7 days*/
-    private ObservableList<Appointment> currentWeekAppointments = FXCollections.observableArrayList();
+    /**Number of appointments fetched at a time for the View All table*/
+    private static final int APPOINTMENT_PAGE_SIZE = 100;
+    /**Most pages of appointments held in memory for the View All table*/
+    private static final int MAX_CACHED_PAGES = 20;
+    /**A list for all of the appointments, paged in from the database as the table scrolls*/
+    private PagedList<AppointmentRow> allAppointments;
     /**If this is false SessionData will have it's initialize data method ran once, then it will be set to true. This is within the Intialize method*/
     private static boolean initialized = false;
+    /**Number of Appointments per batch and transaction when importing a CSV file*/
+    private static final int IMPORT_BATCH_SIZE = 500;
     //endregion
     /**
      * Changes scene to the customer form view when the "Customer" button is pressed
@@ -117,7 +128,7 @@ public class ScheduleController implements Initializable {
     @FXML
     private void onUpdatePressed() throws IOException {
         try {
-            int appointmentID = ((Appointment) appointmentTable.getSelectionModel().getSelectedItem()).getAppointmentID();
+            int appointmentID = ((AppointmentRow) appointmentTable.getSelectionModel().getSelectedItem()).getAppointment().getAppointmentID();
             SessionData.setModifyID(appointmentID);
             SceneHelper.changeScene(SceneHelper.View.UPDATE_APPOINTMENT, appointmentTable, this);
         }catch(NullPointerException error){
@@ -128,13 +139,12 @@ public class ScheduleController implements Initializable {
         }
     }
     /**
-     * Deletes the selected Appointment
-     * @throws SQLException
+     * Deletes the selected Appointment in the background
      */
     @FXML
-    private void onDeletePressed() throws SQLException {
-        Appointment selectedAppointment = (Appointment) appointmentTable.getSelectionModel().getSelectedItem();
-        if(selectedAppointment == null){
+    private void onDeletePressed() {
+        AppointmentRow selectedRow = (AppointmentRow) appointmentTable.getSelectionModel().getSelectedItem();
+        if(selectedRow == null){
             Alert nothingSelectedAlert = new Alert(Alert.AlertType.ERROR);
             nothingSelectedAlert.setTitle("Nothing Selected");
             nothingSelectedAlert.setHeaderText("Nothing Selected");
@@ -150,16 +160,19 @@ public class ScheduleController implements Initializable {
         Optional<ButtonType> option = deleteConfirm.showAndWait();
 
         if(option.get() == ButtonType.OK) {
+            Appointment selectedAppointment = selectedRow.getAppointment();
             int id = selectedAppointment.getAppointmentID();
             String type = selectedAppointment.getType();
-            AppointmentDAO.delete(selectedAppointment.getAppointmentID());
-            appointmentTable.getItems().remove(selectedAppointment);
+            AsyncDAO.deleteAppointment(id).thenAccept(rowsDeleted -> {
+                if(appointmentTable.getItems() == allAppointments) allAppointments.refresh();
+                else appointmentTable.getItems().remove(selectedRow);
 
-            Alert notificationDelete = new Alert(Alert.AlertType.INFORMATION);
-            notificationDelete.setTitle("Delete Successful");
-            notificationDelete.setHeaderText("Appointment ID# " + id + ": " + type);
-            notificationDelete.setContentText("Successfully Deleted");
-            notificationDelete.show();
+                Alert notificationDelete = new Alert(Alert.AlertType.INFORMATION);
+                notificationDelete.setTitle("Delete Successful");
+                notificationDelete.setHeaderText("Appointment ID# " + id + ": " + type);
+                notificationDelete.setContentText("Successfully Deleted");
+                notificationDelete.show();
+            }).exceptionally(AsyncDAO::printError);
         }
     }
 
@@ -186,53 +199,70 @@ public class ScheduleController implements Initializable {
 
 
         //Fill the table with the schedule data.
-        try {
-            //Set allAppointments to the appointmentTable
-            allAppointments = AppointmentDAO.selectAllAppointments();
-            appointmentTable.setItems(allAppointments);
-            appointmentID.setCellValueFactory(new PropertyValueFactory<Appointment, Integer>("appointmentID"));
-            title.setCellValueFactory(new PropertyValueFactory<Appointment, String>("title"));
-            description.setCellValueFactory(new PropertyValueFactory<Appointment, String>("description"));
-            location.setCellValueFactory(new PropertyValueFactory<Appointment, String>("location"));
-            contact.setCellValueFactory((Callback<TableColumn.CellDataFeatures<Appointment, String>, ObservableValue<String>>) data -> Bindings.createStringBinding(
-                    () -> SessionData.getContactName(data.getValue().getContactID())));
-            type.setCellValueFactory(new PropertyValueFactory<Appointment, String>("type"));
-            startDate.setCellValueFactory((Callback<TableColumn.CellDataFeatures<Appointment, String>, ObservableValue<String>>)
-                    data -> Bindings.createStringBinding(() -> data.getValue().getStartDate().format(DateTimeFormatter.ofPattern("MM/dd/yy"))));
-            startTime.setCellValueFactory((Callback<TableColumn.CellDataFeatures<Appointment, String>, ObservableValue<String>>)
-                    data -> Bindings.createStringBinding(() -> data.getValue().getStartDate().format(DateTimeFormatter.ofPattern("hh:mm a"))));
-            endDate.setCellValueFactory((Callback<TableColumn.CellDataFeatures<Appointment, String>, ObservableValue<String>>)
-                    data -> Bindings.createStringBinding(() -> data.getValue().getEndDate().format(DateTimeFormatter.ofPattern("MM/dd/yy"))));
-            endTime.setCellValueFactory((Callback<TableColumn.CellDataFeatures<Appointment, String>, ObservableValue<String>>)
-                    data -> Bindings.createStringBinding(() -> data.getValue().getEndDate().format(DateTimeFormatter.ofPattern("hh:mm a"))));
-            customerID.setCellValueFactory(new PropertyValueFactory<Appointment, Integer>("customerID"));
-            userID.setCellValueFactory(new PropertyValueFactory<Appointment, Integer>("userID"));
+        //Set allAppointments to the appointmentTable. Rows are paged in as the table scrolls, and rows still loading are null.
+        allAppointments = new PagedList<>(AppointmentRow.pageSource(), APPOINTMENT_PAGE_SIZE, MAX_CACHED_PAGES);
+        appointmentTable.setItems(allAppointments);
+        //The paged list is read-only and already ordered by start, so it can not be sorted in place
+        appointmentTable.setSortPolicy(table -> appointmentTable.getItems() != allAppointments);
+        //Rows arrive already formatted, so each cell only hands out a value the row already holds
+        appointmentID.setCellValueFactory((Callback<TableColumn.CellDataFeatures<AppointmentRow, Integer>, ObservableValue<Integer>>) data -> data.getValue() == null ? null : data.getValue().appointmentIDProperty());
+        title.setCellValueFactory((Callback<TableColumn.CellDataFeatures<AppointmentRow, String>, ObservableValue<String>>) data -> data.getValue() == null ? null : data.getValue().titleProperty());
+        description.setCellValueFactory((Callback<TableColumn.CellDataFeatures<AppointmentRow, String>, ObservableValue<String>>) data -> data.getValue() == null ? null : data.getValue().descriptionProperty());
+        location.setCellValueFactory((Callback<TableColumn.CellDataFeatures<AppointmentRow, String>, ObservableValue<String>>) data -> data.getValue() == null ? null : data.getValue().locationProperty());
+        contact.setCellValueFactory((Callback<TableColumn.CellDataFeatures<AppointmentRow, String>, ObservableValue<String>>) data -> data.getValue() == null ? null : data.getValue().contactNameProperty());
+        type.setCellValueFactory((Callback<TableColumn.CellDataFeatures<AppointmentRow, String>, ObservableValue<String>>) data -> data.getValue() == null ? null : data.getValue().typeProperty());
+        startDate.setCellValueFactory((Callback<TableColumn.CellDataFeatures<AppointmentRow, String>, ObservableValue<String>>) data -> data.getValue() == null ? null : data.getValue().startDateProperty());
+        startTime.setCellValueFactory((Callback<TableColumn.CellDataFeatures<AppointmentRow, String>, ObservableValue<String>>) data -> data.getValue() == null ? null : data.getValue().startTimeProperty());
+        endDate.setCellValueFactory((Callback<TableColumn.CellDataFeatures<AppointmentRow, String>, ObservableValue<String>>) data -> data.getValue() == null ? null : data.getValue().endDateProperty());
+        endTime.setCellValueFactory((Callback<TableColumn.CellDataFeatures<AppointmentRow, String>, ObservableValue<String>>) data -> data.getValue() == null ? null : data.getValue().endTimeProperty());
+        customerID.setCellValueFactory((Callback<TableColumn.CellDataFeatures<AppointmentRow, Integer>, ObservableValue<Integer>>) data -> data.getValue() == null ? null : data.getValue().customerIDProperty());
+        userID.setCellValueFactory((Callback<TableColumn.CellDataFeatures<AppointmentRow, Integer>, ObservableValue<Integer>>) data -> data.getValue() == null ? null : data.getValue().userIDProperty());
 
-            /*Checks through all the appointments, created a list of all of them that happen within 7 days, another list with all of them that happen this month, and
-            checks through appointments for one that is happening withing the next fifteen minutes */
-            boolean noAppointments = true;
-            for(Appointment appointment : allAppointments) {
-                LocalDate appointmentDate = appointment.getStartDate().toLocalDate();
-                LocalTime fifteenMinuteTime = LocalTime.now().plusMinutes(16);
-                if ((appointmentDate.isAfter(LocalDate.now()) || appointmentDate.isEqual(LocalDate.now())) && appointmentDate.isBefore(LocalDate.now().plusDays(8)))
-                    currentWeekAppointments.add(appointment);
-                if (appointmentDate.getMonth() == LocalDate.now().getMonth()) currentMonthAppointments.add(appointment);
-                if(appointment.getStartDate().toLocalTime().isBefore(fifteenMinuteTime) && appointmentDate.isEqual(LocalDate.now())
-                && appointment.getStartDate().toLocalTime().isAfter(LocalTime.now().minusMinutes(1))) {
-                    AlertHelper.showAlert(Alert.AlertType.INFORMATION, "15 Minute Warning", "Appointment# " + appointment.getAppointmentID(),
-                            appointment.getStartDate().format(DateTimeFormatter.ofPattern("MM/dd/yyyy H:mm a")));
-                    noAppointments = false;
-                }
-            }
-            if(noAppointments) AlertHelper.showAlert(Alert.AlertType.INFORMATION, "No Appointments", "No Appointments", "Your schedule is clear for the next 15 minutes");
+        showUpcomingAppointments();
 
+    }
 
+    /**
+     * Called when the kept Schedule view is shown again. Reloads the appointments for the time span that was selected,
+     * and checks again for appointments in the next fifteen minutes.
+     */
+    @Override
+    public void refresh() {
+        allAppointments.refresh();
+        if(radioButtonSelected == TimeSpanSelection.week) onViewWeek();
+        else if(radioButtonSelected == TimeSpanSelection.month) onViewMonth();
+        showUpcomingAppointments();
+    }
 
+    /**
+     * Shows an alert for each appointment starting within the next fifteen minutes, or an alert saying there are none.
+     * The appointments are read in the background.
+     */
+    private void showUpcomingAppointments() {
+        //Only the appointments starting around now are needed for the fifteen minute warning
+        ZonedDateTime now = ZonedDateTime.now();
+        AsyncDAO.selectAppointmentsBetween(now.minusMinutes(1).toInstant(), now.plusMinutes(16).toInstant())
+                .thenAccept(this::showUpcomingAppointments).exceptionally(AsyncDAO::printError);
+    }
 
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
+    /**
+     * Shows an alert for each of the given appointments starting within the next fifteen minutes, or an alert saying there are none
+     * @param upcomingAppointments the appointments starting around now
+     */
+    private void showUpcomingAppointments(ObservableList<Appointment> upcomingAppointments) {
+        //Checks through the upcoming appointments for one that is happening withing the next fifteen minutes
+        boolean noAppointments = true;
+        for(Appointment appointment : upcomingAppointments) {
+            LocalDate appointmentDate = appointment.getStartDate().toLocalDate();
+            LocalTime fifteenMinuteTime = LocalTime.now().plusMinutes(16);
+            if(appointment.getStartDate().toLocalTime().isBefore(fifteenMinuteTime) && appointmentDate.isEqual(LocalDate.now())
+            && appointment.getStartDate().toLocalTime().isAfter(LocalTime.now().minusMinutes(1))) {
+                AlertHelper.showAlert(Alert.AlertType.INFORMATION, "15 Minute Warning", "Appointment# " + appointment.getAppointmentID(),
+                        appointment.getStartDate().format(DateTimeFormatter.ofPattern("MM/dd/yyyy H:mm a")));
+                noAppointments = false;
+            }
         }
-
+        if(noAppointments) AlertHelper.showAlert(Alert.AlertType.INFORMATION, "No Appointments", "No Appointments", "Your schedule is clear for the next 15 minutes");
     }
 
     /**
@@ -246,24 +276,41 @@ public class ScheduleController implements Initializable {
         appointmentTable.setItems(allAppointments);
     }
     /**
-     * Handles logic for when the View Week button is pressed
+     * Handles logic for when the View Week button is pressed. Loads the appointments from today through the next 7 days.
      */
     @FXML
-    private void onViewWeek(){
+    private void onViewWeek() {
         radioButtonSelected = TimeSpanSelection.week;
         toggleRadioButton(radioButtonSelected);
 
-        appointmentTable.setItems(currentWeekAppointments);
+        LocalDate today = LocalDate.now();
+        showWindow(TimeSpanSelection.week, today, today.plusDays(8));
     }
     /**
-     * Handles logic for when the View Month button is pressed
+     * Handles logic for when the View Month button is pressed. Loads the appointments for the current month of the current year.
      */
     @FXML
-    private void onViewMonth(){
+    private void onViewMonth() {
         radioButtonSelected = TimeSpanSelection.month;
         toggleRadioButton(radioButtonSelected);
 
-        appointmentTable.setItems(currentMonthAppointments);
+        LocalDate firstOfMonth = LocalDate.now().withDayOfMonth(1);
+        showWindow(TimeSpanSelection.month, firstOfMonth, firstOfMonth.plusMonths(1));
+    }
+    /**
+     * Helper method that loads the appointments starting within the given days, in the local time zone, and shows them once
+     * they arrive. The rows are loaded and formatted in the background.
+     * @param selection the time span the rows are for, so rows that arrive after the user picked another one are dropped
+     * @param firstDay the first day of the window
+     * @param endDay the day after the last day of the window
+     */
+    private void showWindow(TimeSpanSelection selection, LocalDate firstDay, LocalDate endDay) {
+        ZoneId zone = ZoneId.systemDefault();
+        AsyncDAO.read(() -> FXCollections.observableArrayList(AppointmentRow.ofAll(
+                AppointmentDAO.selectAppointmentsBetween(firstDay.atStartOfDay(zone).toInstant(), endDay.atStartOfDay(zone).toInstant()))))
+                .thenAccept(rows -> {
+                    if(radioButtonSelected == selection) appointmentTable.setItems(rows);
+                }).exceptionally(AsyncDAO::printError);
     }
     /**
      * Helper method that changes which Radio Button is selected
@@ -287,6 +334,60 @@ public class ScheduleController implements Initializable {
                 break;
         }
     }
+    /**
+     * Imports Appointments from a CSV file the user picks. The import runs on its own threads, and a summary is shown when it is done.
+     */
+    @FXML
+    private void onImportPressed() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Import Appointments");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
+        File file = fileChooser.showOpenDialog(appointmentTable.getScene().getWindow());
+        if(file == null) return;
+
+        AppointmentCsvImporter importer = new AppointmentCsvImporter(IMPORT_BATCH_SIZE, SessionData.getUserName());
+        Thread importThread = new Thread(() -> {
+            try {
+                AppointmentCsvImporter.Result result = importer.importFile(file.toPath());
+                Platform.runLater(() -> {
+                    allAppointments.refresh();
+                    String rejections = String.join("\n", result.getRejections());
+                    AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Import Finished", result.toString(), rejections);
+                });
+            } catch (Exception e) {
+                System.out.println("Error:" + e.getMessage());
+                Platform.runLater(() -> AlertHelper.showAlert(Alert.AlertType.ERROR, "Error: Import Failed", "Import Failed", String.valueOf(e.getMessage())));
+            }
+        }, "csv-import");
+        importThread.setDaemon(true);
+        importThread.start();
+    }
+    /**
+     * Exports every Appointment to a CSV or NDJSON file the user picks, chosen by the file's extension. The rows are streamed
+     * from the database on a background thread, and a summary is shown when it is done.
+     */
+    @FXML
+    private void onExportPressed() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export Appointments");
+        fileChooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("CSV Files", "*.csv"),
+                new FileChooser.ExtensionFilter("NDJSON Files", "*.ndjson", "*.jsonl"));
+        File file = fileChooser.showSaveDialog(appointmentTable.getScene().getWindow());
+        if(file == null) return;
+
+        ScheduleExporter.Format format = ScheduleExporter.Format.fromFileName(file.getName());
+        Thread exportThread = new Thread(() -> {
+            try {
+                ScheduleExporter.Report report = ScheduleExporter.export(ScheduleExporter.Table.APPOINTMENTS, format, file.toPath());
+                Platform.runLater(() -> AlertHelper.showAlert(Alert.AlertType.INFORMATION, "Export Finished", "Exported " + report.getRows() + " Appointments", report.toString()));
+            } catch (Exception e) {
+                System.out.println("Error:" + e.getMessage());
+                Platform.runLater(() -> AlertHelper.showAlert(Alert.AlertType.ERROR, "Error: Export Failed", "Export Failed", String.valueOf(e.getMessage())));
+            }
+        }, "schedule-export");
+        exportThread.setDaemon(true);
+        exportThread.start();
+    }
     /**
      * Changes to the Reports View when the Report button is pressed
      * @throws IOException
@@ -6,11 +6,10 @@ import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.Node;
 import javafx.scene.control.*;
-import scheduler.dao.CustomerDAO;
+import scheduler.dao.AsyncDAO;
 import scheduler.helper.*;
 import scheduler.model.*;
 import javafx.scene.text.Text;
-import scheduler.dao.AppointmentDAO;
 
 
 
@@ -19,6 +18,7 @@ import java.net.URL;
 import java.sql.SQLException;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoField;
+import java.util.List;
 import java.util.ResourceBundle;
 import java.time.*;
 
@@ -92,6 +92,10 @@ public class UpdateAppointmentController implements Initializable {
     private boolean validatingData = false;
     /**The Appointment that will eventually be added to the database. It is added by pressing the "save" button, which triggers onSavePressed()*/
     private Appointment modifyAppointment = new Appointment();
+    /**True while the Appointment is being saved in the background, so pressing save again does not save it twice*/
+    private boolean saving = false;
+    /**True once the Appointment and the Customers have been read and put into the form, so save does nothing before then*/
+    private boolean loaded = false;
     //endregion
     //region On Button Pressed Methods
     /**
@@ -109,11 +113,18 @@ public class UpdateAppointmentController implements Initializable {
      */
     @FXML
     private void onSavePressed() throws SQLException, IOException {
+        if(saving || !loaded) return;
         if(!validatingData) validatingData = true;
         if(!validateData()) return;
 
-        AppointmentDAO.update(modifyAppointment);
-        SceneHelper.changeScene(SceneHelper.View.SCHEDULE, titleField, this);
+        saving = true;
+        AsyncDAO.updateAppointment(modifyAppointment).thenAccept(rowsSaved -> {
+            try {
+                SceneHelper.changeScene(SceneHelper.View.SCHEDULE, titleField, this);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }).whenComplete((done, error) -> saving = false).exceptionally(AsyncDAO::printError);
     }
     //endregion
     //region Data Validation
@@ -196,23 +207,17 @@ public class UpdateAppointmentController implements Initializable {
 
         }
 
-        ObservableList<Appointment> appointmentsWithCustomer = AppointmentDAO.selectAppointmentsByCustomerID(modifyAppointment.getCustomerID());
-        for(int i = 0; i < appointmentsWithCustomer.size(); i++){
-            if(startDateNumber == 0 || endDateNumber == 0) break;
-            if(appointmentsWithCustomer.get(i).getAppointmentID() == modifyAppointment.getAppointmentID()) continue;
-
-            long loopAppointmentStart = appointmentsWithCustomer.get(i).getStartDate().getLong(ChronoField.INSTANT_SECONDS);
-            long loopAppointmentEnd = appointmentsWithCustomer.get(i).getEndDate().getLong(ChronoField.INSTANT_SECONDS);
-
-            if((startDateNumber >= loopAppointmentStart && startDateNumber < loopAppointmentEnd) || (endDateNumber >= loopAppointmentStart && endDateNumber <= loopAppointmentEnd)
-                    || (startDateNumber <= loopAppointmentStart && endDateNumber >= loopAppointmentEnd)){
+        if(startDateNumber != 0 && endDateNumber != 0){
+            List<AppointmentInterval> overlaps = CustomerScheduleIndex.findOverlaps(modifyAppointment.getCustomerID(), startDateNumber, endDateNumber, modifyAppointment.getAppointmentID());
+            if(!overlaps.isEmpty()){
+                AppointmentInterval overlap = overlaps.get(0);
                 Alert overlapAlert = new Alert(Alert.AlertType.WARNING);
                 overlapAlert.setTitle("Overlapping Appointment");
-                String startDateString = appointmentsWithCustomer.get(i).getStartDate().format(DateTimeFormatter.ofPattern("MM/dd/yy"));
-                String startTime = appointmentsWithCustomer.get(i).getStartDate().format(DateTimeFormatter.ofPattern("hh:mm a"));
-                String endDateString = appointmentsWithCustomer.get(i).getEndDate().format(DateTimeFormatter.ofPattern("MM/dd/yy"));
-                String endTime = appointmentsWithCustomer.get(i).getEndDate().format(DateTimeFormatter.ofPattern("hh:mm a"));
-                overlapAlert.setContentText("Overlaps with Appointment ID# " + appointmentsWithCustomer.get(i).getAppointmentID() + " which is scheduled " +
+                String startDateString = overlap.getStartDate().format(DateTimeFormatter.ofPattern("MM/dd/yy"));
+                String startTime = overlap.getStartDate().format(DateTimeFormatter.ofPattern("hh:mm a"));
+                String endDateString = overlap.getEndDate().format(DateTimeFormatter.ofPattern("MM/dd/yy"));
+                String endTime = overlap.getEndDate().format(DateTimeFormatter.ofPattern("hh:mm a"));
+                overlapAlert.setContentText("Overlaps with Appointment ID# " + overlap.getAppointmentID() + " which is scheduled " +
                         startDateString + " " + startTime + " to " + endDateString + " " + endTime);
                 overlapAlert.showAndWait();
 
@@ -222,9 +227,7 @@ public class UpdateAppointmentController implements Initializable {
                 allErrorControls.add(endDatePicker);
                 allErrorControls.add(endHourField);
                 allErrorControls.add(endMinuteField);
-                break;
             }
-
         }
 
         //Contact ID
@@ -396,30 +399,13 @@ public class UpdateAppointmentController implements Initializable {
     }
     //endregion
     /**
-     * Runs before everything else. Utilized to set up view.
+     * Runs before everything else. Utilized to set up view. The Appointment and the Customers are read in the background,
+     * and the form is filled in once both have arrived.
      * @param url
      * @param resourceBundle
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        try {modifyAppointment = AppointmentDAO.selectAppointmentByID(SessionData.getModifyID());}
-        catch (SQLException e) {throw new RuntimeException(e);}
-
-        try {
-            customerIDBox.setItems(CustomerDAO.selectAllCustomers());
-            for(int i = 0; i < customerIDBox.getItems().size(); i++){
-                Customer currentCustomer = customerIDBox.getItems().get(i);
-                if(currentCustomer.getId() == modifyAppointment.getCustomerID()) customerIDBox.getSelectionModel().select(currentCustomer);
-            }
-        }
-        catch (SQLException e) {throw new RuntimeException(e);}
-
-        contactIDBox.setItems(SessionData.getContacts());
-        for(int i = 0; i < SessionData.getContacts().size(); i++){
-            Contact contact = SessionData.getContacts().get(i);
-            if(contact.getContactID() == modifyAppointment.getContactID()) contactIDBox.getSelectionModel().select(contact);
-        }
-
         //Create the items for the AM/PM comboboxes
         ObservableList<MorningAfternoon> startTOD = FXCollections.observableArrayList();
         startTOD.add(new MorningAfternoon(MorningAfternoon.TimeOfDay.AM));
@@ -432,6 +418,30 @@ public class UpdateAppointmentController implements Initializable {
         startTODCombo.setItems(startTOD);
         endTODCombo.setItems(endTOD);
 
+        AsyncDAO.selectAppointmentByID(SessionData.getModifyID()).thenAcceptBoth(AsyncDAO.selectAllCustomers(), (appointment, customers) -> {
+            modifyAppointment = appointment;
+            fillForm(customers);
+            loaded = true;
+        }).exceptionally(AsyncDAO::printError);
+    }
+
+    /**
+     * Fills the form in from modifyAppointment
+     * @param customers every Customer, for the Customer combo box
+     */
+    private void fillForm(ObservableList<Customer> customers) {
+        customerIDBox.setItems(customers);
+        for(int i = 0; i < customerIDBox.getItems().size(); i++){
+            Customer currentCustomer = customerIDBox.getItems().get(i);
+            if(currentCustomer.getId() == modifyAppointment.getCustomerID()) customerIDBox.getSelectionModel().select(currentCustomer);
+        }
+
+        contactIDBox.setItems(SessionData.getContacts());
+        for(int i = 0; i < SessionData.getContacts().size(); i++){
+            Contact contact = SessionData.getContacts().get(i);
+            if(contact.getContactID() == modifyAppointment.getContactID()) contactIDBox.getSelectionModel().select(contact);
+        }
+
         //Populate form with the data from modifyAppointment
         idField.setText(String.valueOf(modifyAppointment.getAppointmentID()));
         titleField.setText(modifyAppointment.getTitle());
@@ -7,8 +7,8 @@ import javafx.fxml.Initializable;
 import javafx.scene.Node;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.TextField;
-import scheduler.dao.CustomerDAO;
-import scheduler.dao.UserDAO;
+import scheduler.dao.AsyncDAO;
+import scheduler.helper.GeographyIndex;
 import scheduler.helper.SceneHelper;
 import scheduler.helper.SessionData;
 import scheduler.model.Country;
@@ -52,16 +52,18 @@ public class UpdateCustomerController implements Initializable {
     /**Reference to the TextField for ID*/
     @FXML
     private TextField id;
-    /**A list that holds different lists of First Level Divisions, separated by their respective countries*/
-    private ObservableList<ObservableList<FirstLevelDivision>> separatedDivisions = FXCollections.observableArrayList();
-    /**A list that holds all First level Divisions, separated by their respective countries*/
-    private ObservableList<FirstLevelDivision> allDivisions = FXCollections.observableArrayList();
+    /**Every Country and First Level Division, used to fill the Combo Boxes*/
+    private GeographyIndex geography;
     /**The method validateData will not run if this is false. This is set true after save is pressed the first time.*/
     private boolean validationEnabled = false;
     /**Reference to the Country ID that is associated with this Customer*/
     private int countryID = 0;
     /**The customer data that will eventually be updated in the system*/
     Customer selectedCustomer = new Customer();
+    /**True while the Customer is being saved in the background, so pressing save again does not save it twice*/
+    private boolean saving = false;
+    /**True once the Customer has been read and put into the form, so save does nothing before then*/
+    private boolean loaded = false;
     //endregion
     /**
      * Handles logic for when the cancel button is pressed in the Add Customer view. Generally, just sends the user back to the Customer form.
@@ -79,12 +81,18 @@ public class UpdateCustomerController implements Initializable {
      */
     @FXML
     private void onSavePressed() throws IOException, ParseException, SQLException {
+        if(saving || !loaded) return;
         validationEnabled = true;
         if(!validateData()) return;
 
-        CustomerDAO.update(selectedCustomer);
-
-        SceneHelper.changeScene(SceneHelper.View.CUSTOMER, name, this);
+        saving = true;
+        AsyncDAO.updateCustomer(selectedCustomer).thenAccept(rowsSaved -> {
+            try {
+                SceneHelper.changeScene(SceneHelper.View.CUSTOMER, name, this);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }).whenComplete((done, error) -> saving = false).exceptionally(AsyncDAO::printError);
     }
     /**
      * Checks through the form to make sure each field is filled out correctly. It will set borders to red of fields that are causing issues, it will
@@ -135,7 +143,7 @@ public class UpdateCustomerController implements Initializable {
         selectedCustomer.setLastUpdate(ZonedDateTime.now());
 
         //User that was last logged in that last updated this
-        selectedCustomer.setLastAuthor(UserDAO.currentUserName());
+        selectedCustomer.setLastAuthor(SessionData.getUserName());
 
         //Division ID
         try{
@@ -159,37 +167,35 @@ public class UpdateCustomerController implements Initializable {
         return true;
     }
     /**
-     * Sets up the Combo Boxes
+     * Sets up the Combo Boxes. The Customers are read in the background, and the form is filled in once they arrive.
      * @param url
      * @param resourceBundle
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        try {
-            ObservableList<Customer> allCustomers = CustomerDAO.selectAllCustomers();
+        AsyncDAO.selectAllCustomers().thenAccept(allCustomers -> {
             for(int i = 0; i < allCustomers.size(); i++){
                 if(allCustomers.get(i).getId() == SessionData.getModifyID()) selectedCustomer = allCustomers.get(i);
             }
-        }
-        catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+            fillForm();
+            loaded = true;
+        }).exceptionally(AsyncDAO::printError);
+    }
 
-        ObservableList<Country> countries = SessionData.getAllCountries();
-        country.setItems(countries);
-        countryID = SessionData.getCountryID(selectedCustomer.getDivisionID());
-        country.getSelectionModel().select(countryID - 1);
+    /**
+     * Fills the form in from selectedCustomer
+     */
+    private void fillForm() {
+        geography = SessionData.getGeography();
+        country.setItems(geography.getCountries());
+        countryID = geography.getCountryID(selectedCustomer.getDivisionID());
+        country.getSelectionModel().select(geography.getCountry(countryID));
 
 
         //Set First Level Division Combo Box
-        separatedDivisions = SessionData.getSeparatedFirstLevelDivisions();
-        allDivisions = SessionData.getAllFirstLevelDivisions();
         updateDivisionBox();
-        int divisionIndex = 0;
-        for(int i = 0; i < allDivisions.size(); i++){
-            if(allDivisions.get(i).getDivisionID() == selectedCustomer.getDivisionID()) divisionIndex = i;
-        }
-        division.setValue(allDivisions.get(divisionIndex));
+        FirstLevelDivision customerDivision = geography.getDivision(selectedCustomer.getDivisionID());
+        if(customerDivision != null) division.setValue(customerDivision);
 
 
         //Fill in data
@@ -215,7 +221,7 @@ public class UpdateCustomerController implements Initializable {
      * Updates the First Level Division combo box
      */
     private void updateDivisionBox(){
-        division.setItems(separatedDivisions.get(countryID - 1));
+        division.setItems(geography.getDivisions(countryID));
         division.getSelectionModel().selectFirst();
     }
 }
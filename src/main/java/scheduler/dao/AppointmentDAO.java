@@ -2,10 +2,16 @@ package scheduler.dao;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import scheduler.helper.CustomerScheduleIndex;
+import scheduler.helper.PagedList;
+import scheduler.helper.Watermark;
 import scheduler.model.Appointment;
 
 import java.sql.*;
-import java.time.ZoneId;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Handles SQL logic for the Appointments table
@@ -41,8 +47,43 @@ public abstract class AppointmentDAO {
     private static final int userIDColumn = 13;
     /**Column number in Database for Contact ID*/
     private static final int contactIDColumn = 14;
-    /**Used to track current ID being utilized in the system, so that numbers that have already been utilized will not be checked again until the next time the program loads*/
-    private static int currentID = 1;
+    /**Hands out new IDs from blocks reserved in the database, so new IDs never need a table scan*/
+    private static final IdAllocator idAllocator = new IdAllocator("APPOINTMENTS", "Appointment_ID", 50);
+    /**Told about every committed write, so data kept in memory can follow the table without reading it again*/
+    private static final List<WriteListener> writeListeners = new CopyOnWriteArrayList<>();
+
+    /**INSERT used by insert and insertAll*/
+    private static final String INSERT_SQL = "INSERT INTO APPOINTMENTS (Appointment_ID, Title, Description, Location, Type, Start, End, Create_Date, Created_By, Last_Update," +
+            "Last_Updated_By, Customer_ID, User_ID, Contact_ID) VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    /**UPDATE used by update and updateAll*/
+    private static final String UPDATE_SQL = "UPDATE APPOINTMENTS SET Title = ?, Description = ?, Location = ?, Type = ?," +
+            "Start = ?, End = ?, Create_Date = ?, Created_By = ?, Last_Update = ?, Last_Updated_By = ?, Customer_ID = ?, User_ID = ?," +
+            "Contact_ID = ? WHERE Appointment_ID = ?";
+
+    /**
+     * Told about every Appointment write once it is committed. Called on the thread that made the write.
+     */
+    public interface WriteListener {
+        /**
+         * Called after an Appointment is inserted or updated
+         * @param appointment the Appointment as it is now stored
+         */
+        void appointmentSaved(Appointment appointment);
+
+        /**
+         * Called after an Appointment is deleted
+         * @param appointmentID Appointment ID of the deleted Appointment
+         */
+        void appointmentDeleted(int appointmentID);
+    }
+
+    /**
+     * Registers a listener for committed writes
+     * @param listener the listener to add
+     */
+    public static void addWriteListener(WriteListener listener) {
+        writeListeners.add(listener);
+    }
 
     /**
      * Takes each variable of the appointment object, and adds it to the database
@@ -51,54 +92,134 @@ public abstract class AppointmentDAO {
      * @throws SQLException
      */
     public static int insert(Appointment appointment) throws SQLException{
-        String sql = "INSERT INTO APPOINTMENTS (Appointment_ID, Title, Description, Location, Type, Start, End, Create_Date, Created_By, Last_Update," +
-                "Last_Updated_By, Customer_ID, User_ID, Contact_ID) VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
+        try (Connection connection = JDBC.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(INSERT_SQL)) {
+            bindInsert(preparedStatement, appointment);
+
+            int rowsAdded = preparedStatement.executeUpdate();
+            if(rowsAdded > 0) appointmentSaved(appointment);
+            return rowsAdded;
+        }
+    }
+
+    /**
+     * Adds every Appointment to the database with one reused statement, in JDBC batches of the default size.
+     * @param appointments the Appointments to add. Each must already have its Appointment ID.
+     * @return the number of lines added to the database
+     * @throws SQLException if a batch fails. That batch is rolled back, and the batches before it stay added.
+     */
+    public static int insertAll(List<Appointment> appointments) throws SQLException{
+        return insertAll(appointments, BatchWriter.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Adds every Appointment to the database with one reused statement. Each batch is its own transaction.
+     * @param appointments the Appointments to add. Each must already have its Appointment ID.
+     * @param batchSize the number of Appointments per batch and transaction
+     * @return the number of lines added to the database
+     * @throws SQLException if a batch fails. That batch is rolled back, and the batches before it stay added.
+     */
+    public static int insertAll(List<Appointment> appointments, int batchSize) throws SQLException{
+        return BatchWriter.writeAll(INSERT_SQL, appointments, batchSize, AppointmentDAO::bindInsert, AppointmentDAO::indexCommitted);
+    }
+
+    /**
+     * Takes an Appointment object and updates the line in the Appointments table with the information that has the same Appointment ID.
+     * @param appointment
+     * @return Number of lines updated by Method
+     * @throws SQLException
+     */
+    public static int update(Appointment appointment) throws SQLException{
+        try (Connection connection = JDBC.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(UPDATE_SQL)) {
+            bindUpdate(preparedStatement, appointment);
+
+            int rowsUpdated = preparedStatement.executeUpdate();
+            if(rowsUpdated > 0) appointmentSaved(appointment);
+            return rowsUpdated;
+        }
+    }
+
+    /**
+     * Updates every Appointment with one reused statement, in JDBC batches of the default size.
+     * @param appointments the Appointments to update
+     * @return the number of lines updated
+     * @throws SQLException if a batch fails. That batch is rolled back, and the batches before it stay updated.
+     */
+    public static int updateAll(List<Appointment> appointments) throws SQLException{
+        return updateAll(appointments, BatchWriter.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Updates every Appointment with one reused statement. Each batch is its own transaction.
+     * @param appointments the Appointments to update
+     * @param batchSize the number of Appointments per batch and transaction
+     * @return the number of lines updated
+     * @throws SQLException if a batch fails. That batch is rolled back, and the batches before it stay updated.
+     */
+    public static int updateAll(List<Appointment> appointments, int batchSize) throws SQLException{
+        return BatchWriter.writeAll(UPDATE_SQL, appointments, batchSize, AppointmentDAO::bindUpdate, AppointmentDAO::indexCommitted);
+    }
+
+    /**
+     * Fills in INSERT_SQL for an Appointment
+     * @param preparedStatement the statement to fill in
+     * @param appointment the Appointment to add
+     * @throws SQLException
+     */
+    private static void bindInsert(PreparedStatement preparedStatement, Appointment appointment) throws SQLException {
         preparedStatement.setInt(1, appointment.getAppointmentID()); //Appointment ID
         preparedStatement.setString(2, appointment.getTitle()); //Title
         preparedStatement.setString(3, appointment.getDescription()); //Description
         preparedStatement.setString(4, appointment.getLocation()); //Location
         preparedStatement.setString(5, appointment.getType()); //Type
-        preparedStatement.setTimestamp(6, new Timestamp(appointment.getStartDate().withZoneSameInstant(ZoneId.of("UTC")).toInstant().toEpochMilli())); //Start Date
-        preparedStatement.setTimestamp(7, new Timestamp(appointment.getEndDate().withZoneSameInstant(ZoneId.of("UTC")).toInstant().toEpochMilli())); //End Date //TODO fix the offset system
-        preparedStatement.setTimestamp(8, new Timestamp(appointment.getCreateDate().toInstant().toEpochMilli())); //Created Dated
+        preparedStatement.setTimestamp(6, new Timestamp(appointment.getStartSecond() * 1000)); //Start Date
+        preparedStatement.setTimestamp(7, new Timestamp(appointment.getEndSecond() * 1000)); //End Date //TODO fix the offset system
+        preparedStatement.setTimestamp(8, new Timestamp(appointment.getCreateSecond() * 1000)); //Created Dated
         preparedStatement.setString(9, appointment.getCreatedBy()); //Created By
-        preparedStatement.setTimestamp(10, new Timestamp(appointment.getLastUpdate().toInstant().toEpochMilli())); //Last Update
+        preparedStatement.setTimestamp(10, new Timestamp(appointment.getLastUpdateSecond() * 1000)); //Last Update
         preparedStatement.setString(11, appointment.getLastUpdateBy()); //Last Updated By
         preparedStatement.setInt(12, appointment.getCustomerID()); //Customer ID
         preparedStatement.setInt(13, appointment.getUserID()); //User ID
         preparedStatement.setInt(14, appointment.getContactID()); //Contact ID
-
-        return preparedStatement.executeUpdate();
     }
 
     /**
-     * Takes an Appointment object and updates the line in the Appointments table with the information that has the same Appointment ID.
-     * @param appointment
-     * @return Number of lines updated by Method
+     * Fills in UPDATE_SQL for an Appointment
+     * @param preparedStatement the statement to fill in
+     * @param appointment the Appointment to update
      * @throws SQLException
      */
-    public static int update(Appointment appointment) throws SQLException{
-        String sql = "UPDATE APPOINTMENTS SET Title = ?, Description = ?, Location = ?, Type = ?," +
-                "Start = ?, End = ?, Create_Date = ?, Created_By = ?, Last_Update = ?, Last_Updated_By = ?, Customer_ID = ?, User_ID = ?," +
-                "Contact_ID = ? WHERE Appointment_ID = ?";
-        PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
+    private static void bindUpdate(PreparedStatement preparedStatement, Appointment appointment) throws SQLException {
         preparedStatement.setInt(14, appointment.getAppointmentID()); //Appointment ID
         preparedStatement.setString(1, appointment.getTitle()); //Title
         preparedStatement.setString(2, appointment.getDescription()); //Description
         preparedStatement.setString(3, appointment.getLocation()); //Location
         preparedStatement.setString(4, appointment.getType()); //Type
-        preparedStatement.setTimestamp(5, new Timestamp(appointment.getStartDate().withZoneSameInstant(ZoneId.of("UTC")).toInstant().toEpochMilli())); //Start Date
-        preparedStatement.setTimestamp(6, new Timestamp(appointment.getEndDate().withZoneSameInstant(ZoneId.of("UTC")).toInstant().toEpochMilli())); //End Date //TODO fix the offset system
-        preparedStatement.setTimestamp(7, new Timestamp(appointment.getCreateDate().toInstant().toEpochMilli())); //Created Dated
+        preparedStatement.setTimestamp(5, new Timestamp(appointment.getStartSecond() * 1000)); //Start Date
+        preparedStatement.setTimestamp(6, new Timestamp(appointment.getEndSecond() * 1000)); //End Date //TODO fix the offset system
+        preparedStatement.setTimestamp(7, new Timestamp(appointment.getCreateSecond() * 1000)); //Created Dated
         preparedStatement.setString(8, appointment.getCreatedBy()); //Created By
-        preparedStatement.setTimestamp(9, new Timestamp(appointment.getLastUpdate().toInstant().toEpochMilli())); //Last Update
+        preparedStatement.setTimestamp(9, new Timestamp(appointment.getLastUpdateSecond() * 1000)); //Last Update
         preparedStatement.setString(10, appointment.getLastUpdateBy()); //Last Updated By
         preparedStatement.setInt(11, appointment.getCustomerID()); //Customer ID
         preparedStatement.setInt(12, appointment.getUserID()); //User ID
         preparedStatement.setInt(13, appointment.getContactID()); //Contact ID
+    }
 
-        return preparedStatement.executeUpdate();
+    /**
+     * Adds a committed chunk of Appointments to the overlap index and tells the write listeners
+     * @param committed the Appointments that were just committed
+     */
+    private static void indexCommitted(List<Appointment> committed) {
+        for(Appointment appointment : committed) appointmentSaved(appointment);
+    }
+
+    /**
+     * Adds a committed Appointment to the overlap index and tells the write listeners
+     * @param appointment the Appointment as it is now stored
+     */
+    private static void appointmentSaved(Appointment appointment) {
+        CustomerScheduleIndex.appointmentSaved(appointment);
+        for(WriteListener listener : writeListeners) listener.appointmentSaved(appointment);
     }
 
     /**
@@ -109,10 +230,16 @@ public abstract class AppointmentDAO {
      */
     public static int delete(int appointmentID) throws SQLException{
         String sql = "DELETE FROM APPOINTMENTS WHERE Appointment_ID = ?";
-        PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
-        preparedStatement.setInt(1, appointmentID);
+        try (Connection connection = JDBC.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setInt(1, appointmentID);
 
-        return preparedStatement.executeUpdate();
+            int rowsDeleted = preparedStatement.executeUpdate();
+            if(rowsDeleted > 0) {
+                CustomerScheduleIndex.appointmentDeleted(appointmentID);
+                for(WriteListener listener : writeListeners) listener.appointmentDeleted(appointmentID);
+            }
+            return rowsDeleted;
+        }
     }
 
     /**
@@ -124,27 +251,13 @@ public abstract class AppointmentDAO {
         ObservableList<Appointment> allAppointments = FXCollections.observableArrayList();
 
         String sql = "SELECT * FROM APPOINTMENTS";
-        PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
-        ResultSet resultSet = preparedStatement.executeQuery();
-        while(resultSet.next()){
-            allAppointments.add(new Appointment(
-                    resultSet.getInt(appointmentIDColumn),
-                    resultSet.getString(titleColumn),
-                    resultSet.getString(descriptionColumn),
-                    resultSet.getString(locationColumn),
-                    resultSet.getString(typeColumn),
-                    resultSet.getTimestamp(startColumn).toLocalDateTime().atZone(ZoneId.systemDefault()),
-                    resultSet.getTimestamp(endColumn).toLocalDateTime().atZone(ZoneId.systemDefault()),
-                    resultSet.getTimestamp(createDateColumn).toLocalDateTime().atZone(ZoneId.systemDefault()),
-                    resultSet.getString(createByColumn),
-                    resultSet.getTimestamp(lastUpdateColumn).toLocalDateTime().atZone(ZoneId.systemDefault()),
-                    resultSet.getString(lastUpdateByColumn),
-                    resultSet.getInt(customerIDColumn),
-                    resultSet.getInt(userIDColumn),
-                    resultSet.getInt(contactIDColumn)
-            ));
+        try (Connection connection = JDBC.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            ResultSet resultSet = preparedStatement.executeQuery();
+            while(resultSet.next()){
+                allAppointments.add(convertToAppointment(resultSet));
+            }
+            return allAppointments;
         }
-        return allAppointments;
     }
 
     /**
@@ -157,29 +270,34 @@ public abstract class AppointmentDAO {
         ObservableList<Appointment> appointmentsByCustomerID = FXCollections.observableArrayList();
 
         String sql = "SELECT * FROM APPOINTMENTS WHERE CUSTOMER_ID = ?";
-        PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
-        preparedStatement.setInt(1, customerID);
-        ResultSet resultSet = preparedStatement.executeQuery();
-        while(resultSet.next()){
-            //if(((Appointment)resultSet).getCustomerID() != customerID) continue; TODO get rid of this if it is unneeded
-            appointmentsByCustomerID.add(new Appointment(
-                    resultSet.getInt(appointmentIDColumn),
-                    resultSet.getString(titleColumn),
-                    resultSet.getString(descriptionColumn),
-                    resultSet.getString(locationColumn),
-                    resultSet.getString(typeColumn),
-                    resultSet.getTimestamp(startColumn).toLocalDateTime().atZone(ZoneId.systemDefault()),
-                    resultSet.getTimestamp(endColumn).toLocalDateTime().atZone(ZoneId.systemDefault()),
-                    resultSet.getTimestamp(createDateColumn).toLocalDateTime().atZone(ZoneId.systemDefault()),
-                    resultSet.getString(createByColumn),
-                    resultSet.getTimestamp(lastUpdateColumn).toLocalDateTime().atZone(ZoneId.systemDefault()),
-                    resultSet.getString(lastUpdateByColumn),
-                    resultSet.getInt(customerIDColumn),
-                    resultSet.getInt(userIDColumn),
-                    resultSet.getInt(contactIDColumn)
-            ));
+        try (Connection connection = JDBC.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setInt(1, customerID);
+            ResultSet resultSet = preparedStatement.executeQuery();
+            while(resultSet.next()){
+                appointmentsByCustomerID.add(convertToAppointment(resultSet));
+            }
+            return appointmentsByCustomerID;
+        }
+    }
+
+    /**
+     * Creates and returns an Observable List of Appointments that have the given Contact ID, from the Appointments Table, ordered by start.
+     * @param contactID the Contact ID for the Appointments to match.
+     * @return Observable List of the Contact's Appointments
+     * @throws SQLException
+     */
+    public static ObservableList<Appointment> selectAppointmentsByContactID(int contactID) throws SQLException{
+        ObservableList<Appointment> appointmentsByContactID = FXCollections.observableArrayList();
+
+        String sql = "SELECT * FROM APPOINTMENTS WHERE CONTACT_ID = ? ORDER BY Start, Appointment_ID";
+        try (Connection connection = JDBC.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setInt(1, contactID);
+            ResultSet resultSet = preparedStatement.executeQuery();
+            while(resultSet.next()){
+                appointmentsByContactID.add(convertToAppointment(resultSet));
+            }
+            return appointmentsByContactID;
         }
-        return appointmentsByCustomerID;
     }
 
     /**
@@ -192,47 +310,238 @@ public abstract class AppointmentDAO {
         Appointment matchingAppointment = null;
 
         String inquiry = "SELECT * FROM APPOINTMENTS WHERE APPOINTMENT_ID = ?";
-        PreparedStatement preparedStatement = JDBC.connection.prepareStatement(inquiry);
-        preparedStatement.setInt(1, id);
-        ResultSet resultSet = preparedStatement.executeQuery();
-
-        while(resultSet.next()) {
-            matchingAppointment = new Appointment(
-                    resultSet.getInt(appointmentIDColumn),
-                    resultSet.getString(titleColumn),
-                    resultSet.getString(descriptionColumn),
-                    resultSet.getString(locationColumn),
-                    resultSet.getString(typeColumn),
-                    resultSet.getTimestamp(startColumn).toLocalDateTime().atZone(ZoneId.systemDefault()),
-                    resultSet.getTimestamp(endColumn).toLocalDateTime().atZone(ZoneId.systemDefault()),
-                    resultSet.getTimestamp(createDateColumn).toLocalDateTime().atZone(ZoneId.systemDefault()),
-                    resultSet.getString(createByColumn),
-                    resultSet.getTimestamp(lastUpdateColumn).toLocalDateTime().atZone(ZoneId.systemDefault()),
-                    resultSet.getString(lastUpdateByColumn),
-                    resultSet.getInt(customerIDColumn),
-                    resultSet.getInt(userIDColumn),
-                    resultSet.getInt(contactIDColumn)
-            );
+        try (Connection connection = JDBC.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(inquiry)) {
+            preparedStatement.setInt(1, id);
+            ResultSet resultSet = preparedStatement.executeQuery();
+
+            while(resultSet.next()) {
+                matchingAppointment = convertToAppointment(resultSet);
+            }
+
+            return matchingAppointment;
+        }
+    }
+
+    /**
+     * Creates and returns an Observable List of the Appointments that start within the given window, ordered by start.
+     * Only rows in the window are read, since the filter is on the Start column.
+     * @param from start of the window, inclusive
+     * @param to end of the window, exclusive
+     * @return Observable List of the Appointments that start within the window
+     * @throws SQLException
+     */
+    public static ObservableList<Appointment> selectAppointmentsBetween(Instant from, Instant to) throws SQLException{
+        return selectAppointmentsBetween(null, 0, from, to);
+    }
+
+    /**
+     * Creates and returns an Observable List of the given User's Appointments that start within the given window, ordered by start.
+     * @param userID the User ID for the Appointments to match
+     * @param from start of the window, inclusive
+     * @param to end of the window, exclusive
+     * @return Observable List of the User's Appointments that start within the window
+     * @throws SQLException
+     */
+    public static ObservableList<Appointment> selectAppointmentsByUserBetween(int userID, Instant from, Instant to) throws SQLException{
+        return selectAppointmentsBetween("User_ID", userID, from, to);
+    }
+
+    /**
+     * Creates and returns an Observable List of the given Contact's Appointments that start within the given window, ordered by start.
+     * @param contactID the Contact ID for the Appointments to match
+     * @param from start of the window, inclusive
+     * @param to end of the window, exclusive
+     * @return Observable List of the Contact's Appointments that start within the window
+     * @throws SQLException
+     */
+    public static ObservableList<Appointment> selectAppointmentsByContactBetween(int contactID, Instant from, Instant to) throws SQLException{
+        return selectAppointmentsBetween("Contact_ID", contactID, from, to);
+    }
+
+    /**
+     * Creates and returns an Observable List of the given Customer's Appointments that start within the given window, ordered by start.
+     * @param customerID the Customer ID for the Appointments to match
+     * @param from start of the window, inclusive
+     * @param to end of the window, exclusive
+     * @return Observable List of the Customer's Appointments that start within the window
+     * @throws SQLException
+     */
+    public static ObservableList<Appointment> selectAppointmentsByCustomerBetween(int customerID, Instant from, Instant to) throws SQLException{
+        return selectAppointmentsBetween("Customer_ID", customerID, from, to);
+    }
+
+    /**
+     * Counts the rows in the Appointments table
+     * @return the number of Appointments
+     * @throws SQLException
+     */
+    public static int countAppointments() throws SQLException{
+        String sql = "SELECT COUNT(*) FROM APPOINTMENTS";
+        try (Connection connection = JDBC.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            ResultSet resultSet = preparedStatement.executeQuery();
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    /**
+     * Returns the watermark of the whole Appointments table
+     * @return number of Appointments and their newest Last_Update
+     * @throws SQLException
+     */
+    public static Watermark selectWatermark() throws SQLException{
+        String sql = "SELECT COUNT(*), MAX(Last_Update) FROM APPOINTMENTS";
+        try (Connection connection = JDBC.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            return convertToWatermark(preparedStatement.executeQuery());
         }
+    }
 
-        return matchingAppointment;
+    /**
+     * Returns the watermark of the given Customer's Appointments
+     * @param customerID the Customer ID for the Appointments to match
+     * @return number of the Customer's Appointments and their newest Last_Update
+     * @throws SQLException
+     */
+    public static Watermark selectWatermarkByCustomerID(int customerID) throws SQLException{
+        String sql = "SELECT COUNT(*), MAX(Last_Update) FROM APPOINTMENTS WHERE CUSTOMER_ID = ?";
+        try (Connection connection = JDBC.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setInt(1, customerID);
+            return convertToWatermark(preparedStatement.executeQuery());
+        }
     }
 
     /**
-     * Creates and returns a new sequential ID Number for the Appointment.
-     * @return
+     * Reads a COUNT(*), MAX(Last_Update) row
+     * @param resultSet the result of the query
+     * @return the watermark in the row
      * @throws SQLException
      */
-    public static int generateNewID() throws SQLException {
-        String sql = "SELECT Appointment_ID FROM APPOINTMENTS";
-        PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
-        ResultSet resultSet = preparedStatement.executeQuery();
-        while(resultSet.next()){
-            if(resultSet.getInt(appointmentIDColumn) == currentID){
-                currentID = resultSet.getInt(appointmentIDColumn) + 1;
-                generateNewID();
+    private static Watermark convertToWatermark(ResultSet resultSet) throws SQLException{
+        resultSet.next();
+        Timestamp lastUpdate = resultSet.getTimestamp(2);
+        return new Watermark(resultSet.getLong(1), lastUpdate == null ? 0 : lastUpdate.getTime());
+    }
+
+    /**
+     * Returns one page of Appointments in (Start, Appointment_ID) order. When the last Appointment of the previous page is known,
+     * the page is found with a keyset predicate, so the database seeks straight to it instead of skipping over every earlier row.
+     * OFFSET is only used when the user jumps to a page whose previous page has never been loaded.
+     * @param pageIndex the index of the page, starting at 0
+     * @param pageSize the number of Appointments in a page
+     * @param lastOfPreviousPage the last Appointment of the page before this one, or null if it is not known
+     * @return the Appointments on the page
+     * @throws SQLException
+     */
+    public static List<Appointment> selectAppointmentPage(int pageIndex, int pageSize, Appointment lastOfPreviousPage) throws SQLException{
+        List<Appointment> page = new ArrayList<>(pageSize);
+
+        String sql;
+        if(pageIndex == 0 || lastOfPreviousPage != null)
+            sql = "SELECT * FROM APPOINTMENTS" + (pageIndex == 0 ? "" : " WHERE Start > ? OR (Start = ? AND Appointment_ID > ?)") +
+                    " ORDER BY Start, Appointment_ID LIMIT ?";
+        else
+            sql = "SELECT * FROM APPOINTMENTS ORDER BY Start, Appointment_ID LIMIT ? OFFSET ?";
+
+        try (Connection connection = JDBC.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            if(pageIndex == 0) {
+                preparedStatement.setInt(1, pageSize);
+            }
+            else if(lastOfPreviousPage != null) {
+                Timestamp lastStart = new Timestamp(lastOfPreviousPage.getStartSecond() * 1000);
+                preparedStatement.setTimestamp(1, lastStart);
+                preparedStatement.setTimestamp(2, lastStart);
+                preparedStatement.setInt(3, lastOfPreviousPage.getAppointmentID());
+                preparedStatement.setInt(4, pageSize);
+            }
+            else {
+                preparedStatement.setInt(1, pageSize);
+                preparedStatement.setLong(2, (long) pageIndex * pageSize);
+            }
+            ResultSet resultSet = preparedStatement.executeQuery();
+            while(resultSet.next()){
+                page.add(convertToAppointment(resultSet));
+            }
+            return page;
+        }
+    }
+
+    /**
+     * Returns a PageSource that pages through the whole Appointments table, for use with a PagedList
+     * @return PageSource over the Appointments table
+     */
+    public static PagedList.PageSource<Appointment> pageSource(){
+        return new PagedList.PageSource<>() {
+            @Override
+            public int count() throws SQLException {
+                return countAppointments();
+            }
+
+            @Override
+            public List<Appointment> loadPage(int pageIndex, int pageSize, Appointment lastOfPreviousPage) throws SQLException {
+                return selectAppointmentPage(pageIndex, pageSize, lastOfPreviousPage);
             }
+        };
+    }
+
+    /**
+     * Helper Method for the range queries. The Start predicate is written as a plain range on the column, so the database can
+     * answer it from an index on Start (or on the ID column followed by Start).
+     * @param idColumnName the ID column to match, or null to match every Appointment
+     * @param id the value the ID column has to match
+     * @param from start of the window, inclusive
+     * @param to end of the window, exclusive
+     * @return Observable List of the matching Appointments, ordered by start
+     * @throws SQLException
+     */
+    private static ObservableList<Appointment> selectAppointmentsBetween(String idColumnName, int id, Instant from, Instant to) throws SQLException{
+        ObservableList<Appointment> appointments = FXCollections.observableArrayList();
+
+        String idPredicate = idColumnName == null ? "" : idColumnName + " = ? AND ";
+        String sql = "SELECT * FROM APPOINTMENTS WHERE " + idPredicate + "Start >= ? AND Start < ? ORDER BY Start, Appointment_ID";
+        try (Connection connection = JDBC.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            int parameter = 1;
+            if(idColumnName != null) preparedStatement.setInt(parameter++, id);
+            preparedStatement.setTimestamp(parameter++, Timestamp.from(from));
+            preparedStatement.setTimestamp(parameter, Timestamp.from(to));
+            ResultSet resultSet = preparedStatement.executeQuery();
+            while(resultSet.next()){
+                appointments.add(convertToAppointment(resultSet));
+            }
+            return appointments;
         }
-        return currentID;
+    }
+
+    /**
+     * Helper Method to convert ResultSet data into an Appointment object
+     * @param resultSet data from the Appointments table to be changed into an Appointment Object
+     * @return Appointment based on the result set data.
+     * @throws SQLException
+     */
+    private static Appointment convertToAppointment(ResultSet resultSet) throws SQLException {
+        return new Appointment(
+                resultSet.getInt(appointmentIDColumn),
+                resultSet.getString(titleColumn),
+                resultSet.getString(descriptionColumn),
+                resultSet.getString(locationColumn),
+                resultSet.getString(typeColumn),
+                resultSet.getTimestamp(startColumn).toInstant().getEpochSecond(),
+                resultSet.getTimestamp(endColumn).toInstant().getEpochSecond(),
+                resultSet.getTimestamp(createDateColumn).toInstant().getEpochSecond(),
+                resultSet.getString(createByColumn),
+                resultSet.getTimestamp(lastUpdateColumn).toInstant().getEpochSecond(),
+                resultSet.getString(lastUpdateByColumn),
+                resultSet.getInt(customerIDColumn),
+                resultSet.getInt(userIDColumn),
+                resultSet.getInt(contactIDColumn)
+        );
+    }
+
+    /**
+     * Returns a new ID Number for the Appointment. Each call hands out a different ID, so it should only be called once per new Appointment.
+     * @return a new ID Number for the Appointment
+     * @throws SQLException
+     */
+    public static int generateNewID() throws SQLException {
+        return idAllocator.nextID();
     }
 }
@@ -0,0 +1,291 @@
+package scheduler.dao;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import scheduler.model.Appointment;
+import scheduler.model.Customer;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous counterparts of the DAO methods, so slow queries never freeze the UI. Each query runs on a background thread,
+ * and the returned future is completed on the FX thread, so anything chained onto it with thenAccept or whenComplete can
+ * safely touch controls.
+ *
+ * Reads are tied to the current scene. When SceneHelper changes the scene, every read that has not finished yet is
+ * cancelled and its result is thrown away. Writes are never cancelled, since the user expects them to go through.
+ *
+ * @author Alvin Roe
+ */
+public abstract class AsyncDAO {
+    /**Number of background threads. Kept below the connection pool size so the FX thread can still borrow a connection.*/
+    private static final int WORKER_THREADS = 4;
+    /**Counts worker threads, for their names*/
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    /**Runs the queries*/
+    private static final ExecutorService workers = Executors.newFixedThreadPool(WORKER_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "async-dao-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**Reads that belong to the current scene and have not finished yet*/
+    private static final Set<CompletableFuture<?>> pendingReads = ConcurrentHashMap.newKeySet();
+    /**True on threads whose reads do not belong to the current scene, such as the thread that preloads views*/
+    private static final ThreadLocal<Boolean> untracked = ThreadLocal.withInitial(() -> false);
+    /**Completions being held back for calls started on this thread, or null if they are not being held*/
+    private static final ThreadLocal<HeldCompletions> held = new ThreadLocal<>();
+
+    /**
+     * A DAO call that can throw SQLException, or a read of the app's own files that can throw IOException
+     * @param <T> the type the call returns
+     */
+    public interface Query<T> {
+        /**
+         * @return the result of the call
+         * @throws SQLException
+         * @throws IOException
+         */
+        T run() throws SQLException, IOException;
+    }
+
+    //region Appointments
+    /**
+     * Takes an Appointment ID and inserts the Appointment in one background call
+     * @see AppointmentDAO#generateNewID()
+     * @see AppointmentDAO#insert(Appointment)
+     */
+    public static CompletableFuture<Integer> insertNewAppointment(Appointment appointment) {
+        return write(() -> {
+            appointment.setAppointmentID(AppointmentDAO.generateNewID());
+            return AppointmentDAO.insert(appointment);
+        });
+    }
+
+    /**
+     * @see AppointmentDAO#update(Appointment)
+     */
+    public static CompletableFuture<Integer> updateAppointment(Appointment appointment) {
+        return write(() -> AppointmentDAO.update(appointment));
+    }
+
+    /**
+     * @see AppointmentDAO#delete(int)
+     */
+    public static CompletableFuture<Integer> deleteAppointment(int appointmentID) {
+        return write(() -> AppointmentDAO.delete(appointmentID));
+    }
+
+    /**
+     * @see AppointmentDAO#selectAppointmentsByCustomerID(int)
+     */
+    public static CompletableFuture<ObservableList<Appointment>> selectAppointmentsByCustomerID(int customerID) {
+        return read(() -> AppointmentDAO.selectAppointmentsByCustomerID(customerID));
+    }
+
+    /**
+     * @see AppointmentDAO#selectAppointmentByID(int)
+     */
+    public static CompletableFuture<Appointment> selectAppointmentByID(int appointmentID) {
+        return read(() -> AppointmentDAO.selectAppointmentByID(appointmentID));
+    }
+
+    /**
+     * @see AppointmentDAO#selectAppointmentsBetween(Instant, Instant)
+     */
+    public static CompletableFuture<ObservableList<Appointment>> selectAppointmentsBetween(Instant from, Instant to) {
+        return read(() -> AppointmentDAO.selectAppointmentsBetween(from, to));
+    }
+    //endregion
+
+    //region Customers
+    /**
+     * Takes a Customer ID and inserts the Customer in one background call
+     * @see CustomerDAO#generateNewID()
+     * @see CustomerDAO#insert(Customer)
+     */
+    public static CompletableFuture<Integer> insertNewCustomer(Customer customer) {
+        return write(() -> {
+            customer.setID(CustomerDAO.generateNewID());
+            return CustomerDAO.insert(customer);
+        });
+    }
+
+    /**
+     * @see CustomerDAO#update(Customer)
+     */
+    public static CompletableFuture<Integer> updateCustomer(Customer customer) {
+        return write(() -> CustomerDAO.update(customer));
+    }
+
+    /**
+     * @see CustomerDAO#delete(int)
+     */
+    public static CompletableFuture<Integer> deleteCustomer(int customerID) {
+        return write(() -> CustomerDAO.delete(customerID));
+    }
+
+    /**
+     * @see CustomerDAO#selectAllCustomers()
+     */
+    public static CompletableFuture<ObservableList<Customer>> selectAllCustomers() {
+        return read(CustomerDAO::selectAllCustomers);
+    }
+    //endregion
+
+    //region Users
+    /**
+     * Not tied to the scene, since it sets the User ID for the session
+     * @see UserDAO#authenticate(String, String)
+     */
+    public static CompletableFuture<Boolean> authenticate(String userName, String password) {
+        return write(() -> UserDAO.authenticate(userName, password));
+    }
+    //endregion
+
+    /**
+     * Runs a read in the background. The read is cancelled if the scene changes before it finishes.
+     * @param query the DAO call
+     * @param <T> the type the call returns
+     * @return a future completed on the FX thread
+     */
+    public static <T> CompletableFuture<T> read(Query<T> query) {
+        CompletableFuture<T> result = submit(query);
+        if(untracked.get()) return result;
+        pendingReads.add(result);
+        result.whenComplete((value, error) -> pendingReads.remove(result));
+        return result;
+    }
+
+    /**
+     * Stops reads started on the current thread from being cancelled by a scene change. Called by the thread that builds
+     * views in the background, since the reads of a view that is not showing yet belong to no scene.
+     */
+    public static void untrackReadsOnCurrentThread() {
+        untracked.set(true);
+    }
+
+    /**
+     * Holds back the completion of every call started on the current thread until releaseCompletionsOnCurrentThread is
+     * called. Used while a view is built off the FX thread: its controller's initialize starts calls and goes on setting up
+     * controls, so their results must not reach the FX thread until initialize has returned.
+     */
+    public static void holdCompletionsOnCurrentThread() {
+        if(held.get() == null) held.set(new HeldCompletions());
+    }
+
+    /**
+     * Sends the completions held back on the current thread to the FX thread, in the order they arrived, and stops holding
+     * them. Everything the thread did to its controls before this call is seen by the FX thread when they run.
+     */
+    public static void releaseCompletionsOnCurrentThread() {
+        HeldCompletions holding = held.get();
+        if(holding == null) return;
+        held.remove();
+        holding.release();
+    }
+
+    /**
+     * Runs a write in the background. Writes are never cancelled by a scene change.
+     * @param query the DAO call
+     * @param <T> the type the call returns
+     * @return a future completed on the FX thread
+     */
+    public static <T> CompletableFuture<T> write(Query<T> query) {
+        return submit(query);
+    }
+
+    /**
+     * Cancels every read that has not finished. Called by SceneHelper when the scene changes, so results never arrive at a
+     * controller that is no longer showing. A query already sent to the database still runs to the end, but its result is dropped.
+     */
+    public static void cancelPendingReads() {
+        for(CompletableFuture<?> read : pendingReads) read.cancel(false);
+        pendingReads.clear();
+    }
+
+    /**
+     * Prints the error from a failed call, in the same way the rest of the app does. Meant for exceptionally. Reads cancelled
+     * by a scene change are expected, so they are not printed.
+     * @param error the error from the future
+     * @param <T> the type of the future
+     * @return null
+     */
+    public static <T> T printError(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if(cause instanceof CancellationException) return null;
+        System.out.println("Error:" + cause.getMessage());
+        return null;
+    }
+
+    /**
+     * Runs the call on a worker thread and completes the returned future on the FX thread, unless it was cancelled first.
+     * @param query the DAO call
+     * @param <T> the type the call returns
+     * @return a future completed on the FX thread
+     */
+    private static <T> CompletableFuture<T> submit(Query<T> query) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        HeldCompletions holding = held.get();
+        workers.execute(() -> {
+            if(result.isDone()) return; //Cancelled before it started
+            try {
+                T value = query.run();
+                completeOnFXThread(holding, () -> result.complete(value));
+            } catch (Exception e) {
+                completeOnFXThread(holding, () -> result.completeExceptionally(e));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Sends a completion to the FX thread, or holds it back if the thread that started the call is still holding them
+     * @param holding the completions being held for the thread that started the call, or null
+     * @param completion the completion
+     */
+    private static void completeOnFXThread(HeldCompletions holding, Runnable completion) {
+        if(holding == null || !holding.hold(completion)) Platform.runLater(completion);
+    }
+
+    /**
+     * Completions held back for one thread until it releases them
+     */
+    private static class HeldCompletions {
+        /**The completions held back, in the order they arrived*/
+        private final List<Runnable> completions = new ArrayList<>();
+        /**True once the completions have been released*/
+        private boolean released = false;
+
+        /**
+         * Holds a completion back if they have not been released yet
+         * @param completion the completion
+         * @return true if it was held back, false if it should be sent now
+         */
+        private synchronized boolean hold(Runnable completion) {
+            if(released) return false;
+            completions.add(completion);
+            return true;
+        }
+
+        /**
+         * Sends every completion held back to the FX thread
+         */
+        private synchronized void release() {
+            released = true;
+            for(Runnable completion : completions) Platform.runLater(completion);
+            completions.clear();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package scheduler.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Writes many rows with one prepared statement, sending them to the database in JDBC batches. Each chunk of batchSize rows is
+ * its own transaction, so a failure only rolls back the chunk it happened in, and chunks already committed stay committed.
+ *
+ * @author Alvin Roe
+ */
+abstract class BatchWriter {
+    /**Rows per batch when no size is given*/
+    static final int DEFAULT_BATCH_SIZE = 500;
+
+    /**
+     * Sets the parameters of the statement for one row
+     * @param <T> the type of row
+     */
+    interface Binder<T> {
+        /**
+         * @param preparedStatement the statement to fill in
+         * @param row the row to take the values from
+         * @throws SQLException
+         */
+        void bind(PreparedStatement preparedStatement, T row) throws SQLException;
+    }
+
+    /**
+     * Told about every chunk once it has been committed
+     * @param <T> the type of row
+     */
+    interface ChunkListener<T> {
+        /**
+         * @param committed the rows that were just committed
+         */
+        void committed(List<T> committed);
+    }
+
+    /**
+     * Writes every row, batchSize rows per batch and transaction
+     * @param sql the INSERT or UPDATE statement
+     * @param rows the rows to write
+     * @param batchSize the number of rows per batch
+     * @param binder fills in the statement for a row
+     * @param listener told about each committed chunk, may be null
+     * @param <T> the type of row
+     * @return the number of rows written
+     * @throws SQLException if a chunk fails. That chunk is rolled back, and the chunks before it stay committed.
+     */
+    static <T> int writeAll(String sql, List<T> rows, int batchSize, Binder<T> binder, ChunkListener<T> listener) throws SQLException {
+        if(batchSize < 1) throw new IllegalArgumentException("Batch size must be at least 1");
+        if(rows.isEmpty()) return 0;
+
+        int rowsWritten = 0;
+        try (Connection connection = JDBC.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            connection.setAutoCommit(false);
+            for(int chunkStart = 0; chunkStart < rows.size(); chunkStart += batchSize) {
+                List<T> chunk = rows.subList(chunkStart, Math.min(chunkStart + batchSize, rows.size()));
+                try {
+                    for(T row : chunk) {
+                        binder.bind(preparedStatement, row);
+                        preparedStatement.addBatch();
+                    }
+                    rowsWritten += countRows(preparedStatement.executeBatch());
+                    connection.commit();
+                } catch (SQLException e) {
+                    preparedStatement.clearBatch();
+                    connection.rollback();
+                    throw e;
+                }
+                if(listener != null) listener.committed(chunk);
+            }
+        }
+        return rowsWritten;
+    }
+
+    /**
+     * Adds up the counts from executeBatch. With rewriteBatchedStatements the driver can only say a row succeeded, not how
+     * many rows it changed, so SUCCESS_NO_INFO is counted as one row.
+     * @param counts the counts returned by executeBatch
+     * @return the number of rows written
+     */
+    private static int countRows(int[] counts) {
+        int rows = 0;
+        for(int count : counts) rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+        return rows;
+    }
+}
@@ -0,0 +1,349 @@
+package scheduler.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pool of database connections. A connection is borrowed with borrow() and handed back to the pool by calling close()
+ * on it, so the DAOs can use try-with-resources. Connections are validated when they are borrowed, and connections that sit idle
+ * for too long are closed in the background.
+ *
+ * @author Alvin Roe
+ */
+public class ConnectionPool implements AutoCloseable {
+    /**Seconds the driver is given to check that a connection is still alive*/
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    /**How often the background thread looks for idle connections to close*/
+    private static final long EVICTION_INTERVAL_MILLIS = 30_000;
+
+    /**JDBC url used to open new connections*/
+    private final String jdbcUrl;
+    /**Database username used to open new connections*/
+    private final String userName;
+    /**Database password used to open new connections*/
+    private final String password;
+    /**Largest number of connections that can be open at one time*/
+    private final int maxSize;
+    /**Number of idle connections that are never evicted*/
+    private final int minIdle;
+    /**How long borrow() waits for a free connection before giving up*/
+    private final long borrowTimeoutMillis;
+    /**How long a connection can sit idle before it is closed*/
+    private final long idleTimeoutMillis;
+    /**One permit for every connection that can be borrowed*/
+    private final Semaphore permits;
+    /**Connections that are open but not borrowed. The most recently returned connection is at the front.*/
+    private final Deque<IdleConnection> idleConnections = new ConcurrentLinkedDeque<>();
+    /**Closes connections that have been idle for longer than idleTimeoutMillis*/
+    private final ScheduledExecutorService evictor;
+    /**Number of connections currently borrowed*/
+    private final AtomicInteger activeCount = new AtomicInteger();
+    /**Number of physical connections currently open*/
+    private final AtomicInteger openCount = new AtomicInteger();
+    /**Number of successful borrows*/
+    private final LongAdder borrowCount = new LongAdder();
+    /**Number of borrows that timed out*/
+    private final LongAdder timeoutCount = new LongAdder();
+    /**Total time spent waiting for a connection, in nanoseconds*/
+    private final LongAdder totalWaitNanos = new LongAdder();
+    /**Longest time spent waiting for a connection, in nanoseconds*/
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    /**Number of connections thrown away because they failed validation*/
+    private final LongAdder validationFailureCount = new LongAdder();
+    /**Number of connections closed because they were idle for too long*/
+    private final LongAdder evictionCount = new LongAdder();
+    /**Set once the pool has been closed*/
+    private volatile boolean closed = false;
+
+    /**
+     * Constructor for ConnectionPool. No connections are opened until they are first borrowed.
+     * @param jdbcUrl the JDBC url of the database
+     * @param userName the database username
+     * @param password the database password
+     * @param maxSize the largest number of connections that can be open at one time
+     * @param minIdle the number of idle connections that are kept open
+     * @param borrowTimeoutMillis how long to wait for a free connection before timing out
+     * @param idleTimeoutMillis how long a connection can sit idle before it is closed
+     */
+    public ConnectionPool(String jdbcUrl, String userName, String password, int maxSize, int minIdle, long borrowTimeoutMillis, long idleTimeoutMillis) {
+        this.jdbcUrl = jdbcUrl;
+        this.userName = userName;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.minIdle = minIdle;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        permits = new Semaphore(maxSize, true);
+
+        evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(this::evictIdleConnections, EVICTION_INTERVAL_MILLIS, EVICTION_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new one if none are idle. Waits up to borrowTimeoutMillis when every
+     * connection is already borrowed. The connection goes back to the pool when close() is called on it.
+     * @return a validated connection
+     * @throws SQLException if the pool is closed, no connection frees up in time, or a new connection can not be opened
+     */
+    public Connection borrow() throws SQLException {
+        if(closed) throw new SQLException("Connection pool is closed");
+
+        long waitStart = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        long waited = System.nanoTime() - waitStart;
+        totalWaitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+        if(!acquired) {
+            timeoutCount.increment();
+            throw new SQLTimeoutException("Timed out after " + borrowTimeoutMillis + " ms waiting for a database connection");
+        }
+
+        try {
+            Connection physicalConnection = takeValidConnection();
+            activeCount.incrementAndGet();
+            borrowCount.increment();
+            return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    new PooledConnectionHandler(physicalConnection));
+        } catch (SQLException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns an idle connection that passes validation, or opens a new one if there are none. Connections that fail
+     * validation are closed and thrown away.
+     * @return an open physical connection
+     * @throws SQLException if a new connection can not be opened
+     */
+    private Connection takeValidConnection() throws SQLException {
+        IdleConnection idleConnection;
+        while((idleConnection = idleConnections.pollFirst()) != null) {
+            Connection connection = idleConnection.connection;
+            boolean valid;
+            try { valid = connection.isValid(VALIDATION_TIMEOUT_SECONDS); }
+            catch (SQLException e) { valid = false; }
+
+            if(valid) return connection;
+
+            validationFailureCount.increment();
+            closeQuietly(connection);
+        }
+
+        Connection connection = DriverManager.getConnection(jdbcUrl, userName, password);
+        openCount.incrementAndGet();
+        return connection;
+    }
+
+    /**
+     * Hands a borrowed connection back to the pool. Any open transaction is rolled back so the next borrower starts clean.
+     * @param connection the physical connection being returned
+     */
+    private void giveBack(Connection connection) {
+        try {
+            boolean reusable = !closed && !connection.isClosed();
+            if(reusable && !connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            if(reusable) idleConnections.offerFirst(new IdleConnection(connection, System.currentTimeMillis()));
+            else closeQuietly(connection);
+        } catch (SQLException e) {
+            closeQuietly(connection);
+        } finally {
+            activeCount.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    /**
+     * Closes connections that have been idle for longer than idleTimeoutMillis, while keeping at least minIdle open.
+     * Runs on the evictor thread.
+     */
+    private void evictIdleConnections() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        Iterator<IdleConnection> oldestFirst = idleConnections.descendingIterator();
+        while(oldestFirst.hasNext() && idleConnections.size() > minIdle) {
+            IdleConnection idleConnection = oldestFirst.next();
+            if(idleConnection.returnedAt > cutoff) break;
+            if(idleConnections.remove(idleConnection)) {
+                evictionCount.increment();
+                closeQuietly(idleConnection.connection);
+            }
+        }
+    }
+
+    /**
+     * Closes a physical connection and ignores any errors, since the connection is being thrown away.
+     * @param connection the connection to close
+     */
+    private void closeQuietly(Connection connection) {
+        openCount.decrementAndGet();
+        try { connection.close(); }
+        catch (SQLException ignored) { }
+    }
+
+    /**
+     * Closes every idle connection and stops the evictor. Borrowed connections are closed as they are handed back.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        IdleConnection idleConnection;
+        while((idleConnection = idleConnections.pollFirst()) != null) closeQuietly(idleConnection.connection);
+    }
+
+    /**
+     * @return the number of connections currently borrowed
+     */
+    public int getActiveCount() { return activeCount.get(); }
+
+    /**
+     * @return the number of connections open but not borrowed
+     */
+    public int getIdleCount() { return idleConnections.size(); }
+
+    /**
+     * @return the number of physical connections currently open
+     */
+    public int getOpenCount() { return openCount.get(); }
+
+    /**
+     * @return the largest number of connections this pool will open
+     */
+    public int getMaxSize() { return maxSize; }
+
+    /**
+     * @return the number of successful borrows since the pool was created
+     */
+    public long getBorrowCount() { return borrowCount.sum(); }
+
+    /**
+     * @return the number of borrows that timed out waiting for a connection
+     */
+    public long getTimeoutCount() { return timeoutCount.sum(); }
+
+    /**
+     * @return the number of connections thrown away because they failed validation
+     */
+    public long getValidationFailureCount() { return validationFailureCount.sum(); }
+
+    /**
+     * @return the number of connections closed for being idle too long
+     */
+    public long getEvictionCount() { return evictionCount.sum(); }
+
+    /**
+     * @return the average time a borrow waited for a connection, in milliseconds
+     */
+    public double getAverageWaitMillis() {
+        long attempts = borrowCount.sum() + timeoutCount.sum();
+        if(attempts == 0) return 0;
+        return totalWaitNanos.sum() / (double) attempts / 1_000_000.0;
+    }
+
+    /**
+     * @return the longest time a borrow waited for a connection, in milliseconds
+     */
+    public double getMaxWaitMillis() { return maxWaitNanos.get() / 1_000_000.0; }
+
+    /**
+     * Readable summary of the pool metrics
+     * @return the pool metrics on one line
+     */
+    @Override
+    public String toString() {
+        return String.format("ConnectionPool[active=%d, idle=%d, open=%d/%d, borrows=%d, timeouts=%d, avgWait=%.2fms, maxWait=%.2fms, invalid=%d, evicted=%d]",
+                getActiveCount(), getIdleCount(), getOpenCount(), maxSize, getBorrowCount(), getTimeoutCount(),
+                getAverageWaitMillis(), getMaxWaitMillis(), getValidationFailureCount(), getEvictionCount());
+    }
+
+    /**
+     * An open connection sitting in the pool, along with the time it was handed back.
+     */
+    private static class IdleConnection {
+        /**The physical connection*/
+        private final Connection connection;
+        /**Time the connection was handed back, in epoch milliseconds*/
+        private final long returnedAt;
+
+        /**
+         * Constructor for IdleConnection
+         * @param connection the physical connection
+         * @param returnedAt time the connection was handed back, in epoch milliseconds
+         */
+        private IdleConnection(Connection connection, long returnedAt) {
+            this.connection = connection;
+            this.returnedAt = returnedAt;
+        }
+    }
+
+    /**
+     * Sits between a borrower and the physical connection. close() hands the connection back to the pool instead of
+     * closing it, and any use after that is rejected.
+     */
+    private class PooledConnectionHandler implements InvocationHandler {
+        /**The physical connection being lent out*/
+        private final Connection physicalConnection;
+        /**Set once the borrower has handed the connection back*/
+        private final AtomicBoolean returned = new AtomicBoolean(false);
+
+        /**
+         * Constructor for PooledConnectionHandler
+         * @param physicalConnection the physical connection being lent out
+         */
+        private PooledConnectionHandler(Connection physicalConnection) {
+            this.physicalConnection = physicalConnection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch(method.getName()) {
+                case "close":
+                    if(returned.compareAndSet(false, true)) giveBack(physicalConnection);
+                    return null;
+                case "isClosed":
+                    return returned.get() || physicalConnection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + physicalConnection;
+                default:
+                    if(returned.get()) throw new SQLException("Connection has already been returned to the pool");
+                    try { return method.invoke(physicalConnection, args); }
+                    catch (InvocationTargetException e) { throw e.getCause(); }
+            }
+        }
+    }
+}
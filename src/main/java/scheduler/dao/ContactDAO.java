@@ -4,10 +4,10 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import scheduler.model.Contact;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Hashtable;
 
 /**
  * Class to obtain Contact information from the Contacts Table.
@@ -30,33 +30,17 @@ public abstract class ContactDAO {
     public static ObservableList<Contact> selectAllContacts()throws SQLException {
         ObservableList<Contact> contacts = FXCollections.observableArrayList();
 
-        String sql = "SELECT * FROM CONTACTS";
-        PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
-        ResultSet resultSet = preparedStatement.executeQuery();
-        while (resultSet.next()) {
-            contacts.add(new Contact(
-                    resultSet.getInt(contactIDColumn),
-                    resultSet.getString(contactNameColumn),
-                    resultSet.getString(contactEmailColumn)
-            ));
+        String sql = "SELECT Contact_ID, Contact_Name, Email FROM CONTACTS ORDER BY Contact_ID";
+        try (Connection connection = JDBC.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            ResultSet resultSet = preparedStatement.executeQuery();
+            while (resultSet.next()) {
+                contacts.add(new Contact(
+                        resultSet.getInt(contactIDColumn),
+                        resultSet.getString(contactNameColumn),
+                        resultSet.getString(contactEmailColumn)
+                ));
+            }
+            return contacts;
         }
-        return contacts;
-    }
-
-    /**
-     * Returns a Hashtable with the Contact ID as the Key and the Contact Name as the Value
-     * @return Hashtable with the Contact ID as the Key and the Contact Name as the Value
-     * @throws SQLException
-     */
-    public static Hashtable<Integer, String> getHashtableContacts()throws SQLException {
-        Hashtable<Integer, String> contactTable = new Hashtable<>();
-
-        String sql = "SELECT * FROM CONTACTS";
-        PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
-        ResultSet resultSet = preparedStatement.executeQuery();
-        while (resultSet.next()) {
-            contactTable.put(resultSet.getInt(contactIDColumn), resultSet.getString(contactNameColumn));
-        }
-        return contactTable;
     }
 }
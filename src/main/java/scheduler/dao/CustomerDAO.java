@@ -4,6 +4,7 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import scheduler.model.Customer;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -12,6 +13,9 @@ import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Used to access and manipulate the Customers Table
@@ -39,8 +43,15 @@ public class CustomerDAO {
     private static final int LAST_UPDATE_BY_COLUMN = 9;
     /**Column number for the First Level Division ID column*/
     private static final int DIVISION_ID_COLUMN = 10;
-    /**Used to track current ID being utilized in the system, so that numbers that have already been utilized will not be checked again until the next time the program loads*/
-    private static int currentID = 1;
+    /**Hands out new IDs from blocks reserved in the database, so new IDs never need a table scan*/
+    private static final IdAllocator idAllocator = new IdAllocator("CUSTOMERS", "Customer_ID", 50);
+
+    /**INSERT used by insert and insertAll*/
+    private static final String INSERT_SQL = "INSERT INTO Customers (Customer_ID, Customer_Name, Address, Postal_Code, Phone, Create_Date," +
+            "Created_By, Last_Update, Last_Updated_By, Division_ID) VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    /**UPDATE used by update and updateAll*/
+    private static final String UPDATE_SQL = "UPDATE CUSTOMERS SET Customer_Name = ?, Address = ?, Postal_Code = ?, Phone = ?," +
+            "Create_Date = ?, Created_By = ?, Last_Update = ?, Last_Updated_By = ?, Division_ID = ?  WHERE Customer_ID = ?";
 
     /**
      * Takes each variable of the Customer object, and adds it to the database
@@ -49,45 +60,105 @@ public class CustomerDAO {
      * @throws SQLException
      */
     public static int insert(Customer customer) throws SQLException{
-        String sql = "INSERT INTO Customers (Customer_ID, Customer_Name, Address, Postal_Code, Phone, Create_Date," +
-                "Created_By, Last_Update, Last_Updated_By, Division_ID) VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
+        try (Connection connection = JDBC.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(INSERT_SQL)) {
+            bindInsert(preparedStatement, customer);
+
+            return preparedStatement.executeUpdate();
+        }
+    }
+
+    /**
+     * Adds every Customer to the database with one reused statement, in JDBC batches of the default size.
+     * @param customers the Customers to add. Each must already have its Customer ID.
+     * @return number of lines added to the database
+     * @throws SQLException if a batch fails. That batch is rolled back, and the batches before it stay added.
+     */
+    public static int insertAll(List<Customer> customers) throws SQLException{
+        return insertAll(customers, BatchWriter.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Adds every Customer to the database with one reused statement. Each batch is its own transaction.
+     * @param customers the Customers to add. Each must already have its Customer ID.
+     * @param batchSize the number of Customers per batch and transaction
+     * @return number of lines added to the database
+     * @throws SQLException if a batch fails. That batch is rolled back, and the batches before it stay added.
+     */
+    public static int insertAll(List<Customer> customers, int batchSize) throws SQLException{
+        return BatchWriter.writeAll(INSERT_SQL, customers, batchSize, CustomerDAO::bindInsert, null);
+    }
+
+    /**
+     * Takes a Customer object and updates the line in the Customers table with the information that has the same Customer ID.
+      * @param customer customer to add to the database
+     * @return number of lines added to the database
+     * @throws SQLException
+     */
+    public static int update(Customer customer) throws SQLException{
+        try (Connection connection = JDBC.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(UPDATE_SQL)) {
+            bindUpdate(preparedStatement, customer);
+
+            return preparedStatement.executeUpdate();
+        }
+    }
+
+    /**
+     * Updates every Customer with one reused statement, in JDBC batches of the default size.
+     * @param customers the Customers to update
+     * @return number of lines updated
+     * @throws SQLException if a batch fails. That batch is rolled back, and the batches before it stay updated.
+     */
+    public static int updateAll(List<Customer> customers) throws SQLException{
+        return updateAll(customers, BatchWriter.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Updates every Customer with one reused statement. Each batch is its own transaction.
+     * @param customers the Customers to update
+     * @param batchSize the number of Customers per batch and transaction
+     * @return number of lines updated
+     * @throws SQLException if a batch fails. That batch is rolled back, and the batches before it stay updated.
+     */
+    public static int updateAll(List<Customer> customers, int batchSize) throws SQLException{
+        return BatchWriter.writeAll(UPDATE_SQL, customers, batchSize, CustomerDAO::bindUpdate, null);
+    }
+
+    /**
+     * Fills in INSERT_SQL for a Customer
+     * @param preparedStatement the statement to fill in
+     * @param customer the Customer to add
+     * @throws SQLException
+     */
+    private static void bindInsert(PreparedStatement preparedStatement, Customer customer) throws SQLException {
         preparedStatement.setInt(1, customer.getId()); //ID
         preparedStatement.setString(2, customer.getName()); //Name
         preparedStatement.setString(3, customer.getAddress()); //Address
         preparedStatement.setString(4, customer.getPostal()); //Postal Code
         preparedStatement.setString(5, customer.getPhone()); //Phone Number
-        preparedStatement.setTimestamp(6, new Timestamp(customer.getCreateDate().withZoneSameInstant(ZoneId.of("UTC")).toInstant().toEpochMilli())); //Create Date
+        preparedStatement.setTimestamp(6, new Timestamp(customer.getCreateSecond() * 1000)); //Create Date
         preparedStatement.setString(7, customer.getAuthor()); //Created By
-        preparedStatement.setTimestamp(8, new Timestamp(customer.getLastUpdate().withZoneSameInstant(ZoneId.of("UTC")).toInstant().toEpochMilli())); //Last Update Date
+        preparedStatement.setTimestamp(8, new Timestamp(customer.getLastUpdateSecond() * 1000)); //Last Update Date
         preparedStatement.setString(9, customer.getLastAuthor()); //Last Updated By
         preparedStatement.setInt(10, customer.getDivisionID()); //Division ID
-
-        return preparedStatement.executeUpdate();
     }
 
     /**
-     * Takes a Customer object and updates the line in the Customers table with the information that has the same Customer ID.
-      * @param customer customer to add to the database
-     * @return number of lines added to the database
+     * Fills in UPDATE_SQL for a Customer
+     * @param preparedStatement the statement to fill in
+     * @param customer the Customer to update
      * @throws SQLException
      */
-    public static int update(Customer customer) throws SQLException{
-        String sql = "UPDATE CUSTOMERS SET Customer_Name = ?, Address = ?, Postal_Code = ?, Phone = ?," +
-                "Create_Date = ?, Created_By = ?, Last_Update = ?, Last_Updated_By = ?, Division_ID = ?  WHERE Customer_ID = ?";
-        PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
+    private static void bindUpdate(PreparedStatement preparedStatement, Customer customer) throws SQLException {
         preparedStatement.setInt(10, customer.getId()); //ID
         preparedStatement.setString(1, customer.getName()); //Name
         preparedStatement.setString(2, customer.getAddress()); //Address
         preparedStatement.setString(3, customer.getPostal()); //Postal Code
         preparedStatement.setString(4, customer.getPhone()); //Phone Number
-        preparedStatement.setTimestamp(5, new Timestamp(customer.getCreateDate().withZoneSameInstant(ZoneId.of("UTC")).toInstant().toEpochMilli())); //Create Date
+        preparedStatement.setTimestamp(5, new Timestamp(customer.getCreateSecond() * 1000)); //Create Date
         preparedStatement.setString(6, customer.getAuthor()); //Created By
         preparedStatement.setTimestamp(7, new Timestamp(ZonedDateTime.now(ZoneId.of("UTC")).toInstant().toEpochMilli())); //Last Update Date
         preparedStatement.setString(8, customer.getLastAuthor()); //Last Updated By
         preparedStatement.setInt(9, customer.getDivisionID()); //Division ID
-
-        return preparedStatement.executeUpdate();
     }
 
     /**
@@ -98,10 +169,11 @@ public class CustomerDAO {
      */
     public static int delete(int customerID) throws SQLException{
         String sql = "DELETE FROM CUSTOMERS WHERE Customer_ID = ?";
-        PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
-        preparedStatement.setInt(1, customerID);
+        try (Connection connection = JDBC.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setInt(1, customerID);
 
-        return preparedStatement.executeUpdate();
+            return preparedStatement.executeUpdate();
+        }
     }
 
     /**
@@ -113,12 +185,34 @@ public class CustomerDAO {
         ObservableList<Customer> customers = FXCollections.observableArrayList();
 
         String sql = "SELECT * FROM CUSTOMERS";
-        PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
-        ResultSet resultSet = preparedStatement.executeQuery();
-        while(resultSet.next()){
-            customers.add(convertToCustomer(resultSet));
+        try (Connection connection = JDBC.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            ResultSet resultSet = preparedStatement.executeQuery();
+            while(resultSet.next()){
+                customers.add(convertToCustomer(resultSet));
+            }
+            return customers;
+        }
+    }
+
+    /**
+     * Looks up the names of the given Customers in one query
+     * @param customerIDs the Customer IDs to look up
+     * @return the name of each Customer found, keyed by Customer ID
+     * @throws SQLException
+     */
+    public static Map<Integer, String> selectCustomerNames(int[] customerIDs) throws SQLException{
+        Map<Integer, String> names = new HashMap<>();
+        if(customerIDs.length == 0) return names;
+
+        String sql = "SELECT Customer_ID, Customer_Name FROM CUSTOMERS WHERE Customer_ID IN (" + "?, ".repeat(customerIDs.length - 1) + "?)";
+        try (Connection connection = JDBC.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            for(int i = 0; i < customerIDs.length; i++) preparedStatement.setInt(i + 1, customerIDs[i]);
+            ResultSet resultSet = preparedStatement.executeQuery();
+            while(resultSet.next()){
+                names.put(resultSet.getInt(1), resultSet.getString(2));
+            }
+            return names;
         }
-        return customers;
     }
 
     /**
@@ -135,29 +229,20 @@ public class CustomerDAO {
         resultSet.getString(ADDRESS_COLUMN), //Address
         resultSet.getString(POSTAL_COLUMN), //Postal Code
         resultSet.getString(PHONE_COLUMN), //Phone Number
-        resultSet.getTimestamp(CREATE_DATE_COLUMN).toLocalDateTime().atZone(ZoneId.systemDefault()), //Create Date
+        resultSet.getTimestamp(CREATE_DATE_COLUMN).toInstant().getEpochSecond(), //Create Date
         resultSet.getString(CREATED_BY_COLUMN), //Created By
-        resultSet.getTimestamp(LAST_UPDATE_COLUMN).toLocalDateTime().atZone(ZoneId.systemDefault()), //Last Update Date
+        resultSet.getTimestamp(LAST_UPDATE_COLUMN).toInstant().getEpochSecond(), //Last Update Date
         resultSet.getString(LAST_UPDATE_BY_COLUMN), //Last Updated By
         resultSet.getInt(DIVISION_ID_COLUMN)); //Division ID
     }
 
     /**
-     * Generates a new sequential ID for the Customer
-     * @return a new sequential ID for the Customer
+     * Generates a new ID for the Customer. Each call hands out a different ID, so it should only be called once per new Customer.
+     * @return a new ID for the Customer
      * @throws SQLException
      */
     public static int generateNewID() throws SQLException {
-        String sql = "SELECT Customer_ID FROM CUSTOMERS";
-        PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
-        ResultSet resultSet = preparedStatement.executeQuery();
-        while(resultSet.next()){
-            if(resultSet.getInt(ID_COLUMN) == currentID){
-                currentID = resultSet.getInt(ID_COLUMN) + 1;
-                generateNewID();
-            }
-        }
-        return currentID;
+        return idAllocator.nextID();
     }
 
 }
@@ -1,12 +1,15 @@
 package scheduler.dao;
 
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import scheduler.helper.GeographyIndex;
 import scheduler.model.Country;
 import scheduler.model.FirstLevelDivision;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Gets and manipulates data in both the Country and First Level Divisions tables.
@@ -14,64 +17,42 @@ import java.sql.SQLException;
  * @author Alvin Roe
  */
 public class DivisionCountryDAO {
-    /**The column number for the division id in the First Level Division database*/
-    private static final int idColumn = 1;
-    /**The column number for the division in the First Level Division database*/
-    private static final int nameColumn = 2;
-    /**The column number for the customer id in the First Level Division database*/
-    private static final int divisionCountryIDColumn = 7;
+    /**The column number for the country id in the geography query*/
+    private static final int countryIDColumn = 1;
+    /**The column number for the country name in the geography query*/
+    private static final int countryNameColumn = 2;
+    /**The column number for the division id in the geography query*/
+    private static final int divisionIDColumn = 3;
+    /**The column number for the division name in the geography query*/
+    private static final int divisionNameColumn = 4;
 
     /**
-     * Creates a list of lists of First Level Divisions. Each list is separated based on Country ID.
-     * @return  list of lists of First Level Divisions separated based on Country ID
+     * Loads every Country and First Level Division in one forward-only pass. Rows come back ordered by Country, so a Country
+     * only needs to be created when the Country ID changes. A LEFT JOIN keeps Countries that have no Divisions.
+     * @return index of every Country and First Level Division
      * @throws SQLException
      */
-    public static ObservableList<ObservableList<FirstLevelDivision>> getSeparatedFirstLevelDivisions() throws SQLException {
-        ObservableList<ObservableList<FirstLevelDivision>> firstLevelDivisions = FXCollections.observableArrayList();
-        ObservableList<Country> countries = getAllCountries();
-        String sql = "SELECT * FROM FIRST_LEVEL_DIVISIONS";
-        ResultSet resultSet= JDBC.connection.prepareStatement(sql, ResultSet.TYPE_SCROLL_SENSITIVE, ResultSet.CONCUR_UPDATABLE).executeQuery();
-
-        for(int currentID = 1; currentID <= countries.size(); currentID++){
-            resultSet.beforeFirst();
-            ObservableList<FirstLevelDivision> countryDivisions = FXCollections.observableArrayList();
+    public static GeographyIndex loadGeography() throws SQLException {
+        String sql = "SELECT c.Country_ID, c.Country, d.Division_ID, d.Division FROM COUNTRIES c " +
+                "LEFT JOIN FIRST_LEVEL_DIVISIONS d ON d.Country_ID = c.Country_ID ORDER BY c.Country_ID, d.Division_ID";
+        List<Country> countries = new ArrayList<>();
+        List<FirstLevelDivision> divisions = new ArrayList<>();
+
+        try (Connection connection = JDBC.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            ResultSet resultSet = preparedStatement.executeQuery();
+            int lastCountryID = 0;
             while(resultSet.next()){
-                if(resultSet.getInt(divisionCountryIDColumn) == currentID)
-                    countryDivisions.add(new FirstLevelDivision(resultSet.getInt(idColumn), resultSet.getString(nameColumn), resultSet.getInt(divisionCountryIDColumn)));
+                int countryID = resultSet.getInt(countryIDColumn);
+                if(countryID != lastCountryID) {
+                    countries.add(new Country(countryID, resultSet.getString(countryNameColumn)));
+                    lastCountryID = countryID;
+                }
+
+                int divisionID = resultSet.getInt(divisionIDColumn);
+                if(resultSet.wasNull()) continue;
+                divisions.add(new FirstLevelDivision(divisionID, resultSet.getString(divisionNameColumn), countryID));
             }
-            firstLevelDivisions.add(countryDivisions);
-        }
-
-        return firstLevelDivisions;
-    }
-
-    /**
-     * Gets one large list of all the First Level Divisions
-     * @return list of all the First Level Divisions
-     * @throws SQLException
-     */
-    public static ObservableList<FirstLevelDivision> getAllFirstLevelDivisions() throws SQLException {
-        ObservableList<FirstLevelDivision> firstLevelDivisions = FXCollections.observableArrayList();
-        String sql = "SELECT * FROM FIRST_LEVEL_DIVISIONS";
-        ResultSet resultSet= JDBC.connection.prepareStatement(sql, ResultSet.TYPE_SCROLL_SENSITIVE, ResultSet.CONCUR_UPDATABLE).executeQuery();
-        while(resultSet.next()){
-                 firstLevelDivisions.add(new FirstLevelDivision(resultSet.getInt(idColumn), resultSet.getString(nameColumn), resultSet.getInt(divisionCountryIDColumn)));
-        }
-        return firstLevelDivisions;
-    }
-
-    /**
-     * Returns a list of Countries from Country Table
-     * @return list of Countries from Country Table
-     * @throws SQLException
-     */
-    public static ObservableList<Country> getAllCountries() throws SQLException {
-        ObservableList<Country> countries = FXCollections.observableArrayList();
-        String sql = "SELECT * FROM COUNTRIES";
-        ResultSet resultSet= JDBC.connection.prepareStatement(sql).executeQuery();
-        while(resultSet.next()){
-            countries.add(new Country(resultSet.getInt(idColumn), resultSet.getString(nameColumn)));
         }
-        return countries;
+        return new GeographyIndex(countries, divisions);
     }
 }
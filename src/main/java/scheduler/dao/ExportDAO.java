@@ -0,0 +1,113 @@
+package scheduler.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+/**
+ * Streams whole tables row by row for exporting. Rows are read from a forward-only, read-only cursor with a fetch size of
+ * Integer.MIN_VALUE, which makes MySQL Connector/J stream rows from the server one at a time instead of loading the whole
+ * result into memory. Each row is handed to a RowSink as it arrives, so memory use does not grow with the size of the table.
+ *
+ * @author Alvin Roe
+ */
+public abstract class ExportDAO {
+    /**Tells MySQL Connector/J to stream rows instead of reading the whole result first*/
+    private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    /**
+     * Receives the rows of an export
+     */
+    public interface RowSink {
+        /**
+         * Called once before the first row
+         * @param names column names
+         * @param numeric true for columns that hold numbers
+         * @throws Exception if the sink can not write
+         */
+        void columns(String[] names, boolean[] numeric) throws Exception;
+
+        /**
+         * Called for every row. The array is reused for the next row, so it must not be kept.
+         * @param values the row's values as text, null for SQL NULL. Timestamps are ISO-8601 UTC instants.
+         * @throws Exception if the sink can not write
+         */
+        void row(String[] values) throws Exception;
+    }
+
+    /**
+     * Streams every Appointment, ordered by Appointment ID
+     * @param sink receives the rows
+     * @return number of rows streamed
+     * @throws SQLException
+     */
+    public static long streamAppointments(RowSink sink) throws SQLException {
+        return stream("SELECT Appointment_ID, Title, Description, Location, Type, Start, End, Create_Date, Created_By, Last_Update, " +
+                "Last_Updated_By, Customer_ID, User_ID, Contact_ID FROM APPOINTMENTS ORDER BY Appointment_ID", sink);
+    }
+
+    /**
+     * Streams every Customer, ordered by Customer ID
+     * @param sink receives the rows
+     * @return number of rows streamed
+     * @throws SQLException
+     */
+    public static long streamCustomers(RowSink sink) throws SQLException {
+        return stream("SELECT Customer_ID, Customer_Name, Address, Postal_Code, Phone, Create_Date, Created_By, Last_Update, " +
+                "Last_Updated_By, Division_ID FROM CUSTOMERS ORDER BY Customer_ID", sink);
+    }
+
+    /**
+     * Runs the query on a streaming cursor and hands each row to the sink
+     * @param sql the query
+     * @param sink receives the rows
+     * @return number of rows streamed
+     * @throws SQLException if the query fails, or wrapping whatever the sink threw
+     */
+    private static long stream(String sql, RowSink sink) throws SQLException {
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            preparedStatement.setFetchSize(STREAMING_FETCH_SIZE);
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                ResultSetMetaData metaData = resultSet.getMetaData();
+                int columnCount = metaData.getColumnCount();
+                String[] names = new String[columnCount];
+                boolean[] numeric = new boolean[columnCount];
+                boolean[] timestamp = new boolean[columnCount];
+                for(int i = 0; i < columnCount; i++) {
+                    int type = metaData.getColumnType(i + 1);
+                    names[i] = metaData.getColumnLabel(i + 1);
+                    numeric[i] = type == Types.INTEGER || type == Types.BIGINT || type == Types.SMALLINT || type == Types.TINYINT;
+                    timestamp[i] = type == Types.TIMESTAMP || type == Types.TIMESTAMP_WITH_TIMEZONE;
+                }
+
+                String[] values = new String[columnCount];
+                long rows = 0;
+                try {
+                    sink.columns(names, numeric);
+                    while(resultSet.next()) {
+                        for(int i = 0; i < columnCount; i++) {
+                            if(timestamp[i]) {
+                                Timestamp value = resultSet.getTimestamp(i + 1);
+                                values[i] = value == null ? null : value.toInstant().toString();
+                            }
+                            else values[i] = resultSet.getString(i + 1);
+                        }
+                        sink.row(values);
+                        rows++;
+                    }
+                } catch (SQLException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new SQLException("Export stopped after " + rows + " rows: " + e.getMessage(), e);
+                }
+                return rows;
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package scheduler.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands out primary keys for a table using hi/lo block reservation. A block of IDs is reserved from a row in the ID_SEQUENCES
+ * table with one atomic UPDATE, and IDs are then handed out from memory until the block runs out. Every app instance reserves
+ * its own blocks, so instances sharing the same schema never hand out the same ID.
+ *
+ * The ID_SEQUENCES table is part of the schema and is created by sql/id_sequences.sql, not by the app, so the app never needs
+ * permission to create tables. If the table is missing the first reservation fails with an SQLException saying so.
+ *
+ * @author Alvin Roe
+ */
+public class IdAllocator {
+    /**MySQL error code for a table that does not exist*/
+    private static final int NO_SUCH_TABLE = 1146;
+    /**Moves the sequence forward by one block. LAST_INSERT_ID(expr) makes the new value readable on the same connection.*/
+    private static final String RESERVE_BLOCK = "UPDATE ID_SEQUENCES SET Next_Value = LAST_INSERT_ID(Next_Value + ?) WHERE Sequence_Name = ?";
+    /**Reads the value stored by RESERVE_BLOCK*/
+    private static final String READ_RESERVED = "SELECT LAST_INSERT_ID()";
+
+    /**Name of the row in ID_SEQUENCES*/
+    private final String sequenceName;
+    /**Table the IDs are for*/
+    private final String tableName;
+    /**Primary key column of the table*/
+    private final String idColumn;
+    /**Number of IDs reserved at a time*/
+    private final int blockSize;
+    /**The block IDs are currently handed out from*/
+    private final AtomicReference<Block> currentBlock = new AtomicReference<>(new Block(0, 0));
+    /**Only one thread reserves a new block at a time*/
+    private final Object reserveLock = new Object();
+    /**Set once the sequence row has been created and caught up with the table*/
+    private volatile boolean sequenceReady = false;
+
+    /**
+     * Constructor for IdAllocator
+     * @param tableName the table the IDs are for, which is also used as the sequence name
+     * @param idColumn the primary key column of the table
+     * @param blockSize the number of IDs to reserve at a time
+     */
+    public IdAllocator(String tableName, String idColumn, int blockSize) {
+        this.sequenceName = tableName.toUpperCase();
+        this.tableName = tableName;
+        this.idColumn = idColumn;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Returns the next free ID. Only goes to the database when the current block has run out.
+     * @return an ID that has not been handed out by any app instance
+     * @throws SQLException if a new block can not be reserved
+     */
+    public int nextID() throws SQLException {
+        while(true) {
+            Block block = currentBlock.get();
+            int id = block.next.getAndIncrement();
+            if(id < block.limit) return id;
+
+            synchronized (reserveLock) {
+                //Another thread may have already replaced the block while this one was waiting
+                if(currentBlock.get() == block) currentBlock.set(reserveBlock());
+            }
+        }
+    }
+
+    /**
+     * Reserves the next block of IDs from the sequence row.
+     * @return the newly reserved block
+     * @throws SQLException
+     */
+    private Block reserveBlock() throws SQLException {
+        try (Connection connection = JDBC.getConnection()) {
+            if(!sequenceReady) prepareSequence(connection);
+
+            try (PreparedStatement reserve = connection.prepareStatement(RESERVE_BLOCK)) {
+                reserve.setInt(1, blockSize);
+                reserve.setString(2, sequenceName);
+                if(reserve.executeUpdate() != 1) throw new SQLException("Sequence " + sequenceName + " is missing from ID_SEQUENCES");
+            }
+            try (PreparedStatement read = connection.prepareStatement(READ_RESERVED)) {
+                ResultSet resultSet = read.executeQuery();
+                resultSet.next();
+                int end = resultSet.getInt(1);
+                return new Block(end - blockSize, end);
+            }
+        }
+    }
+
+    /**
+     * Adds the sequence row if it is missing, and moves it past the largest ID already in the table so rows added
+     * without the allocator are never handed out again. MAX on the primary key is read from the index.
+     * @param connection the connection to use
+     * @throws SQLException if ID_SEQUENCES is missing, or the sequence can not be prepared
+     */
+    private void prepareSequence(Connection connection) throws SQLException {
+        try {
+            seedSequence(connection);
+        } catch (SQLException e) {
+            if(e.getErrorCode() != NO_SUCH_TABLE) throw e;
+            throw new SQLException("Table ID_SEQUENCES is missing. Run sql/id_sequences.sql against the schema before starting the app.", e);
+        }
+        sequenceReady = true;
+    }
+
+    /**
+     * Helper Method for prepareSequence. Runs the statements that add the sequence row and catch it up with the table.
+     * @param connection the connection to use
+     * @throws SQLException
+     */
+    private void seedSequence(Connection connection) throws SQLException {
+        String seed = "INSERT IGNORE INTO ID_SEQUENCES (Sequence_Name, Next_Value) SELECT ?, COALESCE(MAX(" + idColumn + "), 0) + 1 FROM " + tableName;
+        try (PreparedStatement preparedStatement = connection.prepareStatement(seed)) {
+            preparedStatement.setString(1, sequenceName);
+            preparedStatement.executeUpdate();
+        }
+
+        String catchUp = "UPDATE ID_SEQUENCES SET Next_Value = GREATEST(Next_Value, (SELECT COALESCE(MAX(" + idColumn + "), 0) + 1 FROM " + tableName + ")) WHERE Sequence_Name = ?";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(catchUp)) {
+            preparedStatement.setString(1, sequenceName);
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    /**
+     * A reserved range of IDs. IDs from next up to, but not including, limit belong to this app instance.
+     */
+    private static class Block {
+        /**The next ID to hand out*/
+        private final AtomicInteger next;
+        /**The first ID past the end of the block*/
+        private final int limit;
+
+        /**
+         * Constructor for Block
+         * @param start the first ID in the block
+         * @param limit the first ID past the end of the block
+         */
+        private Block(int start, int limit) {
+            this.next = new AtomicInteger(start);
+            this.limit = limit;
+        }
+    }
+}
@@ -1,9 +1,10 @@
 package scheduler.dao;
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.SQLException;
 
 /**
- * Java Database Connectivity class to connect to Database
+ * Java Database Connectivity class to connect to Database. Connections come from a bounded pool, and are handed back to it
+ * by closing them.
  *
  * @author WGU
  */
@@ -13,16 +14,25 @@ public abstract class JDBC {
     private static final String vendor = ":mysql:";
     private static final String location = "//localhost/";
     private static final String databaseName = "client_schedule";
-    private static final String jdbcUrl = protocol + vendor + location + databaseName + "?connectionTimeZone = SERVER"; // LOCAL
+    private static final String jdbcUrl = protocol + vendor + location + databaseName + "?connectionTimeZone = SERVER&rewriteBatchedStatements=true"; // LOCAL. Batched inserts are sent as multi-row statements
     private static final String driver = "com.mysql.cj.jdbc.Driver"; // Driver reference
     private static final String userName = "sqlUser"; // Username
     private static String password = "Passw0rd!"; // Password
-    public static Connection connection;  // Connection Interface
+    private static final int maxPoolSize = 8; // Most connections open at one time
+    private static final int minIdleConnections = 1; // Idle connections that are never evicted
+    private static final long borrowTimeoutMillis = 5_000; // How long to wait for a free connection
+    private static final long idleTimeoutMillis = 300_000; // How long a connection can sit idle before it is closed
+    private static ConnectionPool pool; // Pool every DAO borrows from
+
+    /**
+     * Loads the driver and creates the connection pool. Called once when the application starts.
+     */
     public static void openConnection()
     {
         try {
             Class.forName(driver); // Locate Driver
-            connection = DriverManager.getConnection(jdbcUrl, userName, password); // Reference Connection object
+            pool = new ConnectionPool(jdbcUrl, userName, password, maxPoolSize, minIdleConnections, borrowTimeoutMillis, idleTimeoutMillis);
+            getConnection().close(); // Open the first connection so a bad configuration shows up at startup
         }
         catch(Exception e)
         {
@@ -31,9 +41,30 @@ public abstract class JDBC {
         }
     }
 
+    /**
+     * Borrows a connection from the pool. The connection must be closed when it is no longer needed, which hands it back to the pool.
+     * @return a validated connection to the database
+     * @throws SQLException if no connection is available in time or a new one can not be opened
+     */
+    public static Connection getConnection() throws SQLException {
+        if(pool == null) throw new SQLException("Connection pool has not been opened");
+        return pool.borrow();
+    }
+
+    /**
+     * Returns the pool, mainly for reading its metrics
+     * @return the connection pool
+     */
+    public static ConnectionPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Closes every pooled connection. Called once when the application exits.
+     */
     public static void closeConnection() {
         try {
-            connection.close();
+            pool.close();
         }
         catch(Exception e)
         {
@@ -0,0 +1,65 @@
+package scheduler.dao;
+
+import scheduler.helper.ReferenceVersion;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Reads the watermarks of the reference tables, so the reference data is only reloaded when something has changed.
+ *
+ * @author Alvin Roe
+ */
+public abstract class ReferenceDataDAO {
+    /**Column number for the Contact count*/
+    private static final int contactCountColumn = 1;
+    /**Column number for the largest Contact ID*/
+    private static final int maxContactIDColumn = 2;
+    /**Column number for the User count*/
+    private static final int userCountColumn = 3;
+    /**Column number for the newest User Last_Update*/
+    private static final int usersLastUpdateColumn = 4;
+    /**Column number for the Country and First Level Division count*/
+    private static final int geographyCountColumn = 5;
+    /**Column number for the newest Country Last_Update*/
+    private static final int countriesLastUpdateColumn = 6;
+    /**Column number for the newest First Level Division Last_Update*/
+    private static final int divisionsLastUpdateColumn = 7;
+
+    /**
+     * Reads the row counts and newest Last_Update of every reference table in one round trip
+     * @return the current watermarks
+     * @throws SQLException
+     */
+    public static ReferenceVersion readVersion() throws SQLException {
+        String sql = "SELECT (SELECT COUNT(*) FROM CONTACTS), (SELECT COALESCE(MAX(Contact_ID), 0) FROM CONTACTS), " +
+                "(SELECT COUNT(*) FROM USERS), (SELECT MAX(Last_Update) FROM USERS), " +
+                "(SELECT COUNT(*) FROM COUNTRIES) + (SELECT COUNT(*) FROM FIRST_LEVEL_DIVISIONS), " +
+                "(SELECT MAX(Last_Update) FROM COUNTRIES), (SELECT MAX(Last_Update) FROM FIRST_LEVEL_DIVISIONS)";
+        try (Connection connection = JDBC.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            ResultSet resultSet = preparedStatement.executeQuery();
+            resultSet.next();
+
+            long geographyLastUpdate = Math.max(toMillis(resultSet.getTimestamp(countriesLastUpdateColumn)), toMillis(resultSet.getTimestamp(divisionsLastUpdateColumn)));
+            return new ReferenceVersion(
+                    resultSet.getInt(contactCountColumn),
+                    resultSet.getInt(maxContactIDColumn),
+                    resultSet.getInt(userCountColumn),
+                    toMillis(resultSet.getTimestamp(usersLastUpdateColumn)),
+                    resultSet.getInt(geographyCountColumn),
+                    geographyLastUpdate
+            );
+        }
+    }
+
+    /**
+     * @param timestamp a timestamp, which is null when the table is empty
+     * @return the timestamp in epoch milliseconds, or 0 if it is null
+     */
+    private static long toMillis(Timestamp timestamp) {
+        return timestamp == null ? 0 : timestamp.getTime();
+    }
+}
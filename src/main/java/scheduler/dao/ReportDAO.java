@@ -0,0 +1,238 @@
+package scheduler.dao;
+
+import scheduler.helper.AppointmentColumns;
+import scheduler.helper.IdCount;
+import scheduler.helper.SessionData;
+import scheduler.helper.TypeCount;
+import scheduler.model.Appointment;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Handles SQL logic for the report counts. The counting is done by the database with GROUP BY, so only one row per group is
+ * sent back instead of every Appointment. Also streams the columns the kept report counts and the report column store are
+ * built from.
+ *
+ * @author Alvin Roe
+ */
+public abstract class ReportDAO {
+    /**Tells MySQL Connector/J to stream rows instead of reading the whole result first*/
+    private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    /**
+     * Receives the columns of each Appointment that the report counts are made from
+     */
+    public interface FactVisitor {
+        /**
+         * Called for every Appointment
+         * @param appointmentID the Appointment ID
+         * @param type the type
+         * @param startSecond the start in epoch seconds
+         * @param endSecond the end in epoch seconds
+         * @param contactID the Contact ID
+         * @param customerID the Customer ID
+         */
+        void visit(int appointmentID, String type, long startSecond, long endSecond, int contactID, int customerID);
+    }
+
+    /**
+     * Receives a total for each group of a streamed GROUP BY
+     */
+    public interface TotalVisitor {
+        /**
+         * Called for every group
+         * @param id the ID the group is for
+         * @param total the group's total
+         */
+        void visit(int id, long total);
+    }
+
+    /**
+     * Counts the Appointments of each type
+     * @return one count for each type, ordered by type
+     * @throws SQLException
+     */
+    public static List<TypeCount> countByType() throws SQLException{
+        List<TypeCount> typeCounts = new ArrayList<>();
+
+        String sql = "SELECT Type, COUNT(*) FROM APPOINTMENTS GROUP BY Type ORDER BY Type";
+        try (Connection connection = JDBC.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            ResultSet resultSet = preparedStatement.executeQuery();
+            while(resultSet.next()){
+                typeCounts.add(new TypeCount(resultSet.getString(1), resultSet.getInt(2)));
+            }
+            return typeCounts;
+        }
+    }
+
+    /**
+     * Counts the Appointments of each Contact
+     * @return one count for each Contact that has Appointments, ordered by Contact ID
+     * @throws SQLException
+     */
+    public static List<IdCount> countByContact() throws SQLException{
+        List<IdCount> contactCounts = new ArrayList<>();
+
+        String sql = "SELECT Contact_ID, COUNT(*) FROM APPOINTMENTS GROUP BY Contact_ID ORDER BY Contact_ID";
+        try (Connection connection = JDBC.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            ResultSet resultSet = preparedStatement.executeQuery();
+            while(resultSet.next()){
+                int contactID = resultSet.getInt(1);
+                contactCounts.add(new IdCount(contactID, SessionData.getContactName(contactID), resultSet.getInt(2)));
+            }
+            return contactCounts;
+        }
+    }
+
+    /**
+     * Counts the Appointments of each Customer
+     * @return one count for each Customer that has Appointments, ordered by Customer ID
+     * @throws SQLException
+     */
+    public static List<IdCount> countByCustomer() throws SQLException{
+        List<IdCount> customerCounts = new ArrayList<>();
+
+        String sql = "SELECT Customer_ID, COUNT(*) FROM APPOINTMENTS GROUP BY Customer_ID ORDER BY Customer_ID";
+        try (Connection connection = JDBC.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            ResultSet resultSet = preparedStatement.executeQuery();
+            while(resultSet.next()){
+                customerCounts.add(new IdCount(resultSet.getInt(1), null, resultSet.getInt(2)));
+            }
+            return customerCounts;
+        }
+    }
+
+    /**
+     * Streams a total for each Contact, of either booked seconds or Appointments, over the Appointments starting in a window
+     * @param bookedSeconds true to total the seconds booked, false to count the Appointments
+     * @param from start of the window, inclusive, or null for no lower bound
+     * @param to end of the window, exclusive, or null for no upper bound
+     * @param visitor receives each Contact's total
+     * @throws SQLException
+     */
+    public static void streamTotalsByContact(boolean bookedSeconds, Instant from, Instant to, TotalVisitor visitor) throws SQLException{
+        streamTotals("Contact_ID", bookedSeconds, from, to, visitor);
+    }
+
+    /**
+     * Streams a total for each Customer, of either booked seconds or Appointments, over the Appointments starting in a window
+     * @param bookedSeconds true to total the seconds booked, false to count the Appointments
+     * @param from start of the window, inclusive, or null for no lower bound
+     * @param to end of the window, exclusive, or null for no upper bound
+     * @param visitor receives each Customer's total
+     * @throws SQLException
+     */
+    public static void streamTotalsByCustomer(boolean bookedSeconds, Instant from, Instant to, TotalVisitor visitor) throws SQLException{
+        streamTotals("Customer_ID", bookedSeconds, from, to, visitor);
+    }
+
+    /**
+     * Streams the columns the report counts are made from for every Appointment. Rows are read from a streaming cursor and
+     * handed to the visitor as they arrive, so no Appointment objects are made and memory use does not grow with the table.
+     * @param visitor receives each Appointment
+     * @return number of Appointments streamed
+     * @throws SQLException
+     */
+    public static long streamReportFacts(FactVisitor visitor) throws SQLException{
+        String sql = "SELECT Appointment_ID, Type, Start, End, Contact_ID, Customer_ID FROM APPOINTMENTS";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            preparedStatement.setFetchSize(STREAMING_FETCH_SIZE);
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                long rows = 0;
+                while(resultSet.next()){
+                    visitor.visit(resultSet.getInt(1), resultSet.getString(2), resultSet.getTimestamp(3).toInstant().getEpochSecond(),
+                            resultSet.getTimestamp(4).toInstant().getEpochSecond(), resultSet.getInt(5), resultSet.getInt(6));
+                    rows++;
+                }
+                return rows;
+            }
+        }
+    }
+
+    /**
+     * Builds the report column store from a streaming cursor. The database sorts the rows by start, so they go straight into
+     * the columns without any Appointment objects being made.
+     * @return the column store of every Appointment
+     * @throws SQLException
+     */
+    public static AppointmentColumns loadAppointmentColumns() throws SQLException{
+        String sql = "SELECT Appointment_ID, Type, Start, End, Customer_ID, User_ID, Contact_ID FROM APPOINTMENTS ORDER BY Start, Appointment_ID";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            preparedStatement.setFetchSize(STREAMING_FETCH_SIZE);
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                AppointmentColumns.Builder builder = new AppointmentColumns.Builder();
+                while(resultSet.next()){
+                    builder.add(resultSet.getInt(1), resultSet.getString(2), resultSet.getTimestamp(3).toInstant().getEpochSecond(),
+                            resultSet.getTimestamp(4).toInstant().getEpochSecond(), resultSet.getInt(5), resultSet.getInt(6), resultSet.getInt(7));
+                }
+                return builder.build();
+            }
+        }
+    }
+
+    /**
+     * Reads the report columns of every Appointment written at or after a time, by any client. Used to catch the report column
+     * store up without reading the whole table again. Only the fields the store keeps are filled in.
+     * @param lastUpdateMillis the time in epoch milliseconds
+     * @return the Appointments keyed by Appointment ID
+     * @throws SQLException
+     */
+    public static Map<Integer, Appointment> selectColumnsUpdatedSince(long lastUpdateMillis) throws SQLException{
+        Map<Integer, Appointment> appointments = new HashMap<>();
+
+        String sql = "SELECT Appointment_ID, Type, Start, End, Customer_ID, User_ID, Contact_ID FROM APPOINTMENTS WHERE Last_Update >= ?";
+        try (Connection connection = JDBC.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setTimestamp(1, new Timestamp(lastUpdateMillis));
+            ResultSet resultSet = preparedStatement.executeQuery();
+            while(resultSet.next()){
+                int appointmentID = resultSet.getInt(1);
+                appointments.put(appointmentID, new Appointment(appointmentID, "", "", "", resultSet.getString(2),
+                        resultSet.getTimestamp(3).toInstant().getEpochSecond(), resultSet.getTimestamp(4).toInstant().getEpochSecond(),
+                        0, "", 0, "", resultSet.getInt(5), resultSet.getInt(6), resultSet.getInt(7)));
+            }
+            return appointments;
+        }
+    }
+
+    /**
+     * Helper Method for the streamed totals. The groups are read from a streaming cursor, so a table with many Customers is
+     * never held in memory all at once.
+     * @param idColumnName the ID column to group by
+     * @param bookedSeconds true to total the seconds booked, false to count the Appointments
+     * @param from start of the window, inclusive, or null for no lower bound
+     * @param to end of the window, exclusive, or null for no upper bound
+     * @param visitor receives each group's total
+     * @throws SQLException
+     */
+    private static void streamTotals(String idColumnName, boolean bookedSeconds, Instant from, Instant to, TotalVisitor visitor) throws SQLException{
+        String total = bookedSeconds ? "SUM(TIMESTAMPDIFF(SECOND, Start, End))" : "COUNT(*)";
+        String window = (from == null ? "" : " AND Start >= ?") + (to == null ? "" : " AND Start < ?");
+        String sql = "SELECT " + idColumnName + ", " + total + " FROM APPOINTMENTS WHERE 1 = 1" + window + " GROUP BY " + idColumnName;
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            preparedStatement.setFetchSize(STREAMING_FETCH_SIZE);
+            int parameter = 1;
+            if(from != null) preparedStatement.setTimestamp(parameter++, Timestamp.from(from));
+            if(to != null) preparedStatement.setTimestamp(parameter, Timestamp.from(to));
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while(resultSet.next()){
+                    visitor.visit(resultSet.getInt(1), resultSet.getLong(2));
+                }
+            }
+        }
+    }
+}
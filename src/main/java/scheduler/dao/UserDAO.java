@@ -1,11 +1,15 @@
 package scheduler.dao;
 
+import scheduler.helper.CredentialCache;
+import scheduler.helper.PasswordHasher;
 import scheduler.helper.SessionData;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Hashtable;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Accesses information from the Data table "users". Mainly used for the Login Screen.
@@ -17,29 +21,73 @@ public abstract class UserDAO {
     private static final int userIDColumn = 1;
     /**The column number for the Username in the Users database*/
     private static final int userNameColumn = 2;
-    /**The column number for the password in the Users database*/
-    private static final int userPasswordColumn = 3;
+    /**The column number for the user id in the login query*/
+    private static final int loginUserIDColumn = 1;
+    /**The column number for the stored password in the login query*/
+    private static final int loginPasswordColumn = 2;
+    /**The column number for the username in the login query*/
+    private static final int loginUserNameColumn = 3;
+
+    /**Hash checked when a username does not exist, so a missing user takes as long to reject as a wrong password*/
+    private static final String MISSING_USER_HASH = PasswordHasher.hash("missing user");
 
     /**
-     * Checks a given username and password against the database to see if it is a valid user.
+     * Checks a given username and password against the database to see if it is a valid user. Only the row for the given
+     * username is read, using the unique key on User_Name. Logins verified in the last few minutes are answered from
+     * CredentialCache without going to the database. A legacy plaintext password is replaced with a salted hash the first
+     * time its user logs in.
+     *
+     * MySQL compares User_Name without regard to case, so the name found is checked again with equals, and a name that only
+     * matches in a different case is treated as a missing user.
      * @param userName the username to check against the database
      * @param password the password to check against the database
      * @return true if there was a match in a row of the database, or false if there was not
      * @throws SQLException
      */
     public static boolean authenticate(String userName, String password) throws SQLException {
-        String sql = "SELECT * FROM USERS";
-        PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
-        ResultSet resultSet = preparedStatement.executeQuery();
-        while(resultSet.next()){
-            String queryUserName = resultSet.getString(userNameColumn);
-            String queryPassword = resultSet.getString(userPasswordColumn);
-            if(queryUserName.equals(userName) && queryPassword.equals(password)){
-                SessionData.setUserID(resultSet.getInt(userIDColumn));
-                return true;
+        int cachedUserID = CredentialCache.lookup(userName, password);
+        if(cachedUserID != -1) {
+            SessionData.setUserID(cachedUserID);
+            return true;
+        }
+
+        String sql = "SELECT User_ID, Password, User_Name FROM USERS WHERE User_Name = ?";
+        try (Connection connection = JDBC.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setString(1, userName);
+
+            ResultSet resultSet = preparedStatement.executeQuery();
+            if(!resultSet.next() || !resultSet.getString(loginUserNameColumn).equals(userName)){
+                PasswordHasher.verify(password, MISSING_USER_HASH);
+                return false;
             }
+            int userID = resultSet.getInt(loginUserIDColumn);
+            String storedPassword = resultSet.getString(loginPasswordColumn);
+            if(!PasswordHasher.verify(password, storedPassword)) return false;
+
+            if(PasswordHasher.needsRehash(storedPassword)) upgradePassword(connection, userID, storedPassword, password);
+            CredentialCache.remember(userName, password, userID);
+            SessionData.setUserID(userID);
+            return true;
+        }
+    }
+
+    /**
+     * Replaces a user's stored password with a new salted hash. Only changes the row if it still holds the old value, so
+     * a password changed by someone else at the same time is not overwritten.
+     * @param connection the connection to use
+     * @param userID the user to upgrade
+     * @param oldValue the value that was just verified
+     * @param password the password that was just verified
+     * @throws SQLException
+     */
+    private static void upgradePassword(Connection connection, int userID, String oldValue, String password) throws SQLException {
+        String sql = "UPDATE USERS SET Password = ? WHERE User_ID = ? AND Password = ?";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setString(1, PasswordHasher.hash(password));
+            preparedStatement.setInt(2, userID);
+            preparedStatement.setString(3, oldValue);
+            preparedStatement.executeUpdate();
         }
-        return false;
     }
 
     /**
@@ -49,31 +97,33 @@ public abstract class UserDAO {
      */
     public static String currentUserName() throws SQLException {
         String sql = "SELECT * FROM USERS WHERE USER_ID = ?";
-        PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
-        preparedStatement.setInt(1, SessionData.getUserID());
+        try (Connection connection = JDBC.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setInt(1, SessionData.getUserID());
 
-        ResultSet resultSet = preparedStatement.executeQuery();
-        while(resultSet.next()){
-            if(resultSet.getInt(userIDColumn) == SessionData.getUserID()) return resultSet.getString(userNameColumn);
-        }
+            ResultSet resultSet = preparedStatement.executeQuery();
+            while(resultSet.next()){
+                if(resultSet.getInt(userIDColumn) == SessionData.getUserID()) return resultSet.getString(userNameColumn);
+            }
 
-        return null;
+            return null;
+        }
     }
 
     /**
-     * Creates and returns a Hashtable where the Key is the User ID and the Value is the User Name
-     * @return Hashtable where the Key is the User ID and the Value is the User Name
+     * Creates and returns a Map where the Key is the User ID and the Value is the User Name
+     * @return Map where the Key is the User ID and the Value is the User Name
      * @throws SQLException
      */
-    public static Hashtable<Integer, String> getUserTable() throws SQLException {
-        Hashtable<Integer, String> userTable = new Hashtable<>();
+    public static Map<Integer, String> getUserTable() throws SQLException {
+        Map<Integer, String> userTable = new HashMap<>();
 
-        String sql = "SELECT * FROM USERS";
-        PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
-        ResultSet resultSet = preparedStatement.executeQuery();
-        while(resultSet.next())
-            userTable.put(resultSet.getInt(userIDColumn), resultSet.getString(userNameColumn));
+        String sql = "SELECT User_ID, User_Name FROM USERS";
+        try (Connection connection = JDBC.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            ResultSet resultSet = preparedStatement.executeQuery();
+            while(resultSet.next())
+                userTable.put(resultSet.getInt(userIDColumn), resultSet.getString(userNameColumn));
 
-        return userTable;
+            return userTable;
+        }
     }
 }
@@ -0,0 +1,353 @@
+package scheduler.helper;
+
+import scheduler.model.Appointment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable column store of Appointments for the reports that scan every row, such as the Top-K, Pivot and Overlap Audit
+ * reports. Each field those reports read is kept in its own primitive array, so a scan reads packed arrays from start to end
+ * instead of following a pointer to every Appointment. Types are stored as dense codes, 0 to getTypeCount() - 1.
+ *
+ * Only primitive and dictionary-coded columns are kept, never Appointment objects, so a row takes 36 bytes however long its
+ * text is. The store is built straight from a database cursor with a Builder. Reports that show one Contact's or one
+ * Customer's Appointments ask the database instead, which finds them by index.
+ *
+ * Rows are sorted by start, so a time window is found with a binary search. The store never changes once built. Writes
+ * are applied with withChanges, which makes a new store in one merge pass instead of reading the table again.
+ *
+ * @author Alvin Roe
+ */
+public final class AppointmentColumns {
+    /**Number of rows*/
+    private final int size;
+    /**Appointment ID of each row*/
+    private final int[] appointmentIDs;
+    /**Customer ID of each row*/
+    private final int[] customerIDs;
+    /**User ID of each row*/
+    private final int[] userIDs;
+    /**Contact ID of each row*/
+    private final int[] contactIDs;
+    /**Type code of each row*/
+    private final int[] typeCodes;
+    /**Start of each row in epoch seconds, in increasing order*/
+    private final long[] startSeconds;
+    /**End of each row in epoch seconds*/
+    private final long[] endSeconds;
+    /**Type name of each type code*/
+    private final String[] typeNames;
+
+    /**
+     * Constructor for AppointmentColumns
+     * @param builder the builder holding the rows, sorted by start
+     */
+    private AppointmentColumns(Builder builder) {
+        size = builder.size;
+        appointmentIDs = builder.appointmentIDs.length == size ? builder.appointmentIDs : Arrays.copyOf(builder.appointmentIDs, size);
+        customerIDs = builder.customerIDs.length == size ? builder.customerIDs : Arrays.copyOf(builder.customerIDs, size);
+        userIDs = builder.userIDs.length == size ? builder.userIDs : Arrays.copyOf(builder.userIDs, size);
+        contactIDs = builder.contactIDs.length == size ? builder.contactIDs : Arrays.copyOf(builder.contactIDs, size);
+        typeCodes = builder.typeCodes.length == size ? builder.typeCodes : Arrays.copyOf(builder.typeCodes, size);
+        startSeconds = builder.startSeconds.length == size ? builder.startSeconds : Arrays.copyOf(builder.startSeconds, size);
+        endSeconds = builder.endSeconds.length == size ? builder.endSeconds : Arrays.copyOf(builder.endSeconds, size);
+        typeNames = builder.typeNames.toArray(new String[0]);
+    }
+
+    /**
+     * Makes a new store with Appointments that were saved or deleted since this one was built. The changed rows are dropped
+     * and the saved Appointments are merged back in by start, in one pass over the rows, so keeping the store up to date
+     * never reads the table again. Types keep their codes.
+     * @param changes the saved Appointments keyed by Appointment ID, with null for the ones that were deleted
+     * @return the new store. This store is not changed.
+     */
+    public AppointmentColumns withChanges(Map<Integer, Appointment> changes) {
+        if(changes.isEmpty()) return this;
+        IntIntMap changed = new IntIntMap(changes.size(), 0);
+        for(int appointmentID : changes.keySet()) changed.put(appointmentID, 1);
+        List<Appointment> saved = new ArrayList<>();
+        for(Appointment appointment : changes.values()) if(appointment != null) saved.add(appointment);
+        saved.sort(Comparator.comparingLong(Appointment::getStartSecond).thenComparingInt(Appointment::getAppointmentID));
+
+        Builder builder = new Builder(size + saved.size(), typeNames);
+        int next = 0;
+        for(int row = 0; row < size; row++) {
+            while(next < saved.size() && comesBefore(saved.get(next), row)) builder.add(saved.get(next++));
+            if(changed.get(appointmentIDs[row]) == 0) {
+                builder.addRow(appointmentIDs[row], typeCodes[row], startSeconds[row], endSeconds[row], customerIDs[row], userIDs[row], contactIDs[row]);
+            }
+        }
+        while(next < saved.size()) builder.add(saved.get(next++));
+        return builder.build();
+    }
+
+    /**
+     * @return number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param row a row number
+     * @return the Appointment ID of the row
+     */
+    public int getAppointmentID(int row) {
+        return appointmentIDs[row];
+    }
+
+    /**
+     * @param row a row number
+     * @return the type code of the row
+     */
+    public int getTypeCode(int row) {
+        return typeCodes[row];
+    }
+
+    /**
+     * @param row a row number
+     * @return the Contact ID of the row
+     */
+    public int getContactID(int row) {
+        return contactIDs[row];
+    }
+
+    /**
+     * @param row a row number
+     * @return the Customer ID of the row
+     */
+    public int getCustomerID(int row) {
+        return customerIDs[row];
+    }
+
+    /**
+     * @param row a row number
+     * @return the User ID of the row
+     */
+    public int getUserID(int row) {
+        return userIDs[row];
+    }
+
+    /**
+     * @param row a row number
+     * @return the start of the row in epoch seconds
+     */
+    public long getStartSecond(int row) {
+        return startSeconds[row];
+    }
+
+    /**
+     * @param row a row number
+     * @return the end of the row in epoch seconds
+     */
+    public long getEndSecond(int row) {
+        return endSeconds[row];
+    }
+
+    /**
+     * @return number of distinct types
+     */
+    public int getTypeCount() {
+        return typeNames.length;
+    }
+
+    /**
+     * @param typeCode a type code
+     * @return the name of the type
+     */
+    public String getTypeName(int typeCode) {
+        return typeNames[typeCode];
+    }
+
+    /**
+     * @param from start of the window in epoch seconds, inclusive
+     * @param to end of the window in epoch seconds, exclusive
+     * @return the rows starting within the window, in order of start
+     */
+    public int[] selectStartBetween(long from, long to) {
+        int first = lowerBound(from);
+        int last = lowerBound(to);
+        int[] rows = new int[Math.max(0, last - first)];
+        for(int i = 0; i < rows.length; i++) rows[i] = first + i;
+        return rows;
+    }
+
+    /**
+     * @param appointment an Appointment
+     * @param row a row number
+     * @return true if the Appointment goes before the row, by start and then Appointment ID
+     */
+    private boolean comesBefore(Appointment appointment, int row) {
+        return appointment.getStartSecond() < startSeconds[row]
+                || (appointment.getStartSecond() == startSeconds[row] && appointment.getAppointmentID() < appointmentIDs[row]);
+    }
+
+    /**
+     * @param second a time in epoch seconds
+     * @return the first row starting at or after the time
+     */
+    private int lowerBound(long second) {
+        int low = 0;
+        int high = size;
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+            if(startSeconds[middle] < second) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Collects rows for a new store. Rows have to be added in order of start, then Appointment ID, which is the order the
+     * database is asked for, so building never has to sort. The columns grow by doubling, and types are given their codes
+     * as they are first seen.
+     */
+    public static final class Builder {
+        /**Starting length of the columns*/
+        private static final int INITIAL_CAPACITY = 1024;
+
+        /**Number of rows added*/
+        private int size;
+        /**Appointment ID of each row*/
+        private int[] appointmentIDs;
+        /**Customer ID of each row*/
+        private int[] customerIDs;
+        /**User ID of each row*/
+        private int[] userIDs;
+        /**Contact ID of each row*/
+        private int[] contactIDs;
+        /**Type code of each row*/
+        private int[] typeCodes;
+        /**Start of each row in epoch seconds*/
+        private long[] startSeconds;
+        /**End of each row in epoch seconds*/
+        private long[] endSeconds;
+        /**Code of each type seen*/
+        private final Map<String, Integer> typeCodeOf = new HashMap<>();
+        /**Type name of each type code*/
+        private final List<String> typeNames = new ArrayList<>();
+
+        /**
+         * Constructor for an empty Builder
+         */
+        public Builder() {
+            this(INITIAL_CAPACITY, new String[0]);
+        }
+
+        /**
+         * Constructor for a Builder that starts with a store's types, so rows copied from the store keep their type codes
+         * @param capacity starting length of the columns
+         * @param typeNames type name of each type code
+         */
+        private Builder(int capacity, String[] typeNames) {
+            int length = Math.max(capacity, 1);
+            appointmentIDs = new int[length];
+            customerIDs = new int[length];
+            userIDs = new int[length];
+            contactIDs = new int[length];
+            typeCodes = new int[length];
+            startSeconds = new long[length];
+            endSeconds = new long[length];
+            for(String typeName : typeNames) {
+                typeCodeOf.put(typeName, this.typeNames.size());
+                this.typeNames.add(typeName);
+            }
+        }
+
+        /**
+         * Adds a row
+         * @param appointmentID the Appointment ID
+         * @param type the type
+         * @param startSecond the start in epoch seconds
+         * @param endSecond the end in epoch seconds
+         * @param customerID the Customer ID
+         * @param userID the User ID
+         * @param contactID the Contact ID
+         * @return this builder
+         * @throws IllegalArgumentException if the row comes before the last row added
+         */
+        public Builder add(int appointmentID, String type, long startSecond, long endSecond, int customerID, int userID, int contactID) {
+            Integer typeCode = typeCodeOf.get(type);
+            if(typeCode == null) {
+                typeCode = typeNames.size();
+                typeNames.add(type);
+                typeCodeOf.put(type, typeCode);
+            }
+            return addRow(appointmentID, typeCode, startSecond, endSecond, customerID, userID, contactID);
+        }
+
+        /**
+         * Adds a row for an Appointment
+         * @param appointment the Appointment
+         * @return this builder
+         * @throws IllegalArgumentException if the row comes before the last row added
+         */
+        public Builder add(Appointment appointment) {
+            return add(appointment.getAppointmentID(), appointment.getType(), appointment.getStartSecond(), appointment.getEndSecond(),
+                    appointment.getCustomerID(), appointment.getUserID(), appointment.getContactID());
+        }
+
+        /**
+         * Helper Method for the add methods. Adds a row whose type already has a code.
+         * @param appointmentID the Appointment ID
+         * @param typeCode the type code
+         * @param startSecond the start in epoch seconds
+         * @param endSecond the end in epoch seconds
+         * @param customerID the Customer ID
+         * @param userID the User ID
+         * @param contactID the Contact ID
+         * @return this builder
+         * @throws IllegalArgumentException if the row comes before the last row added
+         */
+        private Builder addRow(int appointmentID, int typeCode, long startSecond, long endSecond, int customerID, int userID, int contactID) {
+            if(size > 0 && (startSecond < startSeconds[size - 1] || (startSecond == startSeconds[size - 1] && appointmentID <= appointmentIDs[size - 1]))) {
+                throw new IllegalArgumentException("Rows have to be added in order of start, then Appointment ID");
+            }
+            if(size == appointmentIDs.length) grow();
+
+            appointmentIDs[size] = appointmentID;
+            customerIDs[size] = customerID;
+            userIDs[size] = userID;
+            contactIDs[size] = contactID;
+            typeCodes[size] = typeCode;
+            startSeconds[size] = startSecond;
+            endSeconds[size] = endSecond;
+            size++;
+            return this;
+        }
+
+        /**
+         * @return number of rows added
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Makes the store. The columns are trimmed to the number of rows. The builder should not be used afterwards.
+         * @return the store
+         */
+        public AppointmentColumns build() {
+            return new AppointmentColumns(this);
+        }
+
+        /**
+         * Doubles the length of every column
+         */
+        private void grow() {
+            int capacity = appointmentIDs.length * 2;
+            appointmentIDs = Arrays.copyOf(appointmentIDs, capacity);
+            customerIDs = Arrays.copyOf(customerIDs, capacity);
+            userIDs = Arrays.copyOf(userIDs, capacity);
+            contactIDs = Arrays.copyOf(contactIDs, capacity);
+            typeCodes = Arrays.copyOf(typeCodes, capacity);
+            startSeconds = Arrays.copyOf(startSeconds, capacity);
+            endSeconds = Arrays.copyOf(endSeconds, capacity);
+        }
+    }
+}
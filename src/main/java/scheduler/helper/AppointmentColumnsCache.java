@@ -0,0 +1,245 @@
+package scheduler.helper;
+
+import scheduler.dao.AppointmentDAO;
+import scheduler.dao.ReportDAO;
+import scheduler.model.Appointment;
+
+import java.sql.SQLException;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Holds the report column store for the reports that need every row, such as the Pivot and Overlap Audit reports. The store
+ * is only read from the database the first time one of them asks for it. After that AppointmentDAO tells this class about
+ * every insert, update and delete, and the writes are merged into the store the next time it is asked for.
+ *
+ * Other clients can write Appointments too, so the store is only trusted for RECHECK_NANOS. After that the next request reads
+ * the table's Watermark. If it has moved, the rows written since the store's Watermark are read and merged in, and if the
+ * row count still does not match, rows were deleted elsewhere and the whole store is read again. The store is dropped on
+ * logout.
+ *
+ * The cube for the Pivot report is built from the store, and kept until the store changes.
+ *
+ * Writes made while the store is being read are kept and merged once the read is done. Each one is keyed by Appointment ID
+ * and replaces whatever the read saw for that Appointment, so merging one the read already saw changes nothing.
+ *
+ * @author Alvin Roe
+ */
+public abstract class AppointmentColumnsCache {
+    /**How long the store is trusted before the table's Watermark is checked again, in nanoseconds*/
+    private static final long RECHECK_NANOS = 2_000_000_000L;
+    /**Time zone the cube's months are in*/
+    private static final ZoneId zone = ZoneId.systemDefault();
+    /**The store, or null until it is first asked for*/
+    private static AppointmentColumns columns;
+    /**Watermark of the table the store was last known to match, or null with no store*/
+    private static Watermark watermark;
+    /**System.nanoTime() when the store was last known to match the table*/
+    private static long checkedAt;
+    /**Cube built from the current store, or null if it has not been built since the store last changed*/
+    private static AppointmentCube cube;
+    /**Writes not merged into the store yet, keyed by Appointment ID, with null for a delete*/
+    private static Map<Integer, Appointment> pendingWrites = new HashMap<>();
+    /**The read that is running, or null if no read is running*/
+    private static CompletableFuture<Void> loading;
+    /**True once the write listener has been added to AppointmentDAO*/
+    private static boolean listening;
+
+    /**
+     * Returns the store with every write merged in, reading it from the database first if it has not been read, and catching
+     * it up with the table if its Watermark is due to be checked. Meant to be called off the FX thread.
+     * @return the column store of every Appointment
+     * @throws SQLException if the store could not be read
+     */
+    public static AppointmentColumns get() throws SQLException {
+        Watermark known;
+        synchronized(AppointmentColumnsCache.class) {
+            listen();
+            if(columns == null) known = null;
+            else if(System.nanoTime() - checkedAt < RECHECK_NANOS) return mergePendingWrites();
+            else {
+                //Merged now, so the writes kept from here on are the ones made during the catch up
+                mergePendingWrites();
+                known = watermark;
+            }
+        }
+
+        if(known != null && catchUp(known)) {
+            synchronized(AppointmentColumnsCache.class) {
+                if(columns != null) return mergePendingWrites();
+            }
+        }
+        return load();
+    }
+
+    /**
+     * Returns the store with every write merged in, without reading it from the database
+     * @return the column store, or null if it has not been read yet
+     */
+    public static synchronized AppointmentColumns getIfLoaded() {
+        return columns == null ? null : mergePendingWrites();
+    }
+
+    /**
+     * Drops the store and the cube, so the store is read fresh the next time it is asked for. Called on logout.
+     */
+    public static synchronized void clear() {
+        columns = null;
+        cube = null;
+        watermark = null;
+        pendingWrites = new HashMap<>();
+    }
+
+    /**
+     * Returns the cube for the Pivot report, building it from the store if the store has changed since it was last built.
+     * Meant to be called off the FX thread.
+     * @return the cube of every Appointment
+     * @throws SQLException if the store could not be read
+     */
+    public static AppointmentCube getCube() throws SQLException {
+        AppointmentColumns source = get();
+        synchronized(AppointmentColumnsCache.class) {
+            if(cube != null && columns == source) return cube;
+        }
+
+        AppointmentCube built = AppointmentCube.of(source, zone);
+        synchronized(AppointmentColumnsCache.class) {
+            if(columns == source) cube = built;
+        }
+        return built;
+    }
+
+    /**
+     * Reads the whole store from the database, or waits for the read that is already running
+     * @return the store with every write merged in
+     * @throws SQLException if the store could not be read
+     */
+    private static AppointmentColumns load() throws SQLException {
+        CompletableFuture<Void> running;
+        boolean readHere = false;
+        synchronized(AppointmentColumnsCache.class) {
+            if(loading == null) {
+                loading = new CompletableFuture<>();
+                readHere = true;
+            }
+            running = loading;
+        }
+
+        if(readHere) {
+            try {
+                //Read before the rows, so a write that lands between the two is caught up on at the next check
+                Watermark before = AppointmentDAO.selectWatermark();
+                AppointmentColumns loaded = ReportDAO.loadAppointmentColumns();
+                synchronized(AppointmentColumnsCache.class) {
+                    columns = loaded;
+                    cube = null;
+                    watermark = before;
+                    checkedAt = System.nanoTime();
+                    loading = null;
+                }
+                running.complete(null);
+            } catch (SQLException e) {
+                synchronized(AppointmentColumnsCache.class) {
+                    loading = null;
+                    pendingWrites.clear();
+                }
+                running.completeExceptionally(e);
+                throw e;
+            }
+        }
+        else {
+            try {
+                running.join();
+            } catch (CompletionException e) {
+                if(e.getCause() instanceof SQLException) throw (SQLException) e.getCause();
+                throw new RuntimeException(e.getCause());
+            }
+        }
+
+        synchronized(AppointmentColumnsCache.class) {
+            if(columns == null) throw new SQLException("The Appointments were cleared while being read");
+            return mergePendingWrites();
+        }
+    }
+
+    /**
+     * Brings the store up to date with the table. Rows written since the store's Watermark, by this client or any other, are
+     * read and merged in. A row deleted by another client can not be found that way, so if the row count still differs the
+     * store is dropped to be read again.
+     * @param known the Watermark the store was last known to match
+     * @return true if the store is up to date, false if it has to be read again
+     * @throws SQLException
+     */
+    private static boolean catchUp(Watermark known) throws SQLException {
+        Watermark current = AppointmentDAO.selectWatermark();
+        Map<Integer, Appointment> written = current.equals(known) ? new HashMap<>() : ReportDAO.selectColumnsUpdatedSince(known.getLastUpdateMillis());
+
+        synchronized(AppointmentColumnsCache.class) {
+            //Another request caught up or cleared the store in the meantime
+            if(columns == null || watermark != known) return columns != null;
+
+            if(!written.isEmpty()) {
+                columns = columns.withChanges(written);
+                cube = null;
+            }
+            mergePendingWrites();
+            if(columns.size() != current.getRowCount()) {
+                columns = null;
+                cube = null;
+                watermark = null;
+                return false;
+            }
+            watermark = current;
+            checkedAt = System.nanoTime();
+            return true;
+        }
+    }
+
+    /**
+     * Adds the write listener to AppointmentDAO the first time it is called. Writes are only kept once the store has been
+     * asked for, so nothing builds up if the reports that use it are never opened.
+     */
+    private static void listen() {
+        if(listening) return;
+        AppointmentDAO.addWriteListener(new AppointmentDAO.WriteListener() {
+            @Override
+            public void appointmentSaved(Appointment appointment) {
+                //Copied, since the caller may change its Appointment again before the write is merged
+                keepWrite(appointment.getAppointmentID(), new Appointment(appointment.getAppointmentID(), "", "", "", appointment.getType(),
+                        appointment.getStartSecond(), appointment.getEndSecond(), 0, "", 0, "",
+                        appointment.getCustomerID(), appointment.getUserID(), appointment.getContactID()));
+            }
+
+            @Override
+            public void appointmentDeleted(int appointmentID) {
+                keepWrite(appointmentID, null);
+            }
+        });
+        listening = true;
+    }
+
+    /**
+     * Keeps a write to merge into the store, if the store has been read or is being read
+     * @param appointmentID the Appointment ID
+     * @param saved the Appointment as it is now stored, or null if it was deleted
+     */
+    private static synchronized void keepWrite(int appointmentID, Appointment saved) {
+        if(columns == null && loading == null) return;
+        pendingWrites.put(appointmentID, saved);
+    }
+
+    /**
+     * Merges the kept writes into the store. Only called while holding the class lock, with the store read.
+     * @return the store with every write merged in
+     */
+    private static AppointmentColumns mergePendingWrites() {
+        if(pendingWrites.isEmpty()) return columns;
+        columns = columns.withChanges(pendingWrites);
+        cube = null;
+        pendingWrites = new HashMap<>();
+        return columns;
+    }
+}
@@ -0,0 +1,546 @@
+package scheduler.helper;
+
+import scheduler.dao.AppointmentDAO;
+import scheduler.dao.CustomerDAO;
+import scheduler.model.Appointment;
+import scheduler.model.Customer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Imports Appointments from a CSV file in three stages that run at the same time, each on its own thread:
+ * parsing lines, validating them against business hours and overlapping Appointments, and writing them to the database
+ * in JDBC batches. The stages are joined by bounded queues, so only a few batches of rows are held in memory no matter
+ * how large the file is.
+ *
+ * The file needs these columns, in this order: Title, Description, Location, Type, Start, End, Customer_ID, User_ID, Contact_ID.
+ * Start and End are ISO-8601 date times, such as 2024-05-01T09:00-04:00. Times without an offset use the local time zone.
+ * A first line starting with Title is treated as a header.
+ *
+ * A row is only rejected as an overlap when it overlaps an Appointment that is really in the database. If every Appointment
+ * it overlaps is an earlier row of the same file that has not been written yet, the row is held back, and checked again once
+ * those rows have been written or their batch has failed.
+ *
+ * @author Alvin Roe
+ */
+public class AppointmentCsvImporter {
+    /**Number of columns in a row*/
+    private static final int COLUMN_COUNT = 9;
+    /**Most rejection messages kept for the result, so a bad file can not use up memory*/
+    private static final int MAX_REJECTION_MESSAGES = 100;
+
+    /**Number of Appointments per batch and transaction*/
+    private final int batchSize;
+    /**Recorded as the creator of every imported Appointment*/
+    private final String importedBy;
+
+    /**
+     * Constructor for AppointmentCsvImporter
+     * @param batchSize number of Appointments per batch and transaction
+     * @param importedBy username recorded as the creator of every imported Appointment
+     */
+    public AppointmentCsvImporter(int batchSize, String importedBy) {
+        if(batchSize < 1) throw new IllegalArgumentException("Batch size must be at least 1");
+        this.batchSize = batchSize;
+        this.importedBy = importedBy;
+    }
+
+    /**
+     * Imports every valid row of the file. Invalid rows are skipped and listed in the result. Blocks until the whole file
+     * has been written, so it should not be called on the FX thread.
+     * @param file the CSV file
+     * @return counts, rate and rejection messages for the import
+     * @throws IOException if the file can not be read
+     * @throws SQLException if the Customers can not be loaded for validation
+     * @throws InterruptedException if the thread is interrupted while waiting for the stages
+     */
+    public Result importFile(Path file) throws IOException, SQLException, InterruptedException {
+        Result result = new Result();
+        Set<Integer> customerIDs = new HashSet<>();
+        for(Customer customer : CustomerDAO.selectAllCustomers()) customerIDs.add(customer.getId());
+
+        BlockingQueue<Row> parsed = new ArrayBlockingQueue<>(batchSize * 2);
+        BlockingQueue<Row> validated = new ArrayBlockingQueue<>(batchSize * 2);
+        Set<Integer> unwrittenIDs = ConcurrentHashMap.newKeySet();
+        List<Integer> reservedIDs = new ArrayList<>();
+        List<Row> heldBack = new ArrayList<>();
+        long startTime = System.nanoTime();
+
+        Thread validator = new Thread(() -> validate(parsed, validated, customerIDs, unwrittenIDs, reservedIDs, heldBack, result), "csv-import-validate");
+        Thread writer = new Thread(() -> write(validated, unwrittenIDs, result), "csv-import-write");
+        validator.setDaemon(true);
+        writer.setDaemon(true);
+        validator.start();
+        writer.start();
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            parse(reader, parsed, result);
+        } finally {
+            parsed.put(Row.END);
+            validator.join();
+            writer.join();
+            if(result.failure == null) validateHeldBack(heldBack, customerIDs, unwrittenIDs, reservedIDs, result);
+            else for(Row row : heldBack) result.reject(row.lineNumber, "import stopped before this row was checked");
+            //Every row is either written or failed now, so the overlap index can go back to the database for all of them
+            for(Integer appointmentID : reservedIDs) CustomerScheduleIndex.release(appointmentID);
+            result.elapsedNanos = System.nanoTime() - startTime;
+        }
+        return result;
+    }
+
+    /**
+     * Parse stage. Reads each line and turns it into an Appointment.
+     * @param reader the file
+     * @param parsed queue to the validate stage
+     * @param result where rejections are recorded
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private void parse(BufferedReader reader, BlockingQueue<Row> parsed, Result result) throws IOException, InterruptedException {
+        String line;
+        int lineNumber = 0;
+        ZonedDateTime now = ZonedDateTime.now();
+
+        while((line = reader.readLine()) != null) {
+            lineNumber++;
+            if(line.isBlank()) continue;
+
+            List<String> fields = splitCsvLine(line);
+            if(lineNumber == 1 && fields.get(0).trim().equalsIgnoreCase("Title")) continue;
+            result.rowsRead.incrementAndGet();
+
+            if(fields.size() != COLUMN_COUNT) {
+                result.reject(lineNumber, "expected " + COLUMN_COUNT + " columns but found " + fields.size());
+                continue;
+            }
+            try {
+                Appointment appointment = new Appointment();
+                appointment.setTitle(fields.get(0));
+                appointment.setDescription(fields.get(1));
+                appointment.setLocation(fields.get(2));
+                appointment.setType(fields.get(3));
+                appointment.setStartDate(parseDateTime(fields.get(4)));
+                appointment.setEndDate(parseDateTime(fields.get(5)));
+                appointment.setCustomerID(Integer.parseInt(fields.get(6).trim()));
+                appointment.setUserID(Integer.parseInt(fields.get(7).trim()));
+                appointment.setContactID(Integer.parseInt(fields.get(8).trim()));
+                appointment.setCreateDate(now);
+                appointment.setCreatedBy(importedBy);
+                appointment.setLastUpdate(now);
+                appointment.setLastUpdateBy(importedBy);
+                parsed.put(new Row(lineNumber, appointment));
+            } catch (NumberFormatException | DateTimeParseException e) {
+                result.reject(lineNumber, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Validate stage. Checks each Appointment the same way the Add Appointment form does, then takes an Appointment ID for it.
+     * Accepted Appointments are reserved in the overlap index straight away, so later rows in the file are checked against them.
+     * Rows that only overlap rows not written yet are held back instead of being rejected.
+     * @param parsed queue from the parse stage
+     * @param validated queue to the write stage
+     * @param customerIDs every Customer ID in the database
+     * @param unwrittenIDs IDs of accepted rows that are not in the database yet
+     * @param reservedIDs where the IDs of accepted rows are added
+     * @param heldBack where held back rows are added
+     * @param result where rejections are recorded
+     */
+    private void validate(BlockingQueue<Row> parsed, BlockingQueue<Row> validated, Set<Integer> customerIDs, Set<Integer> unwrittenIDs,
+                          List<Integer> reservedIDs, List<Row> heldBack, Result result) {
+        boolean reachedEnd = false;
+        try {
+            Row row;
+            while((row = parsed.take()) != Row.END) {
+                String error = findError(row.appointment, customerIDs);
+                if(error == null) {
+                    List<AppointmentInterval> overlaps = findOverlaps(row.appointment);
+                    if(!overlaps.isEmpty() && allUnwritten(overlaps, unwrittenIDs)) {
+                        heldBack.add(row);
+                        continue;
+                    }
+                    if(!overlaps.isEmpty()) error = overlapError(overlaps);
+                }
+                if(error != null) {
+                    result.reject(row.lineNumber, error);
+                    continue;
+                }
+                accept(row, unwrittenIDs, reservedIDs);
+                validated.put(row);
+            }
+            reachedEnd = true;
+        } catch (SQLException e) {
+            result.failure = e;
+            System.out.println("Error:" + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if(!reachedEnd) drainUntilEnd(parsed, row -> result.reject(row.lineNumber, "import stopped before this row was checked"));
+            putQuietly(validated, Row.END);
+        }
+    }
+
+    /**
+     * Write stage. Collects a batch of Appointments and inserts it in one transaction.
+     * @param validated queue from the validate stage
+     * @param unwrittenIDs IDs of accepted rows that are not in the database yet
+     * @param result where counts and rejections are recorded
+     */
+    private void write(BlockingQueue<Row> validated, Set<Integer> unwrittenIDs, Result result) {
+        List<Row> batch = new ArrayList<>(batchSize);
+        try {
+            Row row;
+            while((row = validated.take()) != Row.END) {
+                batch.add(row);
+                if(batch.size() == batchSize) writeBatch(batch, unwrittenIDs, result);
+            }
+            writeBatch(batch, unwrittenIDs, result);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Checks the held back rows again once every other row has been written, and writes the ones that pass. A failed batch
+     * has been released from the overlap index by now, so a row that only overlapped it is accepted. Before a row that overlaps
+     * a row of the current batch is rejected, the batch is written, so only overlaps with Appointments in the database are
+     * reported.
+     * @param heldBack the held back rows, in the order they were read
+     * @param customerIDs every Customer ID in the database
+     * @param unwrittenIDs IDs of accepted rows that are not in the database yet
+     * @param reservedIDs where the IDs of accepted rows are added
+     * @param result where counts and rejections are recorded
+     */
+    private void validateHeldBack(List<Row> heldBack, Set<Integer> customerIDs, Set<Integer> unwrittenIDs, List<Integer> reservedIDs, Result result) {
+        List<Row> batch = new ArrayList<>(batchSize);
+        try {
+            for(Row row : heldBack) {
+                String error = findError(row.appointment, customerIDs);
+                if(error == null) {
+                    List<AppointmentInterval> overlaps = findOverlaps(row.appointment);
+                    if(!overlaps.isEmpty() && !batch.isEmpty() && allUnwritten(overlaps, unwrittenIDs)) {
+                        writeBatch(batch, unwrittenIDs, result);
+                        overlaps = findOverlaps(row.appointment);
+                    }
+                    if(!overlaps.isEmpty()) error = overlapError(overlaps);
+                }
+                if(error != null) {
+                    result.reject(row.lineNumber, error);
+                    continue;
+                }
+                accept(row, unwrittenIDs, reservedIDs);
+                batch.add(row);
+                if(batch.size() == batchSize) writeBatch(batch, unwrittenIDs, result);
+            }
+            writeBatch(batch, unwrittenIDs, result);
+        } catch (SQLException e) {
+            result.failure = e;
+            System.out.println("Error:" + e.getMessage());
+        }
+    }
+
+    /**
+     * Takes an Appointment ID for an accepted row and reserves it in the overlap index, so later rows are checked against it.
+     * The reservation is kept until the import ends, so a Customer loaded again while its batch is being written still sees it.
+     * @param row the accepted row
+     * @param unwrittenIDs IDs of accepted rows that are not in the database yet
+     * @param reservedIDs where the row's ID is added, so it can be released when the import ends
+     * @throws SQLException if an Appointment ID can not be reserved
+     */
+    private static void accept(Row row, Set<Integer> unwrittenIDs, List<Integer> reservedIDs) throws SQLException {
+        row.appointment.setAppointmentID(AppointmentDAO.generateNewID());
+        unwrittenIDs.add(row.appointment.getAppointmentID());
+        reservedIDs.add(row.appointment.getAppointmentID());
+        CustomerScheduleIndex.reserve(row.appointment);
+    }
+
+    /**
+     * Inserts one batch. If it fails, its rows are released from the overlap index and recorded as rejected. Their IDs are
+     * left in unwrittenIDs, so rows that overlapped them are held back rather than rejected.
+     * @param batch the rows to insert, cleared afterwards
+     * @param unwrittenIDs IDs of accepted rows that are not in the database yet
+     * @param result where counts and rejections are recorded
+     */
+    private void writeBatch(List<Row> batch, Set<Integer> unwrittenIDs, Result result) {
+        if(batch.isEmpty()) return;
+        List<Appointment> appointments = new ArrayList<>(batch.size());
+        for(Row row : batch) appointments.add(row.appointment);
+
+        try {
+            result.rowsImported.addAndGet(AppointmentDAO.insertAll(appointments, batchSize));
+            for(Appointment appointment : appointments) unwrittenIDs.remove(appointment.getAppointmentID());
+        } catch (SQLException e) {
+            for(Row row : batch) {
+                CustomerScheduleIndex.release(row.appointment.getAppointmentID());
+                result.reject(row.lineNumber, "batch failed: " + e.getMessage());
+            }
+        }
+        batch.clear();
+    }
+
+    /**
+     * Checks one Appointment, apart from overlaps, which are checked by findOverlaps
+     * @param appointment the Appointment to check
+     * @param customerIDs every Customer ID in the database
+     * @return what is wrong with the Appointment, or null if it is valid
+     */
+    private static String findError(Appointment appointment, Set<Integer> customerIDs) {
+        if(appointment.getTitle().isBlank()) return "Title is empty";
+        if(!customerIDs.contains(appointment.getCustomerID())) return "Customer " + appointment.getCustomerID() + " does not exist";
+        if(ReferenceDataCache.get().getUserName(appointment.getUserID()) == null) return "User " + appointment.getUserID() + " does not exist";
+        if(ReferenceDataCache.get().getContactName(appointment.getContactID()) == null) return "Contact " + appointment.getContactID() + " does not exist";
+
+        long start = appointment.getStartSecond();
+        long end = appointment.getEndSecond();
+        if(start >= end) return "Start is not before End";
+        if(!withinBusinessHours(appointment.getStartDate()) || !withinBusinessHours(appointment.getEndDate())) return "outside of business hours";
+        return null;
+    }
+
+    /**
+     * @param appointment the Appointment to check
+     * @return the Appointments of the same Customer it overlaps, including accepted rows of this import
+     * @throws SQLException if the Customer's Appointments could not be loaded for the overlap check
+     */
+    private static List<AppointmentInterval> findOverlaps(Appointment appointment) throws SQLException {
+        return CustomerScheduleIndex.findOverlaps(appointment.getCustomerID(), appointment.getStartSecond(), appointment.getEndSecond(), 0);
+    }
+
+    /**
+     * @param overlaps Appointments a row overlaps
+     * @param unwrittenIDs IDs of accepted rows that are not in the database yet
+     * @return true if none of the Appointments are in the database
+     */
+    private static boolean allUnwritten(List<AppointmentInterval> overlaps, Set<Integer> unwrittenIDs) {
+        for(AppointmentInterval overlap : overlaps) {
+            if(!unwrittenIDs.contains(overlap.getAppointmentID())) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param overlaps Appointments a row overlaps, at least one
+     * @return the rejection message for the row
+     */
+    private static String overlapError(List<AppointmentInterval> overlaps) {
+        return "overlaps with Appointment ID# " + overlaps.get(0).getAppointmentID();
+    }
+
+    /**
+     * Checks a time against the business hours in SessionData, in the same way the Appointment forms do
+     * @param dateTime the time to check
+     * @return true if the time is within business hours
+     */
+    private static boolean withinBusinessHours(ZonedDateTime dateTime) {
+        ZonedDateTime local = dateTime.withZoneSameInstant(ZoneId.systemDefault());
+        DayOfWeek day = local.getDayOfWeek();
+        LocalTime time = local.toLocalTime();
+        return !time.isBefore(SessionData.getOpeningTime(day)) && !time.isAfter(SessionData.getClosingTime(day));
+    }
+
+    /**
+     * Parses an ISO-8601 date time, using the local time zone when it has no offset
+     * @param text the text to parse
+     * @return the date time
+     */
+    private static ZonedDateTime parseDateTime(String text) {
+        String trimmed = text.trim();
+        try {
+            return ZonedDateTime.parse(trimmed);
+        } catch (DateTimeParseException e) {
+            return LocalDateTime.parse(trimmed).atZone(ZoneId.systemDefault());
+        }
+    }
+
+    /**
+     * Splits one CSV line into fields. Fields can be quoted, and a doubled quote inside a quoted field is one quote.
+     * @param line the line to split
+     * @return the fields
+     */
+    private static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>(COLUMN_COUNT);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for(int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if(quoted) {
+                if(c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                }
+                else if(c == '"') quoted = false;
+                else field.append(c);
+            }
+            else if(c == '"') quoted = true;
+            else if(c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            }
+            else field.append(c);
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Takes rows off a queue until the end marker, so a stage that stopped early does not leave the stage before it blocked
+     * @param queue the queue to drain
+     * @param skipped called for each row that is thrown away
+     */
+    private static void drainUntilEnd(BlockingQueue<Row> queue, Consumer<Row> skipped) {
+        try {
+            Row row;
+            while((row = queue.take()) != Row.END) skipped.accept(row);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Puts a row on a queue, giving up if the thread is interrupted
+     * @param queue the queue
+     * @param row the row
+     */
+    private static void putQuietly(BlockingQueue<Row> queue, Row row) {
+        try {
+            queue.put(row);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A parsed Appointment and the line it came from
+     */
+    private static class Row {
+        /**Marks the end of a queue*/
+        private static final Row END = new Row(0, null);
+
+        /**Line number in the file*/
+        private final int lineNumber;
+        /**The parsed Appointment*/
+        private final Appointment appointment;
+
+        /**
+         * Constructor for Row
+         * @param lineNumber line number in the file
+         * @param appointment the parsed Appointment
+         */
+        private Row(int lineNumber, Appointment appointment) {
+            this.lineNumber = lineNumber;
+            this.appointment = appointment;
+        }
+    }
+
+    /**
+     * Outcome of an import
+     */
+    public static class Result {
+        /**Data rows read from the file*/
+        private final AtomicInteger rowsRead = new AtomicInteger();
+        /**Rows written to the database*/
+        private final AtomicInteger rowsImported = new AtomicInteger();
+        /**Rows that were skipped*/
+        private final AtomicInteger rowsRejected = new AtomicInteger();
+        /**The first rejection messages, up to MAX_REJECTION_MESSAGES*/
+        private final List<String> rejections = new ArrayList<>();
+        /**Time the import took*/
+        private volatile long elapsedNanos;
+        /**Error that stopped validation early, or null*/
+        private volatile SQLException failure;
+
+        /**
+         * Records a skipped row
+         * @param lineNumber line number in the file
+         * @param reason why it was skipped
+         */
+        private void reject(int lineNumber, String reason) {
+            rowsRejected.incrementAndGet();
+            synchronized (rejections) {
+                if(rejections.size() < MAX_REJECTION_MESSAGES) rejections.add("Line " + lineNumber + ": " + reason);
+            }
+        }
+
+        /**
+         * @return data rows read from the file
+         */
+        public int getRowsRead() {
+            return rowsRead.get();
+        }
+
+        /**
+         * @return rows written to the database
+         */
+        public int getRowsImported() {
+            return rowsImported.get();
+        }
+
+        /**
+         * @return rows that were skipped
+         */
+        public int getRowsRejected() {
+            return rowsRejected.get();
+        }
+
+        /**
+         * @return the first rejection messages
+         */
+        public List<String> getRejections() {
+            synchronized (rejections) {
+                return List.copyOf(rejections);
+            }
+        }
+
+        /**
+         * @return time the import took, in milliseconds
+         */
+        public long getElapsedMillis() {
+            return elapsedNanos / 1_000_000;
+        }
+
+        /**
+         * @return rows read per second over the whole import
+         */
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rowsRead.get() / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        /**
+         * @return error that stopped the import early, or null if it ran to the end
+         */
+        public SQLException getFailure() {
+            return failure;
+        }
+
+        /**
+         * @return one line summary of the import
+         */
+        @Override
+        public String toString() {
+            return String.format("%d rows read, %d imported, %d rejected in %d ms (%.0f rows/sec)",
+                    getRowsRead(), getRowsImported(), getRowsRejected(), getElapsedMillis(), getRowsPerSecond());
+        }
+    }
+}
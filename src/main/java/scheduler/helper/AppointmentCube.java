@@ -0,0 +1,336 @@
+package scheduler.helper;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.TextStyle;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Immutable count cube of Appointments over five dimensions: type, month, Contact, Customer and User. Every value of a
+ * dimension is given a dense code, 0 to getCardinality() - 1, and only the combinations that have Appointments are kept, as
+ * cells in primitive arrays. The cube is built in one pass over a column store plus one sort, and queries only look at the
+ * cells, so their cost depends on how many distinct combinations there are rather than how many Appointments.
+ *
+ * Roll-up is a count over fewer dimensions (rollUp or pivot), drill-down is the same count with the value being drilled
+ * into fixed (drillDown), and slicing restricts any dimension to one code or a range of codes (Slice).
+ *
+ * @author Alvin Roe
+ */
+public final class AppointmentCube {
+    /**The dimensions of the cube*/
+    public enum Dimension {TYPE, MONTH, CONTACT, CUSTOMER, USER}
+
+    /**Number of dimensions*/
+    private static final int DIMENSIONS = Dimension.values().length;
+
+    /**Number of cells*/
+    private final int cellCount;
+    /**Code of each cell for each dimension, indexed [dimension][cell]*/
+    private final int[][] cellCodes;
+    /**Number of Appointments in each cell*/
+    private final int[] cellCounts;
+    /**Label of each code for each dimension, indexed [dimension][code]*/
+    private final String[][] labels;
+    /**Month of each MONTH code, in increasing order*/
+    private final YearMonth[] months;
+
+    /**
+     * Constructor for AppointmentCube
+     * @param cellCodes code of each cell for each dimension
+     * @param cellCounts number of Appointments in each cell
+     * @param labels label of each code for each dimension
+     * @param months month of each MONTH code
+     */
+    private AppointmentCube(int[][] cellCodes, int[] cellCounts, String[][] labels, YearMonth[] months) {
+        this.cellCount = cellCounts.length;
+        this.cellCodes = cellCodes;
+        this.cellCounts = cellCounts;
+        this.labels = labels;
+        this.months = months;
+    }
+
+    /**
+     * Builds the cube. Each row is given its code in every dimension, the codes are packed into one long key per row, and the
+     * keys are sorted so equal combinations sit next to each other and become one cell. Meant to be called off the FX thread.
+     * @param columns the Appointments to count
+     * @param zone the time zone the months are in
+     * @return the cube
+     * @throws ArithmeticException if the dimensions have too many values between them to pack into a long
+     */
+    public static AppointmentCube of(AppointmentColumns columns, ZoneId zone) {
+        int size = columns.size();
+        int[][] rowCodes = new int[DIMENSIONS][size];
+        String[][] labels = new String[DIMENSIONS][];
+
+        //Types are already dense codes
+        int[] typeCodes = rowCodes[Dimension.TYPE.ordinal()];
+        labels[Dimension.TYPE.ordinal()] = new String[columns.getTypeCount()];
+        for(int typeCode = 0; typeCode < columns.getTypeCount(); typeCode++) labels[Dimension.TYPE.ordinal()][typeCode] = columns.getTypeName(typeCode);
+        for(int row = 0; row < size; row++) typeCodes[row] = columns.getTypeCode(row);
+
+        //Rows are sorted by start, so months are handed out in order and only worked out when a row crosses into the next one
+        int[] monthCodes = rowCodes[Dimension.MONTH.ordinal()];
+        YearMonth[] months = new YearMonth[Math.min(size, 16)];
+        int monthCount = 0;
+        long nextMonth = Long.MIN_VALUE;
+        for(int row = 0; row < size; row++) {
+            if(columns.getStartSecond(row) >= nextMonth) {
+                YearMonth month = YearMonth.from(Instant.ofEpochSecond(columns.getStartSecond(row)).atZone(zone));
+                if(monthCount == months.length) months = Arrays.copyOf(months, months.length * 2);
+                months[monthCount++] = month;
+                nextMonth = month.plusMonths(1).atDay(1).atStartOfDay(zone).toEpochSecond();
+            }
+            monthCodes[row] = monthCount - 1;
+        }
+        months = Arrays.copyOf(months, monthCount);
+        labels[Dimension.MONTH.ordinal()] = new String[monthCount];
+        for(int code = 0; code < monthCount; code++) {
+            labels[Dimension.MONTH.ordinal()][code] = months[code].getMonth().getDisplayName(TextStyle.FULL, Locale.ENGLISH) + " " + months[code].getYear();
+        }
+
+        //IDs are coded by their place among the distinct IDs
+        int[] contactIDs = encodeIDs(columns, Dimension.CONTACT, rowCodes[Dimension.CONTACT.ordinal()]);
+        int[] customerIDs = encodeIDs(columns, Dimension.CUSTOMER, rowCodes[Dimension.CUSTOMER.ordinal()]);
+        int[] userIDs = encodeIDs(columns, Dimension.USER, rowCodes[Dimension.USER.ordinal()]);
+        labels[Dimension.CONTACT.ordinal()] = new String[contactIDs.length];
+        for(int code = 0; code < contactIDs.length; code++) labels[Dimension.CONTACT.ordinal()][code] = SessionData.getContactName(contactIDs[code]);
+        labels[Dimension.CUSTOMER.ordinal()] = new String[customerIDs.length];
+        for(int code = 0; code < customerIDs.length; code++) labels[Dimension.CUSTOMER.ordinal()][code] = "Customer " + customerIDs[code];
+        labels[Dimension.USER.ordinal()] = new String[userIDs.length];
+        for(int code = 0; code < userIDs.length; code++) labels[Dimension.USER.ordinal()][code] = ReferenceDataCache.get().getUserName(userIDs[code]);
+
+        //Pack each row's codes into one key, then sort so equal combinations are next to each other
+        long[] radix = new long[DIMENSIONS];
+        long place = 1;
+        for(int dimension = DIMENSIONS - 1; dimension >= 0; dimension--) {
+            radix[dimension] = place;
+            place = Math.multiplyExact(place, Math.max(1, labels[dimension].length));
+        }
+        long[] keys = new long[size];
+        for(int row = 0; row < size; row++) {
+            long key = 0;
+            for(int dimension = 0; dimension < DIMENSIONS; dimension++) key += rowCodes[dimension][row] * radix[dimension];
+            keys[row] = key;
+        }
+        Arrays.sort(keys);
+
+        int cells = 0;
+        for(int row = 0; row < size; row++) if(row == 0 || keys[row] != keys[row - 1]) cells++;
+        int[][] cellCodes = new int[DIMENSIONS][cells];
+        int[] cellCounts = new int[cells];
+        int cell = -1;
+        for(int row = 0; row < size; row++) {
+            if(row == 0 || keys[row] != keys[row - 1]) {
+                cell++;
+                long key = keys[row];
+                for(int dimension = 0; dimension < DIMENSIONS; dimension++) {
+                    cellCodes[dimension][cell] = (int) (key / radix[dimension]);
+                    key %= radix[dimension];
+                }
+            }
+            cellCounts[cell]++;
+        }
+        return new AppointmentCube(cellCodes, cellCounts, labels, months);
+    }
+
+    /**
+     * @return number of distinct combinations that have Appointments
+     */
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * @param dimension a dimension
+     * @return number of codes in the dimension
+     */
+    public int getCardinality(Dimension dimension) {
+        return labels[dimension.ordinal()].length;
+    }
+
+    /**
+     * @param dimension a dimension
+     * @param code a code of the dimension
+     * @return the label of the code, such as the type, "January 2025" or the Contact's name
+     */
+    public String getLabel(Dimension dimension, int code) {
+        return labels[dimension.ordinal()][code];
+    }
+
+    /**
+     * @return every year that has Appointments, in increasing order
+     */
+    public int[] getYears() {
+        return Arrays.stream(months).mapToInt(YearMonth::getYear).distinct().toArray();
+    }
+
+    /**
+     * @return a slice that keeps every cell
+     */
+    public Slice everything() {
+        return new Slice();
+    }
+
+    /**
+     * @param slice the slice to narrow
+     * @param year the year to keep
+     * @return the slice narrowed to the MONTH codes of the year. MONTH codes are in order, so they are one range.
+     */
+    public Slice year(Slice slice, int year) {
+        int first = 0;
+        while(first < months.length && months[first].getYear() < year) first++;
+        int last = first - 1;
+        while(last + 1 < months.length && months[last + 1].getYear() == year) last++;
+        return slice.range(Dimension.MONTH, first, last);
+    }
+
+    /**
+     * Rolls the cube up to one dimension
+     * @param dimension the dimension to count by
+     * @param slice the cells to count
+     * @return count for each code of the dimension
+     */
+    public int[] rollUp(Dimension dimension, Slice slice) {
+        int[] counts = new int[getCardinality(dimension)];
+        int[] codes = cellCodes[dimension.ordinal()];
+        for(int cell = 0; cell < cellCount; cell++) {
+            if(slice.contains(cell)) counts[codes[cell]] += cellCounts[cell];
+        }
+        return counts;
+    }
+
+    /**
+     * Drills from one code of a dimension down into another dimension
+     * @param dimension the dimension being drilled from
+     * @param code the code being drilled into
+     * @param into the dimension to count by
+     * @param slice the cells to count
+     * @return count for each code of the into dimension, within the code drilled into
+     */
+    public int[] drillDown(Dimension dimension, int code, Dimension into, Slice slice) {
+        return rollUp(into, slice.only(dimension, code));
+    }
+
+    /**
+     * Rolls the cube up to two dimensions
+     * @param rows the dimension for the rows
+     * @param columns the dimension for the columns
+     * @param slice the cells to count
+     * @return counts indexed [row code][column code]
+     */
+    public int[][] pivot(Dimension rows, Dimension columns, Slice slice) {
+        int[][] counts = new int[getCardinality(rows)][getCardinality(columns)];
+        int[] rowCodes = cellCodes[rows.ordinal()];
+        int[] columnCodes = cellCodes[columns.ordinal()];
+        for(int cell = 0; cell < cellCount; cell++) {
+            if(slice.contains(cell)) counts[rowCodes[cell]][columnCodes[cell]] += cellCounts[cell];
+        }
+        return counts;
+    }
+
+    /**
+     * Gives each row its dimension's code, the place of its ID among the sorted distinct IDs
+     * @param columns the Appointments
+     * @param dimension CONTACT, CUSTOMER or USER
+     * @param codes filled with the code of each row
+     * @return the distinct IDs, in increasing order, so the ID of a code is at its index
+     */
+    private static int[] encodeIDs(AppointmentColumns columns, Dimension dimension, int[] codes) {
+        int size = columns.size();
+        int[] ids = new int[size];
+        for(int row = 0; row < size; row++) ids[row] = id(columns, dimension, row);
+
+        int[] distinct = ids.clone();
+        Arrays.sort(distinct);
+        int count = 0;
+        for(int i = 0; i < size; i++) if(i == 0 || distinct[i] != distinct[i - 1]) distinct[count++] = distinct[i];
+        distinct = Arrays.copyOf(distinct, count);
+
+        for(int row = 0; row < size; row++) codes[row] = Arrays.binarySearch(distinct, ids[row]);
+        return distinct;
+    }
+
+    /**
+     * @param columns the Appointments
+     * @param dimension CONTACT, CUSTOMER or USER
+     * @param row a row number
+     * @return the row's ID for the dimension
+     */
+    private static int id(AppointmentColumns columns, Dimension dimension, int row) {
+        switch(dimension) {
+            case CONTACT:
+                return columns.getContactID(row);
+            case CUSTOMER:
+                return columns.getCustomerID(row);
+            default:
+                return columns.getUserID(row);
+        }
+    }
+
+    /**
+     * The cells a query looks at, given as a range of codes for each dimension. Immutable, so a slice can be narrowed
+     * further without changing the original.
+     */
+    public final class Slice {
+        /**Lowest code kept for each dimension*/
+        private final int[] low;
+        /**Highest code kept for each dimension*/
+        private final int[] high;
+
+        /**
+         * Constructor for a Slice that keeps every cell
+         */
+        private Slice() {
+            low = new int[DIMENSIONS];
+            high = new int[DIMENSIONS];
+            Arrays.fill(high, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Constructor for Slice
+         * @param low lowest code kept for each dimension
+         * @param high highest code kept for each dimension
+         */
+        private Slice(int[] low, int[] high) {
+            this.low = low;
+            this.high = high;
+        }
+
+        /**
+         * @param dimension the dimension to fix
+         * @param code the code to keep
+         * @return a copy of the slice that only keeps the code for the dimension
+         */
+        public Slice only(Dimension dimension, int code) {
+            return range(dimension, code, code);
+        }
+
+        /**
+         * @param dimension the dimension to narrow
+         * @param first the lowest code to keep
+         * @param last the highest code to keep. Lower than first to keep nothing.
+         * @return a copy of the slice that only keeps the range of codes for the dimension
+         */
+        public Slice range(Dimension dimension, int first, int last) {
+            int[] newLow = low.clone();
+            int[] newHigh = high.clone();
+            newLow[dimension.ordinal()] = first;
+            newHigh[dimension.ordinal()] = last;
+            return new Slice(newLow, newHigh);
+        }
+
+        /**
+         * @param cell a cell
+         * @return true if the cell is within the range of every dimension
+         */
+        private boolean contains(int cell) {
+            for(int dimension = 0; dimension < DIMENSIONS; dimension++) {
+                int code = cellCodes[dimension][cell];
+                if(code < low[dimension] || code > high[dimension]) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package scheduler.helper;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * The start and end of one Appointment, stored as epoch seconds. Utilized by CustomerScheduleIndex for overlap checks.
+ *
+ * @author Alvin Roe
+ */
+public class AppointmentInterval {
+    /**Appointment ID of the Appointment*/
+    private final int appointmentID;
+    /**Start of the Appointment in epoch seconds*/
+    private final long startSecond;
+    /**End of the Appointment in epoch seconds*/
+    private final long endSecond;
+
+    /**
+     * Constructor for AppointmentInterval
+     * @param appointmentID Appointment ID of the Appointment
+     * @param startSecond start of the Appointment in epoch seconds
+     * @param endSecond end of the Appointment in epoch seconds
+     */
+    public AppointmentInterval(int appointmentID, long startSecond, long endSecond) {
+        this.appointmentID = appointmentID;
+        this.startSecond = startSecond;
+        this.endSecond = endSecond;
+    }
+
+    /**
+     * @return the Appointment ID
+     */
+    public int getAppointmentID() {
+        return appointmentID;
+    }
+
+    /**
+     * @return start of the Appointment in epoch seconds
+     */
+    public long getStartSecond() {
+        return startSecond;
+    }
+
+    /**
+     * @return end of the Appointment in epoch seconds
+     */
+    public long getEndSecond() {
+        return endSecond;
+    }
+
+    /**
+     * @return start of the Appointment in the local time zone
+     */
+    public ZonedDateTime getStartDate() {
+        return Instant.ofEpochSecond(startSecond).atZone(ZoneId.systemDefault());
+    }
+
+    /**
+     * @return end of the Appointment in the local time zone
+     */
+    public ZonedDateTime getEndDate() {
+        return Instant.ofEpochSecond(endSecond).atZone(ZoneId.systemDefault());
+    }
+
+    /**
+     * Checks whether an Appointment running from start to end would clash with this one. Uses the same rules the Appointment
+     * forms always have, so an Appointment ending exactly when this one starts counts as a clash.
+     * @param start start of the other Appointment in epoch seconds
+     * @param end end of the other Appointment in epoch seconds
+     * @return true if the two Appointments overlap
+     */
+    public boolean overlaps(long start, long end) {
+        return overlaps(startSecond, endSecond, start, end);
+    }
+
+    /**
+     * Checks whether an Appointment running from start to end would clash with one already booked from bookedStart to
+     * bookedEnd, by the same rules as overlaps(long, long). The rules are not symmetric: an Appointment ending exactly when the
+     * booked one starts is a clash, but one starting exactly when the booked one ends is not.
+     * @param bookedStart start of the booked Appointment in epoch seconds
+     * @param bookedEnd end of the booked Appointment in epoch seconds
+     * @param start start of the other Appointment in epoch seconds
+     * @param end end of the other Appointment in epoch seconds
+     * @return true if the two Appointments overlap
+     */
+    public static boolean overlaps(long bookedStart, long bookedEnd, long start, long end) {
+        return (start >= bookedStart && start < bookedEnd) || (end >= bookedStart && end <= bookedEnd)
+                || (start <= bookedStart && end >= bookedEnd);
+    }
+}
@@ -0,0 +1,224 @@
+package scheduler.helper;
+
+import javafx.beans.value.ObservableValue;
+import scheduler.dao.AppointmentDAO;
+import scheduler.model.Appointment;
+
+import java.sql.SQLException;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable table row for an Appointment, with every displayed value already formatted. Rows are built in bulk off the FX
+ * thread, so scrolling a table only hands out values that already exist instead of formatting dates and looking up contact
+ * names for every cell.
+ *
+ * @author Alvin Roe
+ */
+public final class AppointmentRow {
+    /**Format for dates in tables*/
+    public static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MM/dd/yy");
+    /**Format for times in tables*/
+    public static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("hh:mm a");
+    /**Format for a date and time in one column*/
+    public static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("MM/dd/yy hh:mm a");
+
+    /**The Appointment shown in the row*/
+    private final Appointment appointment;
+    /**Appointment ID*/
+    private final FixedValue<Integer> appointmentID;
+    /**Title*/
+    private final FixedValue<String> title;
+    /**Description*/
+    private final FixedValue<String> description;
+    /**Location*/
+    private final FixedValue<String> location;
+    /**Type*/
+    private final FixedValue<String> type;
+    /**Name of the Contact*/
+    private final FixedValue<String> contactName;
+    /**Contact ID*/
+    private final FixedValue<Integer> contactID;
+    /**Start date*/
+    private final FixedValue<String> startDate;
+    /**Start time*/
+    private final FixedValue<String> startTime;
+    /**Start date and time*/
+    private final FixedValue<String> start;
+    /**End date*/
+    private final FixedValue<String> endDate;
+    /**End time*/
+    private final FixedValue<String> endTime;
+    /**End date and time*/
+    private final FixedValue<String> end;
+    /**Customer ID*/
+    private final FixedValue<Integer> customerID;
+    /**User ID*/
+    private final FixedValue<Integer> userID;
+
+    /**
+     * Builds a row, formatting everything it shows
+     * @param appointment the Appointment to show
+     */
+    public AppointmentRow(Appointment appointment) {
+        this.appointment = appointment;
+        appointmentID = new FixedValue<>(appointment.getAppointmentID());
+        title = new FixedValue<>(appointment.getTitle());
+        description = new FixedValue<>(appointment.getDescription());
+        location = new FixedValue<>(appointment.getLocation());
+        type = new FixedValue<>(appointment.getType());
+        contactName = new FixedValue<>(SessionData.getContactName(appointment.getContactID()));
+        contactID = new FixedValue<>(appointment.getContactID());
+        startDate = new FixedValue<>(appointment.getStartDate().format(DATE_FORMAT));
+        startTime = new FixedValue<>(appointment.getStartDate().format(TIME_FORMAT));
+        start = new FixedValue<>(appointment.getStartDate().format(DATE_TIME_FORMAT));
+        endDate = new FixedValue<>(appointment.getEndDate().format(DATE_FORMAT));
+        endTime = new FixedValue<>(appointment.getEndDate().format(TIME_FORMAT));
+        end = new FixedValue<>(appointment.getEndDate().format(DATE_TIME_FORMAT));
+        customerID = new FixedValue<>(appointment.getCustomerID());
+        userID = new FixedValue<>(appointment.getUserID());
+    }
+
+    /**
+     * Builds rows for a list of Appointments. Meant to be called off the FX thread.
+     * @param appointments the Appointments to show
+     * @return one row for each Appointment, in the same order
+     */
+    public static List<AppointmentRow> ofAll(List<Appointment> appointments) {
+        List<AppointmentRow> rows = new ArrayList<>(appointments.size());
+        for(Appointment appointment : appointments) rows.add(new AppointmentRow(appointment));
+        return rows;
+    }
+
+    /**
+     * Page source for a PagedList of rows over every Appointment. Pages are loaded and formatted on the PagedList's loader thread.
+     * @return the page source
+     */
+    public static PagedList.PageSource<AppointmentRow> pageSource() {
+        PagedList.PageSource<Appointment> appointments = AppointmentDAO.pageSource();
+        return new PagedList.PageSource<>() {
+            @Override
+            public int count() throws SQLException {
+                return appointments.count();
+            }
+
+            @Override
+            public List<AppointmentRow> loadPage(int pageIndex, int pageSize, AppointmentRow lastOfPreviousPage) throws SQLException {
+                return ofAll(appointments.loadPage(pageIndex, pageSize, lastOfPreviousPage == null ? null : lastOfPreviousPage.appointment));
+            }
+        };
+    }
+
+    /**
+     * @return the Appointment shown in the row
+     */
+    public Appointment getAppointment() {
+        return appointment;
+    }
+
+    /**
+     * @return the Appointment ID
+     */
+    public ObservableValue<Integer> appointmentIDProperty() {
+        return appointmentID;
+    }
+
+    /**
+     * @return the title
+     */
+    public ObservableValue<String> titleProperty() {
+        return title;
+    }
+
+    /**
+     * @return the description
+     */
+    public ObservableValue<String> descriptionProperty() {
+        return description;
+    }
+
+    /**
+     * @return the location
+     */
+    public ObservableValue<String> locationProperty() {
+        return location;
+    }
+
+    /**
+     * @return the type
+     */
+    public ObservableValue<String> typeProperty() {
+        return type;
+    }
+
+    /**
+     * @return the name of the Contact
+     */
+    public ObservableValue<String> contactNameProperty() {
+        return contactName;
+    }
+
+    /**
+     * @return the Contact ID
+     */
+    public ObservableValue<Integer> contactIDProperty() {
+        return contactID;
+    }
+
+    /**
+     * @return the start date
+     */
+    public ObservableValue<String> startDateProperty() {
+        return startDate;
+    }
+
+    /**
+     * @return the start time
+     */
+    public ObservableValue<String> startTimeProperty() {
+        return startTime;
+    }
+
+    /**
+     * @return the start date and time
+     */
+    public ObservableValue<String> startProperty() {
+        return start;
+    }
+
+    /**
+     * @return the end date
+     */
+    public ObservableValue<String> endDateProperty() {
+        return endDate;
+    }
+
+    /**
+     * @return the end time
+     */
+    public ObservableValue<String> endTimeProperty() {
+        return endTime;
+    }
+
+    /**
+     * @return the end date and time
+     */
+    public ObservableValue<String> endProperty() {
+        return end;
+    }
+
+    /**
+     * @return the Customer ID
+     */
+    public ObservableValue<Integer> customerIDProperty() {
+        return customerID;
+    }
+
+    /**
+     * @return the User ID
+     */
+    public ObservableValue<Integer> userIDProperty() {
+        return userID;
+    }
+}
@@ -0,0 +1,275 @@
+package scheduler.helper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only audit log for login activity. Callers only add a record to a lock-free queue, so they never wait on the disk.
+ * A background thread takes everything that has queued up, writes it with one call, and forces it to disk once per group
+ * instead of once per record.
+ *
+ * If a write fails, the group is kept and the file is reopened and the group written again, waiting longer after each
+ * failure up to MAX_RETRY_NANOS. Records keep queueing in the meantime, up to MAX_PENDING. Past that new records are
+ * dropped and counted, so a disk that stays broken can not use up the heap.
+ *
+ * Each record is one line of JSON. The active file is login_activity.txt. It is rotated to
+ * login_activity.yyyy-MM-dd.n.txt when it grows past MAX_FILE_BYTES or when the first record of a new UTC day arrives.
+ *
+ * @author Alvin Roe
+ */
+public abstract class AuditLog {
+    /**Folder the log files are kept in*/
+    public static final Path LOG_DIRECTORY = Paths.get(".");
+    /**Name of the active log file*/
+    public static final String ACTIVE_FILE_NAME = "login_activity.txt";
+    /**Start of every log file name, active or rotated*/
+    public static final String FILE_PREFIX = "login_activity";
+    /**Size at which the active file is rotated*/
+    private static final long MAX_FILE_BYTES = 16L * 1024 * 1024;
+    /**Longest the writer waits before writing whatever has queued up*/
+    private static final long GROUP_COMMIT_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    /**Most records that can wait to be written. Records past this are dropped.*/
+    private static final int MAX_PENDING = 100_000;
+    /**Wait before writing again after the first failure*/
+    private static final long FIRST_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    /**Longest wait between attempts while writes keep failing*/
+    private static final long MAX_RETRY_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    /**Records waiting to be written, already turned into JSON lines*/
+    private static final ConcurrentLinkedQueue<String> pending = new ConcurrentLinkedQueue<>();
+    /**Number of records in pending. Kept apart since the queue's size() walks every node.*/
+    private static final AtomicInteger pendingCount = new AtomicInteger();
+    /**Number of records dropped because too many were waiting*/
+    private static final AtomicLong dropped = new AtomicLong();
+    /**Set once the writer thread has been started*/
+    private static final AtomicBoolean started = new AtomicBoolean(false);
+    /**Set when the app is closing, so the writer drains what is left and stops*/
+    private static volatile boolean closing = false;
+    /**The background writer*/
+    private static volatile Thread writerThread;
+
+    /**The open active file, or null while it needs to be opened again. Only touched by the writer thread.*/
+    private static FileChannel channel;
+    /**Group taken from the queue that has not been fully written yet, or null. Only touched by the writer thread.*/
+    private static ByteBuffer unwritten;
+    /**UTC day the active file belongs to*/
+    private static LocalDate activeDay;
+
+    /**
+     * Records a login attempt
+     * @param userName the username that was entered
+     * @param result the outcome, such as success or failure
+     */
+    public static void loginAttempt(String userName, String result) {
+        record("login", userName, result);
+    }
+
+    /**
+     * @return number of records dropped because too many were waiting to be written
+     */
+    public static long getDroppedRecords() {
+        return dropped.get();
+    }
+
+    /**
+     * Queues a record, or drops it if MAX_PENDING records are already waiting. Never blocks.
+     * @param event what happened
+     * @param userName the username involved
+     * @param result the outcome
+     */
+    public static void record(String event, String userName, String result) {
+        StringBuilder line = new StringBuilder(96);
+        line.append("{\"time\":\"").append(Instant.now()).append("\",\"event\":");
+        appendJsonString(line, event);
+        line.append(",\"user\":");
+        appendJsonString(line, userName);
+        line.append(",\"result\":");
+        appendJsonString(line, result);
+        line.append("}\n");
+
+        if(pendingCount.incrementAndGet() > MAX_PENDING) {
+            pendingCount.decrementAndGet();
+            dropped.incrementAndGet();
+            return;
+        }
+        pending.add(line.toString());
+        start();
+        if(writerThread != null) LockSupport.unpark(writerThread);
+    }
+
+    /**
+     * Writes everything still queued and stops the writer. Called once when the application exits.
+     */
+    public static void close() {
+        closing = true;
+        Thread thread = writerThread;
+        if(thread == null) return;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Starts the writer thread the first time a record is queued
+     */
+    private static void start() {
+        if(!started.compareAndSet(false, true)) return;
+        Thread thread = new Thread(AuditLog::runWriter, "audit-log-writer");
+        thread.setDaemon(true);
+        writerThread = thread;
+        thread.start();
+    }
+
+    /**
+     * Writer loop. Waits until records arrive or the group commit time passes, then writes every queued record together.
+     * When a write fails the file is closed, and after a wait it is opened again and the same group written.
+     */
+    private static void runWriter() {
+        long retryNanos = FIRST_RETRY_NANOS;
+        while(true) {
+            try {
+                if(channel == null) openActiveFile();
+                if(unwritten == null && pending.isEmpty() && !closing) LockSupport.parkNanos(GROUP_COMMIT_NANOS);
+                writeGroup();
+                retryNanos = FIRST_RETRY_NANOS;
+                if(closing && pending.isEmpty()) break;
+            } catch (IOException e) {
+                System.out.println("Error:" + e.getMessage());
+                closeChannel();
+                if(closing) break;
+
+                //New records unpark the thread, so wait out the whole time rather than retrying on every record
+                long retryAt = System.nanoTime() + retryNanos;
+                for(long left = retryNanos; left > 0 && !closing; left = retryAt - System.nanoTime()) LockSupport.parkNanos(left);
+                retryNanos = Math.min(retryNanos * 2, MAX_RETRY_NANOS);
+            }
+        }
+        closeChannel();
+    }
+
+    /**
+     * Writes the group left over from a failed write, or else takes every queued record as a new group, then writes it with
+     * one call and forces it to disk
+     * @throws IOException
+     */
+    private static void writeGroup() throws IOException {
+        if(unwritten == null) {
+            if(pending.isEmpty()) return;
+
+            StringBuilder group = new StringBuilder();
+            String line;
+            while((line = pending.poll()) != null) {
+                pendingCount.decrementAndGet();
+                group.append(line);
+            }
+            unwritten = ByteBuffer.wrap(group.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        if(!today.equals(activeDay) || channel.size() + unwritten.remaining() > MAX_FILE_BYTES) rotate(today);
+
+        while(unwritten.hasRemaining()) channel.write(unwritten);
+        channel.force(false);
+        unwritten = null;
+    }
+
+    /**
+     * Closes the active file if it is open, so the next write opens it again
+     */
+    private static void closeChannel() {
+        if(channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("Error:" + e.getMessage());
+        }
+        channel = null;
+    }
+
+    /**
+     * Opens the active file. A file left by older versions of the app, which wrote everything on one line without JSON, is
+     * moved aside first so the active file only ever holds JSON lines.
+     * @throws IOException
+     */
+    private static void openActiveFile() throws IOException {
+        Path active = LOG_DIRECTORY.resolve(ACTIVE_FILE_NAME);
+        if(Files.exists(active) && Files.size(active) > 0) {
+            byte[] first = new byte[1];
+            try (FileChannel existing = FileChannel.open(active, StandardOpenOption.READ)) {
+                existing.read(ByteBuffer.wrap(first));
+            }
+            if(first[0] != '{') Files.move(active, LOG_DIRECTORY.resolve(FILE_PREFIX + ".legacy.txt"), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        channel = FileChannel.open(active, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        activeDay = channel.size() > 0
+                ? LocalDate.ofInstant(Files.getLastModifiedTime(active).toInstant(), ZoneOffset.UTC)
+                : LocalDate.now(ZoneOffset.UTC);
+    }
+
+    /**
+     * Closes the active file, renames it after the day it belongs to, and opens a new one
+     * @param today the current UTC day
+     * @throws IOException
+     */
+    private static void rotate(LocalDate today) throws IOException {
+        if(channel.size() > 0) {
+            closeChannel();
+            Path active = LOG_DIRECTORY.resolve(ACTIVE_FILE_NAME);
+            int sequence = 0;
+            Path rotated;
+            do {
+                rotated = LOG_DIRECTORY.resolve(FILE_PREFIX + "." + activeDay + "." + sequence++ + ".txt");
+            } while(Files.exists(rotated));
+            Files.move(active, rotated);
+            channel = FileChannel.open(active, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        activeDay = today;
+    }
+
+    /**
+     * Appends a quoted and escaped JSON string
+     * @param builder where to append
+     * @param value the text to append, null is written as null
+     */
+    private static void appendJsonString(StringBuilder builder, String value) {
+        if(value == null) {
+            builder.append("null");
+            return;
+        }
+        builder.append('"');
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch(c) {
+                case '"': builder.append("\\\""); break;
+                case '\\': builder.append("\\\\"); break;
+                case '\n': builder.append("\\n"); break;
+                case '\r': builder.append("\\r"); break;
+                case '\t': builder.append("\\t"); break;
+                default:
+                    if(c < 0x20) builder.append(String.format("\\u%04x", (int) c));
+                    else builder.append(c);
+            }
+        }
+        builder.append('"');
+    }
+}
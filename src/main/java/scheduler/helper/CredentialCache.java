@@ -0,0 +1,116 @@
+package scheduler.helper;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers recently verified logins for a short time, so logging in again skips the database and the slow password hash.
+ * Passwords are never kept. Each entry holds an HMAC of the username and password under a random key that only lives in
+ * this process, which can be checked quickly but can not be turned back into the password.
+ *
+ * A password changed in the database keeps working here until its entry expires, which is why entries only last a few minutes.
+ *
+ * @author Alvin Roe
+ */
+public abstract class CredentialCache {
+    /**How long a verified login is remembered*/
+    private static final long TIME_TO_LIVE_MILLIS = 5 * 60 * 1000;
+    /**Most usernames remembered. Once full, expired entries are dropped, and if none have expired the cache is cleared.*/
+    private static final int MAX_ENTRIES = 10_000;
+    /**HMAC algorithm for the fingerprints*/
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    /**Key for the fingerprints, made fresh for every run of the app*/
+    private static final byte[] key = new byte[32];
+    /**Verified logins keyed by username*/
+    private static final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    static {
+        new SecureRandom().nextBytes(key);
+    }
+
+    /**
+     * Looks up a login that was verified recently
+     * @param userName the username entered
+     * @param password the password entered
+     * @return the User ID, or -1 if the login has not been verified recently
+     */
+    public static int lookup(String userName, String password) {
+        Entry entry = entries.get(userName);
+        if(entry == null) return -1;
+        if(entry.expiresAt < System.currentTimeMillis()) {
+            entries.remove(userName, entry);
+            return -1;
+        }
+        return MessageDigest.isEqual(entry.fingerprint, fingerprint(userName, password)) ? entry.userID : -1;
+    }
+
+    /**
+     * Remembers a login that was just verified against the database
+     * @param userName the username entered
+     * @param password the password entered
+     * @param userID the User ID it belongs to
+     */
+    public static void remember(String userName, String password, int userID) {
+        long now = System.currentTimeMillis();
+        if(entries.size() >= MAX_ENTRIES) {
+            entries.values().removeIf(entry -> entry.expiresAt < now);
+            if(entries.size() >= MAX_ENTRIES) entries.clear();
+        }
+        entries.put(userName, new Entry(userID, fingerprint(userName, password), now + TIME_TO_LIVE_MILLIS));
+    }
+
+    /**
+     * Forgets a username, such as after its password changes
+     * @param userName the username to forget
+     */
+    public static void forget(String userName) {
+        entries.remove(userName);
+    }
+
+    /**
+     * @param userName the username
+     * @param password the password
+     * @return HMAC of the username and password
+     */
+    private static byte[] fingerprint(String userName, String password) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(new SecretKeySpec(key, MAC_ALGORITHM));
+            mac.update(userName.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * One verified login
+     */
+    private static class Entry {
+        /**User ID the login belongs to*/
+        private final int userID;
+        /**HMAC of the username and password*/
+        private final byte[] fingerprint;
+        /**When the entry stops being trusted, in epoch milliseconds*/
+        private final long expiresAt;
+
+        /**
+         * Constructor for Entry
+         * @param userID User ID the login belongs to
+         * @param fingerprint HMAC of the username and password
+         * @param expiresAt when the entry stops being trusted, in epoch milliseconds
+         */
+        private Entry(int userID, byte[] fingerprint, long expiresAt) {
+            this.userID = userID;
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
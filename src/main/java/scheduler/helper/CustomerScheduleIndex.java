@@ -0,0 +1,271 @@
+package scheduler.helper;
+
+import scheduler.dao.AppointmentDAO;
+import scheduler.model.Appointment;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * In-memory index of every Customer's Appointments, sorted by start, for overlap checks in the Appointment forms. A Customer's
+ * Appointments are loaded from the database the first time they are checked. Writes made by this application are applied
+ * to the index by AppointmentDAO straight away.
+ *
+ * Other clients can book Appointments too, so a loaded schedule is only trusted for RECHECK_NANOS. After that the next check
+ * reads the Customer's Watermark, which is one small aggregate query, and loads the Customer again only if it has changed.
+ * Database reads are made without holding the index's lock, so one slow Customer does not hold up checks of the others.
+ *
+ * Appointments that are accepted but not written yet, such as the rows of a running CSV import, are reserved. Reserved
+ * Appointments are checked along with the loaded ones and are kept when a Customer is loaded again, until they are released.
+ *
+ * @author Alvin Roe
+ */
+public abstract class CustomerScheduleIndex {
+    /**How long a loaded schedule is trusted before its Watermark is checked again, in nanoseconds*/
+    private static final long RECHECK_NANOS = 2_000_000_000L;
+    /**Orders intervals by start, then by Appointment ID so two Appointments can start at the same time*/
+    private static final Comparator<AppointmentInterval> BY_START = Comparator.comparingLong(AppointmentInterval::getStartSecond)
+            .thenComparingInt(AppointmentInterval::getAppointmentID);
+
+    /**Schedules for the Customers that have been loaded, keyed by Customer ID*/
+    private static final Map<Integer, CustomerSchedule> schedules = new HashMap<>();
+    /**Customer ID of every indexed Appointment, keyed by Appointment ID. Used to find an Appointment's old Customer when it is updated.*/
+    private static final Map<Integer, Integer> customerOfAppointment = new HashMap<>();
+    /**Reserved Appointments of each Customer, keyed by Customer ID*/
+    private static final Map<Integer, CustomerSchedule> reservations = new HashMap<>();
+    /**Customer ID of every reserved Appointment, keyed by Appointment ID*/
+    private static final Map<Integer, Integer> customerOfReservation = new HashMap<>();
+    /**Number of writes applied to the index, used to spot a load that ran at the same time as a write*/
+    private static long writeCount;
+
+    /**
+     * Finds every Appointment of the given Customer that clashes with the given times, including reserved ones. Takes
+     * O(log n + k) while the Customer's schedule is trusted.
+     * @param customerID the Customer to check
+     * @param startSecond start of the new times in epoch seconds
+     * @param endSecond end of the new times in epoch seconds
+     * @param ignoreAppointmentID an Appointment to leave out, such as the one being updated
+     * @return the clashing Appointments, ordered by start
+     * @throws SQLException if the Customer's Appointments had to be checked or loaded and that failed
+     */
+    public static List<AppointmentInterval> findOverlaps(int customerID, long startSecond, long endSecond, int ignoreAppointmentID) throws SQLException {
+        CustomerSchedule schedule = currentSchedule(customerID);
+        synchronized(CustomerScheduleIndex.class) {
+            List<AppointmentInterval> overlaps = schedule.findOverlaps(startSecond, endSecond, ignoreAppointmentID);
+            CustomerSchedule reserved = reservations.get(customerID);
+            if(reserved == null) return overlaps;
+
+            //A reserved Appointment that has since been written is already in the schedule
+            boolean added = false;
+            for(AppointmentInterval overlap : reserved.findOverlaps(startSecond, endSecond, ignoreAppointmentID)) {
+                if(schedule.contains(overlap.getAppointmentID())) continue;
+                overlaps.add(overlap);
+                added = true;
+            }
+            if(added) overlaps.sort(BY_START);
+            return overlaps;
+        }
+    }
+
+    /**
+     * Records an Appointment that was just inserted or updated. If it moved to a different Customer it is taken off the old
+     * Customer's schedule. Called by AppointmentDAO.
+     * @param appointment the Appointment as it is now stored
+     */
+    public static synchronized void appointmentSaved(Appointment appointment) {
+        writeCount++;
+        removeAppointment(appointment.getAppointmentID());
+
+        CustomerSchedule schedule = schedules.get(appointment.getCustomerID());
+        if(schedule == null) return; //Not loaded yet, so it will be read fresh from the database when it is first needed
+
+        schedule.add(intervalOf(appointment));
+        customerOfAppointment.put(appointment.getAppointmentID(), appointment.getCustomerID());
+    }
+
+    /**
+     * Takes a deleted Appointment out of the index. Called by AppointmentDAO.
+     * @param appointmentID Appointment ID of the deleted Appointment
+     */
+    public static synchronized void appointmentDeleted(int appointmentID) {
+        writeCount++;
+        removeAppointment(appointmentID);
+    }
+
+    /**
+     * Reserves an Appointment that has been accepted but not written yet, so later checks see it
+     * @param appointment the accepted Appointment, with its Appointment ID set
+     */
+    public static synchronized void reserve(Appointment appointment) {
+        release(appointment.getAppointmentID());
+        reservations.computeIfAbsent(appointment.getCustomerID(), customerID -> new CustomerSchedule(null)).add(intervalOf(appointment));
+        customerOfReservation.put(appointment.getAppointmentID(), appointment.getCustomerID());
+    }
+
+    /**
+     * Releases a reserved Appointment, either because it was not written after all or because it has been written and a
+     * reload will now find it. Does nothing if it is not reserved.
+     * @param appointmentID Appointment ID of the reserved Appointment
+     */
+    public static synchronized void release(int appointmentID) {
+        Integer customerID = customerOfReservation.remove(appointmentID);
+        if(customerID == null) return;
+        CustomerSchedule reserved = reservations.get(customerID);
+        reserved.remove(appointmentID);
+        if(reserved.isEmpty()) reservations.remove(customerID);
+    }
+
+    /**
+     * Empties the loaded schedules, so every Customer is read fresh from the database the next time they are checked.
+     * Called on logout. Reserved Appointments belong to whatever reserved them and are left alone.
+     */
+    public static synchronized void clear() {
+        writeCount++;
+        schedules.clear();
+        customerOfAppointment.clear();
+    }
+
+    /**
+     * Removes an Appointment from whichever Customer's schedule holds it
+     * @param appointmentID Appointment ID to remove
+     */
+    private static void removeAppointment(int appointmentID) {
+        Integer oldCustomerID = customerOfAppointment.remove(appointmentID);
+        if(oldCustomerID != null) schedules.get(oldCustomerID).remove(appointmentID);
+    }
+
+    /**
+     * Returns the Customer's schedule, loading it if it has not been loaded or its Watermark has changed. Called without
+     * holding the lock, which is only taken around the reads and writes of the maps.
+     * @param customerID the Customer to load
+     * @return the Customer's schedule
+     * @throws SQLException
+     */
+    private static CustomerSchedule currentSchedule(int customerID) throws SQLException {
+        synchronized(CustomerScheduleIndex.class) {
+            CustomerSchedule schedule = schedules.get(customerID);
+            if(schedule != null && System.nanoTime() - schedule.checkedAt < RECHECK_NANOS) return schedule;
+        }
+
+        //Read before the rows, so a write that lands between the two leaves the Watermark behind and is found next time
+        Watermark watermark = AppointmentDAO.selectWatermarkByCustomerID(customerID);
+        long writesBefore;
+        synchronized(CustomerScheduleIndex.class) {
+            CustomerSchedule schedule = schedules.get(customerID);
+            if(schedule != null && watermark.equals(schedule.watermark)) {
+                schedule.checkedAt = System.nanoTime();
+                return schedule;
+            }
+            writesBefore = writeCount;
+        }
+
+        CustomerSchedule loaded = new CustomerSchedule(watermark);
+        for(Appointment appointment : AppointmentDAO.selectAppointmentsByCustomerID(customerID)) loaded.add(intervalOf(appointment));
+
+        synchronized(CustomerScheduleIndex.class) {
+            //A write made while loading may be missing from what was read, so the next check looks at the Watermark again
+            loaded.checkedAt = writeCount == writesBefore ? System.nanoTime() : System.nanoTime() - RECHECK_NANOS;
+            CustomerSchedule old = schedules.put(customerID, loaded);
+            if(old != null) for(Integer appointmentID : old.byID.keySet()) customerOfAppointment.remove(appointmentID);
+            for(Integer appointmentID : loaded.byID.keySet()) {
+                Integer otherCustomerID = customerOfAppointment.put(appointmentID, customerID);
+                //The Appointment moved here from another Customer since that one was loaded
+                if(otherCustomerID != null && otherCustomerID != customerID) schedules.get(otherCustomerID).remove(appointmentID);
+            }
+            return loaded;
+        }
+    }
+
+    /**
+     * @param appointment an Appointment
+     * @return the Appointment's times
+     */
+    private static AppointmentInterval intervalOf(Appointment appointment) {
+        return new AppointmentInterval(appointment.getAppointmentID(), appointment.getStartSecond(), appointment.getEndSecond());
+    }
+
+    /**
+     * One Customer's Appointments sorted by start. Along with the longest Appointment seen, this bounds which Appointments can
+     * possibly overlap a given time, so only those are looked at.
+     */
+    private static class CustomerSchedule {
+        /**The Customer's Appointments sorted by start*/
+        private final NavigableSet<AppointmentInterval> byStart = new TreeSet<>(BY_START);
+        /**The Customer's Appointments keyed by Appointment ID*/
+        private final Map<Integer, AppointmentInterval> byID = new HashMap<>();
+        /**Watermark the schedule was loaded at, or null for reserved Appointments*/
+        private final Watermark watermark;
+        /**System.nanoTime() when the schedule was last known to match the database*/
+        private long checkedAt;
+        /**Longest Appointment ever added, in seconds. Never shrinks, which only means a few more Appointments get checked.*/
+        private long longestDuration = 0;
+
+        /**
+         * Constructor for CustomerSchedule
+         * @param watermark Watermark the schedule is loaded at, or null for reserved Appointments
+         */
+        private CustomerSchedule(Watermark watermark) {
+            this.watermark = watermark;
+        }
+
+        /**
+         * Adds an Appointment to the schedule
+         * @param interval the Appointment's times
+         */
+        private void add(AppointmentInterval interval) {
+            byStart.add(interval);
+            byID.put(interval.getAppointmentID(), interval);
+            longestDuration = Math.max(longestDuration, interval.getEndSecond() - interval.getStartSecond());
+        }
+
+        /**
+         * Removes an Appointment from the schedule
+         * @param appointmentID Appointment ID to remove
+         */
+        private void remove(int appointmentID) {
+            AppointmentInterval interval = byID.remove(appointmentID);
+            if(interval != null) byStart.remove(interval);
+        }
+
+        /**
+         * @param appointmentID an Appointment ID
+         * @return true if the Appointment is in the schedule
+         */
+        private boolean contains(int appointmentID) {
+            return byID.containsKey(appointmentID);
+        }
+
+        /**
+         * @return true if the schedule has no Appointments
+         */
+        private boolean isEmpty() {
+            return byID.isEmpty();
+        }
+
+        /**
+         * Finds the Appointments that clash with the given times. Anything that clashes must start no later than endSecond,
+         * and no earlier than startSecond minus the longest Appointment, so only that slice of the sorted set is checked.
+         * @param startSecond start of the new times in epoch seconds
+         * @param endSecond end of the new times in epoch seconds
+         * @param ignoreAppointmentID an Appointment to leave out
+         * @return the clashing Appointments, ordered by start
+         */
+        private List<AppointmentInterval> findOverlaps(long startSecond, long endSecond, int ignoreAppointmentID) {
+            List<AppointmentInterval> overlaps = new ArrayList<>();
+            AppointmentInterval low = new AppointmentInterval(Integer.MIN_VALUE, startSecond - longestDuration, 0);
+            AppointmentInterval high = new AppointmentInterval(Integer.MAX_VALUE, endSecond, 0);
+
+            for(AppointmentInterval candidate : byStart.subSet(low, true, high, true)) {
+                if(candidate.getAppointmentID() == ignoreAppointmentID) continue;
+                if(candidate.overlaps(startSecond, endSecond)) overlaps.add(candidate);
+            }
+            return overlaps;
+        }
+    }
+}
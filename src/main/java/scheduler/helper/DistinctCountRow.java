@@ -0,0 +1,49 @@
+package scheduler.helper;
+
+/**
+ * Holds the estimated number of distinct Customers a Contact had Appointments with in one month, or in several months
+ * merged. Utilized for Reports.
+ *
+ * @author Alvin Roe
+ */
+public class DistinctCountRow {
+    /**Name of the Contact*/
+    private final String contactName;
+    /**The month, or the months merged, such as "All of 2025"*/
+    private final String period;
+    /**Estimated number of distinct Customers*/
+    private final long distinctCustomers;
+
+    /**
+     * Constructor for DistinctCountRow
+     * @param contactName name of the Contact
+     * @param period the month, or the months merged
+     * @param distinctCustomers estimated number of distinct Customers
+     */
+    public DistinctCountRow(String contactName, String period, long distinctCustomers) {
+        this.contactName = contactName;
+        this.period = period;
+        this.distinctCustomers = distinctCustomers;
+    }
+
+    /**
+     * @return name of the Contact
+     */
+    public String getContactName() {
+        return contactName;
+    }
+
+    /**
+     * @return the month, or the months merged
+     */
+    public String getPeriod() {
+        return period;
+    }
+
+    /**
+     * @return estimated number of distinct Customers
+     */
+    public long getDistinctCustomers() {
+        return distinctCustomers;
+    }
+}
@@ -0,0 +1,111 @@
+package scheduler.helper;
+
+import java.util.Arrays;
+
+/**
+ * Log-linear histogram of durations in seconds, in the style of an HDR histogram. Durations under 128 seconds each get their
+ * own bucket. Above that, every power of two is split into 64 equal buckets, so any duration is placed in a bucket no wider
+ * than 1/64 of its value and percentiles are accurate to within about 1.6%. The buckets only grow as far as the longest
+ * duration recorded, so a histogram of durations up to a day uses well under a thousand counts, whatever the number recorded.
+ *
+ * Histograms of different months can be merged by adding their buckets, and durations can be taken back out, so a histogram
+ * can follow Appointments as they are updated and deleted.
+ *
+ * @author Alvin Roe
+ */
+public class DurationHistogram {
+    /**Bits of linear buckets in each power of two*/
+    private static final int SUB_BUCKET_BITS = 6;
+    /**Linear buckets in each power of two*/
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /**Values below this each have their own bucket*/
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+
+    /**Count in each bucket. Grown when a longer duration is recorded.*/
+    private long[] counts = new long[LINEAR_LIMIT];
+    /**Number of durations recorded*/
+    private long totalCount;
+
+    /**
+     * Records a duration
+     * @param seconds the duration in seconds. Negative durations are counted as 0.
+     */
+    public void record(long seconds) {
+        int index = indexOf(Math.max(0, seconds));
+        if(index >= counts.length) counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length + SUB_BUCKETS));
+        counts[index]++;
+        totalCount++;
+    }
+
+    /**
+     * Takes back a duration that was recorded before
+     * @param seconds the duration in seconds, as it was recorded
+     */
+    public void remove(long seconds) {
+        int index = indexOf(Math.max(0, seconds));
+        if(index >= counts.length || counts[index] == 0) return;
+        counts[index]--;
+        totalCount--;
+    }
+
+    /**
+     * Adds every duration of another histogram to this one
+     * @param other the histogram to add
+     */
+    public void merge(DurationHistogram other) {
+        if(other.counts.length > counts.length) counts = Arrays.copyOf(counts, other.counts.length);
+        for(int i = 0; i < other.counts.length; i++) counts[i] += other.counts[i];
+        totalCount += other.totalCount;
+    }
+
+    /**
+     * @return number of durations recorded
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * @param percentile the percentile to find, from 0 to 100
+     * @return the highest duration in the bucket that holds the percentile, in seconds, or 0 if nothing was recorded
+     */
+    public long valueAtPercentile(double percentile) {
+        if(totalCount == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(totalCount * Math.min(100, percentile) / 100));
+        long seen = 0;
+        for(int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if(seen >= rank) return highestValueAt(i);
+        }
+        return highestValueAt(counts.length - 1);
+    }
+
+    /**
+     * @return the highest duration in the highest bucket that has anything, in seconds, or 0 if nothing was recorded
+     */
+    public long getMax() {
+        for(int i = counts.length - 1; i >= 0; i--) if(counts[i] > 0) return highestValueAt(i);
+        return 0;
+    }
+
+    /**
+     * @param value a duration in seconds, not negative
+     * @return the bucket for the duration
+     */
+    private static int indexOf(long value) {
+        if(value < LINEAR_LIMIT) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * @param index a bucket
+     * @return the highest duration that goes in the bucket
+     */
+    private static long highestValueAt(int index) {
+        if(index < LINEAR_LIMIT) return index;
+        int shift = (index - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        long subBucket = (index - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,77 @@
+package scheduler.helper;
+
+/**
+ * Holds the duration percentiles of the Appointments in one month, or in several months merged. Utilized for Reports.
+ *
+ * @author Alvin Roe
+ */
+public class DurationRow {
+    /**The month, or the months merged, such as "All of 2025"*/
+    private final String period;
+    /**Number of Appointments*/
+    private final long count;
+    /**Median duration in minutes*/
+    private final long median;
+    /**90th percentile duration in minutes*/
+    private final long percentile90;
+    /**99th percentile duration in minutes*/
+    private final long percentile99;
+    /**Longest duration in minutes*/
+    private final long max;
+
+    /**
+     * Constructor for DurationRow, reading the percentiles from a histogram
+     * @param period the month, or the months merged
+     * @param histogram durations of the Appointments, in seconds
+     */
+    public DurationRow(String period, DurationHistogram histogram) {
+        this.period = period;
+        this.count = histogram.getTotalCount();
+        this.median = histogram.valueAtPercentile(50) / 60;
+        this.percentile90 = histogram.valueAtPercentile(90) / 60;
+        this.percentile99 = histogram.valueAtPercentile(99) / 60;
+        this.max = histogram.getMax() / 60;
+    }
+
+    /**
+     * @return the month, or the months merged
+     */
+    public String getPeriod() {
+        return period;
+    }
+
+    /**
+     * @return number of Appointments
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return median duration in minutes
+     */
+    public long getMedian() {
+        return median;
+    }
+
+    /**
+     * @return 90th percentile duration in minutes
+     */
+    public long getPercentile90() {
+        return percentile90;
+    }
+
+    /**
+     * @return 99th percentile duration in minutes
+     */
+    public long getPercentile99() {
+        return percentile99;
+    }
+
+    /**
+     * @return longest duration in minutes
+     */
+    public long getMax() {
+        return max;
+    }
+}
@@ -0,0 +1,50 @@
+package scheduler.helper;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+
+/**
+ * An ObservableValue that never changes. Table rows that are rebuilt rather than edited can hand these straight to their
+ * columns, so a cell asking for its value does not create a new binding each time. Listeners are ignored, since they would
+ * never be called.
+ *
+ * @param <T> the type of the value
+ * @author Alvin Roe
+ */
+public final class FixedValue<T> implements ObservableValue<T> {
+    /**The value*/
+    private final T value;
+
+    /**
+     * Constructor for FixedValue
+     * @param value the value
+     */
+    public FixedValue(T value) {
+        this.value = value;
+    }
+
+    /**
+     * @return the value
+     */
+    @Override
+    public T getValue() {
+        return value;
+    }
+
+    @Override
+    public void addListener(ChangeListener<? super T> listener) {
+    }
+
+    @Override
+    public void removeListener(ChangeListener<? super T> listener) {
+    }
+
+    @Override
+    public void addListener(InvalidationListener listener) {
+    }
+
+    @Override
+    public void removeListener(InvalidationListener listener) {
+    }
+}
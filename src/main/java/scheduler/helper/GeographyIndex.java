@@ -0,0 +1,128 @@
+package scheduler.helper;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import scheduler.model.Country;
+import scheduler.model.FirstLevelDivision;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable lookup structure for Countries and First Level Divisions. Divisions are stored in one array grouped by Country,
+ * so each Country's Divisions are a contiguous slice of it, and IDs are looked up through int-keyed maps instead of assuming
+ * that an ID is one more than a list index.
+ *
+ * @author Alvin Roe
+ */
+public class GeographyIndex {
+    /**Returned when an ID is not known*/
+    public static final int NOT_FOUND = -1;
+
+    /**Every Country, ordered by Country ID*/
+    private final ObservableList<Country> countries;
+    /**Every First Level Division, grouped by Country ID and then ordered by Division ID*/
+    private final FirstLevelDivision[] divisions;
+    /**Every First Level Division, as a read only list over the divisions array*/
+    private final ObservableList<FirstLevelDivision> allDivisions;
+    /**Each Country's slice of the divisions array, by position in countries*/
+    private final ObservableList<FirstLevelDivision>[] divisionsByCountry;
+    /**Position in countries, keyed by Country ID*/
+    private final IntIntMap countryPosition;
+    /**Position in divisions, keyed by Division ID*/
+    private final IntIntMap divisionPosition;
+    /**Country ID, keyed by Division ID*/
+    private final IntIntMap countryOfDivision;
+
+    /**
+     * Constructor for GeographyIndex
+     * @param countries every Country
+     * @param divisions every First Level Division
+     */
+    @SuppressWarnings("unchecked")
+    public GeographyIndex(List<Country> countries, List<FirstLevelDivision> divisions) {
+        Country[] sortedCountries = countries.toArray(new Country[0]);
+        Arrays.sort(sortedCountries, Comparator.comparingInt(Country::getCountryID));
+        this.divisions = divisions.toArray(new FirstLevelDivision[0]);
+        Arrays.sort(this.divisions, Comparator.comparingInt(FirstLevelDivision::getCountryID).thenComparingInt(FirstLevelDivision::getDivisionID));
+
+        this.countries = FXCollections.unmodifiableObservableList(FXCollections.observableArrayList(sortedCountries));
+        this.allDivisions = FXCollections.unmodifiableObservableList(FXCollections.observableList(Arrays.asList(this.divisions)));
+        this.countryPosition = new IntIntMap(sortedCountries.length, NOT_FOUND);
+        this.divisionPosition = new IntIntMap(this.divisions.length, NOT_FOUND);
+        this.countryOfDivision = new IntIntMap(this.divisions.length, NOT_FOUND);
+        this.divisionsByCountry = new ObservableList[sortedCountries.length];
+
+        for(int i = 0; i < sortedCountries.length; i++) countryPosition.put(sortedCountries[i].getCountryID(), i);
+        for(int i = 0; i < this.divisions.length; i++) {
+            divisionPosition.put(this.divisions[i].getDivisionID(), i);
+            countryOfDivision.put(this.divisions[i].getDivisionID(), this.divisions[i].getCountryID());
+        }
+
+        //Divisions are sorted by Country, so one walk finds where each Country's slice starts and ends
+        int start = 0;
+        for(int i = 0; i < sortedCountries.length; i++) {
+            int countryID = sortedCountries[i].getCountryID();
+            while(start < this.divisions.length && this.divisions[start].getCountryID() < countryID) start++;
+            int end = start;
+            while(end < this.divisions.length && this.divisions[end].getCountryID() == countryID) end++;
+
+            divisionsByCountry[i] = FXCollections.unmodifiableObservableList(FXCollections.observableList(allDivisions.subList(start, end)));
+            start = end;
+        }
+    }
+
+    /**
+     * @return every Country, ordered by Country ID
+     */
+    public ObservableList<Country> getCountries() {
+        return countries;
+    }
+
+    /**
+     * @return every First Level Division, grouped by Country
+     */
+    public ObservableList<FirstLevelDivision> getAllDivisions() {
+        return allDivisions;
+    }
+
+    /**
+     * Returns the First Level Divisions within a Country
+     * @param countryID the Country ID
+     * @return the Country's Divisions, or an empty list if the Country is not known
+     */
+    public ObservableList<FirstLevelDivision> getDivisions(int countryID) {
+        int position = countryPosition.get(countryID);
+        return position == NOT_FOUND ? FXCollections.emptyObservableList() : divisionsByCountry[position];
+    }
+
+    /**
+     * Returns the Country with the given ID
+     * @param countryID the Country ID
+     * @return the Country, or null if it is not known
+     */
+    public Country getCountry(int countryID) {
+        int position = countryPosition.get(countryID);
+        return position == NOT_FOUND ? null : countries.get(position);
+    }
+
+    /**
+     * Returns the First Level Division with the given ID
+     * @param divisionID the Division ID
+     * @return the Division, or null if it is not known
+     */
+    public FirstLevelDivision getDivision(int divisionID) {
+        int position = divisionPosition.get(divisionID);
+        return position == NOT_FOUND ? null : divisions[position];
+    }
+
+    /**
+     * Gets the Country ID for the given First Level Division ID
+     * @param divisionID First Level Division ID within the country
+     * @return Country ID for the given First Level Division ID, or NOT_FOUND
+     */
+    public int getCountryID(int divisionID) {
+        return countryOfDivision.get(divisionID);
+    }
+}
@@ -0,0 +1,127 @@
+package scheduler.helper;
+
+import java.util.Arrays;
+
+/**
+ * HyperLogLog sketch that estimates how many distinct IDs have been added, using at most 4 KB whatever the number of IDs.
+ * The estimate has a standard error of about 1.6%, and small counts are counted almost exactly. Sketches of different months
+ * can be merged to estimate the distinct IDs across all of them, without counting an ID seen in several months more than once.
+ *
+ * Most sketches only ever see a few IDs, such as the Customers of one Contact in one month, so a sketch starts out sparse:
+ * the IDs themselves are kept in a small sorted array and counted exactly. Once more than SPARSE_LIMIT distinct IDs have been
+ * added, they are moved into the 4 KB of registers and the sketch estimates from then on.
+ *
+ * IDs can not be taken back out, so a sketch only ever grows.
+ *
+ * @author Alvin Roe
+ */
+public class HyperLogLog {
+    /**Bits of the hash that pick the register*/
+    private static final int PRECISION = 12;
+    /**Number of registers*/
+    private static final int REGISTERS = 1 << PRECISION;
+    /**Bias correction for this number of registers*/
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+    /**Most distinct IDs kept exactly before switching to registers. At 4 bytes each, a quarter of the registers' size.*/
+    private static final int SPARSE_LIMIT = REGISTERS / 16;
+
+    /**Distinct IDs added, sorted, while the sketch is sparse. Only the first sparseCount are used.*/
+    private int[] sparseIDs = new int[4];
+    /**Number of distinct IDs in sparseIDs*/
+    private int sparseCount = 0;
+    /**Longest run of leading zeros seen in each register, plus one, or null while the sketch is sparse*/
+    private byte[] registers;
+
+    /**
+     * Adds an ID
+     * @param id the ID to add
+     */
+    public void add(int id) {
+        if(registers != null) {
+            addToRegisters(id);
+            return;
+        }
+
+        int index = Arrays.binarySearch(sparseIDs, 0, sparseCount, id);
+        if(index >= 0) return;
+        if(sparseCount == SPARSE_LIMIT) {
+            toRegisters();
+            addToRegisters(id);
+            return;
+        }
+
+        index = -index - 1;
+        if(sparseCount == sparseIDs.length) sparseIDs = Arrays.copyOf(sparseIDs, Math.min(sparseIDs.length * 2, SPARSE_LIMIT));
+        System.arraycopy(sparseIDs, index, sparseIDs, index + 1, sparseCount - index);
+        sparseIDs[index] = id;
+        sparseCount++;
+    }
+
+    /**
+     * Adds every ID of another sketch to this one
+     * @param other the sketch to add
+     */
+    public void merge(HyperLogLog other) {
+        if(other.registers == null) {
+            for(int i = 0; i < other.sparseCount; i++) add(other.sparseIDs[i]);
+            return;
+        }
+        if(registers == null) toRegisters();
+        for(int i = 0; i < REGISTERS; i++) if(other.registers[i] > registers[i]) registers[i] = other.registers[i];
+    }
+
+    /**
+     * @return the estimated number of distinct IDs added, which is exact while the sketch is sparse
+     */
+    public long estimate() {
+        if(registers == null) return sparseCount;
+
+        double sum = 0;
+        int emptyRegisters = 0;
+        for(byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if(register == 0) emptyRegisters++;
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        //Small counts leave registers empty, and counting those is more accurate than the raw estimate
+        if(estimate <= 2.5 * REGISTERS && emptyRegisters > 0) estimate = REGISTERS * Math.log((double) REGISTERS / emptyRegisters);
+        return Math.round(estimate);
+    }
+
+    /**
+     * Moves the sparse IDs into newly made registers
+     */
+    private void toRegisters() {
+        registers = new byte[REGISTERS];
+        for(int i = 0; i < sparseCount; i++) addToRegisters(sparseIDs[i]);
+        sparseIDs = null;
+        sparseCount = 0;
+    }
+
+    /**
+     * Adds an ID to the registers
+     * @param id the ID to add
+     */
+    private void addToRegisters(int id) {
+        long hash = mix(id);
+        int register = (int) (hash >>> (64 - PRECISION));
+        //A 1 bit is put below the remaining bits, so a hash of all zeros still gives a run that fits in the register
+        byte rank = (byte) (Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1);
+        if(rank > registers[register]) registers[register] = rank;
+    }
+
+    /**
+     * Spreads the bits of an ID over a 64 bit hash, so IDs that are close together land in unrelated registers
+     * @param id the ID
+     * @return the hash
+     */
+    private static long mix(int id) {
+        long hash = id * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
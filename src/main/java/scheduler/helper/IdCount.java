@@ -0,0 +1,48 @@
+package scheduler.helper;
+
+/**
+ * Holds the number of Appointments counted for one Contact or Customer. Utilized for Reports.
+ *
+ * @author Alvin Roe
+ */
+public class IdCount {
+    /**ID of the Contact or Customer*/
+    private final int id;
+    /**Name of the Contact or Customer, or null if it is not known*/
+    private final String name;
+    /**Number of Appointments counted*/
+    private final int count;
+
+    /**
+     * Constructor for IdCount
+     * @param id ID of the Contact or Customer
+     * @param name name of the Contact or Customer, or null if it is not known
+     * @param count number of Appointments counted
+     */
+    public IdCount(int id, String name, int count) {
+        this.id = id;
+        this.name = name;
+        this.count = count;
+    }
+
+    /**
+     * @return ID of the Contact or Customer
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return name of the Contact or Customer, or null if it is not known
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return number of Appointments counted
+     */
+    public int getCount() {
+        return count;
+    }
+}
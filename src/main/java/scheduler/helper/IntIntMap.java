@@ -0,0 +1,162 @@
+package scheduler.helper;
+
+/**
+ * Small open-addressing hash map from int keys to int values. Keys and values are kept in plain arrays, so lookups never box
+ * an Integer or follow a pointer to an entry object. Used for the lookup tables in the reference data and the kept report counts.
+ *
+ * @author Alvin Roe
+ */
+public class IntIntMap {
+    /**Marks an empty slot. Database IDs start at 1, so 0 is never a real key.*/
+    private static final int EMPTY = 0;
+
+    /**Keys, or EMPTY for an unused slot*/
+    private int[] keys;
+    /**Values, stored at the same slot as their key*/
+    private int[] values;
+    /**Value returned by get when a key is missing*/
+    private final int missingValue;
+    /**Number of keys in the map*/
+    private int size = 0;
+
+    /**
+     * Constructor for IntIntMap
+     * @param expectedSize number of keys expected, used to size the arrays so they never grow
+     * @param missingValue value returned by get when a key is missing
+     */
+    public IntIntMap(int expectedSize, int missingValue) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1; //Power of two, at most half full
+        this.keys = new int[capacity];
+        this.values = new int[capacity];
+        this.missingValue = missingValue;
+    }
+
+    /**
+     * Adds a key, or replaces its value if it is already in the map
+     * @param key the key, which can not be 0
+     * @param value the value
+     */
+    public void put(int key, int value) {
+        if(key == EMPTY) throw new IllegalArgumentException("0 can not be used as a key");
+        if((size + 1) * 2 > keys.length) grow();
+
+        int slot = findSlot(keys, key);
+        if(keys[slot] == EMPTY) {
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+    }
+
+    /**
+     * Returns the value for the key
+     * @param key the key to look up
+     * @return the value, or the missing value if the key is not in the map
+     */
+    public int get(int key) {
+        if(key == EMPTY) return missingValue;
+        int slot = findSlot(keys, key);
+        return keys[slot] == EMPTY ? missingValue : values[slot];
+    }
+
+    /**
+     * Adds an amount to the key's value, starting from 0 if the key is not in the map
+     * @param key the key, which can not be 0
+     * @param amount the amount to add
+     * @return the key's new value
+     */
+    public int add(int key, int amount) {
+        if(key == EMPTY) throw new IllegalArgumentException("0 can not be used as a key");
+        if((size + 1) * 2 > keys.length) grow();
+
+        int slot = findSlot(keys, key);
+        if(keys[slot] == EMPTY) {
+            keys[slot] = key;
+            values[slot] = 0;
+            size++;
+        }
+        values[slot] += amount;
+        return values[slot];
+    }
+
+    /**
+     * Removes a key. The keys after it in its probe run are shifted back into the gap, so lookups never need a marker for
+     * removed slots. Does nothing if the key is not in the map.
+     * @param key the key to remove
+     */
+    public void remove(int key) {
+        if(key == EMPTY) return;
+        int mask = keys.length - 1;
+        int slot = findSlot(keys, key);
+        if(keys[slot] == EMPTY) return;
+
+        keys[slot] = EMPTY;
+        size--;
+        for(int next = (slot + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            //A key can fill the gap if the gap lies between the key's home slot and where it is now
+            int home = mix(keys[next]) & mask;
+            if(((next - home) & mask) < ((next - slot) & mask)) continue;
+            keys[slot] = keys[next];
+            values[slot] = values[next];
+            keys[next] = EMPTY;
+            slot = next;
+        }
+    }
+
+    /**
+     * @return every key in the map, in no particular order
+     */
+    public int[] keys() {
+        int[] found = new int[size];
+        int count = 0;
+        for(int key : keys) if(key != EMPTY) found[count++] = key;
+        return found;
+    }
+
+    /**
+     * @return the number of keys in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the slot holding the key, or the empty slot where it would go
+     * @param keys the key array to search
+     * @param key the key to find
+     * @return the slot index
+     */
+    private static int findSlot(int[] keys, int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while(keys[slot] != EMPTY && keys[slot] != key) slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    /**
+     * Spreads the bits of the key, so sequential IDs do not all land next to each other
+     * @param key the key
+     * @return the mixed hash
+     */
+    private static int mix(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Doubles the arrays and moves every key over
+     */
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+
+        for(int i = 0; i < oldKeys.length; i++) {
+            if(oldKeys[i] == EMPTY) continue;
+            int slot = findSlot(keys, oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package scheduler.helper;
+
+/**
+ * Small open-addressing hash map from int keys to long totals, laid out the same way as IntIntMap. Used for totals by ID in
+ * the reports, where an int could overflow: a Contact with about 68 years of booked seconds already goes past it.
+ *
+ * @author Alvin Roe
+ */
+public class IntLongMap {
+    /**Marks an empty slot. Database IDs start at 1, so 0 is never a real key.*/
+    private static final int EMPTY = 0;
+
+    /**Keys, or EMPTY for an unused slot*/
+    private int[] keys;
+    /**Values, stored at the same slot as their key*/
+    private long[] values;
+    /**Number of keys in the map*/
+    private int size = 0;
+
+    /**
+     * Receives the entries of the map
+     */
+    public interface EntryVisitor {
+        /**
+         * Called for every entry
+         * @param key the key
+         * @param value the value
+         */
+        void visit(int key, long value);
+    }
+
+    /**
+     * Constructor for IntLongMap
+     * @param expectedSize number of keys expected, used to size the arrays so they rarely grow
+     */
+    public IntLongMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1; //Power of two, at most half full
+        this.keys = new int[capacity];
+        this.values = new long[capacity];
+    }
+
+    /**
+     * Adds an amount to the key's value, starting from 0 if the key is not in the map
+     * @param key the key, which can not be 0
+     * @param amount the amount to add
+     */
+    public void add(int key, long amount) {
+        if(key == EMPTY) throw new IllegalArgumentException("0 can not be used as a key");
+        if((size + 1) * 2 > keys.length) grow();
+
+        int slot = findSlot(keys, key);
+        if(keys[slot] == EMPTY) {
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] += amount;
+    }
+
+    /**
+     * Returns the value for the key
+     * @param key the key to look up
+     * @return the value, or 0 if the key is not in the map
+     */
+    public long get(int key) {
+        if(key == EMPTY) return 0;
+        int slot = findSlot(keys, key);
+        return keys[slot] == EMPTY ? 0 : values[slot];
+    }
+
+    /**
+     * @return the number of keys in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Hands every entry to the visitor, in no particular order
+     * @param visitor receives the entries
+     */
+    public void forEach(EntryVisitor visitor) {
+        for(int slot = 0; slot < keys.length; slot++) {
+            if(keys[slot] != EMPTY) visitor.visit(keys[slot], values[slot]);
+        }
+    }
+
+    /**
+     * Finds the slot holding the key, or the empty slot where it would go
+     * @param keys the key array to search
+     * @param key the key to find
+     * @return the slot index
+     */
+    private static int findSlot(int[] keys, int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while(keys[slot] != EMPTY && keys[slot] != key) slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    /**
+     * Spreads the bits of the key, so sequential IDs do not all land next to each other
+     * @param key the key
+     * @return the mixed hash
+     */
+    private static int mix(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Doubles the arrays and moves every key over
+     */
+    private void grow() {
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new long[oldValues.length * 2];
+
+        for(int i = 0; i < oldKeys.length; i++) {
+            if(oldKeys[i] == EMPTY) continue;
+            int slot = findSlot(keys, oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package scheduler.helper;
+
+import javafx.beans.value.ObservableValue;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * Holds the login attempts for one username during one hour. Utilized for Reports. The hour is formatted once when the count
+ * is made, off the FX thread, so the table only hands out a value that already exists.
+ *
+ * @author Alvin Roe
+ */
+public class LoginActivityCount {
+    /**Username the attempts were made with*/
+    private final String userName;
+    /**Start of the hour, in epoch seconds*/
+    private final long hourStartSecond;
+    /**Start of the hour in the user's time zone, formatted for the table*/
+    private final FixedValue<String> hourText;
+    /**Number of login attempts during the hour*/
+    private int attempts;
+    /**Number of those attempts that did not succeed*/
+    private int failures;
+
+    /**
+     * Constructor for LoginActivityCount
+     * @param userName username the attempts were made with
+     * @param hourStartSecond start of the hour, in epoch seconds
+     */
+    public LoginActivityCount(String userName, long hourStartSecond) {
+        this.userName = userName;
+        this.hourStartSecond = hourStartSecond;
+        this.hourText = new FixedValue<>(getHour().format(AppointmentRow.DATE_TIME_FORMAT));
+    }
+
+    /**
+     * @return username the attempts were made with
+     */
+    public String getUserName() {
+        return userName;
+    }
+
+    /**
+     * @return start of the hour, in epoch seconds
+     */
+    public long getHourStartSecond() {
+        return hourStartSecond;
+    }
+
+    /**
+     * @return start of the hour in the user's time zone
+     */
+    public ZonedDateTime getHour() {
+        return Instant.ofEpochSecond(hourStartSecond).atZone(ZoneId.systemDefault());
+    }
+
+    /**
+     * @return start of the hour in the user's time zone, formatted for the table
+     */
+    public ObservableValue<String> hourTextProperty() {
+        return hourText;
+    }
+
+    /**
+     * @return number of login attempts during the hour
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * @return number of attempts that did not succeed
+     */
+    public int getFailures() {
+        return failures;
+    }
+
+    /**
+     * Counts one more attempt
+     * @param failed true if the attempt did not succeed
+     */
+    public void addAttempt(boolean failed) {
+        attempts++;
+        if(failed) failures++;
+    }
+}
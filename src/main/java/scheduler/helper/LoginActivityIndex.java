@@ -0,0 +1,448 @@
+package scheduler.helper;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Answers questions about past logins from the files written by AuditLog, without reading every line for every question.
+ *
+ * The files are read through memory maps, so their contents stay outside the heap. Records are grouped into blocks of
+ * RECORDS_PER_BLOCK lines. For each block the index keeps only its file offset and its earliest and latest time, plus a list
+ * of the blocks each username appears in. A time range query only reads the blocks that overlap the range, and a username
+ * query only reads the blocks that username appears in. The heap used grows with the number of blocks, not the number of records.
+ *
+ * The index is updated by refresh(). Files that grew since the last refresh are only read from where the last refresh stopped,
+ * and a file renamed by rotation keeps its index.
+ *
+ * @author Alvin Roe
+ */
+public abstract class LoginActivityIndex {
+    /**Records per block of the sparse index*/
+    private static final int RECORDS_PER_BLOCK = 1024;
+    /**Most of a file mapped at once*/
+    private static final long MAP_WINDOW_BYTES = 256L * 1024 * 1024;
+    /**Seconds in an hour*/
+    private static final long SECONDS_PER_HOUR = 3600;
+    /**Event name AuditLog uses for login attempts*/
+    private static final String LOGIN_EVENT = "login";
+    /**Result AuditLog uses for a successful login*/
+    private static final String SUCCESS_RESULT = "success";
+
+    /**Index of each log file, keyed by the file's identity so a renamed file is recognised*/
+    private static final Map<Object, FileIndex> files = new HashMap<>();
+
+    /**
+     * Receives the records a query matches
+     */
+    public interface RecordVisitor {
+        /**
+         * Called once for each matching record
+         * @param epochSecond when the record was written
+         * @param event what happened
+         * @param userName the username involved
+         * @param result the outcome
+         */
+        void visit(long epochSecond, String event, String userName, String result);
+    }
+
+    /**
+     * Brings the index up to date with the log files on disk. Only new data is read.
+     * @throws IOException if a log file can not be read
+     */
+    public static synchronized void refresh() throws IOException {
+        Set<Object> present = new HashSet<>();
+        List<Path> logFiles;
+        try (Stream<Path> listing = Files.list(AuditLog.LOG_DIRECTORY)) {
+            logFiles = listing.filter(LoginActivityIndex::isLogFile).toList();
+        }
+
+        for(Path path : logFiles) {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            Object key = attributes.fileKey() != null ? attributes.fileKey() : path.toAbsolutePath();
+            present.add(key);
+
+            FileIndex index = files.get(key);
+            if(index == null || attributes.size() < index.indexedBytes) {
+                index = new FileIndex();
+                files.put(key, index);
+            }
+            index.path = path;
+            if(attributes.size() > index.indexedBytes) index.extend(attributes.size());
+        }
+        files.keySet().retainAll(present);
+    }
+
+    /**
+     * @return every username that appears in the indexed files, sorted
+     */
+    public static synchronized Set<String> getUserNames() {
+        Set<String> names = new TreeSet<>();
+        for(FileIndex index : files.values()) names.addAll(index.postings.keySet());
+        return names;
+    }
+
+    /**
+     * Visits every record written between two times, optionally only for one username
+     * @param fromSecond start of the range in epoch seconds, inclusive
+     * @param toSecond end of the range in epoch seconds, exclusive
+     * @param userName the username to match, or null for every username
+     * @param visitor receives each matching record
+     * @throws IOException if a log file can not be read
+     */
+    public static synchronized void query(long fromSecond, long toSecond, String userName, RecordVisitor visitor) throws IOException {
+        for(FileIndex index : files.values()) index.query(fromSecond, toSecond, userName, visitor);
+    }
+
+    /**
+     * Counts login attempts and failed attempts for each username and hour between two times
+     * @param from start of the range, inclusive
+     * @param to end of the range, exclusive
+     * @param userName the username to count, or null for every username
+     * @return one count for each username and hour with at least one attempt, sorted by username then hour
+     * @throws IOException if a log file can not be read
+     */
+    public static List<LoginActivityCount> countByUserAndHour(Instant from, Instant to, String userName) throws IOException {
+        Map<String, Map<Long, LoginActivityCount>> counts = new HashMap<>();
+        query(from.getEpochSecond(), to.getEpochSecond(), userName, (epochSecond, event, user, result) -> {
+            if(!LOGIN_EVENT.equals(event)) return;
+            long hour = Math.floorDiv(epochSecond, SECONDS_PER_HOUR) * SECONDS_PER_HOUR;
+            counts.computeIfAbsent(String.valueOf(user), name -> new HashMap<>())
+                    .computeIfAbsent(hour, start -> new LoginActivityCount(String.valueOf(user), start))
+                    .addAttempt(!SUCCESS_RESULT.equals(result));
+        });
+
+        List<LoginActivityCount> rows = new ArrayList<>();
+        for(Map<Long, LoginActivityCount> hours : counts.values()) rows.addAll(hours.values());
+        rows.sort(Comparator.comparing(LoginActivityCount::getUserName).thenComparingLong(LoginActivityCount::getHourStartSecond));
+        return rows;
+    }
+
+    /**
+     * @param path a file in the log folder
+     * @return true if the file was written by AuditLog
+     */
+    private static boolean isLogFile(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(AuditLog.FILE_PREFIX) && name.endsWith(".txt") && !name.contains(".legacy.") && Files.isRegularFile(path);
+    }
+
+    /**
+     * Reads the complete lines of part of a file through memory maps
+     * @param path the file to read
+     * @param from offset of the first line
+     * @param to offset to stop at
+     * @param visitor receives each line
+     * @return offset just past the last complete line read
+     * @throws IOException
+     */
+    private static long scanLines(Path path, long from, long to, LineVisitor visitor) throws IOException {
+        long position = from;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while(position < to) {
+                int length = (int) Math.min(MAP_WINDOW_BYTES, to - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int lineStart = 0;
+                for(int i = 0; i < length; i++) {
+                    if(window.get(i) != '\n') continue;
+                    visitor.line(window, lineStart, i, position + lineStart);
+                    lineStart = i + 1;
+                }
+                if(lineStart == 0) break; //Only a line that is still being written is left
+                position += lineStart;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Receives lines from scanLines
+     */
+    private interface LineVisitor {
+        /**
+         * @param buffer the mapped window holding the line
+         * @param start index of the first byte of the line
+         * @param end index of the line break
+         * @param fileOffset offset of the line in the file
+         */
+        void line(MappedByteBuffer buffer, int start, int end, long fileOffset);
+    }
+
+    /**
+     * Sparse index of one log file
+     */
+    private static class FileIndex {
+        /**Current location of the file*/
+        private Path path;
+        /**Bytes of the file that have been indexed, always the end of a complete line*/
+        private long indexedBytes;
+        /**Number of blocks*/
+        private int blockCount;
+        /**File offset of the first line of each block*/
+        private long[] blockOffsets = new long[16];
+        /**Earliest time in each block, in epoch seconds*/
+        private long[] blockFirstSeconds = new long[16];
+        /**Latest time in each block, in epoch seconds*/
+        private long[] blockLastSeconds = new long[16];
+        /**Lines in the last block*/
+        private int linesInLastBlock;
+        /**Blocks each username appears in*/
+        private final Map<String, Postings> postings = new HashMap<>();
+
+        /**
+         * Indexes the lines added since the last refresh
+         * @param fileSize current size of the file
+         * @throws IOException
+         */
+        private void extend(long fileSize) throws IOException {
+            RecordParser parser = new RecordParser();
+            indexedBytes = scanLines(path, indexedBytes, fileSize, (buffer, start, end, fileOffset) -> {
+                if(blockCount == 0 || linesInLastBlock == RECORDS_PER_BLOCK) startBlock(fileOffset);
+                linesInLastBlock++;
+                if(!parser.parse(buffer, start, end)) return;
+
+                int block = blockCount - 1;
+                blockFirstSeconds[block] = Math.min(blockFirstSeconds[block], parser.epochSecond);
+                blockLastSeconds[block] = Math.max(blockLastSeconds[block], parser.epochSecond);
+                //Other records, such as the throttle summary written at exit, are not made by a username
+                if(LOGIN_EVENT.equals(parser.event)) postings.computeIfAbsent(String.valueOf(parser.userName), name -> new Postings()).add(block);
+            });
+        }
+
+        /**
+         * Starts a new block at a line
+         * @param fileOffset offset of the line
+         */
+        private void startBlock(long fileOffset) {
+            if(blockCount == blockOffsets.length) {
+                blockOffsets = Arrays.copyOf(blockOffsets, blockCount * 2);
+                blockFirstSeconds = Arrays.copyOf(blockFirstSeconds, blockCount * 2);
+                blockLastSeconds = Arrays.copyOf(blockLastSeconds, blockCount * 2);
+            }
+            blockOffsets[blockCount] = fileOffset;
+            blockFirstSeconds[blockCount] = Long.MAX_VALUE;
+            blockLastSeconds[blockCount] = Long.MIN_VALUE;
+            blockCount++;
+            linesInLastBlock = 0;
+        }
+
+        /**
+         * Reads only the blocks that can hold matching records. Neighbouring blocks are read together.
+         * @see LoginActivityIndex#query(long, long, String, RecordVisitor)
+         */
+        private void query(long fromSecond, long toSecond, String userName, RecordVisitor visitor) throws IOException {
+            int[] candidates;
+            int candidateCount;
+            if(userName == null) {
+                candidates = null;
+                candidateCount = blockCount;
+            } else {
+                Postings userBlocks = postings.get(userName);
+                if(userBlocks == null) return;
+                candidates = userBlocks.blocks;
+                candidateCount = userBlocks.size;
+            }
+
+            RecordParser parser = new RecordParser();
+            LineVisitor matcher = (buffer, start, end, fileOffset) -> {
+                if(!parser.parse(buffer, start, end)) return;
+                if(parser.epochSecond < fromSecond || parser.epochSecond >= toSecond) return;
+                if(userName != null && !userName.equals(parser.userName)) return;
+                visitor.visit(parser.epochSecond, parser.event, parser.userName, parser.result);
+            };
+
+            int i = 0;
+            while(i < candidateCount) {
+                int first = candidates == null ? i : candidates[i];
+                if(blockLastSeconds[first] < fromSecond || blockFirstSeconds[first] >= toSecond) {
+                    i++;
+                    continue;
+                }
+                int last = first;
+                i++;
+                while(i < candidateCount) {
+                    int next = candidates == null ? i : candidates[i];
+                    if(next != last + 1 || blockLastSeconds[next] < fromSecond || blockFirstSeconds[next] >= toSecond) break;
+                    last = next;
+                    i++;
+                }
+                long end = last + 1 < blockCount ? blockOffsets[last + 1] : indexedBytes;
+                scanLines(path, blockOffsets[first], end, matcher);
+            }
+        }
+    }
+
+    /**
+     * Block numbers a username appears in, in increasing order
+     */
+    private static class Postings {
+        /**The block numbers*/
+        private int[] blocks = new int[4];
+        /**Number of block numbers held*/
+        private int size;
+
+        /**
+         * Adds a block unless it was the last one added
+         * @param block the block number
+         */
+        private void add(int block) {
+            if(size > 0 && blocks[size - 1] == block) return;
+            if(size == blocks.length) blocks = Arrays.copyOf(blocks, size * 2);
+            blocks[size++] = block;
+        }
+    }
+
+    /**
+     * Reads the fields of one JSON line written by AuditLog straight from the mapped bytes. One parser is reused for every
+     * line of a scan.
+     */
+    private static class RecordParser {
+        /**Time of the last parsed record, in epoch seconds*/
+        private long epochSecond;
+        /**Event of the last parsed record*/
+        private String event;
+        /**Username of the last parsed record*/
+        private String userName;
+        /**Result of the last parsed record*/
+        private String result;
+        /**Bytes of the line being parsed*/
+        private MappedByteBuffer buffer;
+        /**Index of the next byte to read*/
+        private int position;
+        /**Index of the line break ending the line*/
+        private int end;
+
+        /**
+         * Parses one line
+         * @param buffer the mapped window holding the line
+         * @param start index of the first byte of the line
+         * @param end index of the line break
+         * @return true if the line is a record with a valid time
+         */
+        private boolean parse(MappedByteBuffer buffer, int start, int end) {
+            this.buffer = buffer;
+            this.position = start;
+            this.end = end;
+            epochSecond = Long.MIN_VALUE;
+            event = null;
+            userName = null;
+            result = null;
+
+            if(position >= end || buffer.get(position) != '{') return false;
+            position++;
+            try {
+                while(position < end) {
+                    byte next = buffer.get(position);
+                    if(next == '}') break;
+                    if(next == ',' || next == ' ') {
+                        position++;
+                        continue;
+                    }
+                    if(next != '"') return false;
+                    String key = readString();
+                    if(position >= end || buffer.get(position) != ':') return false;
+                    position++;
+                    String value = readValue();
+
+                    switch(key) {
+                        case "time": epochSecond = value == null ? Long.MIN_VALUE : Instant.parse(value).getEpochSecond(); break;
+                        case "event": event = value; break;
+                        case "user": userName = value; break;
+                        case "result": result = value; break;
+                        default: break;
+                    }
+                }
+            } catch (DateTimeParseException | IllegalArgumentException | IndexOutOfBoundsException e) {
+                return false;
+            }
+            return epochSecond != Long.MIN_VALUE;
+        }
+
+        /**
+         * Reads a string, null, or any other plain value, which is returned as its text
+         * @return the value, or null for a JSON null
+         */
+        private String readValue() {
+            if(buffer.get(position) == '"') return readString();
+            int start = position;
+            while(position < end && buffer.get(position) != ',' && buffer.get(position) != '}') position++;
+            String text = decode(start, position).trim();
+            return text.equals("null") ? null : text;
+        }
+
+        /**
+         * Reads a quoted string starting at the opening quote
+         * @return the unescaped string
+         */
+        private String readString() {
+            int start = ++position;
+            boolean escaped = false;
+            while(position < end && buffer.get(position) != '"') {
+                if(buffer.get(position) == '\\') {
+                    escaped = true;
+                    position++;
+                }
+                position++;
+            }
+            if(position >= end) throw new IllegalArgumentException("Unterminated string");
+            String text = decode(start, position++);
+            return escaped ? unescape(text) : text;
+        }
+
+        /**
+         * @param from index of the first byte
+         * @param to index after the last byte
+         * @return the bytes decoded as UTF-8
+         */
+        private String decode(int from, int to) {
+            byte[] bytes = new byte[to - from];
+            buffer.get(from, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Undoes the escapes AuditLog writes
+         * @param text the text between the quotes
+         * @return the original string
+         */
+        private static String unescape(String text) {
+            StringBuilder builder = new StringBuilder(text.length());
+            for(int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if(c != '\\' || i + 1 == text.length()) {
+                    builder.append(c);
+                    continue;
+                }
+                char escape = text.charAt(++i);
+                switch(escape) {
+                    case 'n': builder.append('\n'); break;
+                    case 'r': builder.append('\r'); break;
+                    case 't': builder.append('\t'); break;
+                    case 'u':
+                        builder.append((char) Integer.parseInt(text.substring(i + 1, i + 5), 16));
+                        i += 4;
+                        break;
+                    default: builder.append(escape);
+                }
+            }
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package scheduler.helper;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits how fast logins can be attempted, so a scripted burst of guesses is turned away before it reaches the database.
+ *
+ * Every attempt must get a token from the bucket for its username and from the global bucket shared by all usernames. Both
+ * buckets keep their state in a single AtomicLong, the time the bucket will be full again, and are updated with
+ * compare-and-set, so no locks are taken. The global bucket is split into stripes that each hold part of the rate, so
+ * attempts on different threads rarely compete for the same counter.
+ *
+ * On top of the buckets, consecutive failures for a username earn a growing wait before the next attempt, and enough of them
+ * lock the username out for a while. A successful login clears the failures.
+ *
+ * @author Alvin Roe
+ */
+public abstract class LoginThrottle {
+    /**Attempts a username can make in a burst*/
+    private static final int USER_BURST = 5;
+    /**Time for a username to earn back one attempt*/
+    private static final long USER_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+    /**Attempts all usernames together can make in a burst*/
+    private static final int GLOBAL_BURST = 64;
+    /**Attempts all usernames together can make each second once the burst is used*/
+    private static final int GLOBAL_PER_SECOND = 20;
+    /**Number of stripes the global bucket is split into, a power of two*/
+    private static final int GLOBAL_STRIPES = 8;
+    /**Consecutive failures allowed before back-off starts*/
+    private static final int FREE_FAILURES = 3;
+    /**Wait after the first failure past FREE_FAILURES, doubled for each failure after it*/
+    private static final long BASE_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+    /**Longest back-off wait*/
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(60);
+    /**Consecutive failures that lock the username out*/
+    private static final int LOCKOUT_FAILURES = 10;
+    /**How long a lockout lasts*/
+    private static final long LOCKOUT_NANOS = TimeUnit.MINUTES.toNanos(15);
+    /**Most usernames tracked. Past this, idle usernames are dropped, and new ones only go through the global bucket.*/
+    private static final int MAX_TRACKED_USERS = 50_000;
+
+    /**Time between tokens for one stripe of the global bucket*/
+    private static final long STRIPE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1) * GLOBAL_STRIPES / GLOBAL_PER_SECOND;
+    /**Stripes of the global bucket, each holding the time it will be full again*/
+    private static final AtomicLong[] globalStripes = new AtomicLong[GLOBAL_STRIPES];
+    /**State for each username that has attempted a login*/
+    private static final Map<String, UserState> users = new ConcurrentHashMap<>();
+
+    /**Attempts let through*/
+    private static final LongAdder allowed = new LongAdder();
+    /**Attempts turned away by the username's bucket*/
+    private static final LongAdder rejectedByUserLimit = new LongAdder();
+    /**Attempts turned away by the global bucket*/
+    private static final LongAdder rejectedByGlobalLimit = new LongAdder();
+    /**Attempts turned away during back-off*/
+    private static final LongAdder rejectedByBackoff = new LongAdder();
+    /**Attempts turned away during a lockout*/
+    private static final LongAdder rejectedByLockout = new LongAdder();
+    /**Lockouts started*/
+    private static final LongAdder lockouts = new LongAdder();
+
+    static {
+        long now = System.nanoTime();
+        for(int i = 0; i < GLOBAL_STRIPES; i++) globalStripes[i] = new AtomicLong(now);
+    }
+
+    /**
+     * Asks to attempt a login. Must be called before the database is checked.
+     * @param userName the username entered
+     * @return 0 if the attempt may go ahead, otherwise how many milliseconds to wait before trying again
+     */
+    public static long tryAcquire(String userName) {
+        long now = System.nanoTime();
+        UserState user = stateFor(userName, now);
+
+        if(user != null) {
+            long blockedFor = user.blockedUntil.get() - now;
+            if(blockedFor > 0) {
+                (user.failures.get() >= LOCKOUT_FAILURES ? rejectedByLockout : rejectedByBackoff).increment();
+                return toMillis(blockedFor);
+            }
+            long wait = take(user.fullAt, now, USER_INTERVAL_NANOS, USER_BURST);
+            if(wait > 0) {
+                rejectedByUserLimit.increment();
+                return toMillis(wait);
+            }
+        }
+
+        long wait = takeGlobal(now);
+        if(wait > 0) {
+            rejectedByGlobalLimit.increment();
+            return toMillis(wait);
+        }
+        allowed.increment();
+        return 0;
+    }
+
+    /**
+     * Records a failed login, starting back-off or a lockout when there have been too many in a row
+     * @param userName the username entered
+     */
+    public static void recordFailure(String userName) {
+        long now = System.nanoTime();
+        UserState user = stateFor(userName, now);
+        if(user == null) return;
+
+        int failures = user.failures.incrementAndGet();
+        long blockFor;
+        if(failures >= LOCKOUT_FAILURES) {
+            lockouts.increment();
+            blockFor = LOCKOUT_NANOS;
+        } else if(failures > FREE_FAILURES) {
+            blockFor = Math.min(MAX_BACKOFF_NANOS, BASE_BACKOFF_NANOS << (failures - FREE_FAILURES - 1));
+        } else {
+            return;
+        }
+        user.blockedUntil.accumulateAndGet(now + blockFor, Math::max);
+    }
+
+    /**
+     * Records a successful login, clearing the username's failures
+     * @param userName the username entered
+     */
+    public static void recordSuccess(String userName) {
+        UserState user = users.get(userName);
+        if(user == null) return;
+        user.failures.set(0);
+        user.blockedUntil.set(System.nanoTime());
+    }
+
+    /**
+     * Summarizes the attempts let through and turned away. Written to the audit log as a "throttle" record when the app exits.
+     * @return counts of attempts let through and turned away, for logging
+     */
+    public static String metricsSummary() {
+        return String.format("allowed=%d, rejected by user limit=%d, by global limit=%d, by back-off=%d, by lockout=%d, lockouts=%d, tracked users=%d",
+                allowed.sum(), rejectedByUserLimit.sum(), rejectedByGlobalLimit.sum(), rejectedByBackoff.sum(),
+                rejectedByLockout.sum(), lockouts.sum(), users.size());
+    }
+
+    /**
+     * Finds or creates the state for a username
+     * @param userName the username
+     * @param now the current time in nanoseconds
+     * @return the state, or null if too many usernames are tracked to add another
+     */
+    private static UserState stateFor(String userName, long now) {
+        UserState user = users.get(userName);
+        if(user != null) return user;
+        if(users.size() >= MAX_TRACKED_USERS) {
+            users.values().removeIf(state -> state.isIdle(now));
+            if(users.size() >= MAX_TRACKED_USERS) return null;
+        }
+        return users.computeIfAbsent(userName, name -> new UserState(now));
+    }
+
+    /**
+     * Takes a token from the global bucket, starting at a random stripe and moving on to the others if it is empty
+     * @param now the current time in nanoseconds
+     * @return 0 if a token was taken, otherwise nanoseconds until the soonest stripe has one
+     */
+    private static long takeGlobal(long now) {
+        int start = ThreadLocalRandom.current().nextInt(GLOBAL_STRIPES);
+        long soonest = Long.MAX_VALUE;
+        for(int i = 0; i < GLOBAL_STRIPES; i++) {
+            AtomicLong stripe = globalStripes[(start + i) & (GLOBAL_STRIPES - 1)];
+            long wait = take(stripe, now, STRIPE_INTERVAL_NANOS, GLOBAL_BURST / GLOBAL_STRIPES);
+            if(wait == 0) return 0;
+            soonest = Math.min(soonest, wait);
+        }
+        return soonest;
+    }
+
+    /**
+     * Takes a token from a bucket whose only state is the time it will be full again. Each token pushes that time one
+     * interval later, and a token is available while it is no more than burst - 1 intervals in the future.
+     * @param fullAt the time the bucket will be full again, in nanoseconds
+     * @param now the current time in nanoseconds
+     * @param interval time to earn back one token
+     * @param burst tokens the bucket holds when full
+     * @return 0 if a token was taken, otherwise nanoseconds until one is available
+     */
+    private static long take(AtomicLong fullAt, long now, long interval, int burst) {
+        long tolerance = interval * (burst - 1);
+        while(true) {
+            long current = fullAt.get();
+            long base = current - now > 0 ? current : now;
+            long ahead = base - now;
+            if(ahead > tolerance) return ahead - tolerance;
+            if(fullAt.compareAndSet(current, base + interval)) return 0;
+        }
+    }
+
+    /**
+     * @param nanos a wait in nanoseconds
+     * @return the wait in milliseconds, rounded up so it is never 0
+     */
+    private static long toMillis(long nanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(nanos + 999_999));
+    }
+
+    /**
+     * Throttle state for one username
+     */
+    private static class UserState {
+        /**Time the username's bucket will be full again, in nanoseconds*/
+        private final AtomicLong fullAt;
+        /**Time the back-off or lockout ends, in nanoseconds*/
+        private final AtomicLong blockedUntil;
+        /**Failed logins in a row*/
+        private final AtomicInteger failures = new AtomicInteger();
+
+        /**
+         * Constructor for UserState, starting with a full bucket
+         * @param now the current time in nanoseconds
+         */
+        private UserState(long now) {
+            fullAt = new AtomicLong(now);
+            blockedUntil = new AtomicLong(now);
+        }
+
+        /**
+         * @param now the current time in nanoseconds
+         * @return true if forgetting the username would change nothing, because its bucket is full and it is not blocked
+         */
+        private boolean isIdle(long now) {
+            return fullAt.get() - now <= 0 && blockedUntil.get() - now <= 0 && failures.get() == 0;
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package scheduler.helper;
 
 import java.time.Month;
+import java.time.YearMonth;
+import java.time.format.TextStyle;
+import java.util.Locale;
 
 /**
  * Holds data for the Month that is being counted, the count of that Month (how many of them there are) and a String version of the name. Utilized for Reports
@@ -10,6 +13,8 @@ import java.time.Month;
 public class MonthCount {
     /**The month that is being counted*/
     private Month month;
+    /**The year of the month, or 0 when every year is counted together*/
+    private int year;
     /**A count of the month*/
     private int count;
     /**The String name of the Month*/
@@ -21,6 +26,16 @@ public class MonthCount {
         this.name = name;
     }
 
+    /**
+     * Constructor for MonthCount of one month in one year, named like "January 2025"
+     * @param yearMonth the month and year being counted
+     * @param count the count of the month
+     */
+    public MonthCount(YearMonth yearMonth, int count) {
+        this(yearMonth.getMonth(), count, yearMonth.getMonth().getDisplayName(TextStyle.FULL, Locale.ENGLISH) + " " + yearMonth.getYear());
+        this.year = yearMonth.getYear();
+    }
+
     /**
      * Returns the Month
      * @return the month
@@ -36,6 +51,14 @@ public class MonthCount {
         this.month = month;
     }
 
+    /**
+     * Returns the year
+     * @return the year of the month, or 0 when every year is counted together
+     */
+    public int getYear() {
+        return year;
+    }
+
     /**
      * Returns the count
      * @return count of the month
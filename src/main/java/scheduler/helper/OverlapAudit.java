@@ -0,0 +1,219 @@
+package scheduler.helper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Batch check of the whole Appointments table for double bookings, such as ones brought in by imports or made before the
+ * forms checked for them. Finds every pair of Appointments of the same Customer, or of the same Contact, whose times overlap.
+ *
+ * The rows are put in order of owner and then start with one primitive sort, which splits them into one run per owner. Each
+ * run is swept from the earliest start to the latest, keeping the Appointments that have not ended yet in a heap ordered by
+ * end, so each run takes O(n log n) plus the number of pairs found. Runs are independent, so they are swept in parallel on
+ * the fork/join pool, split into tasks of about the same number of rows.
+ *
+ * Two Appointments overlap when the forms would refuse to save either one of them as it is, using AppointmentInterval.overlaps.
+ * So back to back Appointments are reported, since the forms count an Appointment ending exactly when another starts as a clash.
+ *
+ * @author Alvin Roe
+ */
+public abstract class OverlapAudit {
+    /**Who the Appointments are grouped by*/
+    public enum Owner {CUSTOMER, CONTACT}
+
+    /**Tasks with no more rows than this are swept on one thread instead of being split further*/
+    private static final int SEQUENTIAL_ROWS = 16_384;
+
+    /**
+     * Finds every overlapping pair of Appointments that have the same owner. Meant to be called off the FX thread.
+     * @param columns the Appointments to check
+     * @param owner whether to group by Customer or by Contact
+     * @return the overlapping pairs, ordered by owner ID and then by the start of the first Appointment
+     */
+    public static List<OverlapPair> findOverlaps(AppointmentColumns columns, Owner owner) {
+        int size = columns.size();
+
+        //Rows are already in order of start, so sorting by owner then row number keeps each owner's rows in order of start
+        long[] entries = new long[size];
+        for(int row = 0; row < size; row++) {
+            int ownerID = owner == Owner.CUSTOMER ? columns.getCustomerID(row) : columns.getContactID(row);
+            entries[row] = ((long) ownerID << 32) | row;
+        }
+        Arrays.parallelSort(entries);
+
+        int runs = 0;
+        for(int i = 0; i < size; i++) if(i == 0 || ownerOf(entries[i]) != ownerOf(entries[i - 1])) runs++;
+        int[] runStarts = new int[runs + 1];
+        int run = 0;
+        for(int i = 0; i < size; i++) if(i == 0 || ownerOf(entries[i]) != ownerOf(entries[i - 1])) runStarts[run++] = i;
+        runStarts[runs] = size;
+
+        return runs == 0 ? new ArrayList<>() : ForkJoinPool.commonPool().invoke(new SweepTask(columns, entries, runStarts, 0, runs));
+    }
+
+    /**
+     * @param entry an entry of the sorted array
+     * @return the owner ID in the entry
+     */
+    private static int ownerOf(long entry) {
+        return (int) (entry >> 32);
+    }
+
+    /**
+     * @param entry an entry of the sorted array
+     * @return the row number in the entry
+     */
+    private static int rowOf(long entry) {
+        return (int) entry;
+    }
+
+    /**
+     * Sweeps a range of owner runs, splitting it in two while it has too many rows for one thread
+     */
+    private static class SweepTask extends RecursiveTask<List<OverlapPair>> {
+        /**RecursiveTask is Serializable, though a SweepTask is never serialized*/
+        private static final long serialVersionUID = 1L;
+
+        /**The Appointments*/
+        private final AppointmentColumns columns;
+        /**Owner and row of every Appointment, sorted*/
+        private final long[] entries;
+        /**Index in entries where each run starts, followed by the number of entries*/
+        private final int[] runStarts;
+        /**First run of the task*/
+        private final int fromRun;
+        /**Run after the last run of the task*/
+        private final int toRun;
+
+        /**
+         * Constructor for SweepTask
+         * @param columns the Appointments
+         * @param entries owner and row of every Appointment, sorted
+         * @param runStarts index in entries where each run starts, followed by the number of entries
+         * @param fromRun first run of the task
+         * @param toRun run after the last run of the task
+         */
+        private SweepTask(AppointmentColumns columns, long[] entries, int[] runStarts, int fromRun, int toRun) {
+            this.columns = columns;
+            this.entries = entries;
+            this.runStarts = runStarts;
+            this.fromRun = fromRun;
+            this.toRun = toRun;
+        }
+
+        /**
+         * Sweeps the runs on this thread if there are few enough rows, otherwise splits them where the rows are halved
+         * @return the overlapping pairs of the runs, in order
+         */
+        @Override
+        protected List<OverlapPair> compute() {
+            int rows = runStarts[toRun] - runStarts[fromRun];
+            if(rows <= SEQUENTIAL_ROWS || toRun - fromRun == 1) {
+                List<OverlapPair> pairs = new ArrayList<>();
+                int[] active = new int[16];
+                for(int run = fromRun; run < toRun; run++) active = sweep(runStarts[run], runStarts[run + 1], active, pairs);
+                return pairs;
+            }
+
+            int split = Arrays.binarySearch(runStarts, fromRun, toRun, runStarts[fromRun] + rows / 2);
+            if(split < 0) split = -split - 1;
+            split = Math.max(fromRun + 1, Math.min(toRun - 1, split));
+
+            SweepTask first = new SweepTask(columns, entries, runStarts, fromRun, split);
+            first.fork();
+            List<OverlapPair> second = new SweepTask(columns, entries, runStarts, split, toRun).compute();
+            List<OverlapPair> pairs = first.join();
+            pairs.addAll(second);
+            return pairs;
+        }
+
+        /**
+         * Sweeps one owner's run in order of start. Appointments that have not ended are kept in a min-heap by end, and those
+         * that ended before the next one starts are dropped. The ones left are checked against the new Appointment with the
+         * forms' rules, so it is paired with exactly the ones it overlaps.
+         * @param from index in entries where the run starts
+         * @param to index in entries after the run
+         * @param active heap array to reuse
+         * @param pairs where the overlapping pairs are added
+         * @return the heap array, which may have been grown
+         */
+        private int[] sweep(int from, int to, int[] active, List<OverlapPair> pairs) {
+            int activeCount = 0;
+            for(int i = from; i < to; i++) {
+                int row = rowOf(entries[i]);
+                long start = columns.getStartSecond(row);
+                long end = columns.getEndSecond(row);
+
+                while(activeCount > 0 && columns.getEndSecond(active[0]) < start) {
+                    active[0] = active[--activeCount];
+                    siftDown(active, activeCount);
+                }
+                for(int j = 0; j < activeCount; j++) {
+                    int other = active[j];
+                    if(clashes(other, start, end)) {
+                        pairs.add(new OverlapPair(ownerOf(entries[i]), columns.getAppointmentID(other), columns.getStartSecond(other), columns.getEndSecond(other),
+                                columns.getAppointmentID(row), start, end));
+                    }
+                }
+
+                if(activeCount == active.length) active = Arrays.copyOf(active, active.length * 2);
+                active[activeCount] = row;
+                siftUp(active, activeCount++);
+            }
+            return active;
+        }
+
+        /**
+         * Checks a row against another Appointment the way the forms would when saving either of them
+         * @param row the row
+         * @param start start of the other Appointment in epoch seconds
+         * @param end end of the other Appointment in epoch seconds
+         * @return true if the forms would count the two as a clash
+         */
+        private boolean clashes(int row, long start, long end) {
+            long rowStart = columns.getStartSecond(row);
+            long rowEnd = columns.getEndSecond(row);
+            return AppointmentInterval.overlaps(rowStart, rowEnd, start, end) || AppointmentInterval.overlaps(start, end, rowStart, rowEnd);
+        }
+
+        /**
+         * Moves a row up the heap until its parent ends no later
+         * @param heap the heap
+         * @param index the row's index in the heap
+         */
+        private void siftUp(int[] heap, int index) {
+            while(index > 0) {
+                int parent = (index - 1) >>> 1;
+                if(columns.getEndSecond(heap[parent]) <= columns.getEndSecond(heap[index])) return;
+                int row = heap[parent];
+                heap[parent] = heap[index];
+                heap[index] = row;
+                index = parent;
+            }
+        }
+
+        /**
+         * Moves the root down the heap until both its children end no earlier
+         * @param heap the heap
+         * @param size number of rows in the heap
+         */
+        private void siftDown(int[] heap, int size) {
+            int index = 0;
+            while(true) {
+                int earliest = index;
+                int left = index * 2 + 1;
+                int right = left + 1;
+                if(left < size && columns.getEndSecond(heap[left]) < columns.getEndSecond(heap[earliest])) earliest = left;
+                if(right < size && columns.getEndSecond(heap[right]) < columns.getEndSecond(heap[earliest])) earliest = right;
+                if(earliest == index) return;
+                int row = heap[earliest];
+                heap[earliest] = heap[index];
+                heap[index] = row;
+                index = earliest;
+            }
+        }
+    }
+}
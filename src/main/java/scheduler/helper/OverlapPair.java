@@ -0,0 +1,104 @@
+package scheduler.helper;
+
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * Two Appointments of the same Customer or Contact whose times overlap, as found by OverlapAudit. Utilized for Reports.
+ *
+ * @author Alvin Roe
+ */
+public class OverlapPair {
+    /**The Customer ID or Contact ID both Appointments have*/
+    private final int ownerID;
+    /**Appointment ID of the Appointment that starts first*/
+    private final int firstAppointmentID;
+    /**Start of the first Appointment in epoch seconds*/
+    private final long firstStartSecond;
+    /**End of the first Appointment in epoch seconds*/
+    private final long firstEndSecond;
+    /**Appointment ID of the Appointment that starts second*/
+    private final int secondAppointmentID;
+    /**Start of the second Appointment in epoch seconds*/
+    private final long secondStartSecond;
+    /**End of the second Appointment in epoch seconds*/
+    private final long secondEndSecond;
+
+    /**
+     * Constructor for OverlapPair
+     * @param ownerID the Customer ID or Contact ID both Appointments have
+     * @param firstAppointmentID Appointment ID of the Appointment that starts first
+     * @param firstStartSecond start of the first Appointment in epoch seconds
+     * @param firstEndSecond end of the first Appointment in epoch seconds
+     * @param secondAppointmentID Appointment ID of the Appointment that starts second
+     * @param secondStartSecond start of the second Appointment in epoch seconds
+     * @param secondEndSecond end of the second Appointment in epoch seconds
+     */
+    public OverlapPair(int ownerID, int firstAppointmentID, long firstStartSecond, long firstEndSecond,
+                       int secondAppointmentID, long secondStartSecond, long secondEndSecond) {
+        this.ownerID = ownerID;
+        this.firstAppointmentID = firstAppointmentID;
+        this.firstStartSecond = firstStartSecond;
+        this.firstEndSecond = firstEndSecond;
+        this.secondAppointmentID = secondAppointmentID;
+        this.secondStartSecond = secondStartSecond;
+        this.secondEndSecond = secondEndSecond;
+    }
+
+    /**
+     * @return the Customer ID or Contact ID both Appointments have
+     */
+    public int getOwnerID() {
+        return ownerID;
+    }
+
+    /**
+     * @return Appointment ID of the Appointment that starts first
+     */
+    public int getFirstAppointmentID() {
+        return firstAppointmentID;
+    }
+
+    /**
+     * @return start of the first Appointment, formatted in the user's time zone
+     */
+    public String getFirstStart() {
+        return format(firstStartSecond);
+    }
+
+    /**
+     * @return end of the first Appointment, formatted in the user's time zone
+     */
+    public String getFirstEnd() {
+        return format(firstEndSecond);
+    }
+
+    /**
+     * @return Appointment ID of the Appointment that starts second
+     */
+    public int getSecondAppointmentID() {
+        return secondAppointmentID;
+    }
+
+    /**
+     * @return start of the second Appointment, formatted in the user's time zone
+     */
+    public String getSecondStart() {
+        return format(secondStartSecond);
+    }
+
+    /**
+     * @return end of the second Appointment, formatted in the user's time zone
+     */
+    public String getSecondEnd() {
+        return format(secondEndSecond);
+    }
+
+    /**
+     * @param second a time in epoch seconds
+     * @return the time formatted in the user's time zone
+     */
+    private static String format(long second) {
+        return Instant.ofEpochSecond(second).atZone(ZoneId.systemDefault()).format(AppointmentRow.DATE_TIME_FORMAT);
+    }
+}
@@ -0,0 +1,205 @@
+package scheduler.helper;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Read-only list for TableViews that only keeps a few pages of rows in memory. Rows are fetched a page at a time on a
+ * background thread the first time the table asks for them, and the least recently used pages are dropped once more than
+ * maxCachedPages are held. Rows that have not arrived yet are returned as null, which the TableView shows as an empty row.
+ * The keyset cursor of each loaded page is kept in the same way, for the 2 * maxCachedPages pages used most recently, so
+ * scrolling through a huge table never holds more than a fixed number of rows.
+ *
+ * All methods must be called on the FX thread.
+ *
+ * @param <T> the type of row in the list
+ * @author Alvin Roe
+ */
+public class PagedList<T> extends ObservableListBase<T> {
+    /**
+     * Where the pages come from. Implementations should use keyset pagination when the last row of the previous page is known.
+     * @param <T> the type of row
+     */
+    public interface PageSource<T> {
+        /**
+         * @return the total number of rows
+         * @throws SQLException
+         */
+        int count() throws SQLException;
+
+        /**
+         * Loads one page of rows.
+         * @param pageIndex the index of the page, starting at 0
+         * @param pageSize the number of rows in a page
+         * @param lastOfPreviousPage the last row of the page before this one, or null if it is not known
+         * @return the rows of the page
+         * @throws SQLException
+         */
+        List<T> loadPage(int pageIndex, int pageSize, T lastOfPreviousPage) throws SQLException;
+    }
+
+    /**Fetches pages off the FX thread. One thread is enough, since pages are only fetched as the user scrolls.*/
+    private static final ExecutorService pageLoader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "paged-list-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**Where the rows come from*/
+    private final PageSource<T> source;
+    /**Number of rows in a page*/
+    private final int pageSize;
+    /**Pages currently held in memory, least recently used first*/
+    private final LinkedHashMap<Integer, List<T>> cachedPages;
+    /**Last row of the pages loaded most recently, least recently used first, used as the keyset for the page after each one*/
+    private final LinkedHashMap<Integer, T> lastRowOfPage;
+    /**Pages that are currently being fetched*/
+    private final Set<Integer> pendingPages = new HashSet<>();
+    /**Number of rows in the list*/
+    private int size = 0;
+    /**Bumped on every refresh, so pages fetched before a refresh are thrown away*/
+    private int generation = 0;
+
+    /**
+     * Constructor for PagedList. The row count is fetched in the background, and the list starts out empty.
+     * @param source where the rows come from
+     * @param pageSize number of rows in a page
+     * @param maxCachedPages the most pages held in memory at once
+     */
+    public PagedList(PageSource<T> source, int pageSize, int maxCachedPages) {
+        this.source = source;
+        this.pageSize = pageSize;
+        this.cachedPages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+                return size() > maxCachedPages;
+            }
+        };
+        //Twice as many as the pages, so the cursors next to the cached pages outlive the pages themselves
+        this.lastRowOfPage = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, T> eldest) {
+                return size() > maxCachedPages * 2;
+            }
+        };
+        refresh();
+    }
+
+    /**
+     * Returns the row at the given index, or null if its page has not arrived yet. Asks for the page if it is missing, and
+     * fetches the next page ahead of time.
+     * @param index index of the row
+     * @return the row, or null while it is loading
+     */
+    @Override
+    public T get(int index) {
+        if(index < 0 || index >= size) throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+
+        int pageIndex = index / pageSize;
+        List<T> page = cachedPages.get(pageIndex);
+        if(page == null) {
+            requestPage(pageIndex);
+            return null;
+        }
+        if(!cachedPages.containsKey(pageIndex + 1)) requestPage(pageIndex + 1);
+
+        int offset = index % pageSize;
+        return offset < page.size() ? page.get(offset) : null;
+    }
+
+    /**
+     * @return the number of rows in the list
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Throws away every cached page and reloads the row count. Used after rows have been added or deleted.
+     */
+    public void refresh() {
+        int refreshGeneration = ++generation;
+        pageLoader.execute(() -> {
+            try {
+                int newSize = source.count();
+                Platform.runLater(() -> {
+                    if(refreshGeneration != generation) return;
+                    replaceAll(newSize);
+                });
+            } catch (SQLException e) {
+                System.out.println("Error:" + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Clears the cache and tells the TableView every row has changed.
+     * @param newSize the new number of rows
+     */
+    private void replaceAll(int newSize) {
+        int oldSize = size;
+        cachedPages.clear();
+        lastRowOfPage.clear();
+        pendingPages.clear();
+        size = newSize;
+
+        beginChange();
+        if(oldSize > 0) nextRemove(0, Collections.nCopies(oldSize, null));
+        if(newSize > 0) nextAdd(0, newSize);
+        endChange();
+    }
+
+    /**
+     * Fetches a page in the background unless it is already on its way.
+     * @param pageIndex the page to fetch
+     */
+    private void requestPage(int pageIndex) {
+        if(pageIndex * pageSize >= size || !pendingPages.add(pageIndex)) return;
+
+        int requestGeneration = generation;
+        T lastOfPreviousPage = lastRowOfPage.get(pageIndex - 1);
+        pageLoader.execute(() -> {
+            try {
+                List<T> rows = new ArrayList<>(source.loadPage(pageIndex, pageSize, lastOfPreviousPage));
+                Platform.runLater(() -> pageArrived(requestGeneration, pageIndex, rows));
+            } catch (SQLException e) {
+                Platform.runLater(() -> pendingPages.remove(pageIndex));
+                System.out.println("Error:" + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Stores a page that has finished loading and tells the TableView its rows have changed.
+     * @param requestGeneration the generation the page was requested in
+     * @param pageIndex the index of the page
+     * @param rows the rows of the page
+     */
+    private void pageArrived(int requestGeneration, int pageIndex, List<T> rows) {
+        if(requestGeneration != generation) return;
+
+        pendingPages.remove(pageIndex);
+        cachedPages.put(pageIndex, rows);
+        if(!rows.isEmpty()) lastRowOfPage.put(pageIndex, rows.get(rows.size() - 1));
+
+        int from = pageIndex * pageSize;
+        int to = Math.min(from + rows.size(), size);
+        if(to <= from) return;
+
+        beginChange();
+        nextReplace(from, to, Collections.nCopies(to - from, null));
+        endChange();
+    }
+}
@@ -0,0 +1,114 @@
+package scheduler.helper;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Salted, slow password hashing with PBKDF2. Stored hashes look like pbkdf2$iterations$salt$hash, with the salt and hash in
+ * Base64, so the iteration count can be raised later without breaking hashes that are already stored. Anything not in that
+ * form is treated as a legacy plaintext password.
+ *
+ * @author Alvin Roe
+ */
+public abstract class PasswordHasher {
+    /**Marks a stored value as a PBKDF2 hash*/
+    private static final String PREFIX = "pbkdf2";
+    /**PBKDF2 variant used for new hashes*/
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    /**Iterations for new hashes*/
+    private static final int ITERATIONS = 120_000;
+    /**Salt length in bytes*/
+    private static final int SALT_BYTES = 16;
+    /**Hash length in bits*/
+    private static final int HASH_BITS = 256;
+    /**Source of salts*/
+    private static final SecureRandom random = new SecureRandom();
+
+    /**
+     * Hashes a password with a new random salt
+     * @param password the password to hash
+     * @return the stored form of the hash
+     */
+    public static String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = pbkdf2(password, salt, ITERATIONS);
+        Base64.Encoder encoder = Base64.getEncoder();
+        return PREFIX + "$" + ITERATIONS + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+
+    /**
+     * Checks a password against a stored value. Legacy plaintext values are compared in constant time.
+     * @param password the password that was entered
+     * @param stored the value from the database
+     * @return true if the password matches
+     */
+    public static boolean verify(String password, String stored) {
+        if(stored == null) return false;
+        if(!isHashed(stored)) return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+
+        String[] parts = stored.split("\\$");
+        if(parts.length != 4) return false;
+        try {
+            int iterations = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            return MessageDigest.isEqual(expected, pbkdf2(password, salt, iterations, expected.length * 8));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param stored the value from the database
+     * @return true if the value is a PBKDF2 hash rather than a legacy plaintext password
+     */
+    public static boolean isHashed(String stored) {
+        return stored != null && stored.startsWith(PREFIX + "$");
+    }
+
+    /**
+     * @param stored the value from the database
+     * @return true if the value should be replaced by a new hash, because it is plaintext or uses fewer iterations than new hashes
+     */
+    public static boolean needsRehash(String stored) {
+        if(!isHashed(stored)) return true;
+        String[] parts = stored.split("\\$");
+        try {
+            return parts.length != 4 || Integer.parseInt(parts[1]) < ITERATIONS;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    /**
+     * @see #pbkdf2(String, byte[], int, int)
+     */
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        return pbkdf2(password, salt, iterations, HASH_BITS);
+    }
+
+    /**
+     * Runs PBKDF2
+     * @param password the password
+     * @param salt the salt
+     * @param iterations the number of iterations
+     * @param bits the length of the hash in bits
+     * @return the hash
+     */
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations, int bits) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, bits);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException(e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
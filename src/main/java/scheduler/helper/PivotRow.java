@@ -0,0 +1,50 @@
+package scheduler.helper;
+
+/**
+ * One row of a pivot report: the label of the row's value and its count under each column. Utilized for Reports.
+ *
+ * @author Alvin Roe
+ */
+public class PivotRow {
+    /**Label of the row*/
+    private final String label;
+    /**Count under each column*/
+    private final int[] counts;
+    /**Sum of the counts*/
+    private final int total;
+
+    /**
+     * Constructor for PivotRow
+     * @param label label of the row
+     * @param counts count under each column
+     */
+    public PivotRow(String label, int[] counts) {
+        this.label = label;
+        this.counts = counts;
+        int sum = 0;
+        for(int count : counts) sum += count;
+        this.total = sum;
+    }
+
+    /**
+     * @return label of the row
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @param column index of a column
+     * @return the count under the column
+     */
+    public int getCount(int column) {
+        return counts[column];
+    }
+
+    /**
+     * @return sum of the counts
+     */
+    public int getTotal() {
+        return total;
+    }
+}
@@ -0,0 +1,48 @@
+package scheduler.helper;
+
+/**
+ * One row of a top-K report: the rank, who is ranked and the value they are ranked by. Utilized for Reports.
+ *
+ * @author Alvin Roe
+ */
+public class RankedRow {
+    /**Rank, starting at 1*/
+    private final int rank;
+    /**Name of the Contact or Customer*/
+    private final String name;
+    /**The value ranked by, formatted for the table*/
+    private final String value;
+
+    /**
+     * Constructor for RankedRow
+     * @param rank rank, starting at 1
+     * @param name name of the Contact or Customer
+     * @param value the value ranked by, formatted for the table
+     */
+    public RankedRow(int rank, String name, String value) {
+        this.rank = rank;
+        this.name = name;
+        this.value = value;
+    }
+
+    /**
+     * @return rank, starting at 1
+     */
+    public int getRank() {
+        return rank;
+    }
+
+    /**
+     * @return name of the Contact or Customer
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the value ranked by, formatted for the table
+     */
+    public String getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,90 @@
+package scheduler.helper;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import scheduler.model.Contact;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the reference tables: Contacts, Users, Countries and First Level Divisions. A snapshot is never changed
+ * once built. A refresh builds a new one and swaps it in, so any thread can read a snapshot without locking.
+ *
+ * @author Alvin Roe
+ */
+public class ReferenceData {
+    /**Watermarks of the tables when this snapshot was loaded*/
+    private final ReferenceVersion version;
+    /**Every Contact, read only*/
+    private final ObservableList<Contact> contacts;
+    /**Contact names keyed by Contact ID*/
+    private final Map<Integer, String> contactNames;
+    /**Usernames keyed by User ID*/
+    private final Map<Integer, String> userNames;
+    /**Every Country and First Level Division*/
+    private final GeographyIndex geography;
+
+    /**
+     * Constructor for ReferenceData
+     * @param version watermarks of the tables when the data was loaded
+     * @param contacts every Contact
+     * @param userNames usernames keyed by User ID
+     * @param geography every Country and First Level Division
+     */
+    public ReferenceData(ReferenceVersion version, List<Contact> contacts, Map<Integer, String> userNames, GeographyIndex geography) {
+        this.version = version;
+        this.contacts = FXCollections.unmodifiableObservableList(FXCollections.observableArrayList(contacts));
+        this.userNames = Map.copyOf(userNames);
+        this.geography = geography;
+
+        Map<Integer, String> names = new HashMap<>();
+        for(Contact contact : contacts) names.put(contact.getContactID(), contact.getContactName());
+        this.contactNames = Map.copyOf(names);
+    }
+
+    /**
+     * @return watermarks of the tables when this snapshot was loaded
+     */
+    public ReferenceVersion getVersion() {
+        return version;
+    }
+
+    /**
+     * @return every Contact, read only
+     */
+    public ObservableList<Contact> getContacts() {
+        return contacts;
+    }
+
+    /**
+     * @param contactID the Contact ID
+     * @return the Contact's name, or null if it is not known
+     */
+    public String getContactName(int contactID) {
+        return contactNames.get(contactID);
+    }
+
+    /**
+     * @return usernames keyed by User ID
+     */
+    public Map<Integer, String> getUserNames() {
+        return userNames;
+    }
+
+    /**
+     * @param userID the User ID
+     * @return the username, or null if it is not known
+     */
+    public String getUserName(int userID) {
+        return userNames.get(userID);
+    }
+
+    /**
+     * @return every Country and First Level Division
+     */
+    public GeographyIndex getGeography() {
+        return geography;
+    }
+}
@@ -0,0 +1,131 @@
+package scheduler.helper;
+
+import scheduler.dao.ContactDAO;
+import scheduler.dao.DivisionCountryDAO;
+import scheduler.dao.ReferenceDataDAO;
+import scheduler.dao.UserDAO;
+import scheduler.model.Contact;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current ReferenceData snapshot. Reads are a single volatile load, so they never lock. A background task checks
+ * the table watermarks on an interval, reloads only the tables that changed, and swaps in a new snapshot, so new Contacts
+ * and Users show up without restarting the app.
+ *
+ * The interval can be set with the system property scheduler.referenceRefreshSeconds, and 0 turns refreshing off.
+ *
+ * @author Alvin Roe
+ */
+public abstract class ReferenceDataCache {
+    /**Seconds between checks when the system property is not set*/
+    private static final int DEFAULT_REFRESH_SECONDS = 60;
+    /**Seconds between checks*/
+    private static final int refreshSeconds = Integer.getInteger("scheduler.referenceRefreshSeconds", DEFAULT_REFRESH_SECONDS);
+
+    /**The current snapshot, or null before the first load*/
+    private static final AtomicReference<ReferenceData> current = new AtomicReference<>();
+    /**Runs the background refresh*/
+    private static ScheduledExecutorService refresher;
+    /**The scheduled refresh task*/
+    private static ScheduledFuture<?> refreshTask;
+
+    /**
+     * Returns the current snapshot. Never locks.
+     * @return the current snapshot
+     * @throws IllegalStateException if the data has not been loaded yet
+     */
+    public static ReferenceData get() {
+        ReferenceData data = current.get();
+        if(data == null) throw new IllegalStateException("Reference data has not been loaded");
+        return data;
+    }
+
+    /**
+     * @return true once the first snapshot has been loaded
+     */
+    public static boolean isLoaded() {
+        return current.get() != null;
+    }
+
+    /**
+     * Publishes a snapshot that was loaded elsewhere, such as during session bootstrap.
+     * @param data the snapshot to publish
+     */
+    public static void publish(ReferenceData data) {
+        current.set(data);
+    }
+
+    /**
+     * Loads every reference table and publishes the result. Blocks until the load is done.
+     * @throws SQLException
+     */
+    public static void load() throws SQLException {
+        ReferenceVersion version = ReferenceDataDAO.readVersion();
+        current.set(new ReferenceData(version, ContactDAO.selectAllContacts(), UserDAO.getUserTable(), DivisionCountryDAO.loadGeography()));
+    }
+
+    /**
+     * Checks the watermarks and reloads the tables that changed. Tables that did not change are carried over from the
+     * current snapshot.
+     * @return true if a new snapshot was published
+     * @throws SQLException
+     */
+    public static boolean refreshIfChanged() throws SQLException {
+        ReferenceData old = current.get();
+        if(old == null) {
+            load();
+            return true;
+        }
+
+        ReferenceVersion version = ReferenceDataDAO.readVersion();
+        boolean contactsChanged = version.contactsChanged(old.getVersion());
+        boolean usersChanged = version.usersChanged(old.getVersion());
+        boolean geographyChanged = version.geographyChanged(old.getVersion());
+        if(!contactsChanged && !usersChanged && !geographyChanged) return false;
+
+        List<Contact> contacts = contactsChanged ? ContactDAO.selectAllContacts() : old.getContacts();
+        Map<Integer, String> userNames = usersChanged ? UserDAO.getUserTable() : old.getUserNames();
+        GeographyIndex geography = geographyChanged ? DivisionCountryDAO.loadGeography() : old.getGeography();
+
+        //Only this class's single refresh thread swaps after the first load, so a plain compare and set is enough
+        return current.compareAndSet(old, new ReferenceData(version, contacts, userNames, geography));
+    }
+
+    /**
+     * Starts checking for changes in the background. Does nothing if it is already running or refreshing is turned off.
+     */
+    public static synchronized void startRefreshing() {
+        if(refreshSeconds <= 0 || refreshTask != null) return;
+
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reference-data-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refreshTask = refresher.scheduleWithFixedDelay(() -> {
+            try {
+                refreshIfChanged();
+            } catch (SQLException e) {
+                System.out.println("Error:" + e.getMessage());
+            }
+        }, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the background refresh. Called when the application exits.
+     */
+    public static synchronized void stopRefreshing() {
+        if(refresher == null) return;
+        refresher.shutdownNow();
+        refresher = null;
+        refreshTask = null;
+    }
+}
@@ -0,0 +1,65 @@
+package scheduler.helper;
+
+/**
+ * Watermarks for the reference tables, read in one query to tell whether any of them have changed since the last load.
+ * Users, Countries and First Level Divisions are tracked by row count and newest Last_Update. Contacts have no Last_Update
+ * column, so they are tracked by row count and largest Contact ID, which catches added and deleted Contacts.
+ *
+ * @author Alvin Roe
+ */
+public class ReferenceVersion {
+    /**Number of rows in the Contacts table*/
+    private final int contactCount;
+    /**Largest Contact ID in the Contacts table*/
+    private final int maxContactID;
+    /**Number of rows in the Users table*/
+    private final int userCount;
+    /**Newest Last_Update in the Users table, in epoch milliseconds*/
+    private final long usersLastUpdate;
+    /**Number of rows in the Countries and First Level Divisions tables combined*/
+    private final int geographyCount;
+    /**Newest Last_Update in the Countries and First Level Divisions tables, in epoch milliseconds*/
+    private final long geographyLastUpdate;
+
+    /**
+     * Constructor for ReferenceVersion
+     * @param contactCount number of rows in the Contacts table
+     * @param maxContactID largest Contact ID in the Contacts table
+     * @param userCount number of rows in the Users table
+     * @param usersLastUpdate newest Last_Update in the Users table, in epoch milliseconds
+     * @param geographyCount number of rows in the Countries and First Level Divisions tables combined
+     * @param geographyLastUpdate newest Last_Update in the Countries and First Level Divisions tables, in epoch milliseconds
+     */
+    public ReferenceVersion(int contactCount, int maxContactID, int userCount, long usersLastUpdate, int geographyCount, long geographyLastUpdate) {
+        this.contactCount = contactCount;
+        this.maxContactID = maxContactID;
+        this.userCount = userCount;
+        this.usersLastUpdate = usersLastUpdate;
+        this.geographyCount = geographyCount;
+        this.geographyLastUpdate = geographyLastUpdate;
+    }
+
+    /**
+     * @param other the version to compare against
+     * @return true if the Contacts differ between the two versions
+     */
+    public boolean contactsChanged(ReferenceVersion other) {
+        return other == null || contactCount != other.contactCount || maxContactID != other.maxContactID;
+    }
+
+    /**
+     * @param other the version to compare against
+     * @return true if the Users differ between the two versions
+     */
+    public boolean usersChanged(ReferenceVersion other) {
+        return other == null || userCount != other.userCount || usersLastUpdate != other.usersLastUpdate;
+    }
+
+    /**
+     * @param other the version to compare against
+     * @return true if the Countries or First Level Divisions differ between the two versions
+     */
+    public boolean geographyChanged(ReferenceVersion other) {
+        return other == null || geographyCount != other.geographyCount || geographyLastUpdate != other.geographyLastUpdate;
+    }
+}
@@ -0,0 +1,14 @@
+package scheduler.helper;
+
+/**
+ * Implemented by controllers whose views SceneHelper keeps after they are hidden. Instead of building the view again, the
+ * kept view is shown and its controller is asked to reload any data that may have changed while it was hidden.
+ *
+ * @author Alvin Roe
+ */
+public interface RefreshableController {
+    /**
+     * Called on the JavaFX thread each time a kept view is shown again
+     */
+    void refresh();
+}
@@ -0,0 +1,416 @@
+package scheduler.helper;
+
+import scheduler.dao.AppointmentDAO;
+import scheduler.dao.ReportDAO;
+import scheduler.model.Appointment;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * Report counts kept up to date as Appointments are written, so the Count Appointments report never has to read the
+ * Appointments table. The counts by type, by month, by Contact and by Customer are built once from the database after login,
+ * and after that AppointmentDAO tells this class about every insert, update and delete, which each change the counts in
+ * constant time.
+ *
+ * Alongside the counts, a DurationHistogram of each month and a HyperLogLog of the Customers of each Contact in each month
+ * are kept for the Statistics report. Both take a bounded amount of memory per month, a HyperLogLog only a few bytes per
+ * Customer until it has seen hundreds of them, and both merge, so a year or every month is answered by merging the months. A HyperLogLog can not take a Customer back out, so an update or delete leaves
+ * the old Customer counted for that Contact and month until the next build.
+ *
+ * Writes made while the counts are being built are kept and applied again once the build is done. Each one is keyed by
+ * Appointment ID and replaces whatever the build read for that Appointment, so applying one the build already saw changes nothing.
+ *
+ * @author Alvin Roe
+ */
+public abstract class ReportAggregates {
+    /**Time zone the months are counted in*/
+    private static final ZoneId zone = ZoneId.systemDefault();
+    /**The counts, or null until the first build has finished*/
+    private static Counts counts;
+    /**Writes made during the build that is running, or null if no build is running*/
+    private static List<Consumer<Counts>> writesDuringBuild;
+    /**True once the write listener has been added to AppointmentDAO*/
+    private static boolean listening;
+    /**Completed when the build that is running or last ran has finished*/
+    private static CompletableFuture<Void> ready = new CompletableFuture<>();
+
+    /**
+     * Starts building the counts in the background. Does nothing if they are built or being built.
+     */
+    public static synchronized void start() {
+        if(!listening) {
+            AppointmentDAO.addWriteListener(new AppointmentDAO.WriteListener() {
+                @Override
+                public void appointmentSaved(Appointment appointment) {
+                    int appointmentID = appointment.getAppointmentID();
+                    String type = appointment.getType();
+                    long startSecond = appointment.getStartSecond();
+                    long endSecond = appointment.getEndSecond();
+                    int contactID = appointment.getContactID();
+                    int customerID = appointment.getCustomerID();
+                    apply(built -> built.save(appointmentID, type, startSecond, endSecond, contactID, customerID));
+                }
+
+                @Override
+                public void appointmentDeleted(int appointmentID) {
+                    apply(built -> built.remove(appointmentID));
+                }
+            });
+            listening = true;
+        }
+        if(counts != null || writesDuringBuild != null) return;
+
+        writesDuringBuild = new ArrayList<>();
+        if(ready.isDone()) ready = new CompletableFuture<>();
+        Thread buildThread = new Thread(ReportAggregates::build, "report-aggregates");
+        buildThread.setDaemon(true);
+        buildThread.start();
+    }
+
+    /**
+     * Waits for the counts, starting the build first if needed
+     * @throws SQLException if the build failed
+     */
+    public static void await() throws SQLException {
+        CompletableFuture<Void> building;
+        synchronized(ReportAggregates.class) {
+            start();
+            building = ready;
+        }
+        try {
+            building.join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof SQLException) throw (SQLException) e.getCause();
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * @return true once the counts have been built
+     */
+    public static synchronized boolean isReady() {
+        return counts != null;
+    }
+
+    /**
+     * @return time zone the months are counted in
+     */
+    public static ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * @return one count for each type, ordered by type, or null if the counts are not built yet
+     */
+    public static synchronized List<TypeCount> countByType() {
+        if(counts == null) return null;
+        List<TypeCount> typeCounts = new ArrayList<>();
+        for(int typeCode = 0; typeCode < counts.typeNames.size(); typeCode++) {
+            if(counts.byType[typeCode] > 0) typeCounts.add(new TypeCount(counts.typeNames.get(typeCode), counts.byType[typeCode]));
+        }
+        typeCounts.sort(Comparator.comparing(TypeCount::getType));
+        return typeCounts;
+    }
+
+    /**
+     * @return one count for each month that has Appointments, oldest first, or null if the counts are not built yet
+     */
+    public static synchronized List<MonthCount> countByYearMonth() {
+        if(counts == null) return null;
+        int[] months = sortedKeys(counts.byYearMonth);
+        List<MonthCount> monthCounts = new ArrayList<>(months.length);
+        for(int month : months) monthCounts.add(new MonthCount(YearMonth.of(month / 12, month % 12 + 1), counts.byYearMonth.get(month)));
+        return monthCounts;
+    }
+
+    /**
+     * @return one count for each Contact that has Appointments, ordered by Contact ID, or null if the counts are not built yet
+     */
+    public static synchronized List<IdCount> countByContact() {
+        if(counts == null) return null;
+        int[] contactIDs = sortedKeys(counts.byContact);
+        List<IdCount> contactCounts = new ArrayList<>(contactIDs.length);
+        for(int contactID : contactIDs) contactCounts.add(new IdCount(contactID, SessionData.getContactName(contactID), counts.byContact.get(contactID)));
+        return contactCounts;
+    }
+
+    /**
+     * @return one count for each Customer that has Appointments, ordered by Customer ID, or null if the counts are not built yet
+     */
+    public static synchronized List<IdCount> countByCustomer() {
+        if(counts == null) return null;
+        int[] customerIDs = sortedKeys(counts.byCustomer);
+        List<IdCount> customerCounts = new ArrayList<>(customerIDs.length);
+        for(int customerID : customerIDs) customerCounts.add(new IdCount(customerID, null, counts.byCustomer.get(customerID)));
+        return customerCounts;
+    }
+
+    /**
+     * @return every year that has Appointments, in increasing order, or null if the counts are not built yet
+     */
+    public static synchronized int[] getYears() {
+        if(counts == null) return null;
+        return Arrays.stream(sortedKeys(counts.byYearMonth)).map(month -> month / 12).distinct().toArray();
+    }
+
+    /**
+     * Reads the duration percentiles of each month from its histogram, then merges the histograms for the whole period
+     * @param year the year to show, or 0 for every year
+     * @return one row for each month, oldest first, then one for all of them, or null if the counts are not built yet
+     */
+    public static synchronized List<DurationRow> durationsByMonth(int year) {
+        if(counts == null) return null;
+        List<DurationRow> rows = new ArrayList<>();
+        DurationHistogram merged = new DurationHistogram();
+        for(int month : sortedKeys(counts.byYearMonth)) {
+            DurationHistogram histogram = counts.durationsByMonth.get(month);
+            if(histogram == null || (year != 0 && month / 12 != year)) continue;
+            rows.add(new DurationRow(monthName(month), histogram));
+            merged.merge(histogram);
+        }
+        rows.add(new DurationRow(year == 0 ? "All Months" : "All of " + year, merged));
+        return rows;
+    }
+
+    /**
+     * Reads the estimated distinct Customers of each Contact in each month from its sketch, then merges each Contact's
+     * sketches for the whole period, so a Customer seen in several months is only counted once
+     * @param year the year to show, or 0 for every year
+     * @return for each Contact, one row for each month, oldest first, then one for all of them, or null if the counts are not built yet
+     */
+    public static synchronized List<DistinctCountRow> distinctCustomersByContact(int year) {
+        if(counts == null) return null;
+        int[] months = sortedKeys(counts.byYearMonth);
+        List<DistinctCountRow> rows = new ArrayList<>();
+        for(int contactID : sortedKeys(counts.byContact)) {
+            String contactName = SessionData.getContactName(contactID);
+            HyperLogLog merged = new HyperLogLog();
+            boolean any = false;
+            for(int month : months) {
+                HyperLogLog customers = counts.customersByContactMonth.get(contactMonthKey(contactID, month));
+                if(customers == null || (year != 0 && month / 12 != year)) continue;
+                rows.add(new DistinctCountRow(contactName, monthName(month), customers.estimate()));
+                merged.merge(customers);
+                any = true;
+            }
+            if(any) rows.add(new DistinctCountRow(contactName, year == 0 ? "All Months" : "All of " + year, merged.estimate()));
+        }
+        return rows;
+    }
+
+    /**
+     * Applies a write to the counts, and keeps it to apply again if a build is running
+     * @param write the change to make
+     */
+    private static synchronized void apply(Consumer<Counts> write) {
+        if(writesDuringBuild != null) writesDuringBuild.add(write);
+        if(counts != null) write.accept(counts);
+    }
+
+    /**
+     * Reads every Appointment from a streaming cursor into new counts, then applies the writes made in the meantime and
+     * puts the counts in place. Runs on the build thread.
+     */
+    private static void build() {
+        Counts built = new Counts();
+        try {
+            ReportDAO.streamReportFacts(built::save);
+            synchronized(ReportAggregates.class) {
+                for(Consumer<Counts> write : writesDuringBuild) write.accept(built);
+                counts = built;
+                writesDuringBuild = null;
+                ready.complete(null);
+            }
+        } catch (SQLException e) {
+            synchronized(ReportAggregates.class) {
+                writesDuringBuild = null;
+                ready.completeExceptionally(e);
+            }
+            System.out.println("Error:" + e.getMessage());
+        }
+    }
+
+    /**
+     * @param yearMonth a month as year * 12 + month - 1
+     * @return the month's name, such as "January 2025"
+     */
+    private static String monthName(int yearMonth) {
+        return new MonthCount(YearMonth.of(yearMonth / 12, yearMonth % 12 + 1), 0).getName();
+    }
+
+    /**
+     * @param contactID a Contact ID
+     * @param yearMonth a month as year * 12 + month - 1
+     * @return key of the Contact's sketch for the month
+     */
+    private static long contactMonthKey(int contactID, int yearMonth) {
+        return ((long) contactID << 32) | yearMonth;
+    }
+
+    /**
+     * @param map a map with int keys
+     * @return the keys in increasing order
+     */
+    private static int[] sortedKeys(IntIntMap map) {
+        int[] keys = map.keys();
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    /**
+     * The counts, along with what each Appointment added to them so it can be taken back out when the Appointment changes.
+     * What each Appointment was counted under is kept in parallel primitive arrays, one slot per Appointment, and the counters
+     * are IntIntMaps, so counting a write boxes nothing and makes no object per Appointment.
+     */
+    private static class Counts {
+        /**Starting length of the slot arrays*/
+        private static final int INITIAL_SLOTS = 1024;
+
+        /**Slot of each counted Appointment, keyed by Appointment ID*/
+        private final IntIntMap slotOf = new IntIntMap(INITIAL_SLOTS, -1);
+        /**Number of slots in use. Slots 0 to slotCount - 1 are always full.*/
+        private int slotCount = 0;
+        /**Appointment ID in each slot*/
+        private int[] slotAppointmentIDs = new int[INITIAL_SLOTS];
+        /**Type code of the Appointment in each slot*/
+        private int[] slotTypeCodes = new int[INITIAL_SLOTS];
+        /**Month of the start of the Appointment in each slot, as year * 12 + month - 1*/
+        private int[] slotYearMonths = new int[INITIAL_SLOTS];
+        /**Contact ID of the Appointment in each slot*/
+        private int[] slotContactIDs = new int[INITIAL_SLOTS];
+        /**Customer ID of the Appointment in each slot*/
+        private int[] slotCustomerIDs = new int[INITIAL_SLOTS];
+        /**Duration in seconds of the Appointment in each slot*/
+        private long[] slotDurations = new long[INITIAL_SLOTS];
+        /**Code of each type*/
+        private final Map<String, Integer> typeCodes = new HashMap<>();
+        /**Type of each code*/
+        private final List<String> typeNames = new ArrayList<>();
+        /**Count for each type code. Grown when a new type is seen.*/
+        private int[] byType = new int[16];
+        /**Count for each month, keyed by year * 12 + month - 1*/
+        private final IntIntMap byYearMonth = new IntIntMap(64, 0);
+        /**Count for each Contact ID*/
+        private final IntIntMap byContact = new IntIntMap(64, 0);
+        /**Count for each Customer ID*/
+        private final IntIntMap byCustomer = new IntIntMap(1024, 0);
+        /**Durations in each month, keyed by year * 12 + month - 1*/
+        private final Map<Integer, DurationHistogram> durationsByMonth = new HashMap<>();
+        /**Customers of each Contact in each month, keyed by contactMonthKey*/
+        private final Map<Long, HyperLogLog> customersByContactMonth = new HashMap<>();
+
+        /**
+         * Counts an Appointment, first taking out what it was counted under before if it was seen already
+         * @param appointmentID the Appointment ID
+         * @param type the type
+         * @param startSecond the start in epoch seconds
+         * @param endSecond the end in epoch seconds
+         * @param contactID the Contact ID
+         * @param customerID the Customer ID
+         */
+        private void save(int appointmentID, String type, long startSecond, long endSecond, int contactID, int customerID) {
+            remove(appointmentID);
+
+            YearMonth month = YearMonth.from(Instant.ofEpochSecond(startSecond).atZone(zone));
+            int yearMonth = month.getYear() * 12 + month.getMonthValue() - 1;
+            int typeCode = typeCode(type);
+            long durationSeconds = endSecond - startSecond;
+
+            if(slotCount == slotAppointmentIDs.length) grow();
+            int slot = slotCount++;
+            slotAppointmentIDs[slot] = appointmentID;
+            slotTypeCodes[slot] = typeCode;
+            slotYearMonths[slot] = yearMonth;
+            slotContactIDs[slot] = contactID;
+            slotCustomerIDs[slot] = customerID;
+            slotDurations[slot] = durationSeconds;
+            slotOf.put(appointmentID, slot);
+
+            byType[typeCode]++;
+            byYearMonth.add(yearMonth, 1);
+            byContact.add(contactID, 1);
+            byCustomer.add(customerID, 1);
+            durationsByMonth.computeIfAbsent(yearMonth, key -> new DurationHistogram()).record(durationSeconds);
+            customersByContactMonth.computeIfAbsent(contactMonthKey(contactID, yearMonth), key -> new HyperLogLog()).add(customerID);
+        }
+
+        /**
+         * Takes an Appointment out of the counts. The last slot is moved into its slot, so the slots stay packed. Does
+         * nothing if it was never counted.
+         * @param appointmentID the Appointment ID
+         */
+        private void remove(int appointmentID) {
+            int slot = slotOf.get(appointmentID);
+            if(slot < 0) return;
+
+            byType[slotTypeCodes[slot]]--;
+            int yearMonth = slotYearMonths[slot];
+            subtract(byYearMonth, yearMonth);
+            subtract(byContact, slotContactIDs[slot]);
+            subtract(byCustomer, slotCustomerIDs[slot]);
+            DurationHistogram durations = durationsByMonth.get(yearMonth);
+            durations.remove(slotDurations[slot]);
+            if(durations.getTotalCount() == 0) durationsByMonth.remove(yearMonth);
+
+            slotOf.remove(appointmentID);
+            int last = --slotCount;
+            if(slot == last) return;
+            slotAppointmentIDs[slot] = slotAppointmentIDs[last];
+            slotTypeCodes[slot] = slotTypeCodes[last];
+            slotYearMonths[slot] = slotYearMonths[last];
+            slotContactIDs[slot] = slotContactIDs[last];
+            slotCustomerIDs[slot] = slotCustomerIDs[last];
+            slotDurations[slot] = slotDurations[last];
+            slotOf.put(slotAppointmentIDs[slot], slot);
+        }
+
+        /**
+         * @param type a type
+         * @return the code for the type, giving it a new one if it has not been seen
+         */
+        private int typeCode(String type) {
+            Integer code = typeCodes.get(type);
+            if(code != null) return code;
+
+            code = typeNames.size();
+            typeNames.add(type);
+            typeCodes.put(type, code);
+            if(code == byType.length) byType = Arrays.copyOf(byType, byType.length * 2);
+            return code;
+        }
+
+        /**
+         * Takes one from a count, dropping the count when it reaches 0
+         * @param counts the counts
+         * @param key the key to take one from
+         */
+        private static void subtract(IntIntMap counts, int key) {
+            if(counts.add(key, -1) == 0) counts.remove(key);
+        }
+
+        /**
+         * Doubles the length of every slot array
+         */
+        private void grow() {
+            int capacity = slotAppointmentIDs.length * 2;
+            slotAppointmentIDs = Arrays.copyOf(slotAppointmentIDs, capacity);
+            slotTypeCodes = Arrays.copyOf(slotTypeCodes, capacity);
+            slotYearMonths = Arrays.copyOf(slotYearMonths, capacity);
+            slotContactIDs = Arrays.copyOf(slotContactIDs, capacity);
+            slotCustomerIDs = Arrays.copyOf(slotCustomerIDs, capacity);
+            slotDurations = Arrays.copyOf(slotDurations, capacity);
+        }
+    }
+}
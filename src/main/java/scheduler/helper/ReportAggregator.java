@@ -0,0 +1,140 @@
+package scheduler.helper;
+
+import scheduler.dao.ReportDAO;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Makes the counts for the Count Appointments report. Once ReportAggregates has been built its kept counts are used, which
+ * takes no time however many Appointments there are. Before then, the counting is pushed to the database as a GROUP BY, so
+ * the Appointments never have to be loaded just to be counted.
+ *
+ * Months are the exception. Which month an Appointment starts in depends on the time zone rules in effect at its start, which
+ * the database can not be relied on to know, so months are always bucketed in Java: from the kept counts, waiting for them
+ * if they are still being built, or from a streamed read of every start for any other time zone.
+ *
+ * Top-K rankings are made from the report column store when it is already loaded, and from a grouped database cursor
+ * otherwise.
+ *
+ * Meant to be called off the FX thread.
+ *
+ * @author Alvin Roe
+ */
+public abstract class ReportAggregator {
+    /**What a top-K report ranks by*/
+    public enum RankBy {BOOKED_TIME, APPOINTMENTS}
+
+    /**
+     * Counts the Appointments of each type
+     * @return one count for each type
+     * @throws SQLException
+     */
+    public static List<TypeCount> countByType() throws SQLException {
+        List<TypeCount> kept = ReportAggregates.countByType();
+        return kept != null ? kept : ReportDAO.countByType();
+    }
+
+    /**
+     * Counts the Appointments starting in each month of each year, with each start placed in its exact local month
+     * @param zone the time zone the months are in
+     * @return one count for each month that has Appointments, oldest first
+     * @throws SQLException
+     */
+    public static List<MonthCount> countByYearMonth(ZoneId zone) throws SQLException {
+        if(zone.equals(ReportAggregates.getZone())) {
+            ReportAggregates.await();
+            List<MonthCount> kept = ReportAggregates.countByYearMonth();
+            if(kept != null) return kept;
+        }
+
+        IntIntMap byYearMonth = new IntIntMap(64, 0);
+        ReportDAO.streamReportFacts((appointmentID, type, startSecond, endSecond, contactID, customerID) -> {
+            YearMonth month = YearMonth.from(Instant.ofEpochSecond(startSecond).atZone(zone));
+            byYearMonth.add(month.getYear() * 12 + month.getMonthValue() - 1, 1);
+        });
+        int[] months = byYearMonth.keys();
+        Arrays.sort(months);
+        List<MonthCount> monthCounts = new ArrayList<>(months.length);
+        for(int month : months) monthCounts.add(new MonthCount(YearMonth.of(month / 12, month % 12 + 1), byYearMonth.get(month)));
+        return monthCounts;
+    }
+
+    /**
+     * Counts the Appointments of each Contact
+     * @return one count for each Contact that has Appointments, ordered by Contact ID
+     * @throws SQLException
+     */
+    public static List<IdCount> countByContact() throws SQLException {
+        List<IdCount> kept = ReportAggregates.countByContact();
+        return kept != null ? kept : ReportDAO.countByContact();
+    }
+
+    /**
+     * Counts the Appointments of each Customer
+     * @return one count for each Customer that has Appointments, ordered by Customer ID
+     * @throws SQLException
+     */
+    public static List<IdCount> countByCustomer() throws SQLException {
+        List<IdCount> kept = ReportAggregates.countByCustomer();
+        return kept != null ? kept : ReportDAO.countByCustomer();
+    }
+
+    /**
+     * Finds the k Contacts with the most booked time or Appointments starting in a window
+     * @param cached the Appointments in memory, or null if they have not been loaded
+     * @param rankBy what to rank by. Booked time is in seconds.
+     * @param from start of the window, inclusive, or null for no lower bound
+     * @param to end of the window, exclusive, or null for no upper bound
+     * @param k how many Contacts to keep
+     * @return the top Contacts, highest first
+     * @throws SQLException
+     */
+    public static TopK topContacts(AppointmentColumns cached, RankBy rankBy, Instant from, Instant to, int k) throws SQLException {
+        TopK top = new TopK(k);
+        if(cached == null) ReportDAO.streamTotalsByContact(rankBy == RankBy.BOOKED_TIME, from, to, top::offer);
+        else totals(cached, true, rankBy, from, to).forEach(top::offer);
+        return top.finish();
+    }
+
+    /**
+     * Finds the k Customers with the most booked time or Appointments starting in a window
+     * @param cached the Appointments in memory, or null if they have not been loaded
+     * @param rankBy what to rank by. Booked time is in seconds.
+     * @param from start of the window, inclusive, or null for no lower bound
+     * @param to end of the window, exclusive, or null for no upper bound
+     * @param k how many Customers to keep
+     * @return the top Customers, highest first
+     * @throws SQLException
+     */
+    public static TopK topCustomers(AppointmentColumns cached, RankBy rankBy, Instant from, Instant to, int k) throws SQLException {
+        TopK top = new TopK(k);
+        if(cached == null) ReportDAO.streamTotalsByCustomer(rankBy == RankBy.BOOKED_TIME, from, to, top::offer);
+        else totals(cached, false, rankBy, from, to).forEach(top::offer);
+        return top.finish();
+    }
+
+    /**
+     * Totals the rows starting in a window by Contact or Customer, in one pass over the rows the window selects
+     * @param cached the Appointments in memory
+     * @param byContact true to total by Contact, false by Customer
+     * @param rankBy what to total
+     * @param from start of the window, inclusive, or null for no lower bound
+     * @param to end of the window, exclusive, or null for no upper bound
+     * @return the total for each ID, summed as a long like the database's SUM
+     */
+    private static IntLongMap totals(AppointmentColumns cached, boolean byContact, RankBy rankBy, Instant from, Instant to) {
+        int[] rows = cached.selectStartBetween(from == null ? Long.MIN_VALUE : from.getEpochSecond(), to == null ? Long.MAX_VALUE : to.getEpochSecond());
+        IntLongMap totals = new IntLongMap(64);
+        for(int row : rows) {
+            int id = byContact ? cached.getContactID(row) : cached.getCustomerID(row);
+            totals.add(id, rankBy == RankBy.BOOKED_TIME ? cached.getEndSecond(row) - cached.getStartSecond(row) : 1);
+        }
+        return totals;
+    }
+}
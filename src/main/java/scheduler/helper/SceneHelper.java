@@ -4,27 +4,60 @@ import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import scheduler.dao.AsyncDAO;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Helper class for changing scenes
  *
+ * The Schedule, Customers and Reports views are kept once they are built, along with their controllers, so going back to
+ * them does not parse the FXML or run initialize again. Their controllers implement RefreshableController and reload their
+ * data when shown again. Customers and Reports are built in the background after login, before they are first asked for.
+ * The kept views, and the Appointments kept for overlap checks and reports, are thrown away when going back to the Login view.
+ *
+ * Preloading runs each controller's initialize off the FX thread. That is safe because the view is not in a scene yet, so
+ * only the preload thread touches its controls, and the results of the AsyncDAO calls initialize starts are held back until
+ * initialize has returned. Only then are the callbacks that fill the controls sent to the FX thread.
+ *
+ * How long each view last took to build and to show is kept, so navigation latency can be read with getLastLoadNanos and
+ * getLastShowNanos.
+ *
  * @author Alvin Roe
  */
 public abstract class SceneHelper {
     /**Enum utilized for tracking what scene is currently being used*/
     public enum View {CUSTOMER, ADD_CUSTOMER, UPDATE_CUSTOMER, SCHEDULE, ADD_APPOINTMENT, UPDATE_APPOINTMENT, LOGIN, REPORT}
     public static View view = View.LOGIN;
+    /**Views that are kept after they are hidden. The add and update forms are built fresh because they depend on what was selected.*/
+    private static final Set<View> CACHED_VIEWS = EnumSet.of(View.SCHEDULE, View.CUSTOMER, View.REPORT);
+    /**Views built in the background after login*/
+    private static final Set<View> PRELOADED_VIEWS = EnumSet.of(View.CUSTOMER, View.REPORT);
+    /**Kept views. Filled by the JavaFX thread and the preload thread.*/
+    private static final Map<View, CachedView> cache = Collections.synchronizedMap(new EnumMap<>(View.class));
+    /**Changed whenever the cache is cleared, so a preload that started before does not add views from the old session*/
+    private static final AtomicInteger cacheGeneration = new AtomicInteger();
+    /**Time each view last took to parse its FXML and run initialize, in nanoseconds. Filled by the JavaFX thread and the preload thread.*/
+    private static final Map<View, Long> lastLoadNanos = Collections.synchronizedMap(new EnumMap<>(View.class));
+    /**Time each view last took to be shown by changeScene, in nanoseconds*/
+    private static final Map<View, Long> lastShowNanos = Collections.synchronizedMap(new EnumMap<>(View.class));
 
     /**
-     * Changes to the next scene based on the "View" provided
+     * Changes to the next scene based on the "View" provided. Any reads still running for the current scene are cancelled.
      * @param nextView the next scene to go to
      * @param nodeInScene a node in the current scene, utilized for getting the stage
      * @param caller the instance that called the method, utilized for finding the root
      * @throws IOException
      */
     public static void changeScene(View nextView, Node nodeInScene, Object caller) throws IOException {
+        long startedAt = System.nanoTime();
+        AsyncDAO.cancelPendingReads(); //Results for the old scene would arrive at controllers that are no longer showing
         String viewFileLocation;
         String title;
         double sceneWidth;
@@ -78,6 +111,7 @@ public abstract class SceneHelper {
                 title = "Reports";
                 sceneWidth = 931;
                 sceneHeight = 836;
+                view = View.REPORT;
                 break;
             default:
                 viewFileLocation = "/view/LoginForm.fxml";
@@ -87,16 +121,123 @@ public abstract class SceneHelper {
                 view = View.LOGIN;
                 break;
         }
-        Parent root = FXMLLoader.load(caller.getClass().getResource(viewFileLocation));
-
-        Stage stage = (Stage) nodeInScene.getScene().getWindow();
+        if(nextView == View.LOGIN) {
+            clearCache();
+            CustomerScheduleIndex.clear();
+            AppointmentColumnsCache.clear();
+        }
 
+        CachedView cached = CACHED_VIEWS.contains(nextView) ? cache.get(nextView) : null;
+        boolean reused = cached != null;
+        if(cached == null) {
+            cached = load(nextView, caller.getClass(), viewFileLocation);
+            if(CACHED_VIEWS.contains(nextView)) cache.put(nextView, cached);
+        }
+        //Scenes have to be made on the JavaFX thread, so a preloaded view gets its scene the first time it is shown
+        if(cached.scene == null) cached.scene = new Scene(cached.root, sceneWidth, sceneHeight);
 
-        Scene scene = new Scene(root, sceneWidth, sceneHeight);
+        Stage stage = (Stage) nodeInScene.getScene().getWindow();
         stage.setTitle(title);
-        stage.setScene(scene);
+        stage.setScene(cached.scene);
         stage.centerOnScreen();
         stage.show();
 
+        if(reused && cached.controller instanceof RefreshableController) ((RefreshableController) cached.controller).refresh();
+        lastShowNanos.put(nextView, System.nanoTime() - startedAt);
+    }
+
+    /**
+     * @param shown a view
+     * @return how long the view last took to parse its FXML and run initialize in nanoseconds, or 0 if it has not been built
+     */
+    public static long getLastLoadNanos(View shown) {
+        return lastLoadNanos.getOrDefault(shown, 0L);
+    }
+
+    /**
+     * Returns how long changeScene last took to show the view, from the call until the scene was set and the controller
+     * refreshed. Includes building the view when it was not kept. Layout and drawing happen after, on the next pulse.
+     * @param shown a view
+     * @return the time in nanoseconds, or 0 if it has not been shown
+     */
+    public static long getLastShowNanos(View shown) {
+        return lastShowNanos.getOrDefault(shown, 0L);
+    }
+
+    /**
+     * Builds the Customers and Reports views on a background thread so they are ready before they are first shown.
+     * Called once the user has logged in. The reads their controllers start are not cancelled by scene changes, so moving
+     * to another view during the preload does not throw their data away. Their results are held back until the view has
+     * been built, so no callback touches its controls while initialize is still running on this thread.
+     */
+    public static void preloadViews() {
+        int generation = cacheGeneration.get();
+        Thread preloadThread = new Thread(() -> {
+            AsyncDAO.untrackReadsOnCurrentThread();
+            for(View preloaded : PRELOADED_VIEWS) {
+                if(cache.containsKey(preloaded)) continue;
+                AsyncDAO.holdCompletionsOnCurrentThread();
+                try {
+                    CachedView loaded = load(preloaded, SceneHelper.class, preloaded == View.CUSTOMER ? "/view/CustomerForm.fxml" : "/view/ReportForm.fxml");
+                    synchronized(cache) {
+                        if(cacheGeneration.get() == generation) cache.putIfAbsent(preloaded, loaded);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    System.out.println("Error:" + e.getMessage());
+                } finally {
+                    AsyncDAO.releaseCompletionsOnCurrentThread();
+                }
+            }
+        }, "scene-preload");
+        preloadThread.setDaemon(true);
+        preloadThread.start();
+    }
+
+    /**
+     * Throws away every kept view
+     */
+    public static void clearCache() {
+        synchronized(cache) {
+            cacheGeneration.incrementAndGet();
+            cache.clear();
+        }
+    }
+
+    /**
+     * Parses a view's FXML and runs its controller's initialize method, and records how long that took
+     * @param built the view being built
+     * @param resourceOwner class the FXML file is found through
+     * @param viewFileLocation location of the FXML file
+     * @return the view and its controller, without a scene yet
+     * @throws IOException
+     */
+    private static CachedView load(View built, Class<?> resourceOwner, String viewFileLocation) throws IOException {
+        long startedAt = System.nanoTime();
+        FXMLLoader loader = new FXMLLoader(resourceOwner.getResource(viewFileLocation));
+        Parent root = loader.load();
+        lastLoadNanos.put(built, System.nanoTime() - startedAt);
+        return new CachedView(root, loader.getController());
+    }
+
+    /**
+     * A built view kept for reuse
+     */
+    private static class CachedView {
+        /**Root of the view*/
+        private final Parent root;
+        /**Controller of the view*/
+        private final Object controller;
+        /**Scene holding the view, made the first time it is shown*/
+        private Scene scene;
+
+        /**
+         * Constructor for CachedView
+         * @param root root of the view
+         * @param controller controller of the view
+         */
+        private CachedView(Parent root, Object controller) {
+            this.root = root;
+            this.controller = controller;
+        }
     }
 }
@@ -0,0 +1,271 @@
+package scheduler.helper;
+
+import scheduler.dao.ExportDAO;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+
+/**
+ * Exports the Appointments or Customers table straight from a streaming database cursor to a CSV or NDJSON file. Rows are
+ * written as they arrive and are never collected into a list, so heap use stays the same no matter how large the table is.
+ *
+ * @author Alvin Roe
+ */
+public abstract class ScheduleExporter {
+    /**Size of the file write buffer*/
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    /**Tables that can be exported*/
+    public enum Table {APPOINTMENTS, CUSTOMERS}
+    /**File formats that can be written*/
+    public enum Format {
+        /**Comma separated values, with a header row*/
+        CSV,
+        /**Newline delimited JSON, one object per row*/
+        NDJSON;
+
+        /**
+         * Picks the format from a file name, using NDJSON for .ndjson or .jsonl files and CSV for anything else
+         * @param fileName the file name
+         * @return the format
+         */
+        public static Format fromFileName(String fileName) {
+            String lower = fileName.toLowerCase();
+            return lower.endsWith(".ndjson") || lower.endsWith(".jsonl") ? NDJSON : CSV;
+        }
+    }
+
+    /**
+     * Exports a table to a file, replacing the file if it exists
+     * @param table the table to export
+     * @param format the file format
+     * @param file the file to write
+     * @return rows, time, throughput and allocation for the export
+     * @throws IOException if the file can not be written
+     * @throws SQLException if the table can not be read
+     */
+    public static Report export(Table table, Format format, Path file) throws IOException, SQLException {
+        com.sun.management.ThreadMXBean threads = allocationCounter();
+        long allocatedBefore = threads == null ? -1 : threads.getCurrentThreadAllocatedBytes();
+        long startTime = System.nanoTime();
+        long rows;
+
+        try (BufferedWriter writer = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE)) {
+            ExportDAO.RowSink sink = format == Format.CSV ? new CsvSink(writer) : new NdjsonSink(writer);
+            rows = table == Table.APPOINTMENTS ? ExportDAO.streamAppointments(sink) : ExportDAO.streamCustomers(sink);
+        }
+
+        long elapsedNanos = System.nanoTime() - startTime;
+        long allocated = threads == null ? -1 : threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        return new Report(rows, elapsedNanos, Files.size(file), allocated);
+    }
+
+    /**
+     * @return the JVM's per-thread allocation counter, or null if this JVM does not have one
+     */
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        if(!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) return null;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled() ? threads : null;
+    }
+
+    /**
+     * Writes rows as CSV. Fields with commas, quotes or line breaks are quoted, with quotes doubled.
+     */
+    private static class CsvSink implements ExportDAO.RowSink {
+        /**Where the rows are written*/
+        private final Writer writer;
+
+        /**
+         * Constructor for CsvSink
+         * @param writer where the rows are written
+         */
+        private CsvSink(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void columns(String[] names, boolean[] numeric) throws IOException {
+            writeLine(names);
+        }
+
+        @Override
+        public void row(String[] values) throws IOException {
+            writeLine(values);
+        }
+
+        /**
+         * Writes one line of fields
+         * @param fields the fields, null is written as an empty field
+         * @throws IOException
+         */
+        private void writeLine(String[] fields) throws IOException {
+            for(int i = 0; i < fields.length; i++) {
+                if(i > 0) writer.write(',');
+                String field = fields[i];
+                if(field == null) continue;
+
+                boolean needsQuotes = field.indexOf(',') >= 0 || field.indexOf('"') >= 0 || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0;
+                if(!needsQuotes) {
+                    writer.write(field);
+                    continue;
+                }
+                writer.write('"');
+                for(int c = 0; c < field.length(); c++) {
+                    char character = field.charAt(c);
+                    if(character == '"') writer.write('"');
+                    writer.write(character);
+                }
+                writer.write('"');
+            }
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * Writes rows as newline delimited JSON objects. Number columns are written as JSON numbers, everything else as strings.
+     */
+    private static class NdjsonSink implements ExportDAO.RowSink {
+        /**Where the rows are written*/
+        private final Writer writer;
+        /**Column names, already escaped and quoted with the colon after them*/
+        private String[] keys;
+        /**True for columns that hold numbers*/
+        private boolean[] numeric;
+
+        /**
+         * Constructor for NdjsonSink
+         * @param writer where the rows are written
+         */
+        private NdjsonSink(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void columns(String[] names, boolean[] numeric) {
+            this.numeric = numeric.clone();
+            this.keys = new String[names.length];
+            for(int i = 0; i < names.length; i++) {
+                StringBuilder key = new StringBuilder();
+                appendJsonString(key, names[i]);
+                keys[i] = key.append(':').toString();
+            }
+        }
+
+        @Override
+        public void row(String[] values) throws IOException {
+            writer.write('{');
+            for(int i = 0; i < values.length; i++) {
+                if(i > 0) writer.write(',');
+                writer.write(keys[i]);
+                if(values[i] == null) writer.write("null");
+                else if(numeric[i]) writer.write(values[i]);
+                else writeJsonString(values[i]);
+            }
+            writer.write("}\n");
+        }
+
+        /**
+         * Writes a quoted and escaped JSON string
+         * @param value the text to write
+         * @throws IOException
+         */
+        private void writeJsonString(String value) throws IOException {
+            writer.write('"');
+            for(int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch(c) {
+                    case '"': writer.write("\\\""); break;
+                    case '\\': writer.write("\\\\"); break;
+                    case '\n': writer.write("\\n"); break;
+                    case '\r': writer.write("\\r"); break;
+                    case '\t': writer.write("\\t"); break;
+                    default:
+                        if(c < 0x20) writer.write(String.format("\\u%04x", (int) c));
+                        else writer.write(c);
+                }
+            }
+            writer.write('"');
+        }
+
+        /**
+         * Appends a quoted and escaped JSON string. Only used for the column names, which are written once.
+         * @param builder where to append
+         * @param value the text to append
+         */
+        private static void appendJsonString(StringBuilder builder, String value) {
+            builder.append('"');
+            for(int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if(c == '"' || c == '\\') builder.append('\\');
+                builder.append(c);
+            }
+            builder.append('"');
+        }
+    }
+
+    /**
+     * Outcome of an export
+     */
+    public static class Report {
+        /**Rows written*/
+        private final long rows;
+        /**Time the export took*/
+        private final long elapsedNanos;
+        /**Size of the written file*/
+        private final long bytesWritten;
+        /**Bytes allocated on the exporting thread, or -1 if the JVM can not tell*/
+        private final long bytesAllocated;
+
+        /**
+         * Constructor for Report
+         * @param rows rows written
+         * @param elapsedNanos time the export took
+         * @param bytesWritten size of the written file
+         * @param bytesAllocated bytes allocated on the exporting thread, or -1 if not known
+         */
+        private Report(long rows, long elapsedNanos, long bytesWritten, long bytesAllocated) {
+            this.rows = rows;
+            this.elapsedNanos = elapsedNanos;
+            this.bytesWritten = bytesWritten;
+            this.bytesAllocated = bytesAllocated;
+        }
+
+        /**
+         * @return rows written
+         */
+        public long getRows() {
+            return rows;
+        }
+
+        /**
+         * @return rows written per second
+         */
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rows / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        /**
+         * @return bytes allocated per row on the exporting thread, or -1 if not known
+         */
+        public long getBytesAllocatedPerRow() {
+            return bytesAllocated < 0 || rows == 0 ? -1 : bytesAllocated / rows;
+        }
+
+        /**
+         * @return one line summary of the export
+         */
+        @Override
+        public String toString() {
+            String allocation = bytesAllocated < 0 ? "allocation not measured" : String.format("%,d bytes allocated (%,d per row)", bytesAllocated, getBytesAllocatedPerRow());
+            return String.format("%,d rows, %,d bytes written in %d ms (%.0f rows/sec), %s",
+                    rows, bytesWritten, elapsedNanos / 1_000_000, getRowsPerSecond(), allocation);
+        }
+    }
+}
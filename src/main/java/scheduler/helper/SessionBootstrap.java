@@ -0,0 +1,130 @@
+package scheduler.helper;
+
+import scheduler.dao.ContactDAO;
+import scheduler.dao.DivisionCountryDAO;
+import scheduler.dao.ReferenceDataDAO;
+import scheduler.dao.UserDAO;
+import scheduler.model.Contact;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads the session's reference data with every table query running at the same time, each on its own pooled connection.
+ * The load is started as soon as the login succeeds, so it overlaps with loading the Schedule view, and the wait is only as
+ * long as the slowest query rather than all of them added together. How long each stage of the last load took, and the
+ * load as a whole, can be read with getStageNanos, so the overlap can be checked without a profiler.
+ *
+ * @author Alvin Roe
+ */
+public abstract class SessionBootstrap {
+    /**One thread per query that runs at the same time*/
+    private static final int LOADER_THREADS = 3;
+    /**Counts loader threads, for their names*/
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    /**Runs the queries. Stays well under the size of the connection pool.*/
+    private static final ExecutorService loaders = Executors.newFixedThreadPool(LOADER_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "session-bootstrap-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**The load that is running or has finished, or null if none has been started*/
+    private static CompletableFuture<ReferenceData> running;
+    /**Time each stage of the last load took in nanoseconds, keyed by stage name. Filled in by the loader threads as stages finish.*/
+    private static volatile Map<String, Long> stageNanos = new ConcurrentHashMap<>();
+
+    /**
+     * A query that can throw SQLException
+     * @param <T> the type the query returns
+     */
+    private interface Stage<T> {
+        /**
+         * @return the result of the query
+         * @throws SQLException
+         */
+        T load() throws SQLException;
+    }
+
+    /**
+     * Starts loading the reference data in the background. Does nothing if a load has already been started, unless that load failed.
+     * @return the running load
+     */
+    public static synchronized CompletableFuture<ReferenceData> start() {
+        if(running == null || running.isCompletedExceptionally()) running = load();
+        return running;
+    }
+
+    /**
+     * Waits for the reference data, starting the load first if needed.
+     * @return the loaded reference data
+     * @throws SQLException if any of the queries failed
+     */
+    public static ReferenceData await() throws SQLException {
+        try {
+            return start().join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof SQLException) throw (SQLException) e.getCause();
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Returns how long each stage of the last load took. The stages are "Version", "Contacts", "Users" and "Geography", and
+     * "Total" is the whole load. A stage that has not finished, or that failed, is left out.
+     * @return time each stage took in nanoseconds, keyed by stage name
+     */
+    public static Map<String, Long> getStageNanos() {
+        return Map.copyOf(stageNanos);
+    }
+
+    /**
+     * Reads the table watermarks, then runs the Contact, User and geography queries at the same time. The watermarks are read
+     * first, so a change made during the load is always newer than the snapshot's version and will be picked up by the next refresh.
+     * @return the running load
+     */
+    private static CompletableFuture<ReferenceData> load() {
+        Map<String, Long> timings = new ConcurrentHashMap<>();
+        stageNanos = timings;
+        long startedAt = System.nanoTime();
+
+        return stage("Version", ReferenceDataDAO::readVersion, timings).thenCompose(version -> {
+            CompletableFuture<List<Contact>> contacts = stage("Contacts", ContactDAO::selectAllContacts, timings);
+            CompletableFuture<Map<Integer, String>> users = stage("Users", UserDAO::getUserTable, timings);
+            CompletableFuture<GeographyIndex> geography = stage("Geography", DivisionCountryDAO::loadGeography, timings);
+
+            return CompletableFuture.allOf(contacts, users, geography).thenApply(done -> {
+                timings.put("Total", System.nanoTime() - startedAt);
+                return new ReferenceData(version, contacts.join(), users.join(), geography.join());
+            });
+        });
+    }
+
+    /**
+     * Runs one query on a loader thread and records how long it took.
+     * @param name name the time is recorded under
+     * @param stage the query to run
+     * @param timings where the time is recorded
+     * @param <T> the type the query returns
+     * @return the running query
+     */
+    private static <T> CompletableFuture<T> stage(String name, Stage<T> stage, Map<String, Long> timings) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                long startedAt = System.nanoTime();
+                T result = stage.load();
+                timings.put(name, System.nanoTime() - startedAt);
+                return result;
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, loaders);
+    }
+}
@@ -1,15 +1,12 @@
 package scheduler.helper;
 
-import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import scheduler.dao.ContactDAO;
-import scheduler.dao.DivisionCountryDAO;
-import scheduler.dao.UserDAO;
 import scheduler.model.*;
 
 import java.sql.SQLException;
 import java.time.*;
-import java.util.Hashtable;
+import java.util.EnumMap;
+import java.util.Map;
 
 /**
  * Holds variables for the current login session. Much of data is meant to minimize the amount of Database connections utilized by the app.
@@ -17,28 +14,14 @@ import java.util.Hashtable;
  * @author Alvin Roe
  */
 public abstract class SessionData {
-    /**Hashtable for the opening hours throughout the week*/
-    private static Hashtable<DayOfWeek, LocalTime> openHours = new Hashtable<>();
-    /**Hashtable for the closing hours throughout the week*/
-    private static Hashtable<DayOfWeek, LocalTime> closeHours = new Hashtable<>();
+    /**Map for the opening hours throughout the week*/
+    private static final Map<DayOfWeek, LocalTime> openHours = new EnumMap<>(DayOfWeek.class);
+    /**Map for the closing hours throughout the week*/
+    private static final Map<DayOfWeek, LocalTime> closeHours = new EnumMap<>(DayOfWeek.class);
     /**The current user_id from the Users table in the database. Usually set by the UserDAO class.*/
     private static int userID;
-    /**
-     * List of list of First Level Divisions separated by Country IDs
-     */
-    private static ObservableList<ObservableList<FirstLevelDivision>> firstLevelDivisionsSeparated;
-    /**List of all the First Level Divisions*/
-    private static ObservableList<FirstLevelDivision> firstLevelDivisions;
-    /**List of all of the Countries*/
-    private static ObservableList<Country> countries;
     /**The ID that is currently being Updated. Utilized for both Customers and Appointments*/
     private static int modifyID;
-    /**Table of Contacts, keys are ID and values are names*/
-    private static Hashtable<Integer, String> contactTable = new Hashtable<>();
-    /**Table of Usernames, keys are ID and values are names*/
-    private static Hashtable<Integer, String> userNameTable = new Hashtable<>();
-    /**List of all the contacts*/
-    private static ObservableList<Contact> contacts = FXCollections.observableArrayList();
 
     /**
      * Gets the User ID that logged in for the current session.
@@ -53,40 +36,20 @@ public abstract class SessionData {
     public static void setUserID(int newID) {userID = newID;}
 
     /**
-     * Creates and returns a list of ObservableLists for First Level divisions separated by Country ID
-     * @return list of ObservableLists for First Level divisions separated by Country ID
+     * Returns every Country and First Level Division, along with lookups between their IDs
+     * @return the geography index
      */
-    public static ObservableList<ObservableList<FirstLevelDivision>> getSeparatedFirstLevelDivisions(){
-        return firstLevelDivisionsSeparated;
-    }
-    /**
-     * Creates and returns a list of all First Level Divisions
-     * @return list of all First Level Divisions
-     */
-    public static ObservableList<FirstLevelDivision> getAllFirstLevelDivisions(){
-        return firstLevelDivisions;
-    }
-    /**
-     *Creates and returns a list of all countries
-     * @return list of all Countries
-     */
-    public static ObservableList<Country> getAllCountries(){
-        return countries;
+    public static GeographyIndex getGeography(){
+        return ReferenceDataCache.get().getGeography();
     }
     /**
      * Method called within the initialize method for the Schedule. It is only ran once.
      * @throws SQLException
      */
     public static void InitializeSessionData() throws SQLException {
-        //Create Hashtables for needed data
-        contactTable = ContactDAO.getHashtableContacts();
-        userNameTable = UserDAO.getUserTable();
-
-        //Get lists from the various DAOs
-        firstLevelDivisionsSeparated = DivisionCountryDAO.getSeparatedFirstLevelDivisions();
-        firstLevelDivisions = DivisionCountryDAO.getAllFirstLevelDivisions();
-        countries = DivisionCountryDAO.getAllCountries();
-        contacts = ContactDAO.selectAllContacts();
+        //Load the Contacts, Users, Countries and Divisions, then keep them current in the background. The load is usually already running from the login.
+        if(!ReferenceDataCache.isLoaded()) ReferenceDataCache.publish(SessionBootstrap.await());
+        ReferenceDataCache.startRefreshing();
 
         //Set hours of operation, currently set for 8am - 10pm EST. setHoursForDay does change the given hours from EST to the Zone ID time set on the local machine
         LocalDateTime openingTime = LocalDateTime.of(LocalDate.now(), LocalTime.of(8, 0));
@@ -119,7 +82,7 @@ public abstract class SessionData {
      * @param openingMinute
      * @param hoursTable
      */
-    private static void setHoursForDay(DayOfWeek day, int openingHour, int openingMinute, Hashtable<DayOfWeek, LocalTime> hoursTable){
+    private static void setHoursForDay(DayOfWeek day, int openingHour, int openingMinute, Map<DayOfWeek, LocalTime> hoursTable){
         LocalDateTime dateTime = LocalDateTime.of(LocalDate.now(), LocalTime.of(openingHour, openingMinute));
         ZonedDateTime dateTimeEST = ZonedDateTime.of(dateTime, ZoneId.of("America/New_York"));
         hoursTable.put(day, dateTimeEST.withZoneSameInstant(ZoneId.systemDefault()).toLocalTime());
@@ -147,15 +110,7 @@ public abstract class SessionData {
      * @return Country ID for the given First Level Division ID
      */
     public static int getCountryID(int divisionID){
-        int countryID;
-
-        for(int countryIndex = 0; countryIndex < firstLevelDivisionsSeparated.size(); countryIndex++){
-            for(int divisionIndex = 0; divisionIndex < firstLevelDivisionsSeparated.get(countryIndex).size(); divisionIndex++){
-                if(firstLevelDivisionsSeparated.get(countryIndex).get(divisionIndex).getDivisionID() == divisionID)
-                    return firstLevelDivisionsSeparated.get(countryIndex).get(divisionIndex).getCountryID();
-            }
-        }
-        return -1;
+        return getGeography().getCountryID(divisionID);
     }
 
     /**
@@ -164,7 +119,7 @@ public abstract class SessionData {
      * @return Contact Name for the given Contact ID
      */
     public static String getContactName(int contactID){
-        return contactTable.get(contactID);
+        return ReferenceDataCache.get().getContactName(contactID);
     }
 
     /**
@@ -172,7 +127,7 @@ public abstract class SessionData {
      * @return Username for the UserID that is currently logged in
      */
     public static String getUserName(){
-        return userNameTable.get(userID);
+        return ReferenceDataCache.get().getUserName(userID);
     }
 
     /**
@@ -180,7 +135,7 @@ public abstract class SessionData {
      * @return a list of all contacts
      */
     public static ObservableList<Contact> getContacts() {
-        return contacts;
+        return ReferenceDataCache.get().getContacts();
     }
 
     /**
@@ -199,12 +154,4 @@ public abstract class SessionData {
     public static LocalTime getClosingTime(DayOfWeek day){
         return closeHours.get(day);
     }
-
-    /**
-     * Sets the contacts
-     * @param contacts
-     */
-    public static void setContacts(ObservableList<Contact> contacts) {
-        SessionData.contacts = contacts;
-    }
 }
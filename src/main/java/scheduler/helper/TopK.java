@@ -0,0 +1,145 @@
+package scheduler.helper;
+
+/**
+ * Keeps the k IDs with the highest values out of a stream of (ID, value) pairs, using a bounded min-heap held in two
+ * primitive arrays. The lowest value kept is at the root, so a new pair only has to beat the root to get in, and the stream
+ * is read once in O(n log k) time with O(k) memory however long it is. Ties go to the lower ID, so results do not depend on
+ * the order the pairs arrive in.
+ *
+ * @author Alvin Roe
+ */
+public class TopK {
+    /**Most pairs kept*/
+    private final int k;
+    /**IDs in heap order until finish is called, then highest value first*/
+    private final int[] ids;
+    /**Values at the same index as their ID*/
+    private final long[] values;
+    /**Number of pairs kept*/
+    private int size;
+    /**True once finish has sorted the pairs*/
+    private boolean finished;
+
+    /**
+     * Constructor for TopK
+     * @param k most pairs to keep
+     */
+    public TopK(int k) {
+        this.k = k;
+        ids = new int[k];
+        values = new long[k];
+    }
+
+    /**
+     * Offers a pair from the stream
+     * @param id the ID
+     * @param value the value to rank it by
+     */
+    public void offer(int id, long value) {
+        if(finished) throw new IllegalStateException("TopK is already finished");
+        if(size < k) {
+            ids[size] = id;
+            values[size] = value;
+            siftUp(size++);
+        }
+        else if(k > 0 && ranksAbove(id, value, ids[0], values[0])) {
+            ids[0] = id;
+            values[0] = value;
+            siftDown(0, size);
+        }
+    }
+
+    /**
+     * Ends the stream and sorts the pairs kept, highest value first. Sorting is done in place by taking the root off the heap
+     * until it is empty, so no extra memory is needed.
+     * @return this TopK, for chaining
+     */
+    public TopK finish() {
+        if(finished) return this;
+        for(int end = size - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+        finished = true;
+        return this;
+    }
+
+    /**
+     * @return number of pairs kept, at most k
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param rank a rank, starting at 0 for the highest value. Only meaningful after finish.
+     * @return the ID at the rank
+     */
+    public int getID(int rank) {
+        return ids[rank];
+    }
+
+    /**
+     * @param rank a rank, starting at 0 for the highest value. Only meaningful after finish.
+     * @return the value at the rank
+     */
+    public long getValue(int rank) {
+        return values[rank];
+    }
+
+    /**
+     * @param id ID of the first pair
+     * @param value value of the first pair
+     * @param otherID ID of the second pair
+     * @param otherValue value of the second pair
+     * @return true if the first pair ranks above the second
+     */
+    private static boolean ranksAbove(int id, long value, int otherID, long otherValue) {
+        return value > otherValue || (value == otherValue && id < otherID);
+    }
+
+    /**
+     * Moves a pair up the heap until its parent ranks above it
+     * @param index the pair to move
+     */
+    private void siftUp(int index) {
+        while(index > 0) {
+            int parent = (index - 1) >>> 1;
+            if(!ranksAbove(ids[parent], values[parent], ids[index], values[index])) break;
+            swap(parent, index);
+            index = parent;
+        }
+    }
+
+    /**
+     * Moves a pair down the heap until it ranks below both its children
+     * @param index the pair to move
+     * @param end the number of pairs in the heap
+     */
+    private void siftDown(int index, int end) {
+        while(true) {
+            int lowest = index;
+            int left = index * 2 + 1;
+            int right = left + 1;
+            if(left < end && ranksAbove(ids[lowest], values[lowest], ids[left], values[left])) lowest = left;
+            if(right < end && ranksAbove(ids[lowest], values[lowest], ids[right], values[right])) lowest = right;
+            if(lowest == index) return;
+            swap(index, lowest);
+            index = lowest;
+        }
+    }
+
+    /**
+     * Swaps two pairs
+     * @param a index of one pair
+     * @param b index of the other pair
+     */
+    private void swap(int a, int b) {
+        int id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        long value = values[a];
+        values[a] = values[b];
+        values[b] = value;
+    }
+}
@@ -0,0 +1,57 @@
+package scheduler.helper;
+
+/**
+ * Row count and newest Last_Update of a set of Appointments. Utilized to tell whether Appointments kept in memory may be out
+ * of date, since an insert or delete changes the count and an update by any client stamps a newer Last_Update.
+ *
+ * @author Alvin Roe
+ */
+public final class Watermark {
+    /**Number of rows*/
+    private final long rowCount;
+    /**Newest Last_Update of the rows in epoch milliseconds, or 0 when there are none*/
+    private final long lastUpdateMillis;
+
+    /**
+     * Constructor for Watermark
+     * @param rowCount number of rows
+     * @param lastUpdateMillis newest Last_Update of the rows in epoch milliseconds, or 0 when there are none
+     */
+    public Watermark(long rowCount, long lastUpdateMillis) {
+        this.rowCount = rowCount;
+        this.lastUpdateMillis = lastUpdateMillis;
+    }
+
+    /**
+     * @return number of rows
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return newest Last_Update of the rows in epoch milliseconds, or 0 when there are none
+     */
+    public long getLastUpdateMillis() {
+        return lastUpdateMillis;
+    }
+
+    /**
+     * @param other the object to compare with
+     * @return true if other is a Watermark with the same count and Last_Update
+     */
+    @Override
+    public boolean equals(Object other) {
+        if(!(other instanceof Watermark)) return false;
+        Watermark watermark = (Watermark) other;
+        return rowCount == watermark.rowCount && lastUpdateMillis == watermark.lastUpdateMillis;
+    }
+
+    /**
+     * @return hash of the count and Last_Update
+     */
+    @Override
+    public int hashCode() {
+        return Long.hashCode(rowCount) * 31 + Long.hashCode(lastUpdateMillis);
+    }
+}
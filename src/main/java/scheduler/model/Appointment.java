@@ -4,6 +4,11 @@ import java.time.*;
 /**
  * Model object for an Appointment. Corresponds with data from the Appointments Table.
  *
+ * Kept compact, since whole tables of Appointments are held in memory. Dates are stored as epoch seconds and only turned into
+ * ZonedDateTimes in the user's time zone when asked for. Type and the user names are stored as codes from a shared
+ * StringDictionary, since the same few values repeat across most rows. Location is free text that can be different on every
+ * row, so it is kept as a plain String rather than growing the dictionary forever.
+ *
  * @author Alvin Roe
  */
 public class Appointment {
@@ -15,20 +20,20 @@ public class Appointment {
     private String description;
     /**Location of the Appointment*/
     private String location;
-    /**Type of the Appointment*/
-    private String type;
-    /**Start Date of the Appointment*/
-    private ZonedDateTime startDate;
-    /**End Date of the Appointment*/
-    private ZonedDateTime endDate;
-    /**Created Date of the Appointment*/
-    private ZonedDateTime createDate;
-    /**Created by of the Appointment*/
-    private String createdBy;
-    /**Last Updated date of the Appointment*/
-    private ZonedDateTime lastUpdate;
-    /**User who Last Updated the Appointment*/
-    private String lastUpdateBy;
+    /**Type of the Appointment, as a StringDictionary code*/
+    private int type;
+    /**Start Date of the Appointment, in epoch seconds*/
+    private long startSecond;
+    /**End Date of the Appointment, in epoch seconds*/
+    private long endSecond;
+    /**Created Date of the Appointment, in epoch seconds*/
+    private long createSecond;
+    /**Created by of the Appointment, as a StringDictionary code*/
+    private int createdBy;
+    /**Last Updated date of the Appointment, in epoch seconds*/
+    private long lastUpdateSecond;
+    /**User who Last Updated the Appointment, as a StringDictionary code*/
+    private int lastUpdateBy;
     /**Customer ID who is participating in this Appointment*/
     private int customerID;
     /**User ID for the person who set up this Appointment*/
@@ -56,17 +61,41 @@ public class Appointment {
     public Appointment(int appointmentID, String title, String description, String location, String type,
                        ZonedDateTime startDate, ZonedDateTime endDate, ZonedDateTime createDate, String createdBy, ZonedDateTime lastUpdate,
                        String lastUpdateBy, int customerID, int userID, int contactID) {
+        this(appointmentID, title, description, location, type, startDate.toEpochSecond(), endDate.toEpochSecond(),
+                createDate.toEpochSecond(), createdBy, lastUpdate.toEpochSecond(), lastUpdateBy, customerID, userID, contactID);
+    }
+
+    /**
+     * Constructor for Appointment that takes the dates as epoch seconds, as they are read from the database
+     * @param appointmentID Primary Key for Appointment
+     * @param title
+     * @param description
+     * @param location
+     * @param type
+     * @param startSecond start date and time in epoch seconds
+     * @param endSecond end date and time in epoch seconds
+     * @param createSecond created date and time in epoch seconds
+     * @param createdBy
+     * @param lastUpdateSecond last updated date and time in epoch seconds
+     * @param lastUpdateBy
+     * @param customerID The ID for the Customer who this appointment is for
+     * @param userID The user ID of the person logged in to set up this appointment
+     * @param contactID The contact ID for the contact for this appointment
+     */
+    public Appointment(int appointmentID, String title, String description, String location, String type,
+                       long startSecond, long endSecond, long createSecond, String createdBy, long lastUpdateSecond,
+                       String lastUpdateBy, int customerID, int userID, int contactID) {
         this.appointmentID = appointmentID;
         this.title = title;
         this.description = description;
         this.location = location;
-        this.type = type;
-        this.startDate = startDate;
-        this.endDate = endDate;
-        this.createDate = createDate;
-        this.createdBy = createdBy;
-        this.lastUpdate = lastUpdate;
-        this.lastUpdateBy = lastUpdateBy;
+        this.type = StringDictionary.encode(type);
+        this.startSecond = startSecond;
+        this.endSecond = endSecond;
+        this.createSecond = createSecond;
+        this.createdBy = StringDictionary.encode(createdBy);
+        this.lastUpdateSecond = lastUpdateSecond;
+        this.lastUpdateBy = StringDictionary.encode(lastUpdateBy);
         this.customerID = customerID;
         this.userID = userID;
         this.contactID = contactID;
@@ -80,13 +109,14 @@ public class Appointment {
         title = "";
         description = "";
         location = "";
-        type = "";
-        startDate = ZonedDateTime.now();
-        endDate = ZonedDateTime.now();
-        createDate = ZonedDateTime.now();
-        createdBy = "";
-        lastUpdate = ZonedDateTime.now();
-        lastUpdateBy = "";
+        type = StringDictionary.encode("");
+        long now = Instant.now().getEpochSecond();
+        startSecond = now;
+        endSecond = now;
+        createSecond = now;
+        createdBy = StringDictionary.encode("");
+        lastUpdateSecond = now;
+        lastUpdateBy = StringDictionary.encode("");
         customerID = 0;
         userID = 0;
         contactID = 0;
@@ -160,7 +190,7 @@ public class Appointment {
      * @return type of appointment
      */
     public String getType() {
-        return type;
+        return StringDictionary.decode(type);
     }
 
     /**
@@ -168,14 +198,21 @@ public class Appointment {
      * @param type text for the type of appointment
      */
     public void setType(String type) {
-        this.type = type;
+        this.type = StringDictionary.encode(type);
     }
 
     /**
      * @return Start Date of the Appointment
      */
     public ZonedDateTime getStartDate(){
-        return startDate;
+        return toLocalZone(startSecond);
+    }
+
+    /**
+     * @return Start Date of the Appointment in epoch seconds
+     */
+    public long getStartSecond() {
+        return startSecond;
     }
 
     /**
@@ -183,14 +220,21 @@ public class Appointment {
      * @param startDate start date and time of the appointment
      */
     public void setStartDate(ZonedDateTime startDate) {
-        this.startDate = startDate;
+        this.startSecond = startDate.toEpochSecond();
     }
 
     /**
      * @return End date and time of the appointment
      */
     public ZonedDateTime getEndDate() {
-        return endDate;
+        return toLocalZone(endSecond);
+    }
+
+    /**
+     * @return End date and time of the appointment in epoch seconds
+     */
+    public long getEndSecond() {
+        return endSecond;
     }
 
     /**
@@ -198,28 +242,35 @@ public class Appointment {
      * @param endDate end date and time of the appointment
      */
     public void setEndDate(ZonedDateTime endDate) {
-        this.endDate = endDate;
+        this.endSecond = endDate.toEpochSecond();
     }
 
     /**
      * @return Date and Time this appointment was created
      */
     public ZonedDateTime getCreateDate() {
-        return createDate;
+        return toLocalZone(createSecond);
+    }
+
+    /**
+     * @return Date and Time this appointment was created, in epoch seconds
+     */
+    public long getCreateSecond() {
+        return createSecond;
     }
     /**
      *Changes the Created Date and Time for the apppointment
      * @param createDate the Date and Time the appointment was created on
      */
     public void setCreateDate(ZonedDateTime createDate) {
-        this.createDate = createDate;
+        this.createSecond = createDate.toEpochSecond();
     }
 
     /**
      * @return The user who created this appointment
      */
     public String getCreatedBy() {
-        return createdBy;
+        return StringDictionary.decode(createdBy);
     }
 
     /**
@@ -227,14 +278,21 @@ public class Appointment {
      * @param createdBy The user who created this appointment
      */
     public void setCreatedBy(String createdBy) {
-        this.createdBy = createdBy;
+        this.createdBy = StringDictionary.encode(createdBy);
     }
 
     /**
      * @return date and time this appointment was last updated on
      */
     public ZonedDateTime getLastUpdate() {
-        return lastUpdate;
+        return toLocalZone(lastUpdateSecond);
+    }
+
+    /**
+     * @return date and time this appointment was last updated on, in epoch seconds
+     */
+    public long getLastUpdateSecond() {
+        return lastUpdateSecond;
     }
 
     /**
@@ -242,14 +300,14 @@ public class Appointment {
      * @param lastUpdate the date and time this appointment was last updated on
      */
     public void setLastUpdate(ZonedDateTime lastUpdate) {
-        this.lastUpdate = lastUpdate;
+        this.lastUpdateSecond = lastUpdate.toEpochSecond();
     }
 
     /**
      * @return the user who last updated the appointment
      */
     public String getLastUpdateBy() {
-        return lastUpdateBy;
+        return StringDictionary.decode(lastUpdateBy);
     }
 
     /**
@@ -257,7 +315,7 @@ public class Appointment {
      * @param lastUpdateBy the user who last updated appointment
      */
     public void setLastUpdateBy(String lastUpdateBy) {
-        this.lastUpdateBy = lastUpdateBy;
+        this.lastUpdateBy = StringDictionary.encode(lastUpdateBy);
     }
 
     /**
@@ -304,4 +362,13 @@ public class Appointment {
     public void setContactID(int contactID) {
         this.contactID = contactID;
     }
+
+    /**
+     * Helper method that turns epoch seconds into a date and time in the user's time zone
+     * @param epochSecond the epoch seconds
+     * @return the date and time in the user's time zone
+     */
+    private static ZonedDateTime toLocalZone(long epochSecond) {
+        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneId.systemDefault());
+    }
 }
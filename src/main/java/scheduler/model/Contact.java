@@ -31,6 +31,13 @@ public class Contact {
         return contactID;
     }
 
+    /**
+     * @return name of the contact
+     */
+    public String getContactName() {
+        return contactName;
+    }
+
     /**
      * Overrides toString for the readability of ComboBoxes
      * @return
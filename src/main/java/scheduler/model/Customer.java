@@ -1,11 +1,16 @@
 package scheduler.model;
 
+import java.time.Instant;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.Date;
 
 /**
  * Customer object modelled after the data table connected through CustomerDAO
  *
+ * Dates are stored as epoch seconds and only turned into ZonedDateTimes in the user's time zone when asked for. The user
+ * names in the created by and last updated by columns are stored as codes from a shared StringDictionary.
+ *
  * @author Alvin Roe
  */
 
@@ -20,14 +25,14 @@ public class Customer {
     private String postal;
     /**Phone Number of the Customer*/
     private String phone;
-    /**Created Date and Time  of the Customer*/
-    private ZonedDateTime createDate;
-    /**User who created the customer*/
-    private String author;
-    /**Date and Time customer was updated*/
-    private ZonedDateTime lastUpdate;
-    /**User who updated the customer*/
-    private String lastAuthor;
+    /**Created Date and Time  of the Customer, in epoch seconds*/
+    private long createSecond;
+    /**User who created the customer, as a StringDictionary code*/
+    private int author;
+    /**Date and Time customer was updated, in epoch seconds*/
+    private long lastUpdateSecond;
+    /**User who updated the customer, as a StringDictionary code*/
+    private int lastAuthor;
     /**First Level Division ID*/
     private int divisionID;
 
@@ -45,15 +50,32 @@ public class Customer {
      * @param divisionID First Level Division ID
      */
     public Customer(int id, String name, String address, String postal, String phone, ZonedDateTime createDate, String author, ZonedDateTime lastUpdate, String lastAuthor, int divisionID) {
+        this(id, name, address, postal, phone, createDate.toEpochSecond(), author, lastUpdate.toEpochSecond(), lastAuthor, divisionID);
+    }
+
+    /**
+     * Customer constructor that takes the dates as epoch seconds, as they are read from the database
+     * @param id Primary Key
+     * @param name
+     * @param address
+     * @param postal
+     * @param phone
+     * @param createSecond created date and time in epoch seconds
+     * @param author
+     * @param lastUpdateSecond last updated date and time in epoch seconds
+     * @param lastAuthor
+     * @param divisionID First Level Division ID
+     */
+    public Customer(int id, String name, String address, String postal, String phone, long createSecond, String author, long lastUpdateSecond, String lastAuthor, int divisionID) {
         this.id = id;
         this.name = name;
         this.address = address;
         this.postal = postal;
         this.phone = phone;
-        this.createDate = createDate;
-        this.author = author;
-        this.lastUpdate = lastUpdate;
-        this.lastAuthor = lastAuthor;
+        this.createSecond = createSecond;
+        this.author = StringDictionary.encode(author);
+        this.lastUpdateSecond = lastUpdateSecond;
+        this.lastAuthor = StringDictionary.encode(lastAuthor);
         this.divisionID = divisionID;
     }
 
@@ -66,10 +88,10 @@ public class Customer {
         address = "";
         postal = "";
         phone = "";
-        createDate = ZonedDateTime.now();
-        author = "";
-        lastUpdate = ZonedDateTime.now();
-        lastAuthor = "";
+        createSecond = Instant.now().getEpochSecond();
+        author = StringDictionary.encode("");
+        lastUpdateSecond = createSecond;
+        lastAuthor = StringDictionary.encode("");
         divisionID = 0;
     }
 
@@ -158,7 +180,15 @@ public class Customer {
      * @return Date and Time that this was created
      */
     public ZonedDateTime getCreateDate() {
-        return createDate;
+        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(createSecond), ZoneId.systemDefault());
+    }
+
+    /**
+     *
+     * @return Date and Time that this was created, in epoch seconds
+     */
+    public long getCreateSecond() {
+        return createSecond;
     }
 
     /**
@@ -166,7 +196,7 @@ public class Customer {
      * @param date The date and time that this was created
      */
     public void setCreateDate(ZonedDateTime date) {
-        this.createDate = date;
+        this.createSecond = date.toEpochSecond();
     }
 
     /**
@@ -174,7 +204,7 @@ public class Customer {
      * @return user who created this Customer
      */
     public String getAuthor() {
-        return author;
+        return StringDictionary.decode(author);
     }
 
     /**
@@ -182,7 +212,7 @@ public class Customer {
      * @param author the text for the user who created this customer
      */
     public void setAuthor(String author) {
-        this.author = author;
+        this.author = StringDictionary.encode(author);
     }
 
     /**
@@ -190,7 +220,15 @@ public class Customer {
      * @return Date and Time the customer was last updated
      */
     public ZonedDateTime getLastUpdate() {
-        return lastUpdate;
+        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(lastUpdateSecond), ZoneId.systemDefault());
+    }
+
+    /**
+     *
+     * @return Date and Time the customer was last updated, in epoch seconds
+     */
+    public long getLastUpdateSecond() {
+        return lastUpdateSecond;
     }
 
     /**
@@ -198,7 +236,7 @@ public class Customer {
      * @param lastUpdate Date and Time that customer was last updated
      */
     public void setLastUpdate(ZonedDateTime lastUpdate) {
-        this.lastUpdate = lastUpdate;
+        this.lastUpdateSecond = lastUpdate.toEpochSecond();
     }
 
     /**
@@ -206,7 +244,7 @@ public class Customer {
      * @return last user that updated the customer
      */
     public String getLastAuthor() {
-        return lastAuthor;
+        return StringDictionary.decode(lastAuthor);
     }
 
     /**
@@ -214,7 +252,7 @@ public class Customer {
      * @param lastAuthor text of the user that last updated the customer
      */
     public void setLastAuthor(String lastAuthor) {
-        this.lastAuthor = lastAuthor;
+        this.lastAuthor = StringDictionary.encode(lastAuthor);
     }
 
     /**
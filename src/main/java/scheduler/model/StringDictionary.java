@@ -0,0 +1,61 @@
+package scheduler.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared dictionary for the low-cardinality text columns of the models, such as type and the user names in the
+ * created by and last updated by columns. Each distinct value is stored once and the models keep its int code, so a million
+ * rows with the same few types share the same few Strings. Code 0 stands for null.
+ *
+ * Values are never removed, so only columns with a small set of repeating values should be encoded. Free text such as an
+ * Appointment's location is kept as a plain String instead.
+ *
+ * @author Alvin Roe
+ */
+final class StringDictionary {
+    /**Code of each value*/
+    private static final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    /**Value of each code. Replaced with a larger copy when full.*/
+    private static volatile String[] values = new String[64];
+    /**Next code to hand out*/
+    private static int nextCode = 1;
+
+    /**
+     * Constructor is private, as this class is only used through its static methods
+     */
+    private StringDictionary() {
+    }
+
+    /**
+     * @param value the text to encode
+     * @return the code for the text, adding it to the dictionary if it is new
+     */
+    static int encode(String value) {
+        if(value == null) return 0;
+        Integer code = codes.get(value);
+        if(code != null) return code;
+
+        synchronized(StringDictionary.class) {
+            code = codes.get(value);
+            if(code != null) return code;
+
+            String[] current = values;
+            if(nextCode == current.length) current = Arrays.copyOf(current, current.length * 2);
+            current[nextCode] = value;
+            values = current;
+            //Added to the map last, so any thread that finds the code also sees the value
+            codes.put(value, nextCode);
+            return nextCode++;
+        }
+    }
+
+    /**
+     * @param code a code from encode
+     * @return the text for the code
+     */
+    static String decode(int code) {
+        return values[code];
+    }
+}